@@ -6,6 +6,7 @@ import io.tapdata.common.constant.MqOp;
 import io.tapdata.connector.kafka.admin.Admin;
 import io.tapdata.connector.kafka.admin.DefaultAdmin;
 import io.tapdata.connector.kafka.config.*;
+import io.tapdata.connector.kafka.util.BinaryValueCodec;
 import io.tapdata.connector.kafka.util.Krb5Util;
 import io.tapdata.connector.kafka.util.ObjectUtils;
 import io.tapdata.constant.MqTestItem;
@@ -36,6 +37,10 @@ import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
 import org.apache.kafka.common.header.internals.RecordHeaders;
 
 import javax.script.Invocable;
@@ -44,8 +49,11 @@ import javax.script.ScriptException;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
@@ -59,7 +67,9 @@ public class KafkaService extends AbstractMqService {
     private String connectorId;
     private KafkaProducer<byte[], byte[]> kafkaProducer;
     private KafkaConfig kafkaConfig;
+    private final BinaryValueCodec binaryValueCodec = new BinaryValueCodec();
     private static final ScriptFactory scriptFactory = InstanceFactory.instance(ScriptFactory.class, "tapdata"); //script factory
+    private long partitionRefreshIntervalMs = TimeUnit.MINUTES.toMillis(1);
 
 
     public KafkaService() {
@@ -203,7 +213,7 @@ public class KafkaService extends AbstractMqService {
                         }
                         Map<String, Object> messageBody;
                         try {
-                            messageBody = jsonParser.fromJsonBytes(record.value(), Map.class);
+                            messageBody = parseValue(record);
                         } catch (Exception e) {
                             tapLogger.error("topic[{}] value [{}] can not parse to json, ignore...", record.topic(), record.value());
                             continue;
@@ -256,6 +266,11 @@ public class KafkaService extends AbstractMqService {
         AtomicLong delete = new AtomicLong(0);
         WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
         CountDownLatch countDownLatch = new CountDownLatch(tapRecordEvents.size());
+        // headers are the same for all events of an operation, built once per batch
+        BinaryValueCodec.TableSchema tableSchema = ((KafkaConfig) mqConfig).isBinaryValueEncoding()
+                ? binaryValueCodec.schema(tapTable.getId(), null == tapTable.getNameFieldMap() ? null : tapTable.getNameFieldMap().keySet()) : null;
+        Map<MqOp, List<Header>> opHeaders = new EnumMap<>(MqOp.class);
+        Map<MqOp, List<Header>> binaryOpHeaders = new EnumMap<>(MqOp.class);
         try {
             for (TapRecordEvent event : tapRecordEvents) {
                 if (null != isAlive && !isAlive.get()) {
@@ -274,7 +289,23 @@ public class KafkaService extends AbstractMqService {
                 } else {
                     data = new HashMap<>();
                 }
-                byte[] body = jsonParser.toJsonBytes(data);
+                byte[] body = null;
+                List<Header> headers;
+                if (null != tableSchema) {
+                    try {
+                        body = tableSchema.encode(data);
+                    } catch (IllegalArgumentException e) {
+                        // a value of a type the codec does not support, send this record as json
+                        tapLogger.debug("Record of table {} is sent as json: {}", tapTable.getId(), e.getMessage());
+                    }
+                }
+                if (null != body) {
+                    headers = binaryOpHeaders.computeIfAbsent(mqOp, op -> Arrays.asList(
+                            new RecordHeader("mqOp", op.getOp().getBytes()), new RecordHeader(BinaryValueCodec.SCHEMA_HEADER, tableSchema.getHeader())));
+                } else {
+                    body = jsonParser.toJsonBytes(data);
+                    headers = opHeaders.computeIfAbsent(mqOp, op -> Collections.singletonList(new RecordHeader("mqOp", op.getOp().getBytes())));
+                }
                 MqOp finalMqOp = mqOp;
                 Callback callback = (metadata, exception) -> {
                     try {
@@ -297,8 +328,7 @@ public class KafkaService extends AbstractMqService {
                     }
                 };
                 ProducerRecord<byte[], byte[]> producerRecord = new ProducerRecord<>(tapTable.getId(),
-                        null, event.getTime(), getKafkaMessageKey(data, tapTable), body,
-                        new RecordHeaders().add("mqOp", mqOp.getOp().getBytes()));
+                        null, event.getTime(), getKafkaMessageKey(data, tapTable), body, headers);
                 kafkaProducer.send(producerRecord, callback);
             }
         } catch (RejectedExecutionException e) {
@@ -531,6 +561,201 @@ public class KafkaService extends AbstractMqService {
         kafkaConsumer.close();
     }
 
+    /**
+     * Consume with {@link KafkaConfig#getKafkaConsumerThreads()} threads if it is greater than 1, otherwise same as
+     * {@link #streamConsume(List, int, BiConsumer)}.
+     * <p>
+     * Partitions of all topics are split among the threads, every thread assigns its partitions to its own consumer, polls
+     * and decodes them, so the order in a partition is kept. The stream offset is a map of "topic-partition" to the next
+     * offset of the partition, updated when events of the partition are handed over, and is used to seek on restart.
+     * Assigned partitions are not rebalanced by the group, so partitions are listed again every
+     * {@link #partitionRefreshIntervalMs}, and the threads are restarted with a new split when partitions are added.
+     *
+     * @param offsetState offset map of the last run, other types start from the committed offsets of the group
+     */
+    public void streamConsume(List<String> tableList, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
+        int threads = null == ((KafkaConfig) mqConfig).getKafkaConsumerThreads() ? 1 : ((KafkaConfig) mqConfig).getKafkaConsumerThreads();
+        if (threads <= 1) {
+            streamConsume(tableList, eventBatchSize, eventsOffsetConsumer);
+            return;
+        }
+        consuming.set(true);
+        try {
+            List<TopicPartition> topicPartitions = listPartitions(tableList);
+            if (topicPartitions.isEmpty()) {
+                tapLogger.warn("No partition found for topics: {}", tableList);
+                return;
+            }
+            Map<String, Long> partitionOffsets = new HashMap<>();
+            if (offsetState instanceof Map) {
+                ((Map<?, ?>) offsetState).forEach((k, v) -> {
+                    if (v instanceof Number) {
+                        partitionOffsets.put(String.valueOf(k), ((Number) v).longValue());
+                    }
+                });
+            }
+            while (consuming.get()) {
+                List<TopicPartition> addedPartitions = consumeAssigned(tableList, topicPartitions, threads, partitionOffsets, eventBatchSize, eventsOffsetConsumer);
+                if (null == addedPartitions) {
+                    break;
+                }
+                // nothing of a new partition is consumed yet, read it from the beginning
+                synchronized (partitionOffsets) {
+                    for (TopicPartition topicPartition : addedPartitions) {
+                        partitionOffsets.putIfAbsent(topicPartition.toString(), 0L);
+                    }
+                }
+                tapLogger.info("Kafka partitions added: {}, reassign partitions to threads", addedPartitions);
+                topicPartitions = new ArrayList<>(topicPartitions);
+                topicPartitions.addAll(addedPartitions);
+            }
+        } finally {
+            consuming.set(false);
+        }
+    }
+
+    /**
+     * Consume the partitions until stopped or new partitions are found
+     *
+     * @return added partitions, null if stopped
+     */
+    private List<TopicPartition> consumeAssigned(List<String> tableList, List<TopicPartition> topicPartitions, int threads, Map<String, Long> partitionOffsets,
+                                                 int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
+        threads = Math.min(threads, topicPartitions.size());
+        List<List<TopicPartition>> assignments = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            assignments.add(new ArrayList<>());
+        }
+        for (int i = 0; i < topicPartitions.size(); i++) {
+            assignments.get(i % threads).add(topicPartitions.get(i));
+        }
+        tapLogger.info("Kafka stream consume with {} threads, partitions: {}", threads, assignments);
+        AtomicBoolean assigned = new AtomicBoolean(true);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<TopicPartition> addedPartitions = null;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch countDownLatch = new CountDownLatch(threads);
+            for (List<TopicPartition> assignment : assignments) {
+                executorService.submit(() -> {
+                    try {
+                        consumePartitions(assignment, partitionOffsets, assigned, eventBatchSize, eventsOffsetConsumer);
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                        consuming.set(false);
+                    } finally {
+                        countDownLatch.countDown();
+                    }
+                });
+            }
+            while (!countDownLatch.await(partitionRefreshIntervalMs, TimeUnit.MILLISECONDS)) {
+                addedPartitions = addedPartitions(tableList, topicPartitions);
+                if (!addedPartitions.isEmpty()) {
+                    assigned.set(false);
+                    countDownLatch.await();
+                    break;
+                }
+            }
+        } finally {
+            assigned.set(false);
+            executorService.shutdownNow();
+        }
+        if (null != error.get()) {
+            throw error.get();
+        }
+        return null == addedPartitions || addedPartitions.isEmpty() ? null : addedPartitions;
+    }
+
+    private List<TopicPartition> addedPartitions(List<String> tableList, List<TopicPartition> topicPartitions) {
+        try {
+            List<TopicPartition> addedPartitions = listPartitions(tableList);
+            addedPartitions.removeAll(topicPartitions);
+            return addedPartitions;
+        } catch (Exception e) {
+            tapLogger.warn("List partitions of topics {} failed, keep current assignment: {}", tableList, e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private List<TopicPartition> listPartitions(List<String> tableList) {
+        List<TopicPartition> topicPartitions = new ArrayList<>();
+        try (org.apache.kafka.clients.consumer.Consumer<byte[], byte[]> metadataConsumer = createConsumer()) {
+            for (String topic : tableList) {
+                List<PartitionInfo> partitionInfos = metadataConsumer.partitionsFor(topic);
+                if (null == partitionInfos) {
+                    continue;
+                }
+                for (PartitionInfo partitionInfo : partitionInfos) {
+                    topicPartitions.add(new TopicPartition(partitionInfo.topic(), partitionInfo.partition()));
+                }
+            }
+        }
+        return topicPartitions;
+    }
+
+    protected org.apache.kafka.clients.consumer.Consumer<byte[], byte[]> createConsumer() {
+        return new KafkaConsumer<>(new ConsumerConfiguration(((KafkaConfig) mqConfig), connectorId, true).build());
+    }
+
+    private void consumePartitions(List<TopicPartition> assignment, Map<String, Long> partitionOffsets, AtomicBoolean assigned,
+                                   int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) {
+        try (org.apache.kafka.clients.consumer.Consumer<byte[], byte[]> kafkaConsumer = createConsumer()) {
+            kafkaConsumer.assign(assignment);
+            synchronized (partitionOffsets) {
+                for (TopicPartition topicPartition : assignment) {
+                    Long offset = partitionOffsets.get(topicPartition.toString());
+                    if (null != offset) {
+                        kafkaConsumer.seek(topicPartition, offset);
+                    }
+                }
+            }
+            List<TapEvent> list = TapSimplify.list();
+            Map<String, Long> consumedOffsets = new HashMap<>();
+            while (consuming.get() && assigned.get()) {
+                ConsumerRecords<byte[], byte[]> consumerRecords = kafkaConsumer.poll(Duration.ofSeconds(2L));
+                for (ConsumerRecord<byte[], byte[]> consumerRecord : consumerRecords) {
+                    makeMessage(consumerRecord, list, consumerRecord.topic());
+                    consumedOffsets.put(consumerRecord.topic() + "-" + consumerRecord.partition(), consumerRecord.offset() + 1);
+                    if (list.size() >= eventBatchSize) {
+                        handOver(list, consumedOffsets, partitionOffsets, eventsOffsetConsumer);
+                        list = TapSimplify.list();
+                    }
+                }
+                // do not hold events of a slow partition for the next poll
+                if (EmptyKit.isNotEmpty(list)) {
+                    handOver(list, consumedOffsets, partitionOffsets, eventsOffsetConsumer);
+                    list = TapSimplify.list();
+                }
+            }
+        }
+    }
+
+    /**
+     * Events of all threads are handed over one batch at a time, the offset map only contains events handed over
+     */
+    private void handOver(List<TapEvent> list, Map<String, Long> consumedOffsets, Map<String, Long> partitionOffsets, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) {
+        synchronized (partitionOffsets) {
+            partitionOffsets.putAll(consumedOffsets);
+            consumedOffsets.clear();
+            eventsOffsetConsumer.accept(list, new HashMap<>(partitionOffsets));
+        }
+    }
+
+    void setPartitionRefreshIntervalMs(long partitionRefreshIntervalMs) {
+        this.partitionRefreshIntervalMs = partitionRefreshIntervalMs;
+    }
+
+    /**
+     * Values with {@link BinaryValueCodec#SCHEMA_HEADER} are binary encoded, others are json
+     */
+    private Map<String, Object> parseValue(ConsumerRecord<byte[], byte[]> consumerRecord) {
+        Header schemaHeader = consumerRecord.headers().lastHeader(BinaryValueCodec.SCHEMA_HEADER);
+        if (null != schemaHeader) {
+            return binaryValueCodec.decode(schemaHeader.value(), consumerRecord.value());
+        }
+        return jsonParser.fromJsonBytes(consumerRecord.value(), Map.class);
+    }
+
     private void makeMessage(ConsumerRecord<byte[], byte[]> consumerRecord, List<TapEvent> list, String tableName) {
         AtomicReference<String> mqOpReference = new AtomicReference<>();
         mqOpReference.set(MqOp.INSERT.getOp());
@@ -546,7 +771,7 @@ public class KafkaService extends AbstractMqService {
                 list.add(tapFieldBaseEvent);
             });
         } else {
-            Map<String, Object> data = jsonParser.fromJsonBytes(consumerRecord.value(), Map.class);
+            Map<String, Object> data = parseValue(consumerRecord);
             switch (MqOp.fromValue(mqOpReference.get())) {
                 case INSERT:
                     list.add(new TapInsertRecordEvent().init().table(tableName).after(data).referenceTime(System.currentTimeMillis()));
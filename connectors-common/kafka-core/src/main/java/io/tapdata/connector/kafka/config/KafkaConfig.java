@@ -27,6 +27,7 @@ public class KafkaConfig extends MqConfig {
     private Integer kafkaMaxFetchBytes = 0;
     private Integer kafkaMaxFetchWaitMS = 0;
     private Boolean kafkaIgnoreInvalidRecord = false;
+    private Integer kafkaConsumerThreads = 1;
     /**
      * kafka target (Producer)
      */
@@ -43,6 +44,7 @@ public class KafkaConfig extends MqConfig {
     private String kafkaCompressionType = "";
     private String kafkaPartitionKey = "";
     private Boolean kafkaIgnorePushError = false;
+    private String kafkaValueEncoding = "json";
 
     public Set<String> getKafkaRawTopics() {
         return kafkaRawTopics;
@@ -156,6 +158,14 @@ public class KafkaConfig extends MqConfig {
         this.kafkaIgnoreInvalidRecord = kafkaIgnoreInvalidRecord;
     }
 
+    public Integer getKafkaConsumerThreads() {
+        return kafkaConsumerThreads;
+    }
+
+    public void setKafkaConsumerThreads(Integer kafkaConsumerThreads) {
+        this.kafkaConsumerThreads = kafkaConsumerThreads;
+    }
+
     public Integer getKafkaProducerRequestTimeout() {
         return kafkaProducerRequestTimeout;
     }
@@ -259,4 +269,16 @@ public class KafkaConfig extends MqConfig {
     public void setKafkaIgnorePushError(Boolean kafkaIgnorePushError) {
         this.kafkaIgnorePushError = kafkaIgnorePushError;
     }
+
+    public String getKafkaValueEncoding() {
+        return kafkaValueEncoding;
+    }
+
+    public void setKafkaValueEncoding(String kafkaValueEncoding) {
+        this.kafkaValueEncoding = kafkaValueEncoding;
+    }
+
+    public boolean isBinaryValueEncoding() {
+        return "binary".equals(kafkaValueEncoding);
+    }
 }
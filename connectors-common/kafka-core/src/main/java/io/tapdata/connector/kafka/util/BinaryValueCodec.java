@@ -0,0 +1,472 @@
+package io.tapdata.connector.kafka.util;
+
+import io.tapdata.entity.schema.value.DateTime;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary message value, tagged by the field list of the table.
+ * <p>
+ * The field names of the table are sent once per message in the {@link #SCHEMA_HEADER} header (the same byte array for
+ * every message of the table, so batch compression removes it), the value only contains the field values in schema
+ * order: a type tag followed by varint / fixed width / length prefixed bytes. Keys that are not in the schema
+ * (schema-free data) are appended with their names. Schemas are cached by table on the producer side and by header on
+ * the consumer side.
+ * <p>
+ * Every supported type is decoded to the same class it was encoded from (temporal values keep their nanoseconds and
+ * zone), other types are rejected by {@link TableSchema#encode(Map)}, so they are never changed to strings silently.
+ */
+public class BinaryValueCodec {
+
+    public static final String SCHEMA_HEADER = "tapSchema";
+    private static final byte FORMAT_VERSION = 1;
+    private static final char FIELD_DELIMITER = '\u0000';
+    private static final int MAX_DECODE_SCHEMAS = 1024;
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte FLOAT = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte STRING = 7;
+    private static final byte BYTES = 8;
+    private static final byte BIG_DECIMAL = 9;
+    private static final byte BIG_INTEGER = 10;
+    private static final byte DATE = 11;
+    private static final byte MAP = 12;
+    private static final byte LIST = 13;
+    private static final byte ABSENT = 14;
+    private static final byte TIMESTAMP = 15;
+    private static final byte SQL_DATE = 16;
+    private static final byte SQL_TIME = 17;
+    private static final byte INSTANT = 18;
+    private static final byte LOCAL_DATE_TIME = 19;
+    private static final byte LOCAL_DATE = 20;
+    private static final byte LOCAL_TIME = 21;
+    private static final byte OFFSET_DATE_TIME = 22;
+    private static final byte ZONED_DATE_TIME = 23;
+    private static final byte TAP_DATE_TIME = 24;
+
+    private final Map<String, TableSchema> tableSchemas = new ConcurrentHashMap<>();
+    private final Map<String, String[]> decodeSchemas = new ConcurrentHashMap<>();
+
+    /**
+     * @return cached schema of the table, rebuilt if the fields of the table changed
+     */
+    public TableSchema schema(String tableId, Collection<String> fieldNames) {
+        String[] fields = null == fieldNames ? new String[0] : fieldNames.toArray(new String[0]);
+        TableSchema tableSchema = tableSchemas.get(tableId);
+        if (null == tableSchema || !Arrays.equals(tableSchema.fields, fields)) {
+            tableSchema = new TableSchema(fields);
+            tableSchemas.put(tableId, tableSchema);
+        }
+        return tableSchema;
+    }
+
+    public Map<String, Object> decode(byte[] schemaHeader, byte[] value) {
+        String key = new String(schemaHeader, StandardCharsets.UTF_8);
+        String[] fields = decodeSchemas.get(key);
+        if (null == fields) {
+            if (decodeSchemas.size() >= MAX_DECODE_SCHEMAS) {
+                decodeSchemas.clear();
+            }
+            fields = key.isEmpty() ? new String[0] : key.split(String.valueOf(FIELD_DELIMITER), -1);
+            decodeSchemas.put(key, fields);
+        }
+        Reader reader = new Reader(value);
+        byte version = reader.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported binary value version: " + version);
+        }
+        Map<String, Object> data = new LinkedHashMap<>((int) (fields.length / 0.75F) + 1);
+        for (String field : fields) {
+            byte tag = reader.readByte();
+            if (tag != ABSENT) {
+                data.put(field, reader.readValue(tag));
+            }
+        }
+        long extras = reader.readVarLong();
+        for (long i = 0; i < extras; i++) {
+            String name = reader.readString();
+            data.put(name, reader.readValue(reader.readByte()));
+        }
+        return data;
+    }
+
+    public static class TableSchema {
+        private final String[] fields;
+        private final Map<String, Integer> fieldIndex;
+        private final byte[] header;
+        private final Writer writer = new Writer();
+
+        private TableSchema(String[] fields) {
+            this.fields = fields;
+            this.fieldIndex = new HashMap<>((int) (fields.length / 0.75F) + 1);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < fields.length; i++) {
+                fieldIndex.put(fields[i], i);
+                if (i > 0) sb.append(FIELD_DELIMITER);
+                sb.append(fields[i]);
+            }
+            this.header = sb.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Value of {@link #SCHEMA_HEADER}, do not modify
+         */
+        public byte[] getHeader() {
+            return header;
+        }
+
+        /**
+         * @throws IllegalArgumentException if a value (or an element of a map or list value) is of an unsupported type
+         */
+        public synchronized byte[] encode(Map<String, Object> data) {
+            writer.reset();
+            writer.writeByte(FORMAT_VERSION);
+            int matched = 0;
+            for (String field : fields) {
+                Object value = null == data ? null : data.get(field);
+                if (null == value && (null == data || !data.containsKey(field))) {
+                    writer.writeByte(ABSENT);
+                    continue;
+                }
+                matched++;
+                writer.writeValue(value);
+            }
+            int extras = null == data ? 0 : data.size() - matched;
+            writer.writeVarLong(extras);
+            if (extras > 0) {
+                for (Map.Entry<String, Object> entry : data.entrySet()) {
+                    if (!fieldIndex.containsKey(entry.getKey())) {
+                        writer.writeString(entry.getKey());
+                        writer.writeValue(entry.getValue());
+                    }
+                }
+            }
+            return writer.toByteArray();
+        }
+    }
+
+    private static class Writer {
+        private byte[] buf = new byte[256];
+        private int count;
+
+        private void reset() {
+            count = 0;
+        }
+
+        private void ensure(int size) {
+            if (count + size > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + size));
+            }
+        }
+
+        private void writeByte(int b) {
+            ensure(1);
+            buf[count++] = (byte) b;
+        }
+
+        private void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[count++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[count++] = (byte) v;
+        }
+
+        private void writeZigZag(long v) {
+            writeVarLong((v << 1) ^ (v >> 63));
+        }
+
+        private void writeFixed64(long v) {
+            ensure(8);
+            for (int i = 0; i < 8; i++) {
+                buf[count++] = (byte) (v >>> (i * 8));
+            }
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, count, bytes.length);
+            count += bytes.length;
+        }
+
+        private void writeString(String s) {
+            writeBytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void writeValue(Object value) {
+            if (null == value) {
+                writeByte(NULL);
+            } else if (value instanceof String) {
+                writeByte(STRING);
+                writeString((String) value);
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                writeByte(INT);
+                writeZigZag(((Number) value).intValue());
+            } else if (value instanceof Long) {
+                writeByte(LONG);
+                writeZigZag((Long) value);
+            } else if (value instanceof Double) {
+                writeByte(DOUBLE);
+                writeFixed64(Double.doubleToLongBits((Double) value));
+            } else if (value instanceof Float) {
+                writeByte(FLOAT);
+                writeZigZag(Float.floatToIntBits((Float) value));
+            } else if (value instanceof Boolean) {
+                writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof BigDecimal) {
+                writeByte(BIG_DECIMAL);
+                writeString(((BigDecimal) value).toString());
+            } else if (value instanceof BigInteger) {
+                writeByte(BIG_INTEGER);
+                writeBytes(((BigInteger) value).toByteArray());
+            } else if (value instanceof byte[]) {
+                writeByte(BYTES);
+                writeBytes((byte[]) value);
+            } else if (value instanceof Timestamp) {
+                Timestamp timestamp = (Timestamp) value;
+                writeByte(TIMESTAMP);
+                writeZigZag(Math.floorDiv(timestamp.getTime(), 1000L));
+                writeVarLong(timestamp.getNanos());
+            } else if (value instanceof java.sql.Date) {
+                writeByte(SQL_DATE);
+                writeZigZag(((java.sql.Date) value).getTime());
+            } else if (value instanceof Time) {
+                writeByte(SQL_TIME);
+                writeZigZag(((Time) value).getTime());
+            } else if (value instanceof Date) {
+                writeByte(DATE);
+                writeZigZag(((Date) value).getTime());
+            } else if (value instanceof Instant) {
+                writeByte(INSTANT);
+                writeInstant((Instant) value);
+            } else if (value instanceof LocalDateTime) {
+                writeByte(LOCAL_DATE_TIME);
+                writeInstant(((LocalDateTime) value).toInstant(ZoneOffset.UTC));
+            } else if (value instanceof LocalDate) {
+                writeByte(LOCAL_DATE);
+                writeZigZag(((LocalDate) value).toEpochDay());
+            } else if (value instanceof LocalTime) {
+                writeByte(LOCAL_TIME);
+                writeVarLong(((LocalTime) value).toNanoOfDay());
+            } else if (value instanceof OffsetDateTime) {
+                OffsetDateTime offsetDateTime = (OffsetDateTime) value;
+                writeByte(OFFSET_DATE_TIME);
+                writeInstant(offsetDateTime.toInstant());
+                writeZigZag(offsetDateTime.getOffset().getTotalSeconds());
+            } else if (value instanceof ZonedDateTime) {
+                ZonedDateTime zonedDateTime = (ZonedDateTime) value;
+                writeByte(ZONED_DATE_TIME);
+                writeInstant(zonedDateTime.toInstant());
+                writeString(zonedDateTime.getZone().getId());
+            } else if (value instanceof DateTime) {
+                DateTime dateTime = (DateTime) value;
+                writeByte(TAP_DATE_TIME);
+                writeZigZag(null == dateTime.getSeconds() ? 0L : dateTime.getSeconds());
+                writeVarLong(null == dateTime.getNano() ? 0L : dateTime.getNano());
+                writeString(null == dateTime.getTimeZone() ? "" : dateTime.getTimeZone().getID());
+            } else if (value instanceof Map) {
+                writeByte(MAP);
+                Map<?, ?> map = (Map<?, ?>) value;
+                writeVarLong(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(String.valueOf(entry.getKey()));
+                    writeValue(entry.getValue());
+                }
+            } else if (value instanceof Collection) {
+                writeByte(LIST);
+                Collection<?> collection = (Collection<?>) value;
+                writeVarLong(collection.size());
+                for (Object o : collection) {
+                    writeValue(o);
+                }
+            } else if (value instanceof Object[]) {
+                writeByte(LIST);
+                Object[] array = (Object[]) value;
+                writeVarLong(array.length);
+                for (Object o : array) {
+                    writeValue(o);
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported binary value type: " + value.getClass().getName());
+            }
+        }
+
+        private void writeInstant(Instant instant) {
+            writeZigZag(instant.getEpochSecond());
+            writeVarLong(instant.getNano());
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buf, count);
+        }
+    }
+
+    private static class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        private Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        private byte readByte() {
+            return buf[pos++];
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint at " + pos);
+        }
+
+        private long readZigZag() {
+            long v = readVarLong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        private long readFixed64() {
+            long v = 0;
+            for (int i = 0; i < 8; i++) {
+                v |= (buf[pos++] & 0xFFL) << (i * 8);
+            }
+            return v;
+        }
+
+        private byte[] readBytes() {
+            int length = (int) readVarLong();
+            byte[] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return bytes;
+        }
+
+        private String readString() {
+            int length = (int) readVarLong();
+            String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+
+        private Instant readInstant() {
+            long seconds = readZigZag();
+            return Instant.ofEpochSecond(seconds, readVarLong());
+        }
+
+        private Object readValue(byte tag) {
+            switch (tag) {
+                case NULL:
+                    return null;
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case INT:
+                    return (int) readZigZag();
+                case LONG:
+                    return readZigZag();
+                case FLOAT:
+                    return Float.intBitsToFloat((int) readZigZag());
+                case DOUBLE:
+                    return Double.longBitsToDouble(readFixed64());
+                case STRING:
+                    return readString();
+                case BYTES:
+                    return readBytes();
+                case BIG_DECIMAL:
+                    return new BigDecimal(readString());
+                case BIG_INTEGER:
+                    return new BigInteger(readBytes());
+                case DATE:
+                    return new Date(readZigZag());
+                case TIMESTAMP: {
+                    Timestamp timestamp = new Timestamp(readZigZag() * 1000L);
+                    timestamp.setNanos((int) readVarLong());
+                    return timestamp;
+                }
+                case SQL_DATE:
+                    return new java.sql.Date(readZigZag());
+                case SQL_TIME:
+                    return new Time(readZigZag());
+                case INSTANT:
+                    return readInstant();
+                case LOCAL_DATE_TIME:
+                    return LocalDateTime.ofInstant(readInstant(), ZoneOffset.UTC);
+                case LOCAL_DATE:
+                    return LocalDate.ofEpochDay(readZigZag());
+                case LOCAL_TIME:
+                    return LocalTime.ofNanoOfDay(readVarLong());
+                case OFFSET_DATE_TIME: {
+                    Instant instant = readInstant();
+                    return OffsetDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds((int) readZigZag()));
+                }
+                case ZONED_DATE_TIME: {
+                    Instant instant = readInstant();
+                    return ZonedDateTime.ofInstant(instant, ZoneId.of(readString()));
+                }
+                case TAP_DATE_TIME: {
+                    DateTime dateTime = new DateTime();
+                    dateTime.setSeconds(readZigZag());
+                    dateTime.setNano((int) readVarLong());
+                    String timeZone = readString();
+                    if (!timeZone.isEmpty()) {
+                        dateTime.setTimeZone(TimeZone.getTimeZone(timeZone));
+                    }
+                    return dateTime;
+                }
+                case MAP: {
+                    int size = (int) readVarLong();
+                    Map<String, Object> map = new LinkedHashMap<>((int) (size / 0.75F) + 1);
+                    for (int i = 0; i < size; i++) {
+                        String key = readString();
+                        map.put(key, readValue(readByte()));
+                    }
+                    return map;
+                }
+                case LIST: {
+                    int size = (int) readVarLong();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue(readByte()));
+                    }
+                    return list;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown binary value tag " + tag + " at " + (pos - 1));
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@ import io.tapdata.kit.StringKit;
 import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
 import io.tapdata.pdk.apis.functions.connector.source.ConnectionConfigWithTables;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -290,13 +291,16 @@ public abstract class LogMiner implements ILogMiner {
             AtomicReference<RedoLogContent> lastRedoLogContent = new AtomicReference<>();
             Map<String, List> redoLogContents = logTransaction.getRedoLogContents();
             if (logTransaction.isLarge()) {
-                String keyTemp;
-                while ((keyTemp = logTransaction.pollKey()) != null) {
-                    batchCreateEvents(redoLogContents.get(keyTemp), eventList, lastRedoLogContent, logTransaction.getReceivedCommitTs());
-                    if (eventList.get().size() >= 1000) {
-                        submitEvent(lastRedoLogContent.get(), eventList.get());
-                        eventList.set(TapSimplify.list());
+                try (LogTransaction.Replay replay = logTransaction.replay()) {
+                    while (replay.hasNext()) {
+                        batchCreateEvents(replay.next(), eventList, lastRedoLogContent, logTransaction.getReceivedCommitTs());
+                        if (eventList.get().size() >= 1000) {
+                            submitEvent(lastRedoLogContent.get(), eventList.get());
+                            eventList.set(TapSimplify.list());
+                        }
                     }
+                } catch (IOException e) {
+                    throw new RuntimeException(String.format("Replay large transaction failed, xid: %s, error: %s", logTransaction.getXid(), e.getMessage()), e);
                 }
                 submitEvent(lastRedoLogContent.get(), eventList.get());
             } else {
@@ -1,19 +1,11 @@
 package io.tapdata.common.cdc;
 
 import io.tapdata.kit.EmptyKit;
-import io.tapdata.kit.ErrorKit;
-import net.openhft.chronicle.map.ChronicleMap;
-import net.openhft.chronicle.queue.ChronicleQueue;
-import net.openhft.chronicle.queue.ExcerptAppender;
-import net.openhft.chronicle.queue.ExcerptTailer;
-import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
-import net.openhft.chronicle.wire.ValueOut;
-import org.springframework.util.FileSystemUtils;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Created by tapdata on 23/03/2018.
@@ -23,6 +15,10 @@ public class LogTransaction {
     public static final String TX_TYPE_DDL = "ddl";
     public static final String TX_TYPE_DML = "dml";
     public static final String TX_TYPE_COMMIT = "commit";
+    /**
+     * large transaction keeps at most so many recent redo log contents in memory, the others are in transaction log
+     */
+    public static final int LARGE_TRANSACTION_MEMORY_LIMIT = 1000;
     private long largeTransactionUpperLimit = 10000L;
 
     private String connectorId;
@@ -43,11 +39,12 @@ public class LogTransaction {
      * value: same rs id redo log event
      */
     private Map<String, List> redoLogContents;
+    private long memorySize;
 
-    private ChronicleMap<String, List> chronicleMap;
-    private ChronicleQueue keyQueue;
-    private ExcerptAppender keyQueueAppender;
-    private ExcerptTailer keyTailer;
+    /**
+     * older redo log contents of large transaction, in append order
+     */
+    private TransactionLog transactionLog;
 
     private long size;
 
@@ -97,61 +94,91 @@ public class LogTransaction {
         if (EmptyKit.isNull(redoLogContents)) {
             redoLogContents = new LinkedHashMap<>();
         }
-        if (size >= largeTransactionUpperLimit) {
-            if (EmptyKit.isNull(chronicleMap)) {
-                File cacheDir = new File("cacheTransaction" + File.separator + connectorId);
-                if (!cacheDir.exists()) {
-                    cacheDir.mkdirs();
-                }
-                File cacheFile = new File("cacheTransaction" + File.separator + connectorId + File.separator + xid + ".data");
-                if (!cacheFile.exists()) {
-                    cacheFile.createNewFile();
-                }
-                chronicleMap = ChronicleMap
-                        .of(String.class, List.class)
-                        .name("xid" + xid)
-                        .averageKey(xid)
-                        .averageValue(Collections.singletonList(redoLogContent))
-                        .entries(500000L)
-                        .maxBloatFactor(200)
-                        .createPersistedTo(cacheFile);
-                keyQueue = SingleChronicleQueueBuilder.binary("cacheTransaction" + File.separator + connectorId + File.separator + xid + ".key").build();
-                keyQueueAppender = keyQueue.acquireAppender();
-                keyTailer = keyQueue.createTailer();
-                chronicleMap.putAll(redoLogContents);
-                redoLogContents.forEach((k, v) -> pushKey(k));
-            }
-            if (!chronicleMap.containsKey(rsId)) {
-                List<RedoLogContent> list = new ArrayList<>();
-                list.add(redoLogContent);
-                chronicleMap.put(rsId, list);
-                pushKey(rsId);
-            } else {
-                List<RedoLogContent> list = chronicleMap.get(rsId);
-                list.add(redoLogContent);
-                chronicleMap.put(rsId, list);
-            }
-        } else {
-            if (!redoLogContents.containsKey(rsId)) {
-                redoLogContents.put(rsId, new ArrayList<>());
+        if (!redoLogContents.containsKey(rsId)) {
+            redoLogContents.put(rsId, new ArrayList<>());
+        }
+        redoLogContents.get(rsId).add(redoLogContent);
+        memorySize++;
+        if (EmptyKit.isNull(transactionLog) && size >= largeTransactionUpperLimit) {
+            transactionLog = new TransactionLog(new File("cacheTransaction" + File.separator + connectorId + File.separator + xid + ".log"));
+        }
+        if (EmptyKit.isNotNull(transactionLog) && memorySize >= LARGE_TRANSACTION_MEMORY_LIMIT) {
+            spill();
+        }
+    }
+
+    /**
+     * append redo log contents in memory to transaction log, the same order as they are replayed
+     */
+    private void spill() throws IOException {
+        for (List<RedoLogContent> list : redoLogContents.values()) {
+            for (RedoLogContent content : list) {
+                transactionLog.append(content);
             }
-            redoLogContents.get(rsId).add(redoLogContent);
         }
+        redoLogContents.clear();
+        memorySize = 0;
     }
 
-    private void pushKey(String key) {
-        keyQueueAppender.writeDocument(w -> {
-            final ValueOut valueOut = w.getValueOut();
-            valueOut.writeString(key);
-        });
+    /**
+     * Streaming replay of all redo log contents, contents with the same rs id next to each other are in one list.
+     * Contents in transaction log come first, then the contents still in memory. Close it after use, it holds the open
+     * segment of transaction log until all contents are read.
+     */
+    public Replay replay() throws IOException {
+        Iterator<RedoLogContent> logIterator = EmptyKit.isNull(transactionLog) ? Collections.emptyIterator() : transactionLog.reader();
+        Iterator<List> memoryIterator = EmptyKit.isNull(redoLogContents) ? Collections.emptyIterator() : redoLogContents.values().iterator();
+        return new Replay(logIterator, memoryIterator);
     }
 
-    public String pollKey() {
-        AtomicReference<String> key = new AtomicReference<>();
-        if (keyTailer.readDocument(r -> key.set(r.getValueIn().readString()))) {
-            return key.get();
-        } else {
-            return null;
+    public static class Replay implements Iterator<List<RedoLogContent>>, Closeable {
+        private final Iterator<RedoLogContent> logIterator;
+        private final Iterator<List> memoryIterator;
+        private Iterator<RedoLogContent> memoryListIterator = Collections.emptyIterator();
+        private RedoLogContent next;
+
+        private Replay(Iterator<RedoLogContent> logIterator, Iterator<List> memoryIterator) {
+            this.logIterator = logIterator;
+            this.memoryIterator = memoryIterator;
+        }
+
+        private RedoLogContent read() {
+            if (logIterator.hasNext()) {
+                return logIterator.next();
+            }
+            while (!memoryListIterator.hasNext() && memoryIterator.hasNext()) {
+                memoryListIterator = memoryIterator.next().iterator();
+            }
+            return memoryListIterator.hasNext() ? memoryListIterator.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (null == next) {
+                next = read();
+            }
+            return null != next;
+        }
+
+        @Override
+        public List<RedoLogContent> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<RedoLogContent> list = new ArrayList<>(4);
+            String rsId = next.getRsId();
+            do {
+                list.add(next);
+                next = read();
+            } while (null != next && Objects.equals(rsId, next.getRsId()));
+            return list;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (logIterator instanceof Closeable) {
+                ((Closeable) logIterator).close();
+            }
         }
     }
 
@@ -159,22 +186,10 @@ public class LogTransaction {
         if (EmptyKit.isNotEmpty(redoLogContents)) {
             redoLogContents.clear();
         }
-        if (isLarge()) {
-            if (EmptyKit.isNotEmpty(chronicleMap)) {
-                chronicleMap.clear();
-                chronicleMap.close();
-            }
-            if (EmptyKit.isNotNull(keyQueueAppender)) {
-                keyQueueAppender.close();
-            }
-            if (EmptyKit.isNotNull(keyTailer)) {
-                keyTailer.close();
-            }
-            if (EmptyKit.isNotNull(keyQueue)) {
-                keyQueue.close();
-            }
-            ErrorKit.ignoreAnyError(() -> FileSystemUtils.deleteRecursively(new File("cacheTransaction" + File.separator + connectorId + File.separator + xid + ".data")));
-            ErrorKit.ignoreAnyError(() -> FileSystemUtils.deleteRecursively(new File("cacheTransaction" + File.separator + connectorId + File.separator + xid + ".key")));
+        memorySize = 0;
+        if (EmptyKit.isNotNull(transactionLog)) {
+            transactionLog.delete();
+            transactionLog = null;
         }
     }
 
@@ -210,12 +225,11 @@ public class LogTransaction {
         this.xid = xid;
     }
 
+    /**
+     * @return redo log contents in memory, for large transaction only the recent ones which are not in transaction log
+     */
     public Map<String, List> getRedoLogContents() {
-        if (isLarge()) {
-            return chronicleMap;
-        } else {
-            return redoLogContents;
-        }
+        return redoLogContents;
     }
 
     public void setRedoLogContents(Map<String, List> redoLogContents) {
@@ -0,0 +1,221 @@
+package io.tapdata.common.cdc;
+
+import io.tapdata.kit.ErrorKit;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Append only on-disk log of one large transaction.
+ * <p>
+ * Redo log contents are serialized one after another into segment files, a record is never read back or rewritten
+ * before commit, so every append costs the same whatever the transaction size is. Only the segment list (file, record
+ * count, bytes) is kept in memory. On commit the segments are read back in append order by {@link #reader()}.
+ */
+public class TransactionLog implements Closeable {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    /**
+     * Object stream keeps every written object for back references, reset it to keep memory bounded
+     */
+    private static final int RESET_INTERVAL = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File dir;
+    private final long segmentBytes;
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment current;
+    private CountingOutputStream currentBytes;
+    private ObjectOutputStream currentOut;
+    private long size;
+
+    public TransactionLog(File dir) {
+        this(dir, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public TransactionLog(File dir, long segmentBytes) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+    }
+
+    public void append(RedoLogContent redoLogContent) throws IOException {
+        if (null == current || currentBytes.count >= segmentBytes) {
+            roll();
+        }
+        currentOut.writeObject(redoLogContent);
+        if (++current.records % RESET_INTERVAL == 0) {
+            currentOut.reset();
+        }
+        size++;
+    }
+
+    /**
+     * @return records appended
+     */
+    public long size() {
+        return size;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return bytes of all segments, the buffered part of the current segment is not included
+     */
+    public long getBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment == current ? currentBytes.count : segment.bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * Streaming reader of all records in append order, flushes the pending bytes first. Close it after use.
+     */
+    public Reader reader() throws IOException {
+        if (null != currentOut) {
+            currentOut.flush();
+            current.bytes = currentBytes.count;
+        }
+        return new Reader(new ArrayList<>(segments));
+    }
+
+    private void roll() throws IOException {
+        closeCurrent();
+        if (!dir.exists() && !dir.mkdirs() && !dir.exists()) {
+            throw new IOException("Create transaction log directory failed: " + dir.getAbsolutePath());
+        }
+        current = new Segment(new File(dir, String.format("segment-%06d.log", segments.size())));
+        segments.add(current);
+        currentBytes = new CountingOutputStream(new FileOutputStream(current.file));
+        currentOut = new ObjectOutputStream(new BufferedOutputStream(currentBytes, BUFFER_SIZE));
+    }
+
+    private void closeCurrent() throws IOException {
+        if (null != currentOut) {
+            currentOut.close();
+            current.bytes = currentBytes.count;
+            currentOut = null;
+            currentBytes = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeCurrent();
+    }
+
+    /**
+     * Close and delete all segment files
+     */
+    public void delete() {
+        ErrorKit.ignoreAnyError(this::close);
+        ErrorKit.ignoreAnyError(() -> FileSystemUtils.deleteRecursively(dir));
+        segments.clear();
+        current = null;
+        size = 0;
+    }
+
+    private static class Segment {
+        private final File file;
+        private long records;
+        private long bytes;
+
+        private Segment(File file) {
+            this.file = file;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    public static class Reader implements Iterator<RedoLogContent>, Closeable {
+        private final List<Segment> segments;
+        private int segmentIndex = -1;
+        private long remaining;
+        private ObjectInputStream in;
+
+        private Reader(List<Segment> segments) {
+            this.segments = segments;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (remaining <= 0) {
+                if (segmentIndex + 1 >= segments.size()) {
+                    ErrorKit.ignoreAnyError(this::close);
+                    return false;
+                }
+                try {
+                    close();
+                    Segment segment = segments.get(++segmentIndex);
+                    remaining = segment.records;
+                    if (remaining > 0) {
+                        in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(segment.file), BUFFER_SIZE));
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException("Open transaction log segment failed: " + e.getMessage(), e);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public RedoLogContent next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                RedoLogContent redoLogContent = (RedoLogContent) in.readObject();
+                remaining--;
+                return redoLogContent;
+            } catch (EOFException e) {
+                throw new RuntimeException("Transaction log segment " + segments.get(segmentIndex).file + " is truncated", e);
+            } catch (IOException | ClassNotFoundException e) {
+                throw new RuntimeException("Read transaction log failed: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (null != in) {
+                in.close();
+                in = null;
+            }
+        }
+    }
+}
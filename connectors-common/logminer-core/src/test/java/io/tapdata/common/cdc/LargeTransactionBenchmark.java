@@ -0,0 +1,103 @@
+package io.tapdata.common.cdc;
+
+import java.io.File;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic large transaction: append 5 million redo log contents to one {@link LogTransaction} and replay them as on
+ * commit, prints records per second of both phases, bytes on disk and heap used. Run main, no database needed.
+ * <p>
+ * Usage: LargeTransactionBenchmark [rows] [rows per rs id]
+ */
+public class LargeTransactionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 5_000_000L;
+        int rowsPerRsId = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        String connectorId = "benchmark-" + System.currentTimeMillis();
+        LogTransaction logTransaction = new LogTransaction("0", 1, "xid-benchmark", new LinkedHashMap<>());
+        logTransaction.setConnectorId(connectorId);
+        try {
+            long start = System.nanoTime();
+            for (long i = 0; i < rows; i++) {
+                logTransaction.addRedoLogContent(redoLogContent(i, rowsPerRsId));
+                logTransaction.incrementSize(1);
+                if ((i + 1) % 1_000_000 == 0) {
+                    System.out.printf("  appended %d, %d records/s, heap used %d MB%n", i + 1, perSecond(i + 1, System.nanoTime() - start), heapUsedMB());
+                }
+            }
+            long appendNs = System.nanoTime() - start;
+            long bytes = directoryBytes(new File("cacheTransaction" + File.separator + connectorId));
+
+            start = System.nanoTime();
+            long replayed = 0;
+            long groups = 0;
+            long checksum = 0;
+            try (LogTransaction.Replay replay = logTransaction.replay()) {
+                while (replay.hasNext()) {
+                    List<RedoLogContent> list = replay.next();
+                    groups++;
+                    for (RedoLogContent redoLogContent : list) {
+                        checksum += redoLogContent.getScn();
+                        replayed++;
+                    }
+                }
+            }
+            long replayNs = System.nanoTime() - start;
+            if (replayed != rows || checksum != rows * (rows - 1) / 2) {
+                throw new IllegalStateException("Replayed " + replayed + " of " + rows + " records, checksum " + checksum);
+            }
+            System.out.printf("%d rows, %d rs ids, %d bytes/record on disk%n", rows, groups, bytes / rows);
+            System.out.printf("  append: %d records/s (%d ns/record)%n", perSecond(rows, appendNs), appendNs / rows);
+            System.out.printf("  replay: %d records/s (%d ns/record), heap used %d MB%n", perSecond(rows, replayNs), replayNs / rows, heapUsedMB());
+        } finally {
+            logTransaction.clearRedoLogContents();
+            new File("cacheTransaction" + File.separator + connectorId).delete();
+        }
+    }
+
+    private static RedoLogContent redoLogContent(long i, int rowsPerRsId) {
+        RedoLogContent redoLogContent = new RedoLogContent();
+        redoLogContent.setScn(i);
+        redoLogContent.setXid("xid-benchmark");
+        redoLogContent.setRsId(" 0x" + Long.toHexString(i / rowsPerRsId) + ".00000010.0010 ");
+        redoLogContent.setOperation("UPDATE");
+        redoLogContent.setTimestamp(new Timestamp(1_690_000_000_000L + i));
+        redoLogContent.setTableName("ORDERS");
+        redoLogContent.setSegOwner("TAPDATA");
+        redoLogContent.setRowId("AAAS" + (i % 100_000));
+        redoLogContent.setSqlRedo("update \"TAPDATA\".\"ORDERS\" set \"STATUS\" = 'PAID' where \"ID\" = '" + i % 100_000 + "'");
+        redoLogContent.setSqlUndo("update \"TAPDATA\".\"ORDERS\" set \"STATUS\" = 'CREATED' where \"ID\" = '" + i % 100_000 + "'");
+        Map<String, Object> redoRecord = new LinkedHashMap<>();
+        redoRecord.put("ID", i % 100_000);
+        redoRecord.put("STATUS", "PAID");
+        redoLogContent.setRedoRecord(redoRecord);
+        return redoLogContent;
+    }
+
+    private static long directoryBytes(File file) {
+        if (file.isFile()) {
+            return file.length();
+        }
+        long bytes = 0;
+        File[] files = file.listFiles();
+        if (null != files) {
+            for (File f : files) {
+                bytes += directoryBytes(f);
+            }
+        }
+        return bytes;
+    }
+
+    private static long heapUsedMB() {
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) / 1024 / 1024;
+    }
+
+    private static long perSecond(long records, long ns) {
+        return ns <= 0 ? 0 : records * 1_000_000_000L / ns;
+    }
+}
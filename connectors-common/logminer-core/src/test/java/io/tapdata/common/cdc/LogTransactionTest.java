@@ -0,0 +1,98 @@
+package io.tapdata.common.cdc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+public class LogTransactionTest {
+
+    private final String connectorId = "test-" + System.nanoTime();
+
+    @AfterEach
+    public void tearDown() {
+        FileSystemUtils.deleteRecursively(new File("cacheTransaction" + File.separator + connectorId));
+    }
+
+    @Test
+    public void testReplaySmallTransactionGroupsSameRsId() throws Exception {
+        LogTransaction logTransaction = logTransaction(10000L);
+        add(logTransaction, 0, "a");
+        add(logTransaction, 1, "a");
+        add(logTransaction, 2, "b");
+
+        Assertions.assertFalse(logTransaction.isLarge());
+        Assertions.assertEquals(Arrays.asList(Arrays.asList(0L, 1L), Arrays.asList(2L)), replay(logTransaction));
+    }
+
+    @Test
+    public void testReplayLargeTransactionFromLogAndMemory() throws Exception {
+        LogTransaction logTransaction = logTransaction(10L);
+        int rows = LogTransaction.LARGE_TRANSACTION_MEMORY_LIMIT * 2 + 500;
+        for (int i = 0; i < rows; i++) {
+            add(logTransaction, i, "rs-" + i / 2);
+        }
+        Assertions.assertTrue(logTransaction.isLarge());
+        // only the contents after the last spill stay in memory
+        Assertions.assertTrue(logTransaction.getRedoLogContents().size() < LogTransaction.LARGE_TRANSACTION_MEMORY_LIMIT);
+        File logDir = new File("cacheTransaction" + File.separator + connectorId + File.separator + "xid.log");
+        Assertions.assertTrue(logDir.exists());
+
+        List<List<Long>> replayed = replay(logTransaction);
+        Assertions.assertEquals(rows / 2, replayed.size());
+        for (int i = 0; i < replayed.size(); i++) {
+            Assertions.assertEquals(Arrays.asList(2L * i, 2L * i + 1), replayed.get(i));
+        }
+
+        logTransaction.clearRedoLogContents();
+        Assertions.assertFalse(logDir.exists());
+    }
+
+    @Test
+    public void testReplayClosedBeforeEnd() throws Exception {
+        LogTransaction logTransaction = logTransaction(10L);
+        for (int i = 0; i < LogTransaction.LARGE_TRANSACTION_MEMORY_LIMIT * 2; i++) {
+            add(logTransaction, i, "rs-" + i);
+        }
+        try (LogTransaction.Replay replay = logTransaction.replay()) {
+            Assertions.assertEquals(0L, (long) replay.next().get(0).getScn());
+        }
+        // a new replay starts from the first content again
+        Assertions.assertEquals(LogTransaction.LARGE_TRANSACTION_MEMORY_LIMIT * 2, replay(logTransaction).size());
+        logTransaction.clearRedoLogContents();
+    }
+
+    private LogTransaction logTransaction(long largeTransactionUpperLimit) {
+        LogTransaction logTransaction = new LogTransaction("rs-0", 0L, "xid", new LinkedHashMap<>());
+        logTransaction.setConnectorId(connectorId);
+        logTransaction.setLargeTransactionUpperLimit(largeTransactionUpperLimit);
+        return logTransaction;
+    }
+
+    private static void add(LogTransaction logTransaction, long scn, String rsId) throws Exception {
+        RedoLogContent redoLogContent = TransactionLogTest.redoLogContent(scn);
+        redoLogContent.setRsId(rsId);
+        logTransaction.addRedoLogContent(redoLogContent);
+        logTransaction.incrementSize(1);
+    }
+
+    private static List<List<Long>> replay(LogTransaction logTransaction) throws Exception {
+        List<List<Long>> replayed = new ArrayList<>();
+        try (LogTransaction.Replay replay = logTransaction.replay()) {
+            while (replay.hasNext()) {
+                List<Long> scnList = new ArrayList<>();
+                for (RedoLogContent redoLogContent : replay.next()) {
+                    scnList.add(redoLogContent.getScn());
+                }
+                replayed.add(scnList);
+            }
+        }
+        return replayed;
+    }
+}
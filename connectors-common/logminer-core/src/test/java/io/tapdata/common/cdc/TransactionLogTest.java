@@ -0,0 +1,81 @@
+package io.tapdata.common.cdc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.NoSuchElementException;
+
+public class TransactionLogTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void testReadInAppendOrderAcrossSegments() throws Exception {
+        File dir = new File(tempDir, "xid.log");
+        TransactionLog transactionLog = new TransactionLog(dir, 4 * 1024);
+        for (int i = 0; i < 3000; i++) {
+            transactionLog.append(redoLogContent(i));
+        }
+        Assertions.assertEquals(3000, transactionLog.size());
+        Assertions.assertTrue(transactionLog.getSegmentCount() > 1);
+
+        try (TransactionLog.Reader reader = transactionLog.reader()) {
+            for (int i = 0; i < 3000; i++) {
+                Assertions.assertTrue(reader.hasNext());
+                RedoLogContent redoLogContent = reader.next();
+                Assertions.assertEquals((long) i, redoLogContent.getScn());
+                Assertions.assertEquals("rs-" + i, redoLogContent.getRsId());
+            }
+            Assertions.assertFalse(reader.hasNext());
+            Assertions.assertThrows(NoSuchElementException.class, reader::next);
+        }
+        Assertions.assertTrue(transactionLog.getBytes() > 0);
+
+        transactionLog.delete();
+        Assertions.assertFalse(dir.exists());
+        Assertions.assertEquals(0, transactionLog.size());
+    }
+
+    @Test
+    public void testAppendAfterRead() throws Exception {
+        TransactionLog transactionLog = new TransactionLog(new File(tempDir, "xid.log"));
+        transactionLog.append(redoLogContent(0));
+        // reader flushes the pending bytes, appends go on in the same segment
+        try (TransactionLog.Reader reader = transactionLog.reader()) {
+            Assertions.assertEquals(0L, (long) reader.next().getScn());
+            Assertions.assertFalse(reader.hasNext());
+        }
+        transactionLog.append(redoLogContent(1));
+        try (TransactionLog.Reader reader = transactionLog.reader()) {
+            Assertions.assertEquals(0L, (long) reader.next().getScn());
+            Assertions.assertEquals(1L, (long) reader.next().getScn());
+            Assertions.assertFalse(reader.hasNext());
+        }
+        transactionLog.delete();
+    }
+
+    @Test
+    public void testEmptyLog() throws Exception {
+        File dir = new File(tempDir, "xid.log");
+        TransactionLog transactionLog = new TransactionLog(dir);
+        try (TransactionLog.Reader reader = transactionLog.reader()) {
+            Assertions.assertFalse(reader.hasNext());
+        }
+        // nothing is created before the first append
+        Assertions.assertFalse(dir.exists());
+        transactionLog.delete();
+    }
+
+    static RedoLogContent redoLogContent(long scn) {
+        RedoLogContent redoLogContent = new RedoLogContent();
+        redoLogContent.setScn(scn);
+        redoLogContent.setRsId("rs-" + scn);
+        redoLogContent.setXid("xid");
+        redoLogContent.setOperation("INSERT");
+        redoLogContent.setSqlRedo("insert into \"T\"(\"ID\") values ('" + scn + "')");
+        return redoLogContent;
+    }
+}
@@ -50,7 +50,6 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.net.URLDecoder;
 import java.nio.ByteBuffer;
-import java.sql.ResultSetMetaData;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -114,31 +113,9 @@ public class MysqlReader implements Closeable {
         try {
             Set<String> dateTypeSet = dateFields(tapTable);
             this.mysqlJdbcContext.queryWithStream(sql, rs -> {
-                ResultSetMetaData metaData = rs.getMetaData();
+                MysqlRowReader rowReader = new MysqlRowReader(rs.getMetaData(), pks, dateTypeSet);
                 while ((null == stop || !stop.test(null)) && rs.next()) {
-                    row.incrementAndGet();
-                    Map<String, Object> data = new HashMap<>();
-                    for (int i = 0; i < metaData.getColumnCount(); i++) {
-                        String columnName = metaData.getColumnName(i + 1);
-                        try {
-                            Object value;
-                            // 抹除 time 字段的时区，兼容 "-838:59:59", "838:59:59" 格式数据
-                            if ("TIME".equalsIgnoreCase(metaData.getColumnTypeName(i + 1))) {
-                                value = rs.getString(i + 1);
-                            } else {
-                                value = rs.getObject(i + 1);
-                                if (null == value && dateTypeSet.contains(columnName)) {
-                                    value = rs.getString(i + 1);
-                                }
-                            }
-                            data.put(columnName, value);
-                            if (pks.contains(columnName)) {
-                                mysqlSnapshotOffset.getOffset().put(columnName, value);
-                            }
-                        } catch (Exception e) {
-                            throw new RuntimeException("Read column value failed, row: " + row.get() + ", column name: " + columnName + ", data: " + data + "; Error: " + e.getMessage(), e);
-                        }
-                    }
+                    Map<String, Object> data = rowReader.read(rs, row.incrementAndGet(), mysqlSnapshotOffset.getOffset());
                     consumer.accept(data, mysqlSnapshotOffset);
                 }
             });
@@ -159,32 +136,12 @@ public class MysqlReader implements Closeable {
         try {
             Set<String> dateTypeSet = dateFields(tapTable);
             this.mysqlJdbcContext.queryWithStream(sql, rs -> {
-                ResultSetMetaData metaData = rs.getMetaData();
+                MysqlRowReader rowReader = new MysqlRowReader(rs.getMetaData(), null, dateTypeSet);
                 while (rs.next()) {
                     if (null != stop && stop.test(null)) {
                         break;
                     }
-                    row.incrementAndGet();
-                    Map<String, Object> data = new HashMap<>();
-                    for (int i = 0; i < metaData.getColumnCount(); i++) {
-                        String columnName = metaData.getColumnName(i + 1);
-                        try {
-                            Object value;
-                            // 抹除 time 字段的时区，兼容 "-838:59:59", "838:59:59" 格式数据
-                            if ("TIME".equalsIgnoreCase(metaData.getColumnTypeName(i + 1))) {
-                                value = rs.getString(i + 1);
-                            } else {
-                                value = rs.getObject(i + 1);
-                                if (null == value && dateTypeSet.contains(columnName)) {
-                                    value = rs.getString(i + 1);
-                                }
-                            }
-                            data.put(columnName, value);
-                        } catch (Exception e) {
-                            throw new RuntimeException("Read column value failed, row: " + row.get() + ", column name: " + columnName + ", data: " + data + "; Error: " + e.getMessage(), e);
-                        }
-                    }
-                    consumer.accept(data);
+                    consumer.accept(rowReader.read(rs, row.incrementAndGet(), null));
                 }
             });
         } catch (Throwable e) {
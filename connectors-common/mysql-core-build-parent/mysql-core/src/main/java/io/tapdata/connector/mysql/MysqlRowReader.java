@@ -0,0 +1,80 @@
+package io.tapdata.connector.mysql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads rows of one result set by column index.
+ * <p>
+ * Column names, TIME columns, date columns and primary key positions are resolved from the metadata once, so reading
+ * a row does no metadata call or name lookup, and every row map is created with enough capacity for all columns.
+ */
+public class MysqlRowReader {
+    private final int columnCount;
+    private final String[] columnNames;
+    /**
+     * TIME columns are read as string, to drop the time zone and keep values like "-838:59:59" and "838:59:59"
+     */
+    private final boolean[] timeColumns;
+    /**
+     * Date columns are read as string if the value can not be read as object, like '0000-00-00'
+     */
+    private final boolean[] dateColumns;
+    private final boolean[] pkColumns;
+    private final int mapCapacity;
+
+    public MysqlRowReader(ResultSetMetaData metaData, Collection<String> pks, Set<String> dateFields) throws SQLException {
+        this.columnCount = metaData.getColumnCount();
+        this.columnNames = new String[columnCount];
+        this.timeColumns = new boolean[columnCount];
+        this.dateColumns = new boolean[columnCount];
+        this.pkColumns = new boolean[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            String columnName = metaData.getColumnName(i + 1);
+            columnNames[i] = columnName;
+            timeColumns[i] = "TIME".equalsIgnoreCase(metaData.getColumnTypeName(i + 1));
+            dateColumns[i] = null != dateFields && dateFields.contains(columnName);
+            pkColumns[i] = null != pks && pks.contains(columnName);
+        }
+        this.mapCapacity = (int) (columnCount / 0.75F) + 1;
+    }
+
+    /**
+     * Read the current row
+     *
+     * @param row    row number, only for error message
+     * @param offset primary key values of the row are put into it, can be null
+     */
+    public Map<String, Object> read(ResultSet rs, long row, Map<String, Object> offset) {
+        Map<String, Object> data = new HashMap<>(mapCapacity);
+        for (int i = 0; i < columnCount; i++) {
+            try {
+                Object value;
+                if (timeColumns[i]) {
+                    value = rs.getString(i + 1);
+                } else {
+                    value = rs.getObject(i + 1);
+                    if (null == value && dateColumns[i]) {
+                        value = rs.getString(i + 1);
+                    }
+                }
+                data.put(columnNames[i], value);
+                if (null != offset && pkColumns[i]) {
+                    offset.put(columnNames[i], value);
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Read column value failed, row: " + row + ", column name: " + columnNames[i] + ", data: " + data + "; Error: " + e.getMessage(), e);
+            }
+        }
+        return data;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+}
@@ -0,0 +1,140 @@
+package io.tapdata.connector.mysql;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class MysqlRowReaderTest {
+	private static final int COLUMNS = 30;
+
+	@Test
+	public void readTest() throws Throwable {
+		ResultSet rs = resultSet(3);
+		MysqlRowReader rowReader = new MysqlRowReader(rs.getMetaData(), Arrays.asList("c0", "c1"), new HashSet<>(Collections.singletonList("c2")));
+		Assertions.assertEquals(COLUMNS, rowReader.getColumnCount());
+		Map<String, Object> offset = new HashMap<>();
+		long row = 0;
+		while (rs.next()) {
+			row++;
+			Map<String, Object> data = rowReader.read(rs, row, offset);
+			Assertions.assertEquals(legacyRead(rs, Arrays.asList("c0", "c1"), Collections.singleton("c2"), new HashMap<>()), data);
+			// TIME column is read as string
+			Assertions.assertEquals("string-" + row + "-3", data.get("c3"));
+			// null date is read as string
+			Assertions.assertEquals("string-" + row + "-2", data.get("c2"));
+			Assertions.assertEquals(2, offset.size());
+			Assertions.assertEquals(data.get("c1"), offset.get("c1"));
+		}
+		Assertions.assertEquals(3, row);
+	}
+
+	/**
+	 * Compare with reading metadata per column per row, 30 columns, prints ns per row. Run it by hand, it is not a unit test
+	 */
+	@Test
+	@Disabled("Benchmark, run manually")
+	public void benchmark() throws Throwable {
+		int rows = 200_000;
+		List<String> pks = Collections.singletonList("c0");
+		Set<String> dateFields = new HashSet<>(Collections.singletonList("c2"));
+		for (int round = 0; round < 3; round++) {
+			ResultSet rs = resultSet(rows);
+			long legacyStart = System.nanoTime();
+			long legacySize = 0;
+			while (rs.next()) {
+				legacySize += legacyRead(rs, pks, dateFields, new HashMap<>()).size();
+			}
+			long legacyNs = System.nanoTime() - legacyStart;
+
+			rs = resultSet(rows);
+			long start = System.nanoTime();
+			long size = 0;
+			Map<String, Object> offset = new HashMap<>();
+			MysqlRowReader rowReader = new MysqlRowReader(rs.getMetaData(), pks, dateFields);
+			long row = 0;
+			while (rs.next()) {
+				size += rowReader.read(rs, ++row, offset).size();
+			}
+			long ns = System.nanoTime() - start;
+			Assertions.assertEquals(legacySize, size);
+			System.out.printf("round %d, %d rows x %d columns, metadata per row: %d ns/row, row reader: %d ns/row%n",
+					round, rows, COLUMNS, legacyNs / rows, ns / rows);
+		}
+	}
+
+	/**
+	 * Row materialisation before {@link MysqlRowReader}
+	 */
+	private static Map<String, Object> legacyRead(ResultSet rs, List<String> pks, Set<String> dateTypeSet, Map<String, Object> offset) throws Exception {
+		ResultSetMetaData metaData = rs.getMetaData();
+		Map<String, Object> data = new HashMap<>();
+		for (int i = 0; i < metaData.getColumnCount(); i++) {
+			String columnName = metaData.getColumnName(i + 1);
+			Object value;
+			if ("TIME".equalsIgnoreCase(metaData.getColumnTypeName(i + 1))) {
+				value = rs.getString(i + 1);
+			} else {
+				value = rs.getObject(i + 1);
+				if (null == value && dateTypeSet.contains(columnName)) {
+					value = rs.getString(i + 1);
+				}
+			}
+			data.put(columnName, value);
+			if (pks.contains(columnName)) {
+				offset.put(columnName, value);
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * In memory result set: column c2 is a date whose object value is null, c3 is TIME, the others are numbers
+	 */
+	private static ResultSet resultSet(int rows) {
+		String[] columnNames = new String[COLUMNS];
+		for (int i = 0; i < COLUMNS; i++) {
+			columnNames[i] = "c" + i;
+		}
+		ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(MysqlRowReaderTest.class.getClassLoader(), new Class[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "getColumnCount":
+					return COLUMNS;
+				case "getColumnName":
+				case "getColumnLabel":
+					return columnNames[(int) args[0] - 1];
+				case "getColumnTypeName":
+					int column = (int) args[0] - 1;
+					return column == 3 ? "TIME" : column == 2 ? "DATE" : "BIGINT";
+				default:
+					throw new UnsupportedOperationException(method.getName());
+			}
+		});
+		int[] row = {0};
+		return (ResultSet) Proxy.newProxyInstance(MysqlRowReaderTest.class.getClassLoader(), new Class[]{ResultSet.class}, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "next":
+					return ++row[0] <= rows;
+				case "getMetaData":
+					return metaData;
+				case "getObject":
+					int column = (int) args[0] - 1;
+					return column == 2 ? null : (long) row[0] * COLUMNS + column;
+				case "getString":
+					return "string-" + row[0] + "-" + ((int) args[0] - 1);
+				default:
+					throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+}
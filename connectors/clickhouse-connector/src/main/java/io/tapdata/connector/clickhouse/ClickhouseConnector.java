@@ -70,6 +70,7 @@ public class ClickhouseConnector extends CommonDbConnector {
                 Optional.ofNullable(connectorCapabilities.getCapabilityAlternative(ConnectionOptions.DML_UPDATE_POLICY)).ifPresent(clickhouseWriter::setUpdatePolicy);
             });
         }
+        clickhouseWriter.setVersionedWrite(Boolean.TRUE.equals(clickhouseConfig.getVersionedWrite()));
 
     }
 
@@ -216,13 +217,43 @@ public class ClickhouseConnector extends CommonDbConnector {
 
     }
 
+    /**
+     * Versioned write appends `_version` and `_is_deleted` to every row, existing tables get the missing columns
+     */
+    private void prepareVersionedTable(TapTable tapTable) throws SQLException {
+        String engine = clickhouseJdbcContext.queryTableEngine(tapTable.getId());
+        Set<String> existedColumns = clickhouseJdbcContext.queryAllColumns(Collections.singletonList(tapTable.getId())).stream()
+                .map(column -> column.getString("columnName")).collect(Collectors.toSet());
+        List<String> sqls = ((ClickhouseDDLSqlGenerator) ddlSqlGenerator).alterVersionedTable(clickhouseConfig.getDatabase(), tapTable.getId(), engine, existedColumns, tapTable.primaryKeys(true));
+        if (!sqls.isEmpty()) {
+            TapLogger.info("table :", "add versioned columns to existed table -> {}", tapTable.getId());
+            clickhouseJdbcContext.batchExecute(sqls);
+        }
+    }
+
     protected CreateTableOptions createTableV2(TapConnectorContext tapConnectorContext, TapCreateTableEvent tapCreateTableEvent) throws SQLException {
         TapTable tapTable = tapCreateTableEvent.getTable();
         CreateTableOptions createTableOptions = new CreateTableOptions();
         if (clickhouseJdbcContext.queryAllTables(Collections.singletonList(tapTable.getId())).size() > 0) {
+            if (Boolean.TRUE.equals(clickhouseConfig.getVersionedWrite())) {
+                prepareVersionedTable(tapTable);
+            }
             createTableOptions.setTableExists(true);
             return createTableOptions;
         }
+        if (Boolean.TRUE.equals(clickhouseConfig.getVersionedWrite())) {
+            String sql = ((ClickhouseDDLSqlGenerator) ddlSqlGenerator).createVersionedTable(clickhouseConfig, tapTable,
+                    commonSqlMaker.buildColumnDefinition(tapTable, true), tapTable.primaryKeys(true), clickhouseVersion);
+            try {
+                TapLogger.info("table :", "versioned table -> {}", tapTable.getId());
+                clickhouseJdbcContext.batchExecute(Collections.singletonList(sql));
+            } catch (Throwable e) {
+                exceptionCollector.collectWritePrivileges("createTable", Collections.emptyList(), e);
+                throw new RuntimeException("Create Table " + tapTable.getId() + " Failed! " + e.getMessage(), e);
+            }
+            createTableOptions.setTableExists(false);
+            return createTableOptions;
+        }
         StringBuilder sql = new StringBuilder("CREATE TABLE IF NOT EXISTS ");
         sql.append(TapTableWriter.sqlQuota(".", clickhouseConfig.getDatabase(), tapTable.getId()));
         sql.append("(").append(commonSqlMaker.buildColumnDefinition(tapTable, true));
@@ -271,6 +302,7 @@ public class ClickhouseConnector extends CommonDbConnector {
         WriteListResult<TapRecordEvent> writeListResult = new WriteListResult<>();
         TapTableWriter instance = clickhouseWriter.partition(clickhouseJdbcContext, this::isAlive);
         try {
+            instance.prepare(tapTable, tapRecordEvents, writeListResult);
             for (TapRecordEvent event : tapRecordEvents) {
                 if (!isAlive()) {
                     throw new InterruptedException("node not alive");
@@ -15,6 +15,7 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class ClickhouseJdbcContext extends JdbcContext {
 
@@ -68,6 +69,16 @@ public class ClickhouseJdbcContext extends JdbcContext {
         return dataMap;
     }
 
+    public String queryTableEngine(String tableName) throws SQLException {
+        AtomicReference<String> engine = new AtomicReference<>();
+        query(String.format(CK_TABLE_ENGINE, tableName, getConfig().getDatabase()), resultSet -> {
+            if (resultSet.next()) {
+                engine.set(resultSet.getString("engine"));
+            }
+        });
+        return engine.get();
+    }
+
     public String queryTimeZone() throws SQLException {
         String timeZone;
         TapLogger.debug(TAG, "Get timezone sql: " + DATABASE_TIMEZONE_SQL);
@@ -101,5 +112,6 @@ public class ClickhouseJdbcContext extends JdbcContext {
                     "from system.columns \n" +
                     "where database='%s' %s\n" +
                     "order by table,position";
+    private final static String CK_TABLE_ENGINE = "select engine from system.tables where name ='%s' and database='%s' ";
     private final static String CK_TABLE_INFO = "select * from system.tables where name ='%s' and database='%s' ";
 }
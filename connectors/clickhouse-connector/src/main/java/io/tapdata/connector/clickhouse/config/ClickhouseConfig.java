@@ -8,6 +8,7 @@ import java.util.Map;
 public class ClickhouseConfig extends CommonDbConfig implements Serializable {
 
     private Integer mergeMinutes = 60;
+    private Boolean versionedWrite = false;
 
     public ClickhouseConfig() {
         setDbType("clickhouse");
@@ -30,4 +31,12 @@ public class ClickhouseConfig extends CommonDbConfig implements Serializable {
         this.mergeMinutes = mergeMinutes;
     }
 
+    public Boolean getVersionedWrite() {
+        return versionedWrite;
+    }
+
+    public void setVersionedWrite(Boolean versionedWrite) {
+        this.versionedWrite = versionedWrite;
+    }
+
 }
@@ -8,9 +8,11 @@ import io.tapdata.entity.event.ddl.table.TapAlterFieldNameEvent;
 import io.tapdata.entity.event.ddl.table.TapDropFieldEvent;
 import io.tapdata.entity.event.ddl.table.TapNewFieldEvent;
 import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -18,6 +20,8 @@ public class ClickhouseDDLSqlGenerator implements DDLSqlGenerator {
 
     private final static String TABLE_NAME_FORMAT = "\"%s\".\"%s\"";
     private final static String ALTER_TABLE_PREFIX = "alter table " + TABLE_NAME_FORMAT;
+    public final static String VERSIONED_VERSION_COLUMN = "_version";
+    public final static String VERSIONED_IS_DELETED_COLUMN = "_is_deleted";
 
     @Override
     public List<String> addColumn(CommonDbConfig config, TapNewFieldEvent tapNewFieldEvent) {
@@ -151,4 +155,69 @@ public class ClickhouseDDLSqlGenerator implements DDLSqlGenerator {
         }
         return Collections.singletonList(String.format(ALTER_TABLE_PREFIX, config.getDatabase(), tableId) + " drop column`" + fieldName + "`");
     }
+
+    /**
+     * Create table for versioned insert only write, every row has `_version` and `_is_deleted`.
+     * Tables with primary keys use ReplacingMergeTree ordered by the primary keys, on 23.2+ `_is_deleted` is also given
+     * to the engine so deleted rows are dropped by FINAL; tables without primary keys keep every row in MergeTree.
+     *
+     * @param columnDefinition column definition of the table, end with ','
+     * @param version          clickhouse version, like 23.8
+     */
+    public String createVersionedTable(CommonDbConfig config, TapTable tapTable, String columnDefinition, Collection<String> primaryKeys, String version) {
+        StringBuilder sql = new StringBuilder("CREATE TABLE IF NOT EXISTS `").append(config.getDatabase()).append("`.`").append(tapTable.getId()).append("`(");
+        sql.append(columnDefinition);
+        sql.append("`").append(VERSIONED_VERSION_COLUMN).append("` UInt64,");
+        sql.append("`").append(VERSIONED_IS_DELETED_COLUMN).append("` UInt8 DEFAULT 0)");
+        if (null == primaryKeys || primaryKeys.isEmpty()) {
+            sql.append(" ENGINE = MergeTree ORDER BY tuple()");
+            return sql.toString();
+        }
+        String keys = "`" + String.join("`,`", primaryKeys) + "`";
+        sql.append(" ENGINE = ReplacingMergeTree(`").append(VERSIONED_VERSION_COLUMN).append("`");
+        if (supportIsDeletedColumn(version)) {
+            sql.append(", `").append(VERSIONED_IS_DELETED_COLUMN).append("`");
+        }
+        sql.append(") PRIMARY KEY (").append(keys).append(") ORDER BY (").append(keys).append(")");
+        return sql.toString();
+    }
+
+    /**
+     * Prepare an existing table for versioned insert only write: add `_version` and `_is_deleted` if missing.
+     * Rows of a key are only replaced by ReplacingMergeTree, other engines with primary keys would keep every version
+     * visible, so they are refused.
+     *
+     * @param engine         engine of the table in system.tables, like ReplicatedReplacingMergeTree
+     * @param existedColumns column names of the table
+     */
+    public List<String> alterVersionedTable(String database, String tableId, String engine, Collection<String> existedColumns, Collection<String> primaryKeys) {
+        if (null != primaryKeys && !primaryKeys.isEmpty() && (null == engine || !engine.contains("ReplacingMergeTree"))) {
+            throw new RuntimeException("Versioned write needs a ReplacingMergeTree table, table " + tableId + " engine is " + engine);
+        }
+        List<String> sqls = new ArrayList<>();
+        if (!existedColumns.contains(VERSIONED_VERSION_COLUMN)) {
+            sqls.add(String.format(ALTER_TABLE_PREFIX, database, tableId) + " add column `" + VERSIONED_VERSION_COLUMN + "` UInt64");
+        }
+        if (!existedColumns.contains(VERSIONED_IS_DELETED_COLUMN)) {
+            sqls.add(String.format(ALTER_TABLE_PREFIX, database, tableId) + " add column `" + VERSIONED_IS_DELETED_COLUMN + "` UInt8 DEFAULT 0");
+        }
+        return sqls;
+    }
+
+    /**
+     * ReplacingMergeTree(ver, is_deleted) is supported since 23.2
+     */
+    protected boolean supportIsDeletedColumn(String version) {
+        if (StringUtils.isBlank(version)) {
+            return false;
+        }
+        String[] parts = version.trim().split("\\.");
+        try {
+            int major = Integer.parseInt(parts[0]);
+            int minor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+            return major > 23 || (major == 23 && minor >= 2);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
 }
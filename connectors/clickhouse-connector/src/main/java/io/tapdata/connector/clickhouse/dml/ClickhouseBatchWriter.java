@@ -21,6 +21,7 @@ public class ClickhouseBatchWriter implements IPartitionsWriter<ClickhouseJdbcCo
     private String insertPolicy = ConnectionOptions.DML_INSERT_POLICY_UPDATE_ON_EXISTS;
     private String updatePolicy = ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS;
     private final String connectorTag;
+    private boolean versionedWrite;
 
     public ClickhouseBatchWriter(String connectorTag) {
         this.connectorTag = connectorTag;
@@ -33,7 +34,11 @@ public class ClickhouseBatchWriter implements IPartitionsWriter<ClickhouseJdbcCo
         synchronized (writerMap) {
             TapTableWriter writer = writerMap.get(partition);
             if (null == writer) {
-                writer = new TapTableWriter(connectorTag, jdbcContext.getConnection(), jdbcContext.getConfig().getDatabase(), isRunning, insertPolicy, updatePolicy);
+                if (versionedWrite) {
+                    writer = new VersionedTableWriter(connectorTag, jdbcContext.getConnection(), jdbcContext.getConfig().getDatabase(), isRunning, insertPolicy, updatePolicy);
+                } else {
+                    writer = new TapTableWriter(connectorTag, jdbcContext.getConnection(), jdbcContext.getConfig().getDatabase(), isRunning, insertPolicy, updatePolicy);
+                }
                 writerMap.put(partition, writer);
             }
             return writer;
@@ -54,6 +59,13 @@ public class ClickhouseBatchWriter implements IPartitionsWriter<ClickhouseJdbcCo
         }
     }
 
+    /**
+     * Append every event as a versioned row, see {@link VersionedTableWriter}
+     */
+    public void setVersionedWrite(boolean versionedWrite) {
+        this.versionedWrite = versionedWrite;
+    }
+
     protected String partitionKey() {
         return Thread.currentThread().getName();
     }
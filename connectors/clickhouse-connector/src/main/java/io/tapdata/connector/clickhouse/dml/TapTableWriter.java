@@ -14,6 +14,7 @@ import org.apache.commons.collections4.CollectionUtils;
 import java.sql.*;
 import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Supplier;
@@ -24,13 +25,13 @@ import java.util.function.Supplier;
  */
 public class TapTableWriter implements IWriter<TapRecordEvent, WriteListResult<TapRecordEvent>> {
 
-    private final String connectorTag;
-    private final Connection connection;
-    private final String database;
-    private final Supplier<Boolean> isRunning;
+    protected final String connectorTag;
+    protected final Connection connection;
+    protected final String database;
+    protected final Supplier<Boolean> isRunning;
 
-    private final String insertPolicy;
-    private final String updatePolicy;
+    protected final String insertPolicy;
+    protected final String updatePolicy;
 
     protected final Map<String, PreparedStatement> statementMap = new LRUOnRemoveMap<>(10, s -> JdbcUtil.closeQuietly(s.getValue()));
     protected String lastStatementKey;
@@ -64,6 +65,12 @@ public class TapTableWriter implements IWriter<TapRecordEvent, WriteListResult<T
         }
     }
 
+    /**
+     * Called with all events of one write before they are added, so a writer can load what the batch needs at once
+     */
+    public void prepare(TapTable tapTable, List<TapRecordEvent> recordEvents, WriteListResult<TapRecordEvent> writeListResult) throws Exception {
+    }
+
     @Override
     public void addBath(TapTable tapTable, TapRecordEvent recordEvent, WriteListResult<TapRecordEvent> writeListResult) throws Exception {
         Type type = Type.parse(recordEvent);
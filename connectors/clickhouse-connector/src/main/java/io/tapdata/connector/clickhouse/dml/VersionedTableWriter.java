@@ -0,0 +1,393 @@
+package io.tapdata.connector.clickhouse.dml;
+
+import io.tapdata.connector.clickhouse.ddl.sqlmaker.ClickhouseDDLSqlGenerator;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.entity.ConnectionOptions;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Insert only writer for ReplacingMergeTree(_version) tables.
+ * <p>
+ * Every insert, update and delete is appended as a row with {@link #VERSION_COLUMN} and {@link #IS_DELETED_COLUMN},
+ * so CDC never runs ALTER TABLE mutations. Rows with the same sorting key are replaced by the highest version on merge,
+ * readers use FINAL (or argMax by _version) and filter _is_deleted = 0.
+ * Rows of the same table and columns are sent as one large INSERT batch.
+ * <p>
+ * A partial update needs the current row of its key, the current rows of all partial updates of a write are loaded by
+ * one query in {@link #prepare}, and rows appended in the write are remembered, so the batch is not flushed per update.
+ */
+public class VersionedTableWriter extends TapTableWriter {
+
+    public static final String VERSION_COLUMN = ClickhouseDDLSqlGenerator.VERSIONED_VERSION_COLUMN;
+    public static final String IS_DELETED_COLUMN = ClickhouseDDLSqlGenerator.VERSIONED_IS_DELETED_COLUMN;
+    public static final int DEFAULT_BATCH_LIMIT = 10000;
+    public static final int CURRENT_ROWS_QUERY_LIMIT = 1000;
+
+    private long lastVersion;
+    private int insertedCounts;
+    private int modifiedCounts;
+    private int removedCounts;
+    /**
+     * Current rows of the keys loaded or appended in this write, table id -> key values -> row, null if the key is not
+     * found or deleted
+     */
+    private final Map<String, Map<List<String>, Map<String, Object>>> currentRows = new HashMap<>();
+
+    public VersionedTableWriter(String connectorTag, Connection connection, String database, Supplier<Boolean> isRunning, String insertPolicy, String updatePolicy) {
+        super(connectorTag, connection, database, isRunning, insertPolicy, updatePolicy);
+        this.batchLimit = DEFAULT_BATCH_LIMIT;
+    }
+
+    /**
+     * Source time of the event (reference time, or the read time if the source does not give one) in nanosecond
+     * precision, increased by one if events of the same millisecond come. Events of a key are always written by the
+     * same writer, so the order of a key is kept, and a replayed event gets its old version back instead of outranking
+     * newer rows.
+     */
+    protected long nextVersion(TapRecordEvent recordEvent) {
+        Long eventTime = null != recordEvent.getReferenceTime() ? recordEvent.getReferenceTime() : recordEvent.getTime();
+        long version = (null == eventTime ? System.currentTimeMillis() : eventTime) * 1000000L;
+        lastVersion = Math.max(lastVersion + 1, version);
+        return lastVersion;
+    }
+
+    @Override
+    public void prepare(TapTable tapTable, List<TapRecordEvent> recordEvents, WriteListResult<TapRecordEvent> writeListResult) throws Exception {
+        summit(writeListResult);
+        currentRows.clear();
+        Collection<String> primaryKeys = tapTable.primaryKeys(true);
+        if (null == primaryKeys || primaryKeys.isEmpty()) {
+            return;
+        }
+        currentRows.put(tapTable.getId(), new HashMap<>());
+        Map<List<String>, Map<String, Object>> keys = new LinkedHashMap<>();
+        for (TapRecordEvent recordEvent : recordEvents) {
+            if (!(recordEvent instanceof TapUpdateRecordEvent)) {
+                continue;
+            }
+            Map<String, Object> before = ((TapUpdateRecordEvent) recordEvent).getBefore();
+            Map<String, Object> after = ((TapUpdateRecordEvent) recordEvent).getAfter();
+            if (null == after || after.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> row = updateRow(before, after);
+            if (containsAllFields(tapTable, row)) {
+                continue;
+            }
+            Map<String, Object> keyData = primaryKeyChanged(primaryKeys, before, after) ? before : row;
+            List<String> key = rowKey(primaryKeys, keyData);
+            if (null != key) {
+                keys.putIfAbsent(key, keyData);
+            }
+        }
+        List<Map<String, Object>> keyDataList = new ArrayList<>(keys.values());
+        for (int from = 0; from < keyDataList.size(); from += CURRENT_ROWS_QUERY_LIMIT) {
+            queryCurrentRows(tapTable, primaryKeys, keyDataList.subList(from, Math.min(from + CURRENT_ROWS_QUERY_LIMIT, keyDataList.size())));
+        }
+    }
+
+    @Override
+    public void addBath(TapTable tapTable, TapRecordEvent recordEvent, WriteListResult<TapRecordEvent> writeListResult) throws Exception {
+        Type type = Type.parse(recordEvent);
+        switch (type) {
+            case Insert: {
+                Map<String, Object> after = ((TapInsertRecordEvent) recordEvent).getAfter();
+                if (null == after || after.isEmpty()) {
+                    throw new RuntimeException("Record event after data is empty: " + recordEvent);
+                }
+                appendRow(tapTable, after, false, nextVersion(recordEvent), writeListResult);
+                insertedCounts++;
+                break;
+            }
+            case Update: {
+                TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) recordEvent;
+                Map<String, Object> before = updateRecordEvent.getBefore();
+                Map<String, Object> after = updateRecordEvent.getAfter();
+                if (null == after || after.isEmpty()) {
+                    throw new RuntimeException("Record event after data is empty: " + recordEvent);
+                }
+                Collection<String> primaryKeys = tapTable.primaryKeys(true);
+                boolean primaryKeyChanged = primaryKeyChanged(primaryKeys, before, after);
+                Map<String, Object> row = updateRow(before, after);
+                // Still not a full row, take the other columns from the current row of the key
+                if (!containsAllFields(tapTable, row)) {
+                    Map<String, Object> currentRow = currentRow(tapTable, primaryKeys, primaryKeyChanged ? before : row, writeListResult);
+                    if (null != currentRow) {
+                        currentRow.putAll(row);
+                        row = currentRow;
+                    } else if (!ConnectionOptions.DML_UPDATE_POLICY_INSERT_ON_NON_EXISTS.equals(updatePolicy)) {
+                        TapLogger.debug(connectorTag, "Ignore partial update of non exists row: {}", recordEvent);
+                        break;
+                    }
+                }
+                long version = nextVersion(recordEvent);
+                // Primary key changed, the old key must be deleted or it stays visible
+                if (primaryKeyChanged) {
+                    appendRow(tapTable, before, true, version, writeListResult);
+                }
+                appendRow(tapTable, row, false, version, writeListResult);
+                modifiedCounts++;
+                break;
+            }
+            case Delete: {
+                Map<String, Object> before = ((TapDeleteRecordEvent) recordEvent).getBefore();
+                if (null == before || before.isEmpty()) {
+                    throw new RuntimeException("Record event before data is empty: " + recordEvent);
+                }
+                appendRow(tapTable, before, true, nextVersion(recordEvent), writeListResult);
+                removedCounts++;
+                break;
+            }
+            default:
+                throw new RuntimeException("not support type: " + type);
+        }
+        if (batchCounts >= batchLimit) {
+            summit(writeListResult);
+        }
+    }
+
+    private void appendRow(TapTable tapTable, Map<String, Object> data, boolean deleted, long version, WriteListResult<TapRecordEvent> writeListResult) throws Exception {
+        String statementKey = tapTable.getId() + "-" + String.join(",", data.keySet());
+        if (!statementKey.equals(lastStatementKey)) {
+            summit(writeListResult);
+            lastStatementKey = statementKey;
+            lastStatementType = Type.Insert;
+        }
+        lastStatement = getVersionedInsertStatement(tapTable, statementKey, data.keySet());
+        int i = 1;
+        for (Object value : data.values()) {
+            lastStatement.setObject(i++, value);
+        }
+        lastStatement.setLong(i++, version);
+        lastStatement.setInt(i, deleted ? 1 : 0);
+        lastStatement.addBatch();
+        batchCounts++;
+        rememberRow(tapTable, data, deleted);
+    }
+
+    /**
+     * The appended row replaces the whole old row, columns missing in after are taken from before
+     */
+    private static Map<String, Object> updateRow(Map<String, Object> before, Map<String, Object> after) {
+        if (null != before && !before.isEmpty() && !after.keySet().containsAll(before.keySet())) {
+            Map<String, Object> row = new LinkedHashMap<>(before);
+            row.putAll(after);
+            return row;
+        }
+        return after;
+    }
+
+    private void rememberRow(TapTable tapTable, Map<String, Object> data, boolean deleted) {
+        Map<List<String>, Map<String, Object>> tableRows = currentRows.get(tapTable.getId());
+        if (null == tableRows) {
+            return;
+        }
+        List<String> key = rowKey(tapTable.primaryKeys(true), data);
+        if (null == key) {
+            return;
+        }
+        // Keys not remembered are queried again after a flush, so the rows of a long write are not all kept
+        if (tableRows.size() >= batchLimit && !tableRows.containsKey(key)) {
+            tableRows.clear();
+        }
+        tableRows.put(key, deleted ? null : new LinkedHashMap<>(data));
+    }
+
+    /**
+     * Values of the primary keys as strings, so the key of an event and the key of a queried row are the same for
+     * numbers of different types, null if a primary key is missing
+     */
+    private static List<String> rowKey(Collection<String> primaryKeys, Map<String, Object> data) {
+        if (null == primaryKeys || primaryKeys.isEmpty()) {
+            return null;
+        }
+        List<String> key = new ArrayList<>(primaryKeys.size());
+        for (String field : primaryKeys) {
+            if (!data.containsKey(field)) {
+                return null;
+            }
+            key.add(String.valueOf(data.get(field)));
+        }
+        return key;
+    }
+
+    private static boolean primaryKeyChanged(Collection<String> primaryKeys, Map<String, Object> before, Map<String, Object> after) {
+        if (null == primaryKeys || primaryKeys.isEmpty() || null == before || before.isEmpty()) {
+            return false;
+        }
+        for (String field : primaryKeys) {
+            if (before.containsKey(field) && after.containsKey(field) && !Objects.equals(before.get(field), after.get(field))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAllFields(TapTable tapTable, Map<String, Object> row) {
+        return null == tapTable.getNameFieldMap() || row.keySet().containsAll(tapTable.getNameFieldMap().keySet());
+    }
+
+    /**
+     * Latest appended row of the key, null if the key is not found or deleted. Keys not loaded by {@link #prepare} nor
+     * appended in this write are queried after the pending rows are flushed.
+     */
+    protected Map<String, Object> currentRow(TapTable tapTable, Collection<String> primaryKeys, Map<String, Object> keyData, WriteListResult<TapRecordEvent> writeListResult) throws Exception {
+        if (null == primaryKeys || primaryKeys.isEmpty()) {
+            throw new RuntimeException("Partial update of table without primary keys is not supported: " + tapTable.getId());
+        }
+        for (String field : primaryKeys) {
+            if (!keyData.containsKey(field)) {
+                throw new RuntimeException("Partial update without primary key " + field + " is not supported: " + keyData);
+            }
+        }
+        List<String> key = rowKey(primaryKeys, keyData);
+        Map<List<String>, Map<String, Object>> tableRows = currentRows.get(tapTable.getId());
+        if (null == tableRows || !tableRows.containsKey(key)) {
+            summit(writeListResult);
+            tableRows = queryCurrentRows(tapTable, primaryKeys, Collections.singletonList(keyData));
+        }
+        Map<String, Object> row = tableRows.get(key);
+        return null == row ? null : new LinkedHashMap<>(row);
+    }
+
+    /**
+     * Load the latest rows of the keys with one query and remember them
+     *
+     * @return remembered rows of the table
+     */
+    protected Map<List<String>, Map<String, Object>> queryCurrentRows(TapTable tapTable, Collection<String> primaryKeys, List<Map<String, Object>> keyDataList) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT * FROM ");
+        sql.append(sqlQuota(".", database, tapTable.getId())).append(" WHERE ");
+        String keyParameters = "?" + String.join("", Collections.nCopies(primaryKeys.size() - 1, ",?"));
+        if (primaryKeys.size() == 1) {
+            sql.append(sqlQuota(primaryKeys.iterator().next())).append(" IN (");
+        } else {
+            sql.append("(").append(sqlQuota(",", primaryKeys)).append(") IN (");
+            keyParameters = "(" + keyParameters + ")";
+        }
+        sql.append(String.join(",", Collections.nCopies(keyDataList.size(), keyParameters)));
+        sql.append(") ORDER BY ").append(sqlQuota(VERSION_COLUMN)).append(" DESC LIMIT 1 BY ").append(sqlQuota(",", primaryKeys));
+
+        Map<List<String>, Map<String, Object>> requested = new LinkedHashMap<>();
+        for (Map<String, Object> keyData : keyDataList) {
+            requested.put(rowKey(primaryKeys, keyData), keyData);
+        }
+        Map<List<String>, Map<String, Object>> found = new HashMap<>();
+        boolean unmatched = false;
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int i = 1;
+            for (Map<String, Object> keyData : keyDataList) {
+                for (String field : primaryKeys) {
+                    statement.setObject(i++, keyData.get(field));
+                }
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                while (rs.next()) {
+                    boolean deleted = false;
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                        String columnName = metaData.getColumnLabel(column);
+                        if (IS_DELETED_COLUMN.equals(columnName)) {
+                            deleted = rs.getInt(column) == 1;
+                        } else if (!VERSION_COLUMN.equals(columnName)) {
+                            row.put(columnName, rs.getObject(column));
+                        }
+                    }
+                    List<String> key = rowKey(primaryKeys, row);
+                    // Key values read back in another form, the row can only be matched if one key is queried
+                    if (!requested.containsKey(key)) {
+                        if (requested.size() != 1) {
+                            unmatched = true;
+                            continue;
+                        }
+                        key = requested.keySet().iterator().next();
+                    }
+                    if (!found.containsKey(key)) {
+                        found.put(key, deleted ? null : row);
+                    }
+                }
+            }
+        }
+        Map<List<String>, Map<String, Object>> tableRows = currentRows.computeIfAbsent(tapTable.getId(), k -> new HashMap<>());
+        for (List<String> key : requested.keySet()) {
+            if (found.containsKey(key)) {
+                tableRows.put(key, found.get(key));
+            } else if (!unmatched) {
+                // Every returned row is matched, so the other keys are not found
+                tableRows.put(key, null);
+            }
+        }
+        return tableRows;
+    }
+
+    protected PreparedStatement getVersionedInsertStatement(TapTable tapTable, String statementKey, Set<String> fields) {
+        return statementMap.computeIfAbsent(statementKey, k -> {
+            try {
+                StringBuilder sql = new StringBuilder("INSERT INTO ");
+                sql.append(sqlQuota(".", database, tapTable.getId())).append("(");
+                for (String field : fields) sql.append(sqlQuota(field)).append(",");
+                sql.append(sqlQuota(VERSION_COLUMN)).append(",").append(sqlQuota(IS_DELETED_COLUMN)).append(")");
+
+                sql.append(" VALUES(");
+                for (String ignore : fields) sql.append("?,");
+                sql.append("?,?)");
+                return connection.prepareStatement(sql.toString());
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    @Override
+    public void summit(WriteListResult<TapRecordEvent> result) throws Exception {
+        if (batchCounts > 0 && null != lastStatement) {
+            for (int i = 1; i < 4 && isRunning.get(); i++) {
+                try {
+                    lastStatement.executeBatch();
+                    if (!connection.getAutoCommit()) {
+                        connection.commit();
+                    }
+                    lastStatement.clearBatch();
+                    break;
+                } catch (SQLException e) {
+                    if (4030 == e.getErrorCode() && "HY000".equals(e.getSQLState())) {
+                        TapLogger.warn(connectorTag, e.getMessage() + " with retry(" + i + ") after 5 seconds");
+                        Thread.sleep(5000);
+                        continue;
+                    }
+                    throw e;
+                }
+            }
+            batchCounts = 0;
+        }
+        // Counted by events, an update with changed primary key appends two rows
+        if (insertedCounts > 0) result.incrementInserted(insertedCounts);
+        if (modifiedCounts > 0) result.incrementModified(modifiedCounts);
+        if (removedCounts > 0) result.incrementRemove(removedCounts);
+        insertedCounts = 0;
+        modifiedCounts = 0;
+        removedCounts = 0;
+    }
+}
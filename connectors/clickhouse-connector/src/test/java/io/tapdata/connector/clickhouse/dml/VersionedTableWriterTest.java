@@ -0,0 +1,282 @@
+package io.tapdata.connector.clickhouse.dml;
+
+import io.tapdata.connector.clickhouse.ddl.sqlmaker.ClickhouseDDLSqlGenerator;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.entity.ConnectionOptions;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.tapdata.entity.simplify.TapSimplify.deleteDMLEvent;
+import static io.tapdata.entity.simplify.TapSimplify.entry;
+import static io.tapdata.entity.simplify.TapSimplify.insertRecordEvent;
+import static io.tapdata.entity.simplify.TapSimplify.map;
+import static io.tapdata.entity.simplify.TapSimplify.updateDMLEvent;
+
+public class VersionedTableWriterTest {
+
+    private TapTable tapTable;
+    /**
+     * Rows written by executeBatch, in column order of the insert, with _version and _is_deleted at the end
+     */
+    private final List<List<Object>> writtenRows = new ArrayList<>();
+    private final List<String> insertSqls = new ArrayList<>();
+    private final List<String> querySqls = new ArrayList<>();
+    private int executedBatches;
+    /**
+     * Rows returned by the current row query, key is the id
+     */
+    private final Map<Object, Map<String, Object>> currentRows = new HashMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        tapTable = new TapTable("t")
+                .add(new TapField("id", "Int32").primaryKeyPos(1))
+                .add(new TapField("name", "String"))
+                .add(new TapField("age", "Int32"));
+    }
+
+    @Test
+    public void testVersionFromEventTime() throws Exception {
+        VersionedTableWriter writer = writer(ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS);
+        WriteListResult<TapRecordEvent> result = new WriteListResult<>();
+        writer.addBath(tapTable, insertRecordEvent(map(entry("id", 1), entry("name", "a"), entry("age", 1)), "t").referenceTime(1000L), result);
+        writer.addBath(tapTable, updateDMLEvent(map(entry("id", 1), entry("name", "a"), entry("age", 1)), map(entry("id", 1), entry("name", "b"), entry("age", 1)), "t").referenceTime(1000L), result);
+        // Source time goes back, the order of the writer is still kept
+        writer.addBath(tapTable, deleteDMLEvent(map(entry("id", 1), entry("name", "b"), entry("age", 1)), "t").referenceTime(999L), result);
+        writer.summit(result);
+
+        Assertions.assertEquals(3, writtenRows.size());
+        Assertions.assertEquals(Arrays.asList(1, "a", 1, 1000_000000L, 0), writtenRows.get(0));
+        Assertions.assertEquals(Arrays.asList(1, "b", 1, 1000_000001L, 0), writtenRows.get(1));
+        Assertions.assertEquals(Arrays.asList(1, "b", 1, 1000_000002L, 1), writtenRows.get(2));
+        Assertions.assertEquals(1, result.getInsertedCount());
+        Assertions.assertEquals(1, result.getModifiedCount());
+        Assertions.assertEquals(1, result.getRemovedCount());
+    }
+
+    @Test
+    public void testPartialUpdateMergedWithCurrentRow() throws Exception {
+        currentRows.put(1, row("id", 1, "name", "a", "age", 3, VersionedTableWriter.VERSION_COLUMN, 5L, VersionedTableWriter.IS_DELETED_COLUMN, 0));
+        VersionedTableWriter writer = writer(ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS);
+        WriteListResult<TapRecordEvent> result = new WriteListResult<>();
+        write(writer, result, updateDMLEvent(null, map(entry("id", 1), entry("name", "b")), "t").referenceTime(2000L));
+
+        Assertions.assertEquals(Collections.singletonList("SELECT * FROM `db`.`t` WHERE `id` IN (?) ORDER BY `_version` DESC LIMIT 1 BY `id`"), querySqls);
+        Assertions.assertEquals(Collections.singletonList("INSERT INTO `db`.`t`(`id`,`name`,`age`,`_version`,`_is_deleted`) VALUES(?,?,?,?,?)"), insertSqls);
+        Assertions.assertEquals(Collections.singletonList(Arrays.asList(1, "b", 3, 2000_000000L, 0)), writtenRows);
+        Assertions.assertEquals(1, result.getModifiedCount());
+    }
+
+    @Test
+    public void testPartialUpdatesQueriedAtOnce() throws Exception {
+        currentRows.put(1, row("id", 1, "name", "a", "age", 1, VersionedTableWriter.VERSION_COLUMN, 5L, VersionedTableWriter.IS_DELETED_COLUMN, 0));
+        currentRows.put(2, row("id", 2, "name", "b", "age", 2, VersionedTableWriter.VERSION_COLUMN, 5L, VersionedTableWriter.IS_DELETED_COLUMN, 0));
+        currentRows.put(3, row("id", 3, "name", "c", "age", 3, VersionedTableWriter.VERSION_COLUMN, 5L, VersionedTableWriter.IS_DELETED_COLUMN, 1));
+        VersionedTableWriter writer = writer(ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS);
+        WriteListResult<TapRecordEvent> result = new WriteListResult<>();
+        write(writer, result,
+                updateDMLEvent(null, map(entry("id", 1), entry("name", "a1")), "t").referenceTime(1000L),
+                updateDMLEvent(null, map(entry("id", 2L), entry("age", 20)), "t").referenceTime(1000L),
+                // Deleted row is not updated
+                updateDMLEvent(null, map(entry("id", 3), entry("name", "c1")), "t").referenceTime(1000L),
+                // Later updates of a key see the rows appended before them
+                updateDMLEvent(null, map(entry("id", 1), entry("age", 10)), "t").referenceTime(1000L),
+                deleteDMLEvent(map(entry("id", 2), entry("name", "b"), entry("age", 20)), "t").referenceTime(1000L),
+                updateDMLEvent(null, map(entry("id", 2), entry("name", "b1")), "t").referenceTime(1000L));
+
+        Assertions.assertEquals(Collections.singletonList("SELECT * FROM `db`.`t` WHERE `id` IN (?,?,?) ORDER BY `_version` DESC LIMIT 1 BY `id`"), querySqls);
+        Assertions.assertEquals(Arrays.asList(
+                Arrays.asList(1, "a1", 1, 1000_000000L, 0),
+                Arrays.asList(2L, "b", 20, 1000_000001L, 0),
+                Arrays.asList(1, "a1", 10, 1000_000002L, 0),
+                Arrays.asList(2, "b", 20, 1000_000003L, 1)
+        ), writtenRows);
+        // Rows are flushed when the columns change, not for every partial update
+        Assertions.assertTrue(executedBatches < writtenRows.size());
+        Assertions.assertEquals(3, result.getModifiedCount());
+        Assertions.assertEquals(1, result.getRemovedCount());
+    }
+
+    @Test
+    public void testCurrentRowsOfCompositeKey() throws Exception {
+        tapTable = new TapTable("t")
+                .add(new TapField("id", "Int32").primaryKeyPos(1))
+                .add(new TapField("no", "Int32").primaryKeyPos(2))
+                .add(new TapField("name", "String"));
+        VersionedTableWriter writer = writer(ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS);
+        WriteListResult<TapRecordEvent> result = new WriteListResult<>();
+        write(writer, result,
+                updateDMLEvent(null, map(entry("id", 1), entry("no", 1)), "t"),
+                updateDMLEvent(null, map(entry("id", 1), entry("no", 2)), "t"));
+
+        Assertions.assertEquals(Collections.singletonList("SELECT * FROM `db`.`t` WHERE (`id`,`no`) IN ((?,?),(?,?)) ORDER BY `_version` DESC LIMIT 1 BY `id`,`no`"), querySqls);
+        Assertions.assertTrue(writtenRows.isEmpty());
+    }
+
+    @Test
+    public void testPartialUpdateOfNonExistsRow() throws Exception {
+        // Deleted row is not a current row
+        currentRows.put(1, row("id", 1, "name", "a", "age", 3, VersionedTableWriter.VERSION_COLUMN, 5L, VersionedTableWriter.IS_DELETED_COLUMN, 1));
+        VersionedTableWriter writer = writer(ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS);
+        WriteListResult<TapRecordEvent> result = new WriteListResult<>();
+        writer.addBath(tapTable, updateDMLEvent(map(entry("id", 1)), map(entry("id", 1), entry("name", "b")), "t"), result);
+        writer.addBath(tapTable, updateDMLEvent(null, map(entry("id", 2), entry("name", "c")), "t"), result);
+        writer.summit(result);
+        Assertions.assertTrue(writtenRows.isEmpty());
+        Assertions.assertEquals(0, result.getModifiedCount());
+
+        writer = writer(ConnectionOptions.DML_UPDATE_POLICY_INSERT_ON_NON_EXISTS);
+        writer.addBath(tapTable, updateDMLEvent(null, map(entry("id", 2), entry("name", "c")), "t").referenceTime(3000L), result);
+        writer.summit(result);
+        Assertions.assertEquals(Collections.singletonList(Arrays.asList(2, "c", 3000_000000L, 0)), writtenRows);
+        Assertions.assertEquals(1, result.getModifiedCount());
+    }
+
+    @Test
+    public void testPartialUpdateWithoutPrimaryKey() throws Exception {
+        VersionedTableWriter writer = writer(ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS);
+        WriteListResult<TapRecordEvent> result = new WriteListResult<>();
+        Assertions.assertThrows(RuntimeException.class, () -> writer.addBath(tapTable, updateDMLEvent(null, map(entry("name", "b")), "t"), result));
+    }
+
+    @Test
+    public void testAlterExistedTable() {
+        ClickhouseDDLSqlGenerator generator = new ClickhouseDDLSqlGenerator();
+        List<String> primaryKeys = Collections.singletonList("id");
+
+        Assertions.assertEquals(Arrays.asList(
+                "alter table \"db\".\"t\" add column `_version` UInt64",
+                "alter table \"db\".\"t\" add column `_is_deleted` UInt8 DEFAULT 0"
+        ), generator.alterVersionedTable("db", "t", "ReplicatedReplacingMergeTree", Arrays.asList("id", "name"), primaryKeys));
+        Assertions.assertTrue(generator.alterVersionedTable("db", "t", "ReplacingMergeTree", Arrays.asList("id", "_version", "_is_deleted"), primaryKeys).isEmpty());
+        // Versions of a key are never replaced in a MergeTree
+        Assertions.assertThrows(RuntimeException.class, () -> generator.alterVersionedTable("db", "t", "MergeTree", Collections.singletonList("id"), primaryKeys));
+        Assertions.assertEquals(2, generator.alterVersionedTable("db", "t", "MergeTree", Collections.singletonList("id"), Collections.emptyList()).size());
+    }
+
+    /**
+     * Write events like the connector does
+     */
+    private void write(VersionedTableWriter writer, WriteListResult<TapRecordEvent> result, TapRecordEvent... recordEvents) throws Exception {
+        writer.prepare(tapTable, Arrays.asList(recordEvents), result);
+        for (TapRecordEvent recordEvent : recordEvents) {
+            writer.addBath(tapTable, recordEvent, result);
+        }
+        writer.summit(result);
+    }
+
+    private VersionedTableWriter writer(String updatePolicy) {
+        return new VersionedTableWriter("test", connection(), "db", () -> true, ConnectionOptions.DML_INSERT_POLICY_UPDATE_ON_EXISTS, updatePolicy);
+    }
+
+    private Connection connection() {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return statement((String) args[0]);
+                case "getAutoCommit":
+                    return true;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private PreparedStatement statement(String sql) {
+        if (sql.startsWith("INSERT")) {
+            insertSqls.add(sql);
+        } else {
+            querySqls.add(sql);
+        }
+        Map<Integer, Object> parameters = new HashMap<>();
+        List<List<Object>> batch = new ArrayList<>();
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{PreparedStatement.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setObject":
+                case "setLong":
+                case "setInt":
+                    parameters.put((Integer) args[0], args[1]);
+                    return null;
+                case "addBatch":
+                    List<Object> row = new ArrayList<>();
+                    for (int i = 1; i <= parameters.size(); i++) {
+                        row.add(parameters.get(i));
+                    }
+                    batch.add(row);
+                    parameters.clear();
+                    return null;
+                case "executeBatch":
+                    executedBatches++;
+                    writtenRows.addAll(batch);
+                    batch.clear();
+                    return new int[0];
+                case "executeQuery":
+                    List<Map<String, Object>> rows = new ArrayList<>();
+                    // Key values are compared like the database does, an Int32 key is found by a long value
+                    for (Object id : parameters.values()) {
+                        for (Map.Entry<Object, Map<String, Object>> entry : currentRows.entrySet()) {
+                            if (String.valueOf(entry.getKey()).equals(String.valueOf(id))) {
+                                rows.add(entry.getValue());
+                            }
+                        }
+                    }
+                    return resultSet(rows);
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static ResultSet resultSet(List<Map<String, Object>> rows) {
+        List<String> columns = rows.isEmpty() ? Collections.emptyList() : new ArrayList<>(rows.get(0).keySet());
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(VersionedTableWriterTest.class.getClassLoader(), new Class[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return columns.size();
+                case "getColumnLabel":
+                    return columns.get((Integer) args[0] - 1);
+                default:
+                    return null;
+            }
+        });
+        int[] index = {-1};
+        return (ResultSet) Proxy.newProxyInstance(VersionedTableWriterTest.class.getClassLoader(), new Class[]{ResultSet.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return ++index[0] < rows.size();
+                case "getMetaData":
+                    return metaData;
+                case "getObject":
+                case "getInt":
+                    return rows.get(index[0]).get(columns.get((Integer) args[0] - 1));
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static Map<String, Object> row(Object... keyValues) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            row.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return row;
+    }
+}
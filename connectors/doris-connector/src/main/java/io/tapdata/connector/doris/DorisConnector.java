@@ -148,7 +148,9 @@ public class DorisConnector extends CommonDbConnector {
         String threadName = Thread.currentThread().getName();
         if (!dorisStreamLoaderMap.containsKey(threadName)) {
             DorisJdbcContext context = new DorisJdbcContext(dorisConfig);
-            DorisStreamLoader dorisStreamLoader = new DorisStreamLoader(context, new HttpUtil().getHttpClient());
+            HttpUtil httpUtil = new HttpUtil();
+            DorisStreamLoader dorisStreamLoader = new DorisStreamLoader(context, Boolean.TRUE.equals(dorisConfig.getAsyncLoad())
+                    ? httpUtil.getHttpClient(Math.max(2, null == dorisConfig.getAsyncLoadConcurrency() ? 2 : dorisConfig.getAsyncLoadConcurrency())) : httpUtil.getHttpClient());
             dorisStreamLoaderMap.put(threadName, dorisStreamLoader);
         }
         return dorisStreamLoaderMap.get(threadName);
@@ -19,6 +19,8 @@ public class DorisConfig extends CommonDbConfig {
     private Integer writeByteBufferCapacity = 10240;
     private String writeFormat = "json";
     private String timezone;
+    private Boolean asyncLoad = false;
+    private Integer asyncLoadConcurrency = 2;
 
     //customize
     public DorisConfig() {
@@ -104,6 +106,22 @@ public class DorisConfig extends CommonDbConfig {
         this.timezone = timezone;
     }
 
+    public Boolean getAsyncLoad() {
+        return asyncLoad;
+    }
+
+    public void setAsyncLoad(Boolean asyncLoad) {
+        this.asyncLoad = asyncLoad;
+    }
+
+    public Integer getAsyncLoadConcurrency() {
+        return asyncLoadConcurrency;
+    }
+
+    public void setAsyncLoadConcurrency(Integer asyncLoadConcurrency) {
+        this.asyncLoadConcurrency = asyncLoadConcurrency;
+    }
+
     public enum WriteFormat {
         json,
         csv,
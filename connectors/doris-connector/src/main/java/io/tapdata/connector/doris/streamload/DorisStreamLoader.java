@@ -16,14 +16,21 @@ import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
@@ -52,8 +59,21 @@ public class DorisStreamLoader {
     private TapTable tapTable;
     private final Metrics metrics;
 
+    // async load: the current batch is filled while earlier batches are loaded by loadExecutor
+    private final boolean asyncLoad;
+    private final int loadConcurrency;
+    private final int maxLoadBytes;
+    private ExecutorService loadExecutor;
+    private final Deque<LoadTask> inFlightLoads = new ArrayDeque<>();
+    private final Deque<LoadBatch> freeBatches = new ArrayDeque<>();
+    private LoadBatch currentBatch;
+
     public DorisStreamLoader(DorisJdbcContext dorisJdbcContext, CloseableHttpClient httpClient) {
-        this.dorisConfig = (DorisConfig) dorisJdbcContext.getConfig();
+        this((DorisConfig) dorisJdbcContext.getConfig(), httpClient);
+    }
+
+    DorisStreamLoader(DorisConfig dorisConfig, CloseableHttpClient httpClient) {
+        this.dorisConfig = dorisConfig;
         this.httpClient = httpClient;
         Integer writeByteBufferCapacity = dorisConfig.getWriteByteBufferCapacity();
         if (null == writeByteBufferCapacity) {
@@ -62,6 +82,9 @@ public class DorisStreamLoader {
             writeByteBufferCapacity = writeByteBufferCapacity * 1024;
         }
         this.recordStream = new RecordStream(writeByteBufferCapacity, Constants.CACHE_BUFFER_COUNT);
+        this.asyncLoad = Boolean.TRUE.equals(dorisConfig.getAsyncLoad());
+        this.loadConcurrency = Math.max(1, null == dorisConfig.getAsyncLoadConcurrency() ? 2 : dorisConfig.getAsyncLoadConcurrency());
+        this.maxLoadBytes = writeByteBufferCapacity * Constants.CACHE_BUFFER_COUNT;
         this.loadBatchFirstRecord = true;
         this.size = 0;
         this.lastEventFlag = new AtomicInteger(0);
@@ -83,6 +106,10 @@ public class DorisStreamLoader {
     }
 
     public void writeRecord(final List<TapRecordEvent> tapRecordEvents, final TapTable table, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) throws Throwable {
+        if (asyncLoad) {
+            writeRecordAsync(tapRecordEvents, table, writeListResultConsumer);
+            return;
+        }
         try {
             TapLogger.debug(TAG, "Batch events length is: {}", tapRecordEvents.size());
             WriteListResult<TapRecordEvent> listResult = writeListResult();
@@ -123,13 +150,145 @@ public class DorisStreamLoader {
         loadBatchFirstRecord = true;
     }
 
+    /**
+     * Async mode: batches are loaded by loadExecutor while the next batch is being serialized, also across calls.
+     * Tables with primary keys keep one load in flight, so loads are committed in event order; tables without primary
+     * keys allow {@link DorisConfig#getAsyncLoadConcurrency()} loads. When a new load exceeds the limit, only the oldest
+     * load is awaited. The call returns once its last batch is submitted, results of a load are reported by the call in
+     * which it finishes, and a failed load fails that call. Loads still in flight are awaited by
+     * {@link #flushLoads(WriteListResult)} and on shutdown.
+     */
+    private void writeRecordAsync(final List<TapRecordEvent> tapRecordEvents, final TapTable table, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) throws Throwable {
+        WriteListResult<TapRecordEvent> listResult = writeListResult();
+        this.tapTable = table;
+        try {
+            collectFinishedLoads(listResult);
+            for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
+                byte[] bytes = messageSerializer.serialize(table, tapRecordEvent);
+                int operationFlag = OperationType.getOperationFlag(tapRecordEvent);
+                if (null != currentBatch && currentBatch.needFlush(operationFlag, bytes.length)) {
+                    submitLoad(table, listResult);
+                }
+                if (null == currentBatch) {
+                    currentBatch = takeBatch(operationFlag);
+                }
+                currentBatch.append(bytes, messageSerializer.lineEnd());
+                currentBatch.metrics.increase(tapRecordEvent);
+            }
+            submitLoad(table, listResult);
+        } catch (Throwable e) {
+            discardLoads();
+            throw e;
+        }
+        writeListResultConsumer.accept(listResult);
+    }
+
+    private LoadBatch takeBatch(int operationFlag) throws IOException {
+        LoadBatch batch = freeBatches.poll();
+        if (null == batch) {
+            batch = new LoadBatch();
+        }
+        batch.start(operationFlag, messageSerializer.batchStart());
+        return batch;
+    }
+
+    private void submitLoad(TapTable table, WriteListResult<TapRecordEvent> listResult) throws Throwable {
+        if (null == currentBatch) {
+            return;
+        }
+        LoadBatch batch = currentBatch;
+        currentBatch = null;
+        batch.write(messageSerializer.batchEnd());
+        // bounded loads per table, wait for the oldest one
+        awaitLoads(CollectionUtils.isEmpty(table.primaryKeys(true)) ? loadConcurrency - 1 : 0, listResult);
+        if (null == loadExecutor) {
+            loadExecutor = Executors.newFixedThreadPool(loadConcurrency, r -> {
+                Thread thread = new Thread(r, TAG + "-" + table.getId());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        String label = buildPrefix(table.getId()) + "-" + UUID.randomUUID();
+        Future<RespContent> future = loadExecutor.submit(() -> put(table, batch.entity(), label));
+        inFlightLoads.add(new LoadTask(batch, future));
+    }
+
+    /**
+     * Submit the current batch and wait for all loads in flight
+     *
+     * @param listResult results of the finished loads are written into it, may be null
+     */
+    public void flushLoads(WriteListResult<TapRecordEvent> listResult) throws Throwable {
+        if (null == tapTable) {
+            return;
+        }
+        try {
+            submitLoad(tapTable, listResult);
+            awaitLoads(0, listResult);
+        } catch (Throwable e) {
+            discardLoads();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait until at most remain loads are in flight, the oldest load first, the results of finished loads are written
+     * into listResult
+     */
+    private void awaitLoads(int remain, WriteListResult<TapRecordEvent> listResult) throws Throwable {
+        while (inFlightLoads.size() > remain) {
+            finishLoad(inFlightLoads.poll(), listResult);
+        }
+    }
+
+    /**
+     * Results of the loads already finished, without waiting
+     */
+    private void collectFinishedLoads(WriteListResult<TapRecordEvent> listResult) throws Throwable {
+        while (!inFlightLoads.isEmpty() && inFlightLoads.peek().future.isDone()) {
+            finishLoad(inFlightLoads.poll(), listResult);
+        }
+    }
+
+    private void finishLoad(LoadTask loadTask, WriteListResult<TapRecordEvent> listResult) throws Throwable {
+        try {
+            RespContent respContent = loadTask.future.get();
+            TapLogger.info(TAG, "Execute stream load response: " + respContent);
+            if (null != listResult) {
+                loadTask.batch.metrics.writeIntoResultList(listResult);
+            }
+        } catch (ExecutionException e) {
+            throw null == e.getCause() ? e : e.getCause();
+        } finally {
+            freeBatches.add(loadTask.batch);
+        }
+    }
+
+    private void discardLoads() {
+        LoadTask loadTask;
+        while (null != (loadTask = inFlightLoads.poll())) {
+            try {
+                loadTask.future.get();
+            } catch (Exception ignored) {
+            }
+            freeBatches.add(loadTask.batch);
+        }
+        if (null != currentBatch) {
+            freeBatches.add(currentBatch);
+            currentBatch = null;
+        }
+    }
+
     public RespContent put(final TapTable table) throws StreamLoadException, DorisRetryableException {
+        final String label = buildPrefix(table.getId()) + "-" + UUID.randomUUID();
+        return put(table, new InputStreamEntity(recordStream, recordStream.getContentLength()), label);
+    }
+
+    private RespContent put(final TapTable table, final HttpEntity entity, final String label) throws StreamLoadException, DorisRetryableException {
         DorisConfig.WriteFormat writeFormat = dorisConfig.getWriteFormatEnum();
         try {
             final String loadUrl = buildLoadUrl(dorisConfig.getDorisHttp(), dorisConfig.getDatabase(), table.getId());
-            final String prefix = buildPrefix(table.getId());
 
-            String label = prefix + "-" + UUID.randomUUID();
             List<String> columns = new ArrayList<>();
             for (Map.Entry<String, TapField> entry : table.getNameFieldMap().entrySet()) {
                 columns.add("`" + entry.getKey() + "`");
@@ -137,7 +296,6 @@ public class DorisStreamLoader {
             // add the DORIS_DELETE_SIGN at the end of the column
             columns.add(Constants.DORIS_DELETE_SIGN);
             HttpPutBuilder putBuilder = new HttpPutBuilder();
-            InputStreamEntity entity = new InputStreamEntity(recordStream, recordStream.getContentLength());
             Collection<String> primaryKeys = table.primaryKeys(true);
             if (CollectionUtils.isEmpty(primaryKeys)) {
                 putBuilder.setUrl(loadUrl)
@@ -193,6 +351,16 @@ public class DorisStreamLoader {
     }
 
     public RespContent flush(TapTable table, WriteListResult<TapRecordEvent> listResult) throws DorisRetryableException {
+        if (asyncLoad) {
+            try {
+                flushLoads(listResult);
+            } catch (DorisRetryableException | RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new DorisRuntimeException(e);
+            }
+            return null;
+        }
         // the stream is not started yet, no response to get
         if (lastEventFlag.get() == 0) {
             return null;
@@ -220,6 +388,14 @@ public class DorisStreamLoader {
 
     public void shutdown() {
         try {
+            if (null != loadExecutor) {
+                try {
+                    flushLoads(null);
+                } catch (Throwable e) {
+                    TapLogger.warn(TAG, "Stream load in flight failed on shutdown, error: {}", e.getMessage());
+                }
+                loadExecutor.shutdownNow();
+            }
             this.stopLoad();
             this.httpClient.close();
         } catch (Exception ignored) {
@@ -273,6 +449,55 @@ public class DorisStreamLoader {
         }
     }
 
+    /**
+     * Serialized records of one stream load, reused after the load returns
+     */
+    private class LoadBatch extends ByteArrayOutputStream {
+        private final Metrics metrics = new Metrics();
+        private int operationFlag;
+        private int records;
+
+        private LoadBatch() {
+            super(Math.min(maxLoadBytes, Constants.CACHE_BUFFER_SIZE));
+        }
+
+        private void start(int operationFlag, byte[] batchStart) throws IOException {
+            reset();
+            metrics.clear();
+            this.operationFlag = operationFlag;
+            this.records = 0;
+            write(batchStart);
+        }
+
+        private void append(byte[] record, byte[] lineEnd) throws IOException {
+            if (records > 0) {
+                write(lineEnd);
+            }
+            write(record);
+            records++;
+        }
+
+        private boolean needFlush(int operationFlag, int length) {
+            return this.operationFlag != operationFlag
+                    || records >= MAX_FLUSH_BATCH_SIZE
+                    || count + length > maxLoadBytes;
+        }
+
+        private HttpEntity entity() {
+            return new ByteArrayEntity(buf, 0, count);
+        }
+    }
+
+    private static class LoadTask {
+        private final LoadBatch batch;
+        private final Future<RespContent> future;
+
+        private LoadTask(LoadBatch batch, Future<RespContent> future) {
+            this.batch = batch;
+            this.future = future;
+        }
+    }
+
     private static class Metrics {
         private long insert = 0L;
         private long update = 0L;
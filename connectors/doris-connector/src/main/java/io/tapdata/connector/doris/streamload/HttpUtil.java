@@ -22,4 +22,11 @@ public class HttpUtil {
     public CloseableHttpClient getHttpClient() {
         return httpClientBuilder.build();
     }
+
+    /**
+     * @param maxConnections connections per route and in total, the default pool only has 2 per route
+     */
+    public CloseableHttpClient getHttpClient(int maxConnections) {
+        return httpClientBuilder.setMaxConnPerRoute(maxConnections).setMaxConnTotal(maxConnections).build();
+    }
 }
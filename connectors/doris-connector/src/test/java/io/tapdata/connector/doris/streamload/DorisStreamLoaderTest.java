@@ -0,0 +1,290 @@
+package io.tapdata.connector.doris.streamload;
+
+import io.tapdata.connector.doris.bean.DorisConfig;
+import io.tapdata.connector.doris.streamload.exception.DorisRetryableException;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import static io.tapdata.entity.simplify.TapSimplify.deleteDMLEvent;
+import static io.tapdata.entity.simplify.TapSimplify.entry;
+import static io.tapdata.entity.simplify.TapSimplify.insertRecordEvent;
+import static io.tapdata.entity.simplify.TapSimplify.map;
+import static io.tapdata.entity.simplify.TapSimplify.updateDMLEvent;
+
+/**
+ * Async double buffered stream load, loads go to an in memory http client
+ */
+public class DorisStreamLoaderTest {
+
+    private final FakeHttpClient httpClient = new FakeHttpClient();
+    private DorisStreamLoader streamLoader;
+
+    @AfterEach
+    public void tearDown() {
+        if (null != streamLoader) {
+            streamLoader.shutdown();
+        }
+    }
+
+    @Test
+    public void testPrimaryKeyTableLoadsOneByOneInEventOrder() throws Throwable {
+        streamLoader = asyncLoader(4);
+        httpClient.loadMillis = 50L;
+        TapTable table = table(true);
+        // Every change of operation type starts a new load
+        List<TapRecordEvent> events = Arrays.asList(
+                insertRecordEvent(map(entry("id", 1), entry("name", "a")), "t"),
+                updateDMLEvent(map(entry("id", 1), entry("name", "a")), map(entry("id", 1), entry("name", "b")), "t"),
+                deleteDMLEvent(map(entry("id", 2), entry("name", "c")), "t"),
+                insertRecordEvent(map(entry("id", 3), entry("name", "d")), "t"));
+
+        WriteListResult<TapRecordEvent> result = writeAndFlush(events, table);
+
+        Assertions.assertEquals(4, httpClient.bodies.size());
+        Assertions.assertEquals(1, httpClient.maxRunning.get());
+        Assertions.assertTrue(httpClient.bodies.get(0).contains("\"name\":\"a\""));
+        Assertions.assertTrue(httpClient.bodies.get(1).contains("\"name\":\"b\""));
+        Assertions.assertTrue(httpClient.bodies.get(2).contains("\"name\":\"c\""));
+        Assertions.assertTrue(httpClient.bodies.get(3).contains("\"name\":\"d\""));
+        Assertions.assertEquals(2, result.getInsertedCount());
+        Assertions.assertEquals(1, result.getModifiedCount());
+        Assertions.assertEquals(1, result.getRemovedCount());
+    }
+
+    @Test
+    public void testNoPrimaryKeyTableLoadsConcurrently() throws Throwable {
+        streamLoader = asyncLoader(2);
+        // The first two loads only return when both are running
+        httpClient.bothRunning = new CountDownLatch(2);
+        TapTable table = table(false);
+        List<TapRecordEvent> events = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            events.add(i % 2 == 0
+                    ? insertRecordEvent(map(entry("id", i), entry("name", "n" + i)), "t")
+                    : deleteDMLEvent(map(entry("id", i), entry("name", "n" + i)), "t"));
+        }
+
+        WriteListResult<TapRecordEvent> result = writeAndFlush(events, table);
+
+        Assertions.assertEquals(4, httpClient.bodies.size());
+        Assertions.assertEquals(2, httpClient.maxRunning.get());
+        Assertions.assertEquals(2, result.getInsertedCount());
+        Assertions.assertEquals(2, result.getRemovedCount());
+    }
+
+    @Test
+    public void testFailedLoadFailsWholeCall() throws Throwable {
+        streamLoader = asyncLoader(2);
+        TapTable table = table(true);
+        List<TapRecordEvent> events = Arrays.asList(
+                insertRecordEvent(map(entry("id", 1), entry("name", "a")), "t"),
+                updateDMLEvent(map(entry("id", 1), entry("name", "a")), map(entry("id", 1), entry("name", "b")), "t"),
+                insertRecordEvent(map(entry("id", 2), entry("name", "c")), "t"));
+        httpClient.fail = body -> body.contains("\"name\":\"b\"");
+
+        AtomicReference<WriteListResult<TapRecordEvent>> reported = new AtomicReference<>();
+        Assertions.assertThrows(DorisRetryableException.class, () -> streamLoader.writeRecord(events, table, reported::set));
+        // The first load is done, but nothing is reported, so the offset does not move and the engine retries all events
+        Assertions.assertNull(reported.get());
+        Assertions.assertEquals(2, httpClient.bodies.size());
+
+        httpClient.fail = body -> false;
+        httpClient.bodies.clear();
+        WriteListResult<TapRecordEvent> result = writeAndFlush(events, table);
+        Assertions.assertEquals(3, httpClient.bodies.size());
+        Assertions.assertEquals(2, result.getInsertedCount());
+        Assertions.assertEquals(1, result.getModifiedCount());
+    }
+
+    @Test
+    public void testLoadsOverlapCalls() throws Throwable {
+        streamLoader = asyncLoader(2);
+        httpClient.release = new CountDownLatch(1);
+        TapTable table = table(true);
+
+        // The call returns while its load is still running
+        WriteListResult<TapRecordEvent> result = write(Collections.singletonList(insertRecordEvent(map(entry("id", 1), entry("name", "a")), "t")), table);
+        awaitBodies(1);
+        Assertions.assertEquals(1, httpClient.running.get());
+        Assertions.assertEquals(0, result.getInsertedCount());
+
+        // The next load waits for the oldest one, its result is reported by this call
+        httpClient.release.countDown();
+        result = write(Collections.singletonList(updateDMLEvent(map(entry("id", 1), entry("name", "a")), map(entry("id", 1), entry("name", "b")), "t")), table);
+        Assertions.assertEquals(1, result.getInsertedCount());
+        Assertions.assertEquals(0, result.getModifiedCount());
+
+        WriteListResult<TapRecordEvent> flushed = new WriteListResult<>();
+        streamLoader.flushLoads(flushed);
+        Assertions.assertEquals(2, httpClient.bodies.size());
+        Assertions.assertEquals(1, flushed.getModifiedCount());
+        Assertions.assertEquals(1, httpClient.maxRunning.get());
+    }
+
+    @Test
+    public void testFailedLoadFailsNextCall() throws Throwable {
+        streamLoader = asyncLoader(2);
+        TapTable table = table(true);
+        httpClient.fail = body -> body.contains("\"name\":\"b\"");
+        write(Arrays.asList(
+                insertRecordEvent(map(entry("id", 1), entry("name", "a")), "t"),
+                updateDMLEvent(map(entry("id", 1), entry("name", "a")), map(entry("id", 1), entry("name", "b")), "t")), table);
+
+        AtomicReference<WriteListResult<TapRecordEvent>> reported = new AtomicReference<>();
+        Assertions.assertThrows(DorisRetryableException.class, () -> streamLoader.writeRecord(
+                Collections.singletonList(insertRecordEvent(map(entry("id", 2), entry("name", "c")), "t")), table, reported::set));
+        Assertions.assertNull(reported.get());
+        Assertions.assertEquals(2, httpClient.bodies.size());
+    }
+
+    @Test
+    public void testBatchFlushedByRecordCount() throws Throwable {
+        streamLoader = asyncLoader(2);
+        TapTable table = table(true);
+        List<TapRecordEvent> events = new ArrayList<>();
+        for (int i = 0; i < 5001; i++) {
+            events.add(insertRecordEvent(map(entry("id", i), entry("name", "n" + i)), "t"));
+        }
+
+        WriteListResult<TapRecordEvent> result = writeAndFlush(events, table);
+
+        Assertions.assertEquals(2, httpClient.bodies.size());
+        Assertions.assertTrue(httpClient.bodies.get(1).contains("\"id\":\"5000\""));
+        Assertions.assertEquals(5001, result.getInsertedCount());
+    }
+
+    private WriteListResult<TapRecordEvent> write(List<TapRecordEvent> events, TapTable table) throws Throwable {
+        AtomicReference<WriteListResult<TapRecordEvent>> reported = new AtomicReference<>();
+        streamLoader.writeRecord(events, table, reported::set);
+        Assertions.assertNotNull(reported.get());
+        return reported.get();
+    }
+
+    /**
+     * Write and wait for all loads, results of both are added up
+     */
+    private WriteListResult<TapRecordEvent> writeAndFlush(List<TapRecordEvent> events, TapTable table) throws Throwable {
+        WriteListResult<TapRecordEvent> result = write(events, table);
+        streamLoader.flushLoads(result);
+        return result;
+    }
+
+    private void awaitBodies(int size) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000L;
+        while (httpClient.bodies.size() < size && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10L);
+        }
+        Assertions.assertEquals(size, httpClient.bodies.size());
+    }
+
+    private DorisStreamLoader asyncLoader(int concurrency) {
+        DorisConfig dorisConfig = new DorisConfig();
+        dorisConfig.setDorisHttp("127.0.0.1:8030");
+        dorisConfig.setDatabase("db");
+        dorisConfig.setUser("root");
+        dorisConfig.setAsyncLoad(true);
+        dorisConfig.setAsyncLoadConcurrency(concurrency);
+        return new DorisStreamLoader(dorisConfig, httpClient);
+    }
+
+    private static TapTable table(boolean primaryKey) {
+        TapField id = new TapField("id", "INT");
+        if (primaryKey) {
+            id.primaryKeyPos(1);
+        }
+        return new TapTable("t").add(id).add(new TapField("name", "VARCHAR(32)"));
+    }
+
+    private static class FakeHttpClient extends CloseableHttpClient {
+        private final List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+        private volatile long loadMillis;
+        private volatile CountDownLatch bothRunning;
+        private volatile CountDownLatch release;
+        private volatile Predicate<String> fail = body -> false;
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) throws IOException {
+            int current = running.incrementAndGet();
+            maxRunning.accumulateAndGet(current, Math::max);
+            try {
+                String body = EntityUtils.toString(((HttpEntityEnclosingRequest) request).getEntity());
+                bodies.add(body);
+                if (null != bothRunning) {
+                    bothRunning.countDown();
+                    bothRunning.await(5L, TimeUnit.SECONDS);
+                }
+                if (null != release) {
+                    release.await(5L, TimeUnit.SECONDS);
+                }
+                if (loadMillis > 0) {
+                    Thread.sleep(loadMillis);
+                }
+                String status = fail.test(body) ? "Fail" : "Success";
+                return new Response("{\"Status\":\"" + status + "\",\"Message\":\"" + status + "\"}");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        @Deprecated
+        public HttpParams getParams() {
+            return null;
+        }
+
+        @Override
+        @Deprecated
+        public ClientConnectionManager getConnectionManager() {
+            return null;
+        }
+    }
+
+    private static class Response extends BasicHttpResponse implements CloseableHttpResponse {
+        private Response(String body) {
+            super(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+            setEntity(new StringEntity(body, "UTF-8"));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -134,8 +134,8 @@ public class KafkaConnector extends ConnectorBase {
         kafkaService.consumeOne(tapTable, eventBatchSize, eventsOffsetConsumer);
     }
 
-    private void streamRead(TapConnectorContext nodeContext, List<String> tableList, Object offsetState, int recordSize, StreamReadConsumer consumer) {
-        kafkaService.streamConsume(tableList, recordSize, consumer);
+    private void streamRead(TapConnectorContext nodeContext, List<String> tableList, Object offsetState, int recordSize, StreamReadConsumer consumer) throws Throwable {
+        kafkaService.streamConsume(tableList, offsetState, recordSize, consumer);
     }
 
     private Object timestampToStreamOffset(TapConnectorContext connectorContext, Long offsetStartTime) {
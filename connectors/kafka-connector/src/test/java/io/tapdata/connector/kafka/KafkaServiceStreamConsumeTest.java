@@ -0,0 +1,190 @@
+package io.tapdata.connector.kafka;
+
+import io.tapdata.connector.kafka.config.KafkaConfig;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.logger.TapLog;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Multi thread stream consume against in memory partitions, every consumer is a {@link MockConsumer} of the same topic
+ */
+public class KafkaServiceStreamConsumeTest {
+
+    private static final String TOPIC = "t";
+
+    /**
+     * Values of every partition, the index is the offset
+     */
+    private final Map<TopicPartition, List<byte[]>> partitions = new ConcurrentHashMap<>();
+    private final List<Integer> consumedIds = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Object> lastOffset = new AtomicReference<>();
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private TestKafkaService kafkaService;
+    private Thread consumeThread;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        if (null != kafkaService) {
+            kafkaService.stop();
+        }
+        if (null != consumeThread) {
+            consumeThread.join(10000L);
+            Assertions.assertFalse(consumeThread.isAlive());
+        }
+        Assertions.assertNull(error.get());
+    }
+
+    @Test
+    public void testResumeFromSavedPartitionOffsets() throws Exception {
+        addRecords(0, 1, 2, 3);
+        addRecords(1, 4, 5);
+        Map<String, Object> offsetState = new HashMap<>();
+        offsetState.put(TOPIC + "-0", 2L);
+
+        startConsume(offsetState);
+        waitUntil(() -> consumedIds.size() >= 3);
+        Thread.sleep(200L);
+
+        // Partition 0 goes on from offset 2, partition 1 has no saved offset and starts from the earliest
+        Assertions.assertEquals(3, consumedIds.size());
+        Assertions.assertTrue(consumedIds.containsAll(java.util.Arrays.asList(3, 4, 5)));
+        Map<?, ?> offsets = (Map<?, ?>) lastOffset.get();
+        Assertions.assertEquals(3L, offsets.get(TOPIC + "-0"));
+        Assertions.assertEquals(2L, offsets.get(TOPIC + "-1"));
+    }
+
+    @Test
+    public void testPartitionsAddedWhileConsuming() throws Exception {
+        addRecords(0, 1, 2);
+
+        startConsume(null);
+        waitUntil(() -> consumedIds.size() >= 2);
+
+        // New partition is found by the next listing and consumed from its first record
+        addRecords(1, 3, 4);
+        waitUntil(() -> consumedIds.size() >= 4);
+        Assertions.assertEquals(java.util.Arrays.asList(3, 4), consumedIds.subList(2, 4));
+        Map<?, ?> offsets = (Map<?, ?>) lastOffset.get();
+        Assertions.assertEquals(2L, offsets.get(TOPIC + "-0"));
+        Assertions.assertEquals(2L, offsets.get(TOPIC + "-1"));
+
+        // Partition 0 is consumed on after reassignment, without reading its records again
+        addRecords(0, 5);
+        waitUntil(() -> consumedIds.size() >= 5);
+        Thread.sleep(200L);
+        Assertions.assertEquals(5, consumedIds.size());
+    }
+
+    private void startConsume(Object offsetState) {
+        KafkaConfig kafkaConfig = new KafkaConfig();
+        kafkaConfig.setKafkaConsumerThreads(2);
+        kafkaService = new TestKafkaService(kafkaConfig);
+        kafkaService.setPartitionRefreshIntervalMs(100L);
+        consumeThread = new Thread(() -> {
+            try {
+                kafkaService.streamConsume(Collections.singletonList(TOPIC), offsetState, 100, (events, offset) -> {
+                    for (TapEvent event : events) {
+                        consumedIds.add(((Number) ((TapInsertRecordEvent) event).getAfter().get("id")).intValue());
+                    }
+                    lastOffset.set(offset);
+                });
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        consumeThread.start();
+    }
+
+    private void addRecords(int partition, int... ids) {
+        List<byte[]> values = partitions.computeIfAbsent(new TopicPartition(TOPIC, partition), k -> new CopyOnWriteArrayList<>());
+        for (int id : ids) {
+            values.add(("{\"id\":" + id + "}").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void waitUntil(Supplier<Boolean> condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.get(); i++) {
+            Thread.sleep(100L);
+        }
+        Assertions.assertTrue(condition.get());
+    }
+
+    private class TestKafkaService extends KafkaService {
+
+        private TestKafkaService(KafkaConfig kafkaConfig) {
+            this.mqConfig = kafkaConfig;
+            this.tapLogger = new TapLog();
+        }
+
+        private void stop() {
+            consuming.set(false);
+        }
+
+        @Override
+        protected Consumer<byte[], byte[]> createConsumer() {
+            return new PartitionsConsumer();
+        }
+    }
+
+    /**
+     * Sees the partitions as they were when it was created, and the records added to them at any time
+     */
+    private class PartitionsConsumer extends MockConsumer<byte[], byte[]> {
+        private final Map<TopicPartition, Integer> added = new HashMap<>();
+
+        private PartitionsConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+            List<PartitionInfo> partitionInfos = new ArrayList<>();
+            Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+            for (TopicPartition topicPartition : partitions.keySet()) {
+                partitionInfos.add(new PartitionInfo(TOPIC, topicPartition.partition(), null, null, null));
+                beginningOffsets.put(topicPartition, 0L);
+            }
+            updatePartitions(TOPIC, partitionInfos);
+            updateBeginningOffsets(beginningOffsets);
+        }
+
+        @Override
+        public synchronized ConsumerRecords<byte[], byte[]> poll(Duration timeout) {
+            for (TopicPartition topicPartition : assignment()) {
+                List<byte[]> values = partitions.get(topicPartition);
+                int offset = added.getOrDefault(topicPartition, 0);
+                for (; offset < values.size(); offset++) {
+                    addRecord(new ConsumerRecord<>(TOPIC, topicPartition.partition(), offset, null, values.get(offset)));
+                }
+                added.put(topicPartition, offset);
+            }
+            ConsumerRecords<byte[], byte[]> consumerRecords = super.poll(timeout);
+            if (consumerRecords.isEmpty()) {
+                try {
+                    Thread.sleep(10L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return consumerRecords;
+        }
+    }
+}
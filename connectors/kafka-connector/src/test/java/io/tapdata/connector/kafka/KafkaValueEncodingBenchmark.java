@@ -0,0 +1,112 @@
+package io.tapdata.connector.kafka;
+
+import io.tapdata.connector.kafka.util.BinaryValueCodec;
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.entity.utils.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compare json and binary message values: bytes per record (raw and gzip per 1000 records, like a producer batch),
+ * encoded records per second and decoded records per second. Run main, no kafka needed.
+ */
+public class KafkaValueEncodingBenchmark {
+    private static final int RECORDS = 200_000;
+    private static final int BATCH = 1000;
+
+    public static void main(String[] args) throws IOException {
+        JsonParser jsonParser = InstanceFactory.instance(JsonParser.class);
+        BinaryValueCodec codec = new BinaryValueCodec();
+        List<Map<String, Object>> records = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            records.add(record(i));
+        }
+        BinaryValueCodec.TableSchema schema = codec.schema("orders", records.get(0).keySet());
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            long jsonBytes = 0;
+            List<byte[]> jsonValues = new ArrayList<>(RECORDS);
+            for (Map<String, Object> record : records) {
+                byte[] value = jsonParser.toJsonBytes(record);
+                jsonBytes += value.length;
+                jsonValues.add(value);
+            }
+            long jsonEncodeNs = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long binaryBytes = 0;
+            List<byte[]> binaryValues = new ArrayList<>(RECORDS);
+            for (Map<String, Object> record : records) {
+                byte[] value = schema.encode(record);
+                binaryBytes += value.length;
+                binaryValues.add(value);
+            }
+            long binaryEncodeNs = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (byte[] value : jsonValues) {
+                jsonParser.fromJsonBytes(value, Map.class);
+            }
+            long jsonDecodeNs = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (byte[] value : binaryValues) {
+                codec.decode(schema.getHeader(), value);
+            }
+            long binaryDecodeNs = System.nanoTime() - start;
+
+            System.out.printf("round %d, %d records%n", round, RECORDS);
+            System.out.printf("  json:   %d bytes/record, %d gzip bytes/record, encode %d records/s, decode %d records/s%n",
+                    jsonBytes / RECORDS, gzipBytes(jsonValues, null) / RECORDS, perSecond(jsonEncodeNs), perSecond(jsonDecodeNs));
+            System.out.printf("  binary: %d bytes/record, %d gzip bytes/record (with schema header), encode %d records/s, decode %d records/s%n",
+                    binaryBytes / RECORDS, gzipBytes(binaryValues, schema.getHeader()) / RECORDS, perSecond(binaryEncodeNs), perSecond(binaryDecodeNs));
+        }
+    }
+
+    private static Map<String, Object> record(int i) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("order_id", (long) i);
+        record.put("customer_id", i % 10_000);
+        record.put("status", i % 3 == 0 ? "PAID" : "CREATED");
+        record.put("amount", new BigDecimal(i % 1000 + ".25"));
+        record.put("quantity", i % 7);
+        record.put("discount", 0.05D * (i % 4));
+        record.put("created_at", 1_690_000_000_000L + i);
+        record.put("updated_at", 1_690_000_000_000L + i * 2L);
+        record.put("shipping_address", "No." + i + " Example Road, Shenzhen");
+        record.put("remark", i % 5 == 0 ? null : "remark " + i);
+        record.put("paid", i % 3 == 0);
+        record.put("warehouse", "WH-" + (i % 12));
+        return record;
+    }
+
+    /**
+     * Size of values compressed in batches, the same as producer batch compression
+     */
+    private static long gzipBytes(List<byte[]> values, byte[] header) throws IOException {
+        long total = 0;
+        for (int from = 0; from < values.size(); from += BATCH) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                for (int i = from; i < Math.min(from + BATCH, values.size()); i++) {
+                    if (null != header) gzip.write(header);
+                    gzip.write(values.get(i));
+                }
+            }
+            total += out.size();
+        }
+        return total;
+    }
+
+    private static long perSecond(long ns) {
+        return ns <= 0 ? 0 : RECORDS * 1_000_000_000L / ns;
+    }
+}
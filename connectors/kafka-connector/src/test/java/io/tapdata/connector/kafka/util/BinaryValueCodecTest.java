@@ -0,0 +1,115 @@
+package io.tapdata.connector.kafka.util;
+
+import io.tapdata.entity.schema.value.DateTime;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+public class BinaryValueCodecTest {
+
+    private final BinaryValueCodec codec = new BinaryValueCodec();
+
+    @Test
+    public void testRoundTripScalarValues() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("null", null);
+        data.put("true", true);
+        data.put("false", false);
+        data.put("int", -123);
+        data.put("long", Long.MIN_VALUE);
+        data.put("float", 1.5F);
+        data.put("double", -0.25D);
+        data.put("string", "中文 text");
+        data.put("decimal", new BigDecimal("-12345678901234567890.000100"));
+        data.put("bigInteger", new BigInteger("123456789012345678901234567890"));
+
+        Map<String, Object> decoded = roundTrip(data);
+        Assertions.assertEquals(data, decoded);
+        Assertions.assertEquals(6, ((BigDecimal) decoded.get("decimal")).scale());
+    }
+
+    @Test
+    public void testRoundTripTemporalValuesKeepTypes() {
+        Timestamp timestamp = new Timestamp(-1500L);
+        timestamp.setNanos(123456789);
+        DateTime dateTime = new DateTime();
+        dateTime.setSeconds(1690000000L);
+        dateTime.setNano(123456789);
+        dateTime.setTimeZone(TimeZone.getTimeZone("GMT+08:00"));
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("date", new Date(1690000000123L));
+        data.put("timestamp", timestamp);
+        data.put("sqlDate", new java.sql.Date(1690000000000L));
+        data.put("sqlTime", new Time(3723000L));
+        data.put("instant", Instant.ofEpochSecond(1690000000L, 1));
+        data.put("localDateTime", LocalDateTime.of(2023, 7, 22, 4, 26, 40, 999999999));
+        data.put("localDate", LocalDate.of(1969, 12, 31));
+        data.put("localTime", LocalTime.of(23, 59, 59, 1000));
+        data.put("offsetDateTime", OffsetDateTime.of(2023, 7, 22, 4, 26, 40, 5, ZoneOffset.ofHours(-5)));
+        data.put("zonedDateTime", ZonedDateTime.of(2023, 7, 22, 4, 26, 40, 5, ZoneId.of("Asia/Shanghai")));
+        data.put("dateTime", dateTime);
+
+        Map<String, Object> decoded = roundTrip(data);
+        Assertions.assertEquals(data.keySet(), decoded.keySet());
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            Object value = decoded.get(entry.getKey());
+            Assertions.assertEquals(entry.getValue().getClass(), value.getClass(), entry.getKey());
+            Assertions.assertEquals(entry.getValue(), value, entry.getKey());
+        }
+        Assertions.assertEquals(123456789, ((Timestamp) decoded.get("timestamp")).getNanos());
+    }
+
+    @Test
+    public void testRoundTripNestedAndSchemaFreeValues() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("at", LocalDate.of(2023, 1, 1));
+        nested.put("tags", Arrays.asList("a", 1, null));
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", 1);
+        data.put("nested", nested);
+        data.put("bytes", new byte[]{1, 2, 3});
+        // not in the schema, sent with its name
+        data.put("extra", new BigDecimal("1.10"));
+
+        BinaryValueCodec.TableSchema schema = codec.schema("t", Arrays.asList("id", "name", "nested", "bytes"));
+        Map<String, Object> decoded = codec.decode(schema.getHeader(), schema.encode(data));
+        Assertions.assertEquals(Arrays.asList("id", "nested", "bytes", "extra"), Arrays.asList(decoded.keySet().toArray()));
+        Assertions.assertEquals(nested, decoded.get("nested"));
+        Assertions.assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) decoded.get("bytes"));
+        Assertions.assertEquals(new BigDecimal("1.10"), decoded.get("extra"));
+        // absent field is not decoded as null
+        Assertions.assertFalse(decoded.containsKey("name"));
+    }
+
+    @Test
+    public void testUnsupportedTypeIsRejected() {
+        BinaryValueCodec.TableSchema schema = codec.schema("t", Collections.singletonList("id"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> schema.encode(Collections.singletonMap("id", new StringBuilder("1"))));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> schema.encode(Collections.singletonMap("id", Collections.singletonList(new Object()))));
+        // the codec is still usable after a rejected value
+        Assertions.assertEquals(Collections.singletonMap("id", 1), codec.decode(schema.getHeader(), schema.encode(Collections.singletonMap("id", 1))));
+    }
+
+    private Map<String, Object> roundTrip(Map<String, Object> data) {
+        BinaryValueCodec.TableSchema schema = codec.schema("t", data.keySet());
+        return codec.decode(schema.getHeader(), schema.encode(data));
+    }
+}
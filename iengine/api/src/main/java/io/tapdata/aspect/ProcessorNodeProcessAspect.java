@@ -5,6 +5,7 @@ import com.tapdata.entity.TapdataEvent;
 import io.tapdata.entity.logger.TapLogger;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.LongAdder;
@@ -44,6 +45,20 @@ public class ProcessorNodeProcessAspect extends ProcessorFunctionAspect<Processo
 		return inputEvent;
 	}
 
+	private List<TapdataEvent> inputEvents;
+
+	/**
+	 * All input events when one aspect covers a batch of events, {@link #inputEvent} is the first of them
+	 */
+	public ProcessorNodeProcessAspect inputEvents(List<TapdataEvent> inputEvents) {
+		this.inputEvents = inputEvents;
+		return this;
+	}
+
+	public List<TapdataEvent> getInputEvents() {
+		return null == inputEvents ? Collections.singletonList(inputEvent) : inputEvents;
+	}
+
 	public void setInputEvent(TapdataEvent inputEvent) {
 		this.inputEvent = inputEvent;
 	}
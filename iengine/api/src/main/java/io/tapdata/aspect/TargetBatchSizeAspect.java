@@ -0,0 +1,18 @@
+package io.tapdata.aspect;
+
+/**
+ * Effective write batch size of the target node changed
+ */
+public class TargetBatchSizeAspect extends DataNodeAspect<TargetBatchSizeAspect> {
+
+	private int batchSize;
+
+	public TargetBatchSizeAspect batchSize(int batchSize) {
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+}
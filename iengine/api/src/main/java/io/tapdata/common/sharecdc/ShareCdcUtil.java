@@ -37,6 +37,20 @@ public class ShareCdcUtil {
 		return SHARE_CDC_KEY_PREFIX + taskDto.getName() + "_" + tableName;
 	}
 
+	/**
+	 * One ring buffer of all tables, used when the log collector writes in shared log mode
+	 */
+	public static String getSharedLogConstructName(TaskDto taskDto) {
+		return SHARE_CDC_KEY_PREFIX + taskDto.getName() + "__SHARED_LOG";
+	}
+
+	/**
+	 * Map of table id -> sequence ranges of the table in the shared log
+	 */
+	public static String getSharedLogIndexName(TaskDto taskDto) {
+		return SHARE_CDC_KEY_PREFIX + taskDto.getName() + "__SHARED_LOG_INDEX";
+	}
+
 	public static boolean shareCdcEnable(SettingService settingService) {
 		assert settingService != null;
 		settingService.loadSettings(ShareCdcConstant.SETTING_SHARE_CDC_ENABLE);
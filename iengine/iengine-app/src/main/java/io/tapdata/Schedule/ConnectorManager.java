@@ -34,6 +34,7 @@ import com.tapdata.entity.Worker;
 import com.tapdata.entity.dataflow.Stage;
 import com.tapdata.mongo.ClientMongoOperator;
 import com.tapdata.mongo.HttpClientMongoOperator;
+import com.tapdata.mongo.RestRequestCoalescer;
 import com.tapdata.mongo.RestTemplateOperator;
 import com.tapdata.tm.commons.ping.PingDto;
 import com.tapdata.tm.commons.ping.PingType;
@@ -67,6 +68,7 @@ import io.tapdata.entity.Lib;
 import io.tapdata.entity.LibSupported;
 import io.tapdata.flow.engine.V2.entity.GlobalConstant;
 import io.tapdata.metric.MetricManager;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.schema.SchemaProxy;
 import io.tapdata.task.TapdataTaskScheduler;
 import io.tapdata.websocket.ManagementWebsocketHandler;
@@ -579,7 +581,11 @@ public class ConnectorManager {
 				client = new MongoClient(uri);
 				mongoTemplate = new MongoTemplate(client, uri.getDatabase());
 			}
-			clientMongoOperator = new HttpClientMongoOperator(mongoTemplate, client, uri, restTemplateOperator, configCenter);
+			HttpClientMongoOperator httpClientMongoOperator = new HttpClientMongoOperator(mongoTemplate, client, uri, restTemplateOperator, configCenter);
+			if (CommonUtils.getPropertyBool(RestRequestCoalescer.MANAGER_REST_COALESCE_ENABLE_KEY, false)) {
+				httpClientMongoOperator.enableRequestCoalescing();
+			}
+			clientMongoOperator = httpClientMongoOperator;
 			clientMongoOperator.setCloudRegion(jobTags);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
@@ -167,4 +167,10 @@ public interface TaskMergeProcessorExCode_16 {
 			describeCN = "批量更新缓存，操作只能是写入"
 	)
 	String INVALID_OPERATION = "16028";
+
+	@TapExCode(
+			describe = "Failed to batch look up data from the cache based on the federated keys when looking up the data in the subtable",
+			describeCN = "反查子表数据时，根据联合键从缓存中批量查找数据失败"
+	)
+	String LOOK_UP_FIND_BY_JOIN_KEYS_FAILED = "16029";
 }
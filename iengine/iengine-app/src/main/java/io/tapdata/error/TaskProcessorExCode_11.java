@@ -35,4 +35,14 @@ public interface TaskProcessorExCode_11 {
 			solutionCN = "1. 检查代码并修正错误"
 	)
 	String JAVA_SCRIPT_PROCESS_FAILED = "11004";
+
+	@TapExCode(
+			describe = "Aggregate node state was built with a different AGGREGATE_ACCUMULATOR_ENABLE setting.\n" +
+					"Reason\n1. The engine property AGGREGATE_ACCUMULATOR_ENABLE was changed while the task has aggregate state",
+			solution = "1. Restore the previous AGGREGATE_ACCUMULATOR_ENABLE setting\n2. Or reset the task to rebuild the aggregate state",
+			describeCN = "聚合节点的状态是在不同的 AGGREGATE_ACCUMULATOR_ENABLE 配置下生成的。\n" +
+					"原因\n1. 任务已有聚合状态时修改了引擎配置 AGGREGATE_ACCUMULATOR_ENABLE",
+			solutionCN = "1. 恢复之前的 AGGREGATE_ACCUMULATOR_ENABLE 配置\n2. 或者重置任务，重新生成聚合状态"
+	)
+	String AGGREGATE_STATE_MODE_MISMATCH = "11005";
 }
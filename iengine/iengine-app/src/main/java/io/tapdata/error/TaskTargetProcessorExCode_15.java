@@ -103,4 +103,9 @@ public interface TaskTargetProcessorExCode_15 {
 			describeCN = "处理事件失败"
 	)
 	String HANDLE_EVENTS_FAILED = "15018";
+	@TapExCode(
+			describe = "Pipeline write stopped or was interrupted before the record batches were acknowledged",
+			describeCN = "流水线写入在记录批次确认写入前被停止或中断"
+	)
+	String PIPELINE_WRITE_NOT_ACKNOWLEDGED = "15019";
 }
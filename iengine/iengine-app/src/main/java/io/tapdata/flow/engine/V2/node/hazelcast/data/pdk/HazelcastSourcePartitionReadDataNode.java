@@ -34,6 +34,7 @@ import io.tapdata.flow.engine.V2.node.hazelcast.controller.SnapshotOrderControll
 import io.tapdata.flow.engine.V2.node.hazelcast.controller.SnapshotOrderService;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.partition.PartitionConsumer;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.partition.PartitionErrorCodes;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.partition.PartitionEventMerger;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.partition.PartitionTableOffset;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.partition.PartitionsCompletedRunnable;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.partition.ReadPartitionHandler;
@@ -86,6 +87,11 @@ public class HazelcastSourcePartitionReadDataNode extends HazelcastSourcePdkData
 	public final Logger logger = LogManager.getLogger(HazelcastSourcePartitionReadDataNode.class);
 	public final Object streamReadLock = new int[0];
 	private static final int ASYNCLY_COUNT_SNAPSHOT_ROW_SIZE_TABLE_THRESHOLD = 100;
+	/**
+	 * Partition readers put events into their own queues and one thread merges them into the event queue in turn
+	 */
+	public static final String PARTITION_READ_FAIR_MERGE_ENABLE_KEY = "PARTITION_READ_FAIR_MERGE_ENABLE";
+	public static final String PARTITION_READ_QUEUE_BATCHES_KEY = "PARTITION_READ_QUEUE_BATCHES";
 
 	private ShareCdcReader shareCdcReader;
 
@@ -102,6 +108,7 @@ public class HazelcastSourcePartitionReadDataNode extends HazelcastSourcePdkData
 	public Integer batchSize = 5000;
 	public Integer partitionReaderThreadCount = 8;
 	private Map<String, ParallelWorker> tablePartitionReaderMap = new ConcurrentSkipListMap<>();
+	private PartitionEventMerger partitionEventMerger;
 
 	public HazelcastSourcePartitionReadDataNode(DataProcessorContext dataProcessorContext) {
 		super(dataProcessorContext);
@@ -133,6 +140,9 @@ public class HazelcastSourcePartitionReadDataNode extends HazelcastSourcePdkData
 			}
 			super.doInit(context);
 			this.eventQueue = new LinkedBlockingQueue<>(sourceQueueCapacity >> 1);
+			if (CommonUtils.getPropertyBool(PARTITION_READ_FAIR_MERGE_ENABLE_KEY, false)) {
+				partitionEventMerger = new PartitionEventMerger(this, CommonUtils.getPropertyInt(PARTITION_READ_QUEUE_BATCHES_KEY, 2), this::isRunning).start();
+			}
 			//this.eventQueue0 = new LinkedBlockingQueue<>(sourceQueueCapacity);
 		} catch (Throwable e) {
 			//Notify error for task.
@@ -304,11 +314,15 @@ public class HazelcastSourcePartitionReadDataNode extends HazelcastSourcePdkData
 								//Table has been read completed, ignore this table.
 							} else if (recoveredPartitions != null && !recoveredPartitions.isEmpty()) {
 								//Read partition has been split, recover reading partitions.
+								Map<String, Long> partitionProgress = partitionTableOffsetProgress(tapTable.getId());
 								for (ReadPartition readPartition : recoveredPartitions) {
 									if (completedPartitionIds != null && completedPartitionIds.containsKey(readPartition.getId())) {
 										obsLogger.info("Read partition {} has read completed, count {}", readPartition, completedPartitionIds.get(readPartition.getId()));
 										continue;
 									}
+									if (partitionProgress != null && partitionProgress.remove(readPartition.getId()) != null) {
+										obsLogger.info("Read partition {} was not completed last time, read it again", readPartition);
+									}
 									partitionConsumer.accept(readPartition);
 								}
 								partitionsReader.start();
@@ -344,6 +358,58 @@ public class HazelcastSourcePartitionReadDataNode extends HazelcastSourcePdkData
 		}
 	}
 
+	public PartitionEventMerger getPartitionEventMerger() {
+		return partitionEventMerger;
+	}
+
+	/**
+	 * Wait until all events of the partition are in the event queue, then the partition can be saved as completed
+	 *
+	 * @return false if interrupted or stopped before all events are enqueued, the partition must not be saved as completed
+	 */
+	public boolean awaitPartitionEnqueued(String partitionId) {
+		if (partitionEventMerger == null)
+			return true;
+		try {
+			Long count = partitionEventMerger.awaitDrained(partitionId);
+			if (null == count) {
+				obsLogger.info("Partition {} is not fully enqueued before stop, it will be read again on next start", partitionId);
+				return false;
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Partition {} has been enqueued, count {}", partitionId, count);
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Save enqueued event count of the partition into {@link PartitionTableOffset}
+	 */
+	public void partitionEnqueued(String table, String partitionId, long count) {
+		Object batchOffsetObj = syncProgress.getBatchOffsetObj();
+		if (batchOffsetObj instanceof Map) {
+			Object tableOffset = ((Map<?, ?>) batchOffsetObj).get(table);
+			if (tableOffset instanceof PartitionTableOffset) {
+				((PartitionTableOffset) tableOffset).partitionEnqueued(partitionId, count);
+			}
+		}
+	}
+
+	private Map<String, Long> partitionTableOffsetProgress(String table) {
+		Object batchOffsetObj = syncProgress.getBatchOffsetObj();
+		if (batchOffsetObj instanceof Map) {
+			Object tableOffset = ((Map<?, ?>) batchOffsetObj).get(table);
+			if (tableOffset instanceof PartitionTableOffset) {
+				return ((PartitionTableOffset) tableOffset).getPartitionProgress();
+			}
+		}
+		return null;
+	}
+
 	private JobContext handleStreamRead(JobContext jobContext) {
 		try {
 			doCdc();
@@ -694,6 +760,9 @@ public class HazelcastSourcePartitionReadDataNode extends HazelcastSourcePdkData
 				}
 			}
 			tablePartitionReaderMap.clear();
+			if (partitionEventMerger != null) {
+				partitionEventMerger.stop();
+			}
 
 			if (initialSyncWorker != null) {
 				initialSyncWorker.stop();
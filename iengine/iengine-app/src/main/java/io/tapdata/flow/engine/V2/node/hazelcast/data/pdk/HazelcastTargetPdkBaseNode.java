@@ -34,6 +34,7 @@ import com.tapdata.tm.commons.util.JsonUtil;
 import com.tapdata.tm.shareCdcTableMetrics.ShareCdcTableMetricsDto;
 import io.tapdata.aspect.CreateTableFuncAspect;
 import io.tapdata.aspect.NewFieldFuncAspect;
+import io.tapdata.aspect.TargetBatchSizeAspect;
 import io.tapdata.aspect.TaskMilestoneFuncAspect;
 import io.tapdata.aspect.supervisor.DataNodeThreadGroupAspect;
 import io.tapdata.aspect.taskmilestones.*;
@@ -61,10 +62,13 @@ import io.tapdata.flow.engine.V2.exception.node.NodeException;
 import io.tapdata.flow.engine.V2.node.hazelcast.controller.SnapshotOrderController;
 import io.tapdata.flow.engine.V2.node.hazelcast.controller.SnapshotOrderService;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.PartitionConcurrentProcessor;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.PipelineWriteProcessor;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.KeysPartitioner;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector.TapEventPartitionKeySelector;
+import io.tapdata.flow.engine.V2.util.AdaptiveBatchSizer;
 import io.tapdata.flow.engine.V2.util.GraphUtil;
 import io.tapdata.flow.engine.V2.util.PdkUtil;
+import io.tapdata.flow.engine.V2.util.SpscRingBufferQueue;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
 import io.tapdata.flow.engine.V2.util.TargetTapEventFilter;
 import io.tapdata.milestone.MilestoneStage;
@@ -111,6 +115,19 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 	private static final String TAG = HazelcastTargetPdkDataNode.class.getSimpleName();
 	public static final long DEFAULT_TARGET_BATCH_INTERVAL_MS = 1000;
 	public static final int DEFAULT_TARGET_BATCH = 1000;
+	public static final String TARGET_QUEUE_RING_BUFFER_ENABLE_KEY = "TARGET_QUEUE_RING_BUFFER_ENABLE";
+	public static final String TARGET_QUEUE_RING_BUFFER_WAIT_STRATEGY_KEY = "TARGET_QUEUE_RING_BUFFER_WAIT_STRATEGY";
+	public static final String TARGET_PIPELINE_WRITE_ENABLE_KEY = "TARGET_PIPELINE_WRITE_ENABLE";
+	public static final String TARGET_PIPELINE_WRITE_THREADS_KEY = "TARGET_PIPELINE_WRITE_THREADS";
+	public static final String TARGET_PIPELINE_WRITE_MAX_IN_FLIGHT_PER_TABLE_KEY = "TARGET_PIPELINE_WRITE_MAX_IN_FLIGHT_PER_TABLE";
+	public static final int DEFAULT_PIPELINE_WRITE_THREADS = 4;
+	public static final int DEFAULT_PIPELINE_WRITE_MAX_IN_FLIGHT_PER_TABLE = 2;
+	public static final String TARGET_ADAPTIVE_BATCH_ENABLE_KEY = "TARGET_ADAPTIVE_BATCH_ENABLE";
+	public static final String TARGET_ADAPTIVE_BATCH_MIN_KEY = "TARGET_ADAPTIVE_BATCH_MIN";
+	public static final String TARGET_ADAPTIVE_BATCH_MAX_KEY = "TARGET_ADAPTIVE_BATCH_MAX";
+	public static final String TARGET_ADAPTIVE_BATCH_TARGET_LATENCY_MS_KEY = "TARGET_ADAPTIVE_BATCH_TARGET_LATENCY_MS";
+	public static final long DEFAULT_ADAPTIVE_BATCH_TARGET_LATENCY_MS = 1000L;
+	public static final String CONCURRENT_WRITE_LOW_WATERMARK_COMMIT_KEY = "CONCURRENT_WRITE_LOW_WATERMARK_COMMIT";
 	protected Map<String, SyncProgress> syncProgressMap = new ConcurrentHashMap<>();
 	private AtomicBoolean firstBatchEvent = new AtomicBoolean();
 	private AtomicBoolean firstStreamEvent = new AtomicBoolean();
@@ -127,12 +144,16 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 	private int cdcConcurrentWriteNum;
 	private PartitionConcurrentProcessor initialPartitionConcurrentProcessor;
 	private PartitionConcurrentProcessor cdcPartitionConcurrentProcessor;
-	private LinkedBlockingQueue<TapdataEvent> tapEventQueue;
+	protected PipelineWriteProcessor pipelineWriteProcessor;
+	private boolean exactlyOnceWriteTransaction = false;
+	private BlockingQueue<TapdataEvent> tapEventQueue;
 	private final Object saveSnapshotLock = new Object();
 	private final ThreadPoolExecutorEx queueConsumerThreadPool;
 	private boolean inCdc = false;
 	protected int targetBatch;
 	protected long targetBatchIntervalMs;
+	protected AdaptiveBatchSizer adaptiveBatchSizer;
+	private int reportedBatchSize;
 	private TargetTapEventFilter targetTapEventFilter;
 	protected final List<String> exactlyOnceWriteTables = new ArrayList<>();
 	protected final ConcurrentHashMap<String, List<String>> exactlyOnceWriteNeedLookupTables = new ConcurrentHashMap<>();
@@ -286,6 +307,55 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 				}
 			}
 		}
+		initPipelineWriteProcessorIfNeed();
+	}
+
+	private void initPipelineWriteProcessorIfNeed() {
+		if (!CommonUtils.getPropertyBool(TARGET_PIPELINE_WRITE_ENABLE_KEY, false) || !supportPipelineWrite()) {
+			return;
+		}
+		if (initialConcurrent || cdcConcurrent) {
+			obsLogger.info("Pipeline write is disabled, because concurrent write is enabled");
+			return;
+		}
+		int writeThreads = Math.max(1, CommonUtils.getPropertyInt(TARGET_PIPELINE_WRITE_THREADS_KEY, DEFAULT_PIPELINE_WRITE_THREADS));
+		int maxInFlightPerTable = Math.max(1, CommonUtils.getPropertyInt(TARGET_PIPELINE_WRITE_MAX_IN_FLIGHT_PER_TABLE_KEY, DEFAULT_PIPELINE_WRITE_MAX_IN_FLIGHT_PER_TABLE));
+		this.pipelineWriteProcessor = new PipelineWriteProcessor(
+				AsyncUtils.createThreadPoolExecutor(String.format("Target-Pipeline-Writer-%s[%s]@task-%s", getNode().getName(), getNode().getId(), dataProcessorContext.getTaskDto().getName()), writeThreads, new ConnectorOnTaskThreadGroup(dataProcessorContext), TAG),
+				writeThreads,
+				maxInFlightPerTable,
+				this::errorHandle,
+				this::isRunning
+		);
+		obsLogger.info("Pipeline write is enabled, write threads: {}, max in flight batches per table: {}", writeThreads, maxInFlightPerTable);
+	}
+
+	/**
+	 * Whether this node writes record batches through {@link #pipelineWriteProcessor} when pipeline write is enabled
+	 */
+	protected boolean supportPipelineWrite() {
+		return false;
+	}
+
+	protected boolean usePipelineWrite() {
+		return null != pipelineWriteProcessor && !exactlyOnceWriteTransaction;
+	}
+
+	/**
+	 * Wait for all in flight pipeline write batches, before anything that must not overtake earlier writes
+	 */
+	protected void waitPipelineWrite() {
+		if (null == pipelineWriteProcessor) return;
+		boolean acknowledged;
+		try {
+			acknowledged = pipelineWriteProcessor.barrier();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TapCodeException(TaskTargetProcessorExCode_15.PIPELINE_WRITE_NOT_ACKNOWLEDGED, "Interrupted while waiting for in flight batches", e);
+		}
+		if (!acknowledged) {
+			throw new TapCodeException(TaskTargetProcessorExCode_15.PIPELINE_WRITE_NOT_ACKNOWLEDGED, "Node stopped while waiting for in flight batches");
+		}
 	}
 
 	private void initTargetVariable() {
@@ -304,9 +374,26 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 			this.targetBatchIntervalMs = Optional.ofNullable(((DataParentNode<?>) getNode()).getWriteBatchWaitMs()).orElse(DEFAULT_TARGET_BATCH_INTERVAL_MS);
 		}
 		obsLogger.info("Write batch size: {}, max wait ms per batch: {}", targetBatch, targetBatchIntervalMs);
-		int writeQueueCapacity = new BigDecimal(targetBatch).multiply(new BigDecimal("1.5")).setScale(0, RoundingMode.HALF_UP).intValue();
-		this.tapEventQueue = new LinkedBlockingQueue<>(writeQueueCapacity);
-		obsLogger.debug("Initialize target write queue complete, capacity: {}", writeQueueCapacity);
+		int queueBatch = targetBatch;
+		if (CommonUtils.getPropertyBool(TARGET_ADAPTIVE_BATCH_ENABLE_KEY, false)) {
+			// Write batch size grows or shrinks per table by write cost, in [min, max]
+			int minBatch = Math.max(1, CommonUtils.getPropertyInt(TARGET_ADAPTIVE_BATCH_MIN_KEY, Math.max(1, targetBatch / 10)));
+			int maxBatch = Math.max(minBatch, CommonUtils.getPropertyInt(TARGET_ADAPTIVE_BATCH_MAX_KEY, targetBatch * 4));
+			long targetLatencyMs = Math.max(1L, CommonUtils.getPropertyLong(TARGET_ADAPTIVE_BATCH_TARGET_LATENCY_MS_KEY, DEFAULT_ADAPTIVE_BATCH_TARGET_LATENCY_MS));
+			this.adaptiveBatchSizer = new AdaptiveBatchSizer(minBatch, maxBatch, targetBatch, targetLatencyMs);
+			queueBatch = maxBatch;
+			obsLogger.info("Adaptive write batch size enabled: {}", adaptiveBatchSizer);
+		}
+		int writeQueueCapacity = new BigDecimal(queueBatch).multiply(new BigDecimal("1.5")).setScale(0, RoundingMode.HALF_UP).intValue();
+		if (CommonUtils.getPropertyBool(TARGET_QUEUE_RING_BUFFER_ENABLE_KEY, false)) {
+			// Only the jet processor thread offers and only the target queue consumer thread drains, so a single producer/single consumer ring buffer is safe here
+			SpscRingBufferQueue.WaitStrategy waitStrategy = SpscRingBufferQueue.WaitStrategy.fromString(CommonUtils.getProperty(TARGET_QUEUE_RING_BUFFER_WAIT_STRATEGY_KEY));
+			this.tapEventQueue = new SpscRingBufferQueue<>(writeQueueCapacity, waitStrategy);
+			obsLogger.info("Initialize target write ring buffer queue complete, capacity: {}, wait strategy: {}", writeQueueCapacity, waitStrategy);
+		} else {
+			this.tapEventQueue = new LinkedBlockingQueue<>(writeQueueCapacity);
+			obsLogger.debug("Initialize target write queue complete, capacity: {}", writeQueueCapacity);
+		}
 	}
 
 	private void createPdkAndInit(@NotNull Context context) {
@@ -421,7 +508,7 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 							.dataProcessorContext(dataProcessorContext));
 			List<TapdataEvent> tapdataEvents = new ArrayList<>();
 			while (isRunning()) {
-				int drain = Queues.drain(tapEventQueue, tapdataEvents, targetBatch, targetBatchIntervalMs, TimeUnit.MILLISECONDS);
+				int drain = Queues.drain(tapEventQueue, tapdataEvents, drainBatchSize(), targetBatchIntervalMs, TimeUnit.MILLISECONDS);
 				if (drain > 0) {
 					processTargetEvents(tapdataEvents);
 					tapdataEvents.clear();
@@ -442,6 +529,35 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 		}
 	}
 
+	/**
+	 * Write batch size of the table at the queue head, fixed {@link #targetBatch} if adaptive batch size is disabled
+	 */
+	private int drainBatchSize() {
+		if (null == adaptiveBatchSizer) {
+			return targetBatch;
+		}
+		TapdataEvent head = tapEventQueue.peek();
+		String tableId = null == head || null == head.getTapEvent() ? null : TapEventUtil.getTableId(head.getTapEvent());
+		int batchSize = adaptiveBatchSizer.batchSize(tableId);
+		if (batchSize != reportedBatchSize) {
+			reportedBatchSize = batchSize;
+			executeAspect(TargetBatchSizeAspect.class, () -> new TargetBatchSizeAspect().dataProcessorContext(dataProcessorContext).batchSize(batchSize));
+		}
+		return batchSize;
+	}
+
+	/**
+	 * Feed write cost or error of a batch back to adaptive batch size
+	 */
+	protected void adaptiveBatchFeedback(String tableId, int events, long costMs, boolean succeed) {
+		if (null == adaptiveBatchSizer) return;
+		if (succeed) {
+			adaptiveBatchSizer.onSuccess(tableId, events, costMs);
+		} else {
+			adaptiveBatchSizer.onError(tableId);
+		}
+	}
+
 	private void initialProcessEvents(List<TapdataEvent> initialEvents, boolean async) {
 
 		if (CollectionUtils.isNotEmpty(initialEvents)) {
@@ -488,16 +604,20 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 				if (tapdataEvent instanceof TapdataHeartbeatEvent) {
 					handleTapdataHeartbeatEvent(tapdataEvent);
 				} else if (tapdataEvent instanceof TapdataCompleteSnapshotEvent) {
+					waitPipelineWrite();
 					handleTapdataCompleteSnapshotEvent();
 				} else if (tapdataEvent instanceof TapdataStartingCdcEvent) {
+					waitPipelineWrite();
 					handleTapdataStartCdcEvent(tapdataEvent);
 				} else if (tapdataEvent instanceof TapdataStartedCdcEvent) {
+					waitPipelineWrite();
 					flushShareCdcTableMetrics(tapdataEvent);
 				} else if (tapdataEvent instanceof TapdataTaskErrorEvent) {
 					throw ((TapdataTaskErrorEvent) tapdataEvent).getThrowable();
 				} else if (tapdataEvent instanceof TapdataShareLogEvent) {
 					handleTapdataShareLogEvent(tapdataShareLogEvents, tapdataEvent, lastTapdataEvent::set);
 				} else if (tapdataEvent instanceof TapdataCompleteTableSnapshotEvent) {
+					waitPipelineWrite();
 					handleTapdataCompleteTableSnapshotEvent((TapdataCompleteTableSnapshotEvent) tapdataEvent);
 				} else {
 					if (tapdataEvent.isDML()) {
@@ -539,6 +659,9 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 			try {
 				try {
 					if (checkExactlyOnceWriteEnableResult.getEnable() && hasExactlyOnceWriteCache) {
+						// Exactly once write needs the records and the cache in one transaction, so write synchronously
+						waitPipelineWrite();
+						exactlyOnceWriteTransaction = true;
 						transactionBegin();
 					}
 					processEvents(tapEvents);
@@ -549,8 +672,10 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 				} catch (Exception e) {
 					transactionRollback();
 					throw e;
+				} finally {
+					exactlyOnceWriteTransaction = false;
 				}
-				flushOffsetByTapdataEventForNoConcurrent(lastTapdataEvent);
+				flushOffsetAfterWrite(lastTapdataEvent);
 			} catch (Throwable throwable) {
 				throw new RuntimeException(String.format("Process events failed: %s", throwable.getMessage()), throwable);
 			}
@@ -586,6 +711,19 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 		executeAspect(new SnapshotWriteTableCompleteAspect().sourceNodeId(srcNodeId).sourceTableName(tapdataEvent.getSourceTableName()).dataProcessorContext(dataProcessorContext));
 	}
 
+	/**
+	 * Flush offset now, or after all earlier batches are acknowledged when pipeline write is in use
+	 */
+	private void flushOffsetAfterWrite(AtomicReference<TapdataEvent> lastTapdataEvent) {
+		if (null != pipelineWriteProcessor) {
+			if (null == lastTapdataEvent.get()) return;
+			AtomicReference<TapdataEvent> offsetEvent = new AtomicReference<>(lastTapdataEvent.get());
+			pipelineWriteProcessor.commitOffset(() -> flushOffsetByTapdataEventForNoConcurrent(offsetEvent));
+		} else {
+			flushOffsetByTapdataEventForNoConcurrent(lastTapdataEvent);
+		}
+	}
+
 	private void flushOffsetByTapdataEventForNoConcurrent(AtomicReference<TapdataEvent> lastTapdataEvent) {
 		if (null != lastTapdataEvent.get()) {
 			SyncStage syncStage = lastTapdataEvent.get().getSyncStage();
@@ -670,6 +808,11 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 	}
 
 	private void handleTapdataHeartbeatEvent(TapdataEvent tapdataEvent) {
+		if (null != pipelineWriteProcessor) {
+			// Heartbeat offset must not overtake in flight batches, it will be saved by the scheduled flush
+			pipelineWriteProcessor.commitOffset(() -> flushSyncProgressMap(tapdataEvent));
+			return;
+		}
 		flushSyncProgressMap(tapdataEvent);
 		saveToSnapshot();
 	}
@@ -984,7 +1127,8 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 				this::flushSyncProgressMap,
 				this::errorHandle,
 				this::isRunning,
-				dataProcessorContext.getTaskDto()
+				dataProcessorContext.getTaskDto(),
+				CommonUtils.getPropertyBool(CONCURRENT_WRITE_LOW_WATERMARK_COMMIT_KEY, false)
 		);
 	}
 
@@ -999,6 +1143,7 @@ public abstract class HazelcastTargetPdkBaseNode extends HazelcastPdkBaseNode {
 			}
 			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.initialPartitionConcurrentProcessor).ifPresent(PartitionConcurrentProcessor::forceStop), TAG);
 			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.cdcPartitionConcurrentProcessor).ifPresent(PartitionConcurrentProcessor::forceStop), TAG);
+			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.pipelineWriteProcessor).ifPresent(p -> p.stop(60L, TimeUnit.SECONDS)), TAG);
 			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.queueConsumerThreadPool).ifPresent(ExecutorService::shutdownNow), TAG);
 			CommonUtils.ignoreAnyError(()->Optional.ofNullable(this.flushOffsetExecutor).ifPresent(ExecutorService::shutdownNow), TAG);
 			CommonUtils.ignoreAnyError(this::saveToSnapshot, TAG);
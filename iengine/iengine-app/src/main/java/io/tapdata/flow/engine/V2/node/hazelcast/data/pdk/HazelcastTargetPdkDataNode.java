@@ -3,6 +3,7 @@ package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk;
 import com.google.common.collect.Maps;
 import com.tapdata.constant.ConnectorConstant;
 import com.tapdata.constant.Log4jUtil;
+import com.tapdata.constant.MapUtil;
 import com.tapdata.constant.StringUtil;
 import com.tapdata.entity.TapdataEvent;
 import com.tapdata.entity.dataflow.SyncProgress;
@@ -37,6 +38,7 @@ import io.tapdata.flow.engine.V2.exactlyonce.write.ExactlyOnceWriteCleaner;
 import io.tapdata.flow.engine.V2.exactlyonce.write.ExactlyOnceWriteCleanerEntity;
 import io.tapdata.flow.engine.V2.exception.TapExactlyOnceWriteExCode_22;
 import io.tapdata.flow.engine.V2.exception.node.NodeException;
+import io.tapdata.flow.engine.V2.util.TapEventUtil;
 import io.tapdata.pdk.apis.entity.TapAdvanceFilter;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 import io.tapdata.pdk.apis.entity.merge.MergeInfo;
@@ -298,6 +300,7 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 					if (firstEvent instanceof TapRecordEvent) {
 						writeRecord(events);
 					} else if (firstEvent instanceof TapDDLEvent) {
+						waitPipelineWrite();
 						writeDDL(events);
 					}
 				});
@@ -552,9 +555,14 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 		events.forEach(this::addPropertyForMergeEvent);
 		tapRecordEvents.forEach(t -> removeNotSupportFields(t, tapTable.getId()));
 		WriteRecordFunction writeRecordFunction = getConnectorNode().getConnectorFunctions().getWriteRecordFunction();
-		PDKMethodInvoker pdkMethodInvoker = createPdkMethodInvoker();
-		if (writeRecordFunction != null) {
+		if (writeRecordFunction == null) {
+			throw new TapCodeException(TaskTargetProcessorExCode_15.WRITE_RECORD_PDK_NONSUPPORT, String.format("PDK connector id: %s", getConnectorNode().getConnectorContext().getSpecification().getId()));
+		}
+		Runnable write = () -> {
+			PDKMethodInvoker pdkMethodInvoker = createPdkMethodInvoker();
 			logger.debug("Write {} of record events, {}", tapRecordEvents.size(), LoggerUtils.targetNodeMessage(getConnectorNode()));
+			long writeStartAt = System.currentTimeMillis();
+			boolean writeSucceed = false;
 			try {
 				executeDataFuncAspect(WriteRecordFuncAspect.class, () -> new WriteRecordFuncAspect()
 						.recordEvents(tapRecordEvents)
@@ -614,14 +622,55 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 										}
 								)
 						)));
+				writeSucceed = true;
 			} finally {
 				removePdkMethodInvoker(pdkMethodInvoker);
+				adaptiveBatchFeedback(tableId, tapRecordEvents.size(), System.currentTimeMillis() - writeStartAt, writeSucceed);
+			}
+		};
+		if (usePipelineWrite()) {
+			// Batch n+1 is assembled by the queue consumer while batch n is still being written
+			boolean submitted;
+			try {
+				submitted = pipelineWriteProcessor.submit(tgtTableName, getPipelineWriteKeys(tapTable, tapRecordEvents), write);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new TapCodeException(TaskTargetProcessorExCode_15.PIPELINE_WRITE_NOT_ACKNOWLEDGED, String.format("Interrupted while submitting %s record(s) of table %s", tapRecordEvents.size(), tgtTableName), e);
+			}
+			if (!submitted) {
+				// Fail here, so the offset of this batch is never committed
+				throw new TapCodeException(TaskTargetProcessorExCode_15.PIPELINE_WRITE_NOT_ACKNOWLEDGED, String.format("Node stopped, %s record(s) of table %s are not written", tapRecordEvents.size(), tgtTableName));
 			}
 		} else {
-			throw new TapCodeException(TaskTargetProcessorExCode_15.WRITE_RECORD_PDK_NONSUPPORT, String.format("PDK connector id: %s", getConnectorNode().getConnectorContext().getSpecification().getId()));
+			write.run();
 		}
 	}
 
+	/**
+	 * Primary key values touched by the events, both before and after values for update, null if the table has no primary key
+	 */
+	private Set<List<Object>> getPipelineWriteKeys(TapTable tapTable, List<TapRecordEvent> tapRecordEvents) {
+		Collection<String> primaryKeys = tapTable.primaryKeys(true);
+		if (CollectionUtils.isEmpty(primaryKeys)) {
+			return null;
+		}
+		Set<List<Object>> keys = new HashSet<>(tapRecordEvents.size() * 2);
+		for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
+			addPipelineWriteKey(keys, primaryKeys, TapEventUtil.getBefore(tapRecordEvent));
+			addPipelineWriteKey(keys, primaryKeys, TapEventUtil.getAfter(tapRecordEvent));
+		}
+		return keys;
+	}
+
+	private void addPipelineWriteKey(Set<List<Object>> keys, Collection<String> primaryKeys, Map<String, Object> row) {
+		if (MapUtils.isEmpty(row)) return;
+		List<Object> key = new ArrayList<>(primaryKeys.size());
+		for (String primaryKey : primaryKeys) {
+			key.add(MapUtil.getValueByKey(row, primaryKey));
+		}
+		keys.add(key);
+	}
+
 	private void addPropertyForMergeEvent(TapEvent tapEvent) {
 		if (null == tapEvent) return;
 		Object info = tapEvent.getInfo(MergeInfo.EVENT_INFO_KEY);
@@ -760,6 +809,11 @@ public class HazelcastTargetPdkDataNode extends HazelcastTargetPdkBaseNode {
 		return result.get();
 	}
 
+	@Override
+	protected boolean supportPipelineWrite() {
+		return true;
+	}
+
 	@Override
 	public void doClose() throws Exception {
 		super.doClose();
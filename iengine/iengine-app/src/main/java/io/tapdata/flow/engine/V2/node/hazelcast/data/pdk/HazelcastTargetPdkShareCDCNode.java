@@ -6,6 +6,7 @@ import com.tapdata.constant.MapUtil;
 import com.tapdata.entity.TapdataEvent;
 import com.tapdata.entity.TapdataShareLogEvent;
 import com.tapdata.entity.sharecdc.LogContent;
+import com.tapdata.entity.sharecdc.ShareCdcConstant;
 import com.tapdata.entity.task.context.DataProcessorContext;
 import com.tapdata.processor.dataflow.aggregation.PersistentLRUMap;
 import com.tapdata.tm.commons.dag.Node;
@@ -16,6 +17,7 @@ import io.tapdata.aspect.*;
 import io.tapdata.aspect.utils.AspectUtils;
 import io.tapdata.common.sharecdc.ShareCdcUtil;
 import io.tapdata.construct.HazelcastConstruct;
+import io.tapdata.construct.constructImpl.ConstructIMap;
 import io.tapdata.construct.constructImpl.ConstructRingBuffer;
 import io.tapdata.entity.codec.TapCodecsRegistry;
 import io.tapdata.entity.event.TapEvent;
@@ -33,8 +35,10 @@ import io.tapdata.entity.utils.ObjectSerializable;
 import io.tapdata.error.TaskProcessorExCode_11;
 import io.tapdata.error.TaskTargetShareCDCProcessorExCode_19;
 import io.tapdata.exception.TapCodeException;
+import io.tapdata.flow.engine.V2.util.AppendNotifier;
 import io.tapdata.flow.engine.V2.util.GraphUtil;
 import io.tapdata.flow.engine.V2.util.PdkUtil;
+import io.tapdata.flow.engine.V2.util.SequenceRangeIndex;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 import io.tapdata.pdk.core.utils.CommonUtils;
@@ -86,6 +90,12 @@ public class HazelcastTargetPdkShareCDCNode extends HazelcastTargetPdkBaseNode {
 	private Map<String, ShareCdcTableMetricsDto> shareCdcTableMetricsDtoMap;
 	private ClassHandlers ddlEventHandlers;
 	private final AtomicReference<LogContent> ddlLogContent = new AtomicReference<>();
+	/**
+	 * Shared log mode: all tables in one ring buffer, table id -> sequence ranges in the index map
+	 */
+	private ConstructRingBuffer<Document> sharedLog;
+	private ConstructIMap<Document> sharedLogIndex;
+	private final Map<String, SequenceRangeIndex> sharedLogRanges = new HashMap<>();
 
 	public HazelcastTargetPdkShareCDCNode(DataProcessorContext dataProcessorContext) {
 		super(dataProcessorContext);
@@ -101,10 +111,15 @@ public class HazelcastTargetPdkShareCDCNode extends HazelcastTargetPdkBaseNode {
 		externalStorageDto.setTtlDay(shareCdcTtlDay);
 		LogContent startTimeSign = LogContent.createStartTimeSign();
 		Document document = MapUtil.obj2Document(startTimeSign);
-		for (String tableName : tableNames) {
-			HazelcastConstruct<Document> construct = getConstruct(tableName);
-			if (construct.isEmpty()) {
-				construct.insert(document);
+		if (CommonUtils.getPropertyBool(ShareCdcConstant.SHARED_LOG_ENABLE_KEY, false)) {
+			initSharedLog(document);
+		} else {
+			removeSharedLogMarker();
+			for (String tableName : tableNames) {
+				HazelcastConstruct<Document> construct = getConstruct(tableName);
+				if (construct.isEmpty()) {
+					construct.insert(document);
+				}
 			}
 		}
 		this.batchCacheData = new LinkedHashMap<>();
@@ -124,6 +139,29 @@ public class HazelcastTargetPdkShareCDCNode extends HazelcastTargetPdkBaseNode {
 		initCodecs();
 	}
 
+	private void initSharedLog(Document startTimeSign) throws Exception {
+		TaskDto taskDto = processorBaseContext.getTaskDto();
+		sharedLog = new ConstructRingBuffer<>(jetContext.hazelcastInstance(), constructReferenceId.get(), ShareCdcUtil.getSharedLogConstructName(taskDto), externalStorageDto);
+		sharedLogIndex = new ConstructIMap<>(jetContext.hazelcastInstance(), constructReferenceId.get(), ShareCdcUtil.getSharedLogIndexName(taskDto), externalStorageDto);
+		if (sharedLog.isEmpty()) {
+			sharedLog.insert(startTimeSign);
+		}
+		sharedLogIndex.insert(ShareCdcConstant.SHARED_LOG_MARKER_KEY, new Document("enable", true));
+		obsLogger.info("Log data will be written into shared log: {}, index: {}", sharedLog.getName(), ShareCdcUtil.getSharedLogIndexName(taskDto));
+	}
+
+	/**
+	 * Shared log mode is turned off, readers must not take the shared log of an earlier run as the current log
+	 */
+	private void removeSharedLogMarker() throws Exception {
+		TaskDto taskDto = processorBaseContext.getTaskDto();
+		ConstructIMap<Document> index = new ConstructIMap<>(jetContext.hazelcastInstance(), constructReferenceId.get(), ShareCdcUtil.getSharedLogIndexName(taskDto), externalStorageDto);
+		if (index.exists(ShareCdcConstant.SHARED_LOG_MARKER_KEY)) {
+			index.delete(ShareCdcConstant.SHARED_LOG_MARKER_KEY);
+			obsLogger.info("Shared log is disabled, log data will be written into the log storage of each table");
+		}
+	}
+
 	private void initCodecs() {
 		if (null != codecsFilterManager) {
 			TapCodecsRegistry codecsRegistry = codecsFilterManager.getCodecsRegistry();
@@ -305,16 +343,32 @@ public class HazelcastTargetPdkShareCDCNode extends HazelcastTargetPdkBaseNode {
 		}
 		String tableId = logContent.getFromTable();
 		Document document = logContent2Document(logContent);
+		if (null != sharedLog) {
+			insertSharedLog(Collections.singletonList(document), Collections.singletonList(ShareCdcUtil.getTableId(logContent)));
+			return;
+		}
 		HazelcastConstruct<Document> construct = getConstruct(tableId);
 		try {
 			construct.insert(document);
 		} catch (Exception e) {
 			throw new TapCodeException(TaskProcessorExCode_11.WRITE_ONE_SHARE_LOG_FAILED, "Write document failed: %s", e);
 		}
+		AppendNotifier.getInstance().notifyAppended(construct.getName());
 	}
 
 	private <E extends TapEvent> WriteListResult<E> writeLogContents(List<LogContent> logContents) {
 		WriteListResult<E> writeListResult = new WriteListResult<>();
+		if (null != sharedLog) {
+			List<Document> documents = new ArrayList<>(logContents.size());
+			List<String> tableIds = new ArrayList<>(logContents.size());
+			for (LogContent logContent : logContents) {
+				tableIds.add(ShareCdcUtil.getTableId(logContent));
+				documents.add(logContent2Document(logContent));
+			}
+			insertSharedLog(documents, tableIds);
+			writeListResult.incrementInserted(documents.size());
+			return writeListResult;
+		}
 		for (LogContent logContent : logContents) {
 			String tableId = ShareCdcUtil.getTableId(logContent);
 			Document document = logContent2Document(logContent);
@@ -526,6 +580,7 @@ public class HazelcastTargetPdkShareCDCNode extends HazelcastTargetPdkBaseNode {
 		try {
 			HazelcastConstruct<Document> construct = getConstruct(tableId);
 			construct.insertMany(batchCacheData.get(tableId), unused -> !isRunning());
+			AppendNotifier.getInstance().notifyAppended(construct.getName());
 			if (logger.isDebugEnabled()) {
 				Ringbuffer ringbuffer = ((ConstructRingBuffer) construct).getRingbuffer();
 				logger.debug("Write ring buffer, head sequence: {}, tail sequence: {}, last data: {}", ringbuffer.headSequence(), ringbuffer.tailSequence(), ringbuffer.readOne(ringbuffer.tailSequence()));
@@ -536,6 +591,68 @@ public class HazelcastTargetPdkShareCDCNode extends HazelcastTargetPdkBaseNode {
 		}
 	}
 
+	/**
+	 * Append documents in event order and index their sequences by table, then notify readers
+	 */
+	private void insertSharedLog(List<Document> documents, List<String> tableIds) {
+		Set<String> touchedTables = new HashSet<>();
+		for (int from = 0; from < documents.size(); from += INSERT_BATCH_SIZE) {
+			int to = Math.min(from + INSERT_BATCH_SIZE, documents.size());
+			List<Document> batch = documents.subList(from, to);
+			long lastSequence;
+			try {
+				lastSequence = sharedLog.addAll(batch, unused -> !isRunning());
+			} catch (Exception e) {
+				throw new TapCodeException(TaskTargetShareCDCProcessorExCode_19.INSERT_MANY_INTO_RINGBUFFER_FAILED,
+						String.format("Ring buffer name: %s, size: %s", sharedLog.getName(), batch.size()), e);
+			}
+			if (lastSequence < 0) {
+				// Stopped before the append completed, sequences of this batch are unknown
+				obsLogger.warn("Stopped while appending {} records to shared log {}, they are not indexed", batch.size(), sharedLog.getName());
+				break;
+			}
+			// The batch is appended as a whole, its sequences are consecutive and end at the returned one
+			long firstSequence = lastSequence - batch.size() + 1;
+			for (int i = from; i < to; i++) {
+				String tableId = tableIds.get(i);
+				sharedLogRanges(tableId).add(firstSequence + i - from);
+				touchedTables.add(tableId);
+			}
+		}
+		long headSequence = sharedLog.getRingbuffer().headSequence();
+		Map<String, Document> indexDocuments = new HashMap<>();
+		for (String tableId : touchedTables) {
+			SequenceRangeIndex index = sharedLogRanges(tableId);
+			index.trimBefore(headSequence);
+			indexDocuments.put(tableId, new Document(ShareCdcConstant.SHARED_LOG_RANGES_FIELD, index.toList()));
+		}
+		// Refresh the marker with the index, both expire by the same ttl
+		indexDocuments.put(ShareCdcConstant.SHARED_LOG_MARKER_KEY, new Document("enable", true));
+		try {
+			sharedLogIndex.insertMany(indexDocuments);
+		} catch (Exception e) {
+			throw new TapCodeException(TaskTargetShareCDCProcessorExCode_19.INSERT_MANY_INTO_RINGBUFFER_FAILED,
+					String.format("Shared log index name: %s, tables: %s", ShareCdcUtil.getSharedLogIndexName(processorBaseContext.getTaskDto()), touchedTables), e);
+		}
+		AppendNotifier.getInstance().notifyAppended(sharedLog.getName());
+	}
+
+	private SequenceRangeIndex sharedLogRanges(String tableId) {
+		return sharedLogRanges.computeIfAbsent(tableId, k -> {
+			List<?> ranges = null;
+			try {
+				Document document = sharedLogIndex.find(k);
+				if (null != document) {
+					ranges = document.get(ShareCdcConstant.SHARED_LOG_RANGES_FIELD, List.class);
+				}
+			} catch (Exception e) {
+				throw new RuntimeException("Load shared log index of table " + k + " failed: " + e.getMessage(), e);
+			}
+			return SequenceRangeIndex.fromList(null == ranges ? null : (List<Number>) ranges,
+					ShareCdcConstant.SHARED_LOG_INDEX_MERGE_GAP, ShareCdcConstant.SHARED_LOG_INDEX_MAX_RANGES);
+		});
+	}
+
 	private void handleData(Map<String, Object> data) {
 		if (MapUtils.isEmpty(data)) return;
 		data.forEach((k, v) -> {
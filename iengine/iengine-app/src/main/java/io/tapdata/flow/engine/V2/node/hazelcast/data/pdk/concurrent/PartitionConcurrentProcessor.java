@@ -23,9 +23,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -73,6 +76,23 @@ public class PartitionConcurrentProcessor {
 	private final Supplier<Boolean> nodeRunning;
 	private TaskDto taskDto;
 
+	/**
+	 * Low watermark commit: offsets are not watermark events through every partition, each partition reports the last
+	 * processed event sequence, and an offset is flushed once every event up to it is processed in all partitions.
+	 * DDL is still a full barrier.
+	 */
+	private final boolean lowWatermarkCommit;
+	/**
+	 * Sequences of the events enqueued into each partition and not processed yet, in enqueue order, only kept in low
+	 * watermark commit mode
+	 */
+	private List<ConcurrentLinkedQueue<Long>> partitionPendingSeqs;
+	/**
+	 * Offset events waiting for commit, keyed by the event sequence
+	 */
+	private final ConcurrentSkipListMap<Long, TapdataEvent> offsetCheckpoints = new ConcurrentSkipListMap<>();
+	private final Semaphore commitSignal = new Semaphore(0);
+
 	public PartitionConcurrentProcessor(
 			int partitionSize,
 			int batchSize,
@@ -84,11 +104,27 @@ public class PartitionConcurrentProcessor {
 			Supplier<Boolean> nodeRunning,
 			TaskDto taskDto
 	) {
+		this(partitionSize, batchSize, partitioner, keySelector, eventProcessor, flushOffset, errorHandler, nodeRunning, taskDto, false);
+	}
+
+	public PartitionConcurrentProcessor(
+			int partitionSize,
+			int batchSize,
+			Partitioner<TapdataEvent, List<Object>> partitioner,
+			PartitionKeySelector<TapEvent, Object, Map<String, Object>> keySelector,
+			Consumer<List<TapdataEvent>> eventProcessor,
+			Consumer<TapdataEvent> flushOffset,
+			ErrorHandler<Throwable, String> errorHandler,
+			Supplier<Boolean> nodeRunning,
+			TaskDto taskDto,
+			boolean lowWatermarkCommit
+	) {
 
 		this.concurrentProcessThreadNamePrefix = "concurrent-process-thread-" + taskDto.getId().toHexString() + "-" + taskDto.getName() + "-";
 
 		this.taskDto = taskDto;
 		this.batchSize = batchSize;
+		this.lowWatermarkCommit = lowWatermarkCommit;
 
 		this.partitionSize = partitionSize;
 
@@ -107,6 +143,7 @@ public class PartitionConcurrentProcessor {
 				).collect(Collectors.toList());
 
 		watermarkQueue = new LinkedBlockingQueue<>(batchSize);
+		this.partitionPendingSeqs = IntStream.range(0, partitionSize).mapToObj(i -> new ConcurrentLinkedQueue<Long>()).collect(Collectors.toList());
 
 		this.eventProcessor = eventProcessor;
 
@@ -122,6 +159,11 @@ public class PartitionConcurrentProcessor {
 		}
 		this.keySelector = keySelector;
 		this.flushOffset = flushOffset;
+		if (lowWatermarkCommit) {
+			logger.info(LOG_PREFIX + "offset commit mode: low watermark of {} partitions", partitionSize);
+			this.executorService.submit(this::lowWatermarkCommitLoop);
+			return;
+		}
 		this.executorService.submit(() -> {
 			while (isRunning()) {
 				Thread.currentThread().setName(taskDto.getId().toHexString() + "-" + taskDto.getName() + "-watermark-event-process");
@@ -160,6 +202,7 @@ public class PartitionConcurrentProcessor {
 				try {
 					Thread.currentThread().setName(concurrentProcessThreadNamePrefix + finalPartition);
 					List<TapdataEvent> processEvents = new ArrayList<>();
+					long processSeq = 0L;
 					while (isRunning()) {
 						try {
 							List<PartitionEvent<TapdataEvent>> events = new ArrayList<>();
@@ -170,6 +213,7 @@ public class PartitionConcurrentProcessor {
 										final NormalEvent<?> normalEvent = (NormalEvent<?>) partitionEvent;
 										final TapdataEvent event = (TapdataEvent) normalEvent.getEvent();
 										processEvents.add(event);
+										processSeq = normalEvent.getEventSeqNo();
 									} else if (partitionEvent instanceof WatermarkEvent) {
 										final CountDownLatch countDownLatch = ((WatermarkEvent) partitionEvent).getCountDownLatch();
 										countDownLatch.countDown();
@@ -177,6 +221,7 @@ public class PartitionConcurrentProcessor {
 										if (CollectionUtils.isNotEmpty(processEvents)) {
 											eventProcessor.accept(processEvents);
 											processEvents.clear();
+											processedTo(finalPartition, processSeq);
 										}
 										final CountDownLatch countDownLatch = ((BarrierEvent) partitionEvent).getCountDownLatch();
 										countDownLatch.countDown();
@@ -190,6 +235,7 @@ public class PartitionConcurrentProcessor {
 								if (CollectionUtils.isNotEmpty(processEvents)) {
 									eventProcessor.accept(processEvents);
 									processEvents.clear();
+									processedTo(finalPartition, processSeq);
 								}
 							}
 						} catch (InterruptedException e) {
@@ -222,6 +268,7 @@ public class PartitionConcurrentProcessor {
 		if (CollectionUtils.isNotEmpty(tapdataEvents)) {
 			AtomicBoolean singleMode = new AtomicBoolean(false);
 			TapdataEvent offsetEvent = null;
+			long offsetEventSeq = 0L;
 			for (TapdataEvent tapdataEvent : tapdataEvents) {
 				if (!isRunning()) {
 					break;
@@ -277,6 +324,7 @@ public class PartitionConcurrentProcessor {
 						}
 						if (null != tapdataEvent.getBatchOffset() || null != tapdataEvent.getStreamOffset()) {
 							offsetEvent = tapdataEvent;
+							offsetEventSeq = normalEvent.getEventSeqNo();
 						}
 					} catch (Exception e) {
 						String msg = String.format(" tableName: %s, %s", tableName, e.getMessage());
@@ -288,10 +336,19 @@ public class PartitionConcurrentProcessor {
 					if (!enqueuePartitionEvent(DEFAULT_PARTITION, partitionsQueue.get(DEFAULT_PARTITION), normalEvent)) {
 						break;
 					}
+					if (lowWatermarkCommit) {
+						// DDL is a full barrier, no partition goes on before it is processed
+						generateBarrierEvent();
+					}
 				}
 			}
 			if (null != offsetEvent) {
-				generateWatermarkEvent(offsetEvent);
+				if (lowWatermarkCommit) {
+					offsetCheckpoints.put(offsetEventSeq, offsetEvent);
+					commitSignal.release();
+				} else {
+					generateWatermarkEvent(offsetEvent);
+				}
 			}
 
 			if (!async) {
@@ -315,6 +372,9 @@ public class PartitionConcurrentProcessor {
 	}
 
 	private boolean enqueuePartitionEvent(int partition, LinkedBlockingQueue<PartitionEvent<TapdataEvent>> queue, NormalEvent<TapdataEvent> normalEvent) {
+		if (lowWatermarkCommit) {
+			partitionPendingSeqs.get(partition).offer(normalEvent.getEventSeqNo());
+		}
 		try {
 			while (isRunning() && !queue.offer(normalEvent, 3, TimeUnit.SECONDS)) {
 				if (logger.isTraceEnabled()) {
@@ -380,12 +440,70 @@ public class PartitionConcurrentProcessor {
 		return null;
 	}
 
+	private void processedTo(int partition, long seq) {
+		if (lowWatermarkCommit) {
+			final ConcurrentLinkedQueue<Long> pendingSeqs = partitionPendingSeqs.get(partition);
+			Long pendingSeq;
+			while (null != (pendingSeq = pendingSeqs.peek()) && pendingSeq <= seq) {
+				pendingSeqs.poll();
+			}
+			commitSignal.release();
+		}
+	}
+
+	private void lowWatermarkCommitLoop() {
+		Thread.currentThread().setName(taskDto.getId().toHexString() + "-" + taskDto.getName() + "-low-watermark-commit");
+		try {
+			while (isRunning()) {
+				try {
+					if (commitSignal.tryAcquire(3, TimeUnit.SECONDS)) {
+						commitSignal.drainPermits();
+						commitLowWatermark();
+					}
+				} catch (InterruptedException e) {
+					break;
+				} catch (Throwable throwable) {
+					currentRunning.compareAndSet(true, false);
+					errorHandler.accept(throwable, "commit low watermark offset failed");
+				}
+			}
+		} finally {
+			ThreadContext.clearAll();
+		}
+	}
+
+	/**
+	 * Flush the newest offset whose events, and all events before them, are processed in every partition
+	 */
+	private synchronized void commitLowWatermark() {
+		if (offsetCheckpoints.isEmpty()) {
+			return;
+		}
+		// Events up to the newest checkpoint are all enqueued before it is registered, so read it before partition sequences
+		long lowWatermark = offsetCheckpoints.lastKey();
+		for (int partition = 0; partition < partitionSize; partition++) {
+			final Long oldestPendingSeq = partitionPendingSeqs.get(partition).peek();
+			if (null != oldestPendingSeq) {
+				lowWatermark = Math.min(lowWatermark, oldestPendingSeq - 1);
+			}
+		}
+		final Map.Entry<Long, TapdataEvent> checkpoint = offsetCheckpoints.floorEntry(lowWatermark);
+		if (null == checkpoint) {
+			return;
+		}
+		offsetCheckpoints.headMap(checkpoint.getKey(), true).clear();
+		flushOffset.accept(checkpoint.getValue());
+	}
+
 	private boolean isRunning() {
 		return currentRunning.get() && nodeRunning.get();
 	}
 
 	public void stop() {
 		waitingForProcessToCurrent();
+		if (lowWatermarkCommit && isRunning()) {
+			commitLowWatermark();
+		}
 		currentRunning.compareAndSet(true, false);
 		ExecutorUtil.shutdown(this.executorService, 60L, TimeUnit.SECONDS);
 	}
@@ -0,0 +1,346 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Pipelined write: the target queue consumer submits a batch and goes on to assemble the next one while earlier
+ * batches are still in flight on the connector.
+ * <ul>
+ *     <li>At most {@code maxInFlightPerTable} batches of the same table are in flight</li>
+ *     <li>A batch whose primary keys intersect an in-flight batch of the same table waits until that batch is done,
+ *     so events of the same key are written in order. A batch without keys (no primary key on the table) waits for all
+ *     in-flight batches of its table</li>
+ *     <li>Offset flush actions registered with {@link #commitOffset(Runnable)} run, in registration order, only after
+ *     every batch submitted before them has been acknowledged. Once a write failed or a submit was rejected, no offset
+ *     is flushed anymore</li>
+ * </ul>
+ * Submit, commit offset and barrier must be called from one thread (the target queue consumer).
+ */
+public class PipelineWriteProcessor {
+
+	private final static String LOG_PREFIX = "[pipeline write] ";
+
+	private final Logger logger = LogManager.getLogger(PipelineWriteProcessor.class);
+
+	private final ExecutorService executorService;
+	private final int maxInFlightPerTable;
+	private final int maxInFlight;
+	private final PartitionConcurrentProcessor.ErrorHandler<Throwable, String> errorHandler;
+	private final Supplier<Boolean> nodeRunning;
+	private final AtomicBoolean currentRunning = new AtomicBoolean(true);
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition batchCompleted = lock.newCondition();
+	/**
+	 * In flight batches ordered by submit sequence, guarded by {@link #lock}
+	 */
+	private final TreeMap<Long, InFlightBatch> inFlightBatches = new TreeMap<>();
+	/**
+	 * In flight batches grouped by table, guarded by {@link #lock}
+	 */
+	private final Map<String, List<InFlightBatch>> inFlightTableBatches = new HashMap<>();
+	/**
+	 * Offset flush actions waiting for earlier batches, in registration order, guarded by {@link #lock}
+	 */
+	private final LinkedList<PendingOffset> pendingOffsets = new LinkedList<>();
+	private long batchSeq = 0L;
+	/**
+	 * A batch was rejected on stop, offsets committed afterwards may cover records never written, guarded by {@link #lock}
+	 */
+	private boolean rejected = false;
+	private volatile Throwable error;
+
+	public PipelineWriteProcessor(
+			ExecutorService executorService,
+			int writeThreads,
+			int maxInFlightPerTable,
+			PartitionConcurrentProcessor.ErrorHandler<Throwable, String> errorHandler,
+			Supplier<Boolean> nodeRunning
+	) {
+		if (writeThreads < 1) {
+			throw new IllegalArgumentException(LOG_PREFIX + "write threads must be greater than 0: " + writeThreads);
+		}
+		if (maxInFlightPerTable < 1) {
+			throw new IllegalArgumentException(LOG_PREFIX + "max in flight batches per table must be greater than 0: " + maxInFlightPerTable);
+		}
+		this.executorService = executorService;
+		this.maxInFlightPerTable = maxInFlightPerTable;
+		this.maxInFlight = writeThreads * maxInFlightPerTable;
+		this.errorHandler = errorHandler;
+		this.nodeRunning = nodeRunning;
+		logger.info(LOG_PREFIX + "write threads: {}, max in flight batches per table: {}, max in flight batches: {}", writeThreads, maxInFlightPerTable, maxInFlight);
+	}
+
+	/**
+	 * Submit one batch of a table, blocks while the batch conflicts with in flight batches or the in flight limits are reached
+	 *
+	 * @param tableId target table id
+	 * @param keys    primary key values of all events in the batch, null means unknown and conflicts with every in flight batch of the table
+	 * @param write   write the batch to target, must throw when the write failed
+	 * @return false if the processor or the node is stopped and the batch was not submitted, the caller must not commit
+	 * its offset
+	 */
+	public boolean submit(String tableId, Set<List<Object>> keys, Runnable write) throws InterruptedException {
+		final InFlightBatch batch;
+		lock.lockInterruptibly();
+		try {
+			while (true) {
+				throwIfError();
+				if (!isRunning()) {
+					rejected = true;
+					pendingOffsets.clear();
+					return false;
+				}
+				if (inFlightBatches.size() < maxInFlight && !conflict(tableId, keys)) {
+					break;
+				}
+				batchCompleted.await(1L, TimeUnit.SECONDS);
+			}
+			batch = new InFlightBatch(++batchSeq, tableId, keys);
+			inFlightBatches.put(batch.seq, batch);
+			inFlightTableBatches.computeIfAbsent(tableId, k -> new ArrayList<>()).add(batch);
+		} finally {
+			lock.unlock();
+		}
+		executorService.submit(() -> {
+			Throwable throwable = null;
+			try {
+				write.run();
+			} catch (Throwable e) {
+				throwable = e;
+			} finally {
+				complete(batch, throwable);
+				ThreadContext.clearAll();
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Run the flush action once all batches submitted so far are acknowledged, immediately if nothing is in flight
+	 *
+	 * @return false if the offset is dropped, because a batch before it was rejected
+	 */
+	public boolean commitOffset(Runnable flushOffset) {
+		if (null == flushOffset) return true;
+		lock.lock();
+		try {
+			throwIfError();
+			if (rejected) {
+				logger.debug(LOG_PREFIX + "skip committing offset, an earlier batch was rejected");
+				return false;
+			}
+			if (inFlightBatches.isEmpty()) {
+				flushOffset.run();
+			} else {
+				pendingOffsets.add(new PendingOffset(batchSeq, flushOffset));
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Wait until every submitted batch is acknowledged and every pending offset is flushed, used before DDL, transactions and stop
+	 *
+	 * @return false if the processor or the node stopped while batches were still in flight
+	 */
+	public boolean barrier() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (!inFlightBatches.isEmpty()) {
+				throwIfError();
+				if (!isRunning()) {
+					return false;
+				}
+				if (!batchCompleted.await(3L, TimeUnit.SECONDS) && logger.isDebugEnabled()) {
+					logger.debug(LOG_PREFIX + "waiting {} in flight batch(es) completed", inFlightBatches.size());
+				}
+			}
+			throwIfError();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Wait until every submitted batch is acknowledged or failed, even if the node is stopping, used on close
+	 *
+	 * @return false if batches are still in flight after the timeout
+	 */
+	public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (!inFlightBatches.isEmpty()) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0L) {
+					return false;
+				}
+				batchCompleted.awaitNanos(Math.min(remaining, TimeUnit.SECONDS.toNanos(3L)));
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int inFlightSize() {
+		lock.lock();
+		try {
+			return inFlightBatches.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stop accepting batches, wait for in flight batches up to the timeout, then shut the writers down
+	 */
+	public void stop(long timeout, TimeUnit unit) {
+		currentRunning.compareAndSet(true, false);
+		try {
+			if (!drain(timeout, unit)) {
+				logger.warn(LOG_PREFIX + "{} in flight batch(es) not acknowledged in {} {}, their offsets will not be committed", inFlightSize(), timeout, unit);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		forceStop();
+	}
+
+	public void forceStop() {
+		currentRunning.compareAndSet(true, false);
+		this.executorService.shutdownNow();
+	}
+
+	private void complete(InFlightBatch batch, Throwable throwable) {
+		Throwable reportError = null;
+		String reportMessage = null;
+		lock.lock();
+		try {
+			inFlightBatches.remove(batch.seq);
+			List<InFlightBatch> tableBatches = inFlightTableBatches.get(batch.tableId);
+			if (null != tableBatches) {
+				tableBatches.remove(batch);
+				if (tableBatches.isEmpty()) {
+					inFlightTableBatches.remove(batch.tableId);
+				}
+			}
+			if (null != throwable) {
+				pendingOffsets.clear();
+				if (null == error) {
+					error = reportError = throwable;
+					reportMessage = "target write record(s) failed";
+				}
+			} else {
+				try {
+					flushPendingOffsets();
+				} catch (Throwable e) {
+					pendingOffsets.clear();
+					if (null == error) {
+						error = reportError = e;
+						reportMessage = "flush offset after pipeline write failed";
+					}
+				}
+			}
+			batchCompleted.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		if (null != reportError) {
+			// Report outside the lock, error handler may block for a while
+			currentRunning.compareAndSet(true, false);
+			errorHandler.accept(reportError, reportMessage);
+		}
+	}
+
+	private void flushPendingOffsets() {
+		long lowestInFlightSeq = inFlightBatches.isEmpty() ? Long.MAX_VALUE : inFlightBatches.firstKey();
+		Iterator<PendingOffset> iterator = pendingOffsets.iterator();
+		while (iterator.hasNext()) {
+			PendingOffset pendingOffset = iterator.next();
+			if (pendingOffset.afterSeq >= lowestInFlightSeq) {
+				break;
+			}
+			iterator.remove();
+			pendingOffset.flushOffset.run();
+		}
+	}
+
+	private boolean conflict(String tableId, Set<List<Object>> keys) {
+		List<InFlightBatch> tableBatches = inFlightTableBatches.get(tableId);
+		if (null == tableBatches || tableBatches.isEmpty()) {
+			return false;
+		}
+		if (tableBatches.size() >= maxInFlightPerTable || null == keys) {
+			return true;
+		}
+		for (InFlightBatch tableBatch : tableBatches) {
+			if (null == tableBatch.keys) {
+				return true;
+			}
+			Set<List<Object>> smaller = keys.size() <= tableBatch.keys.size() ? keys : tableBatch.keys;
+			Set<List<Object>> bigger = smaller == keys ? tableBatch.keys : keys;
+			if (!Collections.disjoint(bigger, smaller)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void throwIfError() {
+		if (null != error) {
+			throw new RuntimeException(LOG_PREFIX + "an earlier batch write failed: " + error.getMessage(), error);
+		}
+	}
+
+	private boolean isRunning() {
+		return currentRunning.get() && nodeRunning.get();
+	}
+
+	private static class InFlightBatch {
+		private final long seq;
+		private final String tableId;
+		private final Set<List<Object>> keys;
+
+		private InFlightBatch(long seq, String tableId, Set<List<Object>> keys) {
+			this.seq = seq;
+			this.tableId = tableId;
+			this.keys = keys;
+		}
+	}
+
+	private static class PendingOffset {
+		/**
+		 * Last batch sequence submitted when the offset was committed
+		 */
+		private final long afterSeq;
+		private final Runnable flushOffset;
+
+		private PendingOffset(long afterSeq, Runnable flushOffset) {
+			this.afterSeq = afterSeq;
+			this.flushOffset = flushOffset;
+		}
+	}
+}
@@ -66,7 +66,12 @@ public class PartitionConsumer implements Consumer<ReadPartition> {
 								}).
 								job("readPartition", readPartitionHandler::handleReadPartition).
 								job("sendingDataFromPartition", readPartitionHandler::handleSendingDataFromPartition).
-								finished("finishedPartition", readPartitionHandler::handleFinishedPartition))
+								finished("finishedPartition", jobContext -> {
+									if (!sourcePdkDataNodeEx1.awaitPartitionEnqueued(readPartition.getId())) {
+										return null;
+									}
+									return readPartitionHandler.handleFinishedPartition(jobContext);
+								}))
 				.setAsyncJobErrorListener((id, asyncJob, throwable) -> sourcePdkDataNodeEx1.listenerError(() -> sourcePdkDataNodeEx1.errorHandle(id, asyncJob, throwable)));
 	}
 }
@@ -0,0 +1,222 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.partition;
+
+import com.tapdata.entity.TapdataEvent;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.HazelcastSourcePartitionReadDataNode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Fair merge of partition readers into the source event queue.
+ * <p>
+ * Every partition reader offers its batches into its own bounded queue and blocks only when that queue is full, one
+ * merge thread takes one batch from each partition in turn and enqueues it into the node, so a fast partition can not
+ * starve the others and readers do not fight for the node event queue.
+ * <p>
+ * A partition is completed only after {@link #awaitDrained(String)} returns a count, that is all of its batches are in
+ * the node event queue, then it can be saved as completed partition in {@link PartitionTableOffset}.
+ */
+public class PartitionEventMerger {
+	private final HazelcastSourcePartitionReadDataNode sourcePdkDataNode;
+	private final int queueCapacity;
+	private final Supplier<Boolean> nodeRunning;
+	private final Map<String, PartitionQueue> partitionQueueMap = new ConcurrentHashMap<>();
+	private final List<PartitionQueue> partitionQueues = new CopyOnWriteArrayList<>();
+	/**
+	 * Count of batches in all partition queues
+	 */
+	private final Semaphore available = new Semaphore(0);
+	private final AtomicBoolean running = new AtomicBoolean(false);
+	private Thread mergeThread;
+	private int cursor;
+
+	public PartitionEventMerger(HazelcastSourcePartitionReadDataNode sourcePdkDataNode, int queueCapacity, Supplier<Boolean> nodeRunning) {
+		this.sourcePdkDataNode = sourcePdkDataNode;
+		this.queueCapacity = Math.max(queueCapacity, 1);
+		this.nodeRunning = nodeRunning;
+	}
+
+	public PartitionEventMerger start() {
+		if (running.compareAndSet(false, true)) {
+			mergeThread = new Thread(this::merge, "PartitionEventMerger-" + sourcePdkDataNode.getProcessorBaseContext().getNode().getId());
+			mergeThread.setDaemon(true);
+			mergeThread.start();
+			sourcePdkDataNode.getObsLogger().info("Partition event merger started, queue capacity of each partition: {} batch(es)", queueCapacity);
+		}
+		return this;
+	}
+
+	public void stop() {
+		if (running.compareAndSet(true, false) && null != mergeThread) {
+			mergeThread.interrupt();
+		}
+		partitionQueues.clear();
+		partitionQueueMap.clear();
+	}
+
+	/**
+	 * Put a batch of the partition, blocks while the queue of the partition is full
+	 *
+	 * @param enqueued called by merge thread after the batch is in the node event queue
+	 */
+	public void offer(String partitionId, List<TapdataEvent> events, Runnable enqueued) {
+		if (null == events || events.isEmpty()) {
+			return;
+		}
+		PartitionQueue partitionQueue = partitionQueueMap.computeIfAbsent(partitionId, id -> {
+			PartitionQueue queue = new PartitionQueue(id, queueCapacity);
+			partitionQueues.add(queue);
+			return queue;
+		});
+		Batch batch = new Batch(events, enqueued);
+		partitionQueue.pending.incrementAndGet();
+		try {
+			while (isRunning()) {
+				if (partitionQueue.queue.offer(batch, 1L, TimeUnit.SECONDS)) {
+					available.release();
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		partitionQueue.dropped.set(true);
+		partitionQueue.batchDone();
+	}
+
+	/**
+	 * Wait until all batches of the partition are enqueued into the node
+	 *
+	 * @return enqueued event count of the partition, null if merger or node stopped before all batches are enqueued
+	 */
+	public Long awaitDrained(String partitionId) throws InterruptedException {
+		PartitionQueue partitionQueue = partitionQueueMap.get(partitionId);
+		if (null == partitionQueue) {
+			return 0L;
+		}
+		synchronized (partitionQueue) {
+			while (partitionQueue.pending.get() > 0 && isRunning()) {
+				partitionQueue.wait(1000L);
+			}
+		}
+		if (partitionQueue.pending.get() > 0 || partitionQueue.dropped.get()) {
+			return null;
+		}
+		partitionQueueMap.remove(partitionId);
+		partitionQueues.remove(partitionQueue);
+		return partitionQueue.enqueuedCount.get();
+	}
+
+	/**
+	 * @return enqueued event count of the partition which is still reading, null if not reading
+	 */
+	public Long enqueuedCount(String partitionId) {
+		PartitionQueue partitionQueue = partitionQueueMap.get(partitionId);
+		return null == partitionQueue ? null : partitionQueue.enqueuedCount.get();
+	}
+
+	private void merge() {
+		try {
+			while (isRunning()) {
+				if (!available.tryAcquire(500L, TimeUnit.MILLISECONDS)) {
+					continue;
+				}
+				PartitionQueue partitionQueue = null;
+				Batch batch = null;
+				while (null == batch && isRunning()) {
+					List<PartitionQueue> queues = partitionQueues;
+					int size = queues.size();
+					if (size == 0) {
+						Thread.yield();
+						continue;
+					}
+					for (int i = 0; i < size && null == batch; i++) {
+						cursor = (cursor + 1) % size;
+						partitionQueue = queues.get(cursor);
+						batch = partitionQueue.queue.poll();
+					}
+				}
+				if (null == batch) {
+					break;
+				}
+				boolean enqueued = false;
+				try {
+					for (TapdataEvent event : batch.events) {
+						sourcePdkDataNode.enqueue(event);
+					}
+					// Node enqueue gives up silently once the node stopped
+					enqueued = isRunning();
+					partitionQueue.enqueuedCount.addAndGet(batch.events.size());
+					if (null != batch.enqueued) {
+						batch.enqueued.run();
+					}
+				} finally {
+					if (!enqueued) {
+						partitionQueue.dropped.set(true);
+					}
+					partitionQueue.batchDone();
+				}
+			}
+		} catch (InterruptedException ignored) {
+			Thread.currentThread().interrupt();
+		} catch (Throwable throwable) {
+			running.set(false);
+			sourcePdkDataNode.listenerError(() -> sourcePdkDataNode.errorHandle(throwable, "Merge partition events failed: " + throwable.getMessage()));
+		}
+	}
+
+	private boolean isRunning() {
+		return running.get() && nodeRunning.get();
+	}
+
+	private static class PartitionQueue {
+		private final String partitionId;
+		private final BlockingQueue<Batch> queue;
+		/**
+		 * Batches offered but not enqueued into the node yet
+		 */
+		private final AtomicLong pending = new AtomicLong();
+		private final AtomicLong enqueuedCount = new AtomicLong();
+		/**
+		 * Some batch of the partition is not enqueued into the node, because of stop or error
+		 */
+		private final AtomicBoolean dropped = new AtomicBoolean();
+
+		private PartitionQueue(String partitionId, int capacity) {
+			this.partitionId = partitionId;
+			this.queue = new ArrayBlockingQueue<>(capacity);
+		}
+
+		private void batchDone() {
+			if (pending.decrementAndGet() <= 0) {
+				synchronized (this) {
+					notifyAll();
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return partitionId;
+		}
+	}
+
+	private static class Batch {
+		private final List<TapdataEvent> events;
+		private final Runnable enqueued;
+
+		private Batch(List<TapdataEvent> events, Runnable enqueued) {
+			this.events = events;
+			this.enqueued = enqueued;
+		}
+	}
+}
@@ -20,6 +20,8 @@ import io.tapdata.entity.simplify.pretty.TypeHandlers;
 import io.tapdata.entity.utils.InstanceFactory;
 import io.tapdata.entity.utils.ObjectSerializable;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.HazelcastSourcePartitionReadDataNode;
+import io.tapdata.modules.api.storage.TapStorageFactory;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.pdk.core.utils.LoggerUtils;
 
 import java.util.ArrayList;
@@ -35,12 +37,43 @@ import static io.tapdata.entity.simplify.TapSimplify.map;
  */
 public class PartitionFieldParentHandler {
 	public static final String TAG = PartitionFieldParentHandler.class.getName();
+	public static final String PARTITION_STORAGE_BLOCK_CACHE_MB_KEY = "PARTITION_STORAGE_BLOCK_CACHE_MB";
+	public static final String PARTITION_STORAGE_BLOOM_FILTER_BITS_KEY = "PARTITION_STORAGE_BLOOM_FILTER_BITS";
+	public static final String PARTITION_STORAGE_WRITE_BUFFER_MB_KEY = "PARTITION_STORAGE_WRITE_BUFFER_MB";
+	public static final String PARTITION_STORAGE_COMPRESSION_KEY = "PARTITION_STORAGE_COMPRESSION";
+	public static final String PARTITION_STORAGE_SEQUENCE_SEGMENT_MB_KEY = "PARTITION_STORAGE_SEQUENCE_SEGMENT_MB";
 	protected String table;
 	protected List<String> partitionFields;
 	protected Map<String, Integer> dateFieldFactionMap;
 	protected TypeHandlers<TapEvent, Void> typeHandlers = new TypeHandlers<>();
+	/**
+	 * Read partition of the events enqueued by this handler, null if not reading a partition
+	 */
+	protected String partitionId;
 
 
+	/**
+	 * Partition storages are deleted once the partition finished and recreated when it is read again, so the write
+	 * ahead log is skipped. Events are appended to sequence storages in memory mapped segments
+	 */
+	protected static TapStorageFactory.StorageOptions partitionStorageOptions() {
+		return TapStorageFactory.StorageOptions.create()
+				.disableJavaSerializable(false)
+				.rootPath("./partition_storage")
+				.disableWAL(true)
+				.blockCacheSizeMB(CommonUtils.getPropertyLong(PARTITION_STORAGE_BLOCK_CACHE_MB_KEY, 64))
+				.bloomFilterBitsPerKey(CommonUtils.getPropertyInt(PARTITION_STORAGE_BLOOM_FILTER_BITS_KEY, 10))
+				.writeBufferSizeMB(CommonUtils.getPropertyLong(PARTITION_STORAGE_WRITE_BUFFER_MB_KEY, 0))
+				.compression(CommonUtils.getProperty(PARTITION_STORAGE_COMPRESSION_KEY, "lz4"))
+				.memoryMappedSequence(true)
+				.sequenceSegmentSizeMB(CommonUtils.getPropertyInt(PARTITION_STORAGE_SEQUENCE_SEGMENT_MB_KEY, 16));
+	}
+
+	public PartitionFieldParentHandler(TapTable tapTable, String partitionId) {
+		this(tapTable);
+		this.partitionId = partitionId;
+	}
+
 	public PartitionFieldParentHandler(TapTable tapTable) {
 		table = tapTable.getId();
 		TapIndexEx partitionIndex = tapTable.partitionIndex();
@@ -145,6 +178,23 @@ public class PartitionFieldParentHandler {
 		return data;
 	}
 
+	/**
+	 * @return events not belonging to the removed tables
+	 */
+	static List<TapdataEvent> filterRemovedTables(List<TapdataEvent> tapdataEvents, List<String> removeTables) {
+		if (removeTables == null || removeTables.isEmpty())
+			return tapdataEvents;
+		List<TapdataEvent> result = new ArrayList<>(tapdataEvents.size());
+		for (TapdataEvent tapdataEvent : tapdataEvents) {
+			if (tapdataEvent.getTapEvent() instanceof TapRecordEvent
+					&& removeTables.contains(((TapRecordEvent) tapdataEvent.getTapEvent()).getTableId())) {
+				continue;
+			}
+			result.add(tapdataEvent);
+		}
+		return result;
+	}
+
 	protected void enqueueTapEvents(BatchReadFuncAspect batchReadFuncAspect, List<TapEvent> events, HazelcastSourcePartitionReadDataNode sourcePdkDataNode) {
 		if (events == null || events.isEmpty())
 			return;
@@ -165,16 +215,18 @@ public class PartitionFieldParentHandler {
 			AspectUtils.accept(batchReadFuncAspect.state(BatchReadFuncAspect.STATE_PROCESS_COMPLETE).getProcessCompleteConsumers(), tapdataEvents);
 
 		if (CollectionUtil.isNotEmpty(tapdataEvents)) {
+			List<TapdataEvent> enqueueEvents = filterRemovedTables(tapdataEvents, sourcePdkDataNode.removeTables());
+			PartitionEventMerger partitionEventMerger = sourcePdkDataNode.getPartitionEventMerger();
+			if (null != partitionEventMerger && null != partitionId && !enqueueEvents.isEmpty()) {
+				partitionEventMerger.offer(partitionId, enqueueEvents, () -> {
+					sourcePdkDataNode.partitionEnqueued(table, partitionId, enqueueEvents.size());
+					if (batchReadFuncAspect != null)
+						AspectUtils.accept(batchReadFuncAspect.state(BatchReadFuncAspect.STATE_ENQUEUED).getEnqueuedConsumers(), tapdataEvents);
+				});
+				return;
+			}
 //			long time = System.currentTimeMillis();
-			tapdataEvents.forEach(tapdataEvent -> {
-				if (tapdataEvent.getTapEvent() instanceof TapRecordEvent) {
-					String tableId = ((TapRecordEvent) tapdataEvent.getTapEvent()).getTableId();
-					if (sourcePdkDataNode.removeTables() != null && sourcePdkDataNode.removeTables().contains(tableId)) {
-						return;
-					}
-				}
-				sourcePdkDataNode.enqueue(tapdataEvent);
-			});
+			enqueueEvents.forEach(sourcePdkDataNode::enqueue);
 //			sourcePdkDataNode.getObsLogger().info("enqueue events {} takes {}", tapdataEvents.size(), (System.currentTimeMillis() - time));
 
 //			time = System.currentTimeMillis();
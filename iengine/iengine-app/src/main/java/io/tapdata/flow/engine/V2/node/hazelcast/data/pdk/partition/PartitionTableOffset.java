@@ -25,6 +25,16 @@ public class PartitionTableOffset implements Serializable {
 		return this;
 	}
 
+	/**
+	 * Enqueued event count of each partition by partition id, only saved when partition events are merged by {@link PartitionEventMerger}
+	 */
+	private Map<String, Long> partitionProgress;
+
+	public PartitionTableOffset partitionProgress(Map<String, Long> partitionProgress) {
+		this.partitionProgress = partitionProgress;
+		return this;
+	}
+
 	private String table;
 
 	public PartitionTableOffset table(String table) {
@@ -45,6 +55,12 @@ public class PartitionTableOffset implements Serializable {
 		completedPartitions.put(partitionId, total);
 	}
 
+	public void partitionEnqueued(String partitionId, long count) {
+		if (partitionProgress == null)
+			partitionProgress = new ConcurrentHashMap<>();
+		partitionProgress.merge(partitionId, count, Long::sum);
+	}
+
 	public List<ReadPartition> getPartitions() {
 		return partitions;
 	}
@@ -61,6 +77,14 @@ public class PartitionTableOffset implements Serializable {
 		this.completedPartitions = completedPartitions;
 	}
 
+	public Map<String, Long> getPartitionProgress() {
+		return partitionProgress;
+	}
+
+	public void setPartitionProgress(Map<String, Long> partitionProgress) {
+		this.partitionProgress = partitionProgress;
+	}
+
 	public String getTable() {
 		return table;
 	}
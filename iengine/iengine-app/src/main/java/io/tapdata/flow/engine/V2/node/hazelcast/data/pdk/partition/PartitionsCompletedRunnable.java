@@ -66,6 +66,7 @@ public class PartitionsCompletedRunnable implements Runnable {
 			partitionTableOffset.setTableCompleted(true);
 			partitionTableOffset.setPartitions(null);
 			partitionTableOffset.setCompletedPartitions(null);
+			partitionTableOffset.setPartitionProgress(null);
 		}
 
 		aspectManager.executeAspect(batchReadFuncAspect.state(DataFunctionAspect.STATE_END));
@@ -13,6 +13,7 @@ import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.HazelcastSourcePartitio
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.PDKSourceContext;
 import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.ReadPartitionContext;
 import io.tapdata.modules.api.storage.TapKVStorage;
+import io.tapdata.modules.api.storage.TapSequenceStorage;
 import io.tapdata.modules.api.storage.TapStorageFactory;
 import io.tapdata.pdk.apis.entity.TapAdvanceFilter;
 import io.tapdata.pdk.apis.functions.PDKMethod;
@@ -23,6 +24,8 @@ import io.tapdata.pdk.core.entity.params.PDKMethodInvoker;
 import io.tapdata.pdk.core.monitor.PDKInvocationMonitor;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -45,34 +48,37 @@ public class ReadPartitionKVStorageHandler extends PartitionFieldParentHandler i
 	//	private final TypeSplitterMap typeSplitterMap;
 	private final TapStorageFactory storageFactory;
 	private final String kvStorageId;
-	private final String kvStorageDuringSendingId;
+	private final String eventsDuringSendingId;
 	private final String sequenceStorageId;
 
 	private volatile TapKVStorage partitionCDCStorage;
-	private volatile TapKVStorage kvStorageDuringSending;
+	/**
+	 * Stream events received while the partition is sent, replayed in order when it finished
+	 */
+	private volatile TapSequenceStorage eventsDuringSending;
 	private volatile TapKVStorage partitionSequenceStorage;
 	private final HazelcastSourcePartitionReadDataNode sourcePdkDataNode;
 	private final AtomicBoolean finished = new AtomicBoolean(false);
 	private final LongAdder sentEventCount = new LongAdder();
 
 	public ReadPartitionKVStorageHandler(PDKSourceContext pdkSourceContext, TapTable tapTable, ReadPartition readPartition, HazelcastSourcePartitionReadDataNode sourcePdkDataNode) {
-		super(tapTable);
+		super(tapTable, readPartition.getId());
 		this.readPartition = readPartition;
 		this.pdkSourceContext = pdkSourceContext;
 		this.sourcePdkDataNode = sourcePdkDataNode;
 
 		this.storageFactory = InstanceFactory.instance(TapStorageFactory.class);
-		storageFactory.init(TapStorageFactory.StorageOptions.create().disableJavaSerializable(false).rootPath("./partition_storage"));
+		storageFactory.init(partitionStorageOptions());
 		String taskId = pdkSourceContext.getSourcePdkDataNode().getNode().getTaskId();
 
 		kvStorageId = "stream_" + taskId + "_" + readPartition.getId();
-		kvStorageDuringSendingId = "stream_" + taskId + "_" + readPartition.getId() + "_during_sending";
+		eventsDuringSendingId = "stream_" + taskId + "_" + readPartition.getId() + "_during_sending";
 		sequenceStorageId = "batch_" + taskId + "_" + readPartition.getId();
 	}
 
 	public void writeIntoKVStorage(Map<String, Object> key, Map<String, Object> after, TapRecordEvent recordEvent) {
-		if (kvStorageDuringSending != null)
-			kvStorageDuringSending.put(key, recordEvent);
+		if (eventsDuringSending != null)
+			eventsDuringSending.add(recordEvent);
 		else
 			partitionCDCStorage.put(key, after);
 	}
@@ -80,24 +86,18 @@ public class ReadPartitionKVStorageHandler extends PartitionFieldParentHandler i
 	public static final String DELETED = "__tapdata_record_deleted__";
 
 	public void deleteFromKVStorage(Map<String, Object> key) {
-		if (kvStorageDuringSending != null)
-			kvStorageDuringSending.put(key, map(entry(DELETED, true)));
-		else
-			partitionCDCStorage.put(key, map(entry(DELETED, true)));
+		partitionCDCStorage.put(key, map(entry(DELETED, true)));
 	}
 
 	public void justDeleteFromKVStorage(Map<String, Object> key) {
-		if (kvStorageDuringSending != null)
-			kvStorageDuringSending.remove(key);
-		else
-			partitionCDCStorage.remove(key);
+		partitionCDCStorage.remove(key);
 	}
 
 	public JobContext handleStartCachingStreamData(JobContext jobContext1) {
 		if (partitionCDCStorage == null) {
 			synchronized (this) {
 				if (partitionCDCStorage == null) {
-					storageFactory.deleteKVStorage(kvStorageDuringSendingId);
+					storageFactory.deleteSequenceStorage(eventsDuringSendingId);
 					storageFactory.deleteKVStorage(kvStorageId);
 					partitionCDCStorage = storageFactory.getKVStorage(kvStorageId);
 					Optional.ofNullable(sourcePdkDataNode.getConnectorNode()).ifPresent(node -> {
@@ -146,15 +146,15 @@ public class ReadPartitionKVStorageHandler extends PartitionFieldParentHandler i
 						pdkMethodInvoker.runnable(
 								() -> queryByAdvanceFilterFunction.query(sourcePdkDataNode.getConnectorNode().getConnectorContext(), tapAdvanceFilter, readPartitionContext.getTable(), filterResults -> {
 											Optional.ofNullable(filterResults.getResults()).ifPresent(results -> {
-												long storageTime;
+												Map<Map<String, Object>, Map<String, Object>> keyValues = new LinkedHashMap<>();
 												for (Map<String, Object> result : results) {
 													counter.increment();
 													Map<String, Object> value = reviseData(result);
-													Map<String, Object> key = getKeyFromData(value);
-													storageTime = System.currentTimeMillis();
-													partitionSequenceStorage.put(key, value);
-													storageTakes.add(System.currentTimeMillis() - storageTime);
+													keyValues.put(getKeyFromData(value), value);
 												}
+												long storageTime = System.currentTimeMillis();
+												partitionSequenceStorage.putAll(keyValues);
+												storageTakes.add(System.currentTimeMillis() - storageTime);
 										});
 								})
 						));
@@ -171,15 +171,16 @@ public class ReadPartitionKVStorageHandler extends PartitionFieldParentHandler i
 
 	public JobContext handleSendingDataFromPartition(JobContext jobContext) {
 		ReadPartitionContext readPartitionContext = jobContext.getContext(ReadPartitionContext.class);
-		if (kvStorageDuringSending == null) {
+		if (eventsDuringSending == null) {
 			synchronized (this) {
-				if (kvStorageDuringSending == null) {
-					kvStorageDuringSending = storageFactory.getKVStorage(kvStorageDuringSendingId);
+				if (eventsDuringSending == null) {
+					TapSequenceStorage sequenceStorage = storageFactory.getSequenceStorage(eventsDuringSendingId);
 					Optional.ofNullable(sourcePdkDataNode.getConnectorNode()).ifPresent(node -> {
-						kvStorageDuringSending.setClassLoader(node.getConnectorClassLoader());
-						kvStorageDuringSending.setPath(sourcePdkDataNode.getNode().getId());
+						sequenceStorage.setClassLoader(node.getConnectorClassLoader());
+						sequenceStorage.setPath(sourcePdkDataNode.getNode().getId());
 					});
-//					sourcePdkDataNode.getObsLogger().info("Prepared kv storage during sending file {} for partition {}", kvStorageDuringSendingId, readPartition);
+					eventsDuringSending = sequenceStorage;
+//					sourcePdkDataNode.getObsLogger().info("Prepared sequence storage during sending file {} for partition {}", eventsDuringSendingId, readPartition);
 				}
 			}
 		}
@@ -269,18 +270,17 @@ public class ReadPartitionKVStorageHandler extends PartitionFieldParentHandler i
 
 				List<TapEvent> list = new ArrayList<>();
 				AtomicReference<List<TapEvent>> eventListReference = new AtomicReference<>(list);
-				if (null != sourcePdkDataNode.getConnectorNode()) {
-					kvStorageDuringSending.foreachValues((value) -> {
+				if (null != sourcePdkDataNode.getConnectorNode() && null != eventsDuringSending) {
+					Iterator<Object> iterator = eventsDuringSending.iterator();
+					while (iterator.hasNext()) {
 						jobContext.checkJobStoppedOrNot();
-//					eventListReference.get().add(insertRecordEvent((Map<String, Object>) value, table.getId()));
-						eventListReference.get().add((TapRecordEvent) value);
+						eventListReference.get().add((TapRecordEvent) iterator.next());
 						counter.increment();
 						if (eventListReference.get().size() >= sourcePdkDataNode.batchSize) {
 							sourcePdkDataNode.handleStreamEventsReceived(eventListReference.get(), null);
 							eventListReference.set(new ArrayList<>());
 						}
-						return null;
-					});
+					}
 					sourcePdkDataNode.handleStreamEventsReceived(eventListReference.get(), null);
 					sourcePdkDataNode.getObsLogger().info("Read partition {} finished, takes {}, event(during sending) count {}", readPartition, (System.currentTimeMillis() - time), counter.longValue());
 				}
@@ -303,7 +303,7 @@ public class ReadPartitionKVStorageHandler extends PartitionFieldParentHandler i
 			sourcePdkDataNode.getObsLogger().info("Finished partition {} completedPartitions {}", readPartition, completedPartitions.size());
 		}
 
-		storageFactory.deleteKVStorage(kvStorageDuringSendingId);
+		storageFactory.deleteSequenceStorage(eventsDuringSendingId);
 		storageFactory.deleteKVStorage(kvStorageId);
 		storageFactory.deleteKVStorage(sequenceStorageId);
 		return null;
@@ -362,6 +362,8 @@ public class ReadPartitionKVStorageHandler extends PartitionFieldParentHandler i
 		synchronized (this) {
 			if (this.isFinished()) {
 				this.passThrough(deleteRecordEvent);
+			} else if (eventsDuringSending != null) {
+				eventsDuringSending.add(deleteRecordEvent);
 			} else {
 				this.deleteFromKVStorage(key);
 			}
@@ -373,6 +375,9 @@ public class ReadPartitionKVStorageHandler extends PartitionFieldParentHandler i
 		synchronized (this) {
 			if (this.isFinished()) {
 				this.passThrough(deleteRecordEvent);
+			} else if (eventsDuringSending != null) {
+				// The row may be sent already, the delete is replayed after it
+				eventsDuringSending.add(deleteRecordEvent);
 			} else {
 				this.justDeleteFromKVStorage(key);
 			}
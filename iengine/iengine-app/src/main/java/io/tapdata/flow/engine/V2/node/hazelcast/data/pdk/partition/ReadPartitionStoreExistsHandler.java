@@ -20,6 +20,7 @@ import io.tapdata.pdk.core.entity.params.PDKMethodInvoker;
 import io.tapdata.pdk.core.monitor.PDKInvocationMonitor;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -56,13 +57,13 @@ public class ReadPartitionStoreExistsHandler extends PartitionFieldParentHandler
 	private final LongAdder sentEventCount = new LongAdder();
 
 	public ReadPartitionStoreExistsHandler(PDKSourceContext pdkSourceContext, TapTable tapTable, ReadPartition readPartition, HazelcastSourcePartitionReadDataNode sourcePdkDataNode) {
-		super(tapTable);
+		super(tapTable, readPartition.getId());
 		this.readPartition = readPartition;
 		this.pdkSourceContext = pdkSourceContext;
 		this.sourcePdkDataNode = sourcePdkDataNode;
 
 		this.storageFactory = InstanceFactory.instance(TapStorageFactory.class);
-		storageFactory.init(TapStorageFactory.StorageOptions.create().disableJavaSerializable(false).rootPath("./partition_storage"));
+		storageFactory.init(partitionStorageOptions());
 		String taskId = pdkSourceContext.getSourcePdkDataNode().getNode().getTaskId();
 
 		kvStorageId = "stream_" + taskId + "_" + readPartition.getId();
@@ -136,23 +137,26 @@ public class ReadPartitionStoreExistsHandler extends PartitionFieldParentHandler
 									BatchReadFuncAspect batchReadFuncAspect = readPartitionContext.getBatchReadFuncAspect();
 									List<Map<String, Object>> results = filterResults.getResults();
 									if (results != null) {
-										List<TapEvent> events = new ArrayList<>();
-										long storageTime;
+										List<Map<String, Object>> values = new ArrayList<>(results.size());
+										Map<Map<String, Object>, Integer> keys = new LinkedHashMap<>();
 										for (Map<String, Object> result : results) {
 											counter.increment();
 											Map<String, Object> value = reviseData(result);
-											Map<String, Object> key = getKeyFromData(value);
-											storageTime = System.currentTimeMillis();
-											partitionSequenceStorage.put(key, 1);
-											storageTakes.add(System.currentTimeMillis() - storageTime);
+											values.add(value);
+											keys.put(getKeyFromData(value), 1);
+										}
+										long storageTime = System.currentTimeMillis();
+										partitionSequenceStorage.putAll(keys);
+										storageTakes.add(System.currentTimeMillis() - storageTime);
 
+										List<TapEvent> events = new ArrayList<>();
+										for (Map<String, Object> value : values) {
 											events.add(insertRecordEvent(value, table));
 											sentEventCount.increment();
 											if (events.size() >= sourcePdkDataNode.batchSize) {
 												enqueueTapEvents(batchReadFuncAspect, events, sourcePdkDataNode);
 												events = new ArrayList<>();
 											}
-
 										}
 										enqueueTapEvents(batchReadFuncAspect, events, sourcePdkDataNode);
 									}
@@ -41,7 +41,7 @@ public class ReadPartitionUnKVStorageHandler extends PartitionFieldParentHandler
 	private final LongAdder sentEventCount = new LongAdder();
 
 	public ReadPartitionUnKVStorageHandler(PDKSourceContext pdkSourceContext, TapTable tapTable, ReadPartition readPartition, HazelcastSourcePartitionReadDataNode sourcePdkDataNode) {
-		super(tapTable);
+		super(tapTable, readPartition.getId());
 		this.readPartition = readPartition;
 		this.pdkSourceContext = pdkSourceContext;
 		this.sourcePdkDataNode = sourcePdkDataNode;
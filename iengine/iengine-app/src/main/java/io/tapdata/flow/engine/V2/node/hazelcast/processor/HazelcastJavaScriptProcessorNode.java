@@ -30,16 +30,21 @@ import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
 import io.tapdata.entity.logger.TapLog;
+import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.script.ScriptFactory;
 import io.tapdata.entity.script.ScriptOptions;
 import io.tapdata.entity.utils.InstanceFactory;
 import io.tapdata.error.TaskProcessorExCode_11;
 import io.tapdata.exception.TapCodeException;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.KeysPartitioner;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector.TapEventPartitionKeySelector;
 import io.tapdata.flow.engine.V2.node.hazelcast.processor.util.JsUtil;
+import io.tapdata.flow.engine.V2.script.JsContextPool;
 import io.tapdata.flow.engine.V2.script.ObsScriptLogger;
 import io.tapdata.flow.engine.V2.script.ScriptExecutorsManager;
 import io.tapdata.flow.engine.V2.util.GraphUtil;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
+import io.tapdata.observable.logging.ObsLogger;
 import io.tapdata.pdk.core.utils.CommonUtils;
 import lombok.SneakyThrows;
 import org.apache.commons.collections4.MapUtils;
@@ -55,14 +60,24 @@ import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import static org.springframework.data.mongodb.core.query.Criteria.where;
 
@@ -70,6 +85,15 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
 
 	private static final Logger logger = LogManager.getLogger(HazelcastJavaScriptProcessorNode.class);
 	public static final String TAG = HazelcastJavaScriptProcessorNode.class.getSimpleName();
+	/**
+	 * Run the script over batches of records in pooled contexts, see {@link JsContextPool}
+	 */
+	public static final String JS_PROCESSOR_BATCH_ENABLE_KEY = "JS_PROCESSOR_BATCH_ENABLE";
+	public static final String JS_PROCESSOR_CONTEXT_POOL_SIZE_KEY = "JS_PROCESSOR_CONTEXT_POOL_SIZE";
+	/**
+	 * Run the script of a batch over N worker threads partitioned by primary key, implies batch mode when greater than 1
+	 */
+	public static final String JS_PROCESSOR_PARALLEL_THREADS_KEY = "JS_PROCESSOR_PARALLEL_THREADS";
 
 	private final Invocable engine;
 
@@ -87,6 +111,18 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
 
 	private boolean finalJs = false;
 
+	private final String script;
+	private final List<JavaScriptFunctions> javaScriptFunctions;
+	private final ScriptCacheService scriptCacheService;
+	private final boolean batchMode;
+	private JsContextPool jsContextPool;
+	private final int parallelThreads;
+	private ExecutorService[] workers;
+	private JsWorkerMetrics[] workerMetrics;
+	private long lastWorkerMetricsLogTime;
+	private TapEventPartitionKeySelector keySelector;
+	private final KeysPartitioner partitioner = new KeysPartitioner();
+
 	@SneakyThrows
 	public HazelcastJavaScriptProcessorNode(ProcessorBaseContext processorBaseContext) {
 		super(processorBaseContext);
@@ -125,6 +161,13 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
 		}
 
 		ScriptCacheService scriptCacheService = new ScriptCacheService(clientMongoOperator, (DataProcessorContext) processorBaseContext);
+		this.script = script;
+		this.javaScriptFunctions = javaScriptFunctions;
+		this.scriptCacheService = scriptCacheService;
+		this.parallelThreads = Math.max(1, CommonUtils.getPropertyInt(JS_PROCESSOR_PARALLEL_THREADS_KEY, 1));
+		this.batchMode = (CommonUtils.getPropertyBool(JS_PROCESSOR_BATCH_ENABLE_KEY, false) || parallelThreads > 1)
+				&& !StringUtils.equalsAnyIgnoreCase(processorBaseContext.getTaskDto().getSyncType(),
+				TaskDto.SYNC_TYPE_TEST_RUN, TaskDto.SYNC_TYPE_DEDUCE_SCHEMA);
 		this.engine = finalJs ?
 				ScriptUtil.getScriptStandardizationEngine(
 					JSEngineEnum.GRAALVM_JS.getEngineName(),
@@ -147,33 +190,144 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
 				new ObsScriptLogger(obsLogger, logger),
 				this.standard);
 		this.processContextThreadLocal = ThreadLocal.withInitial(HashMap::new);
-		globalTaskContent = new HashMap<>();
+		globalTaskContent = parallelThreads > 1 ? Collections.synchronizedMap(new HashMap<>()) : new HashMap<>();
 	}
 
 	@Override
 	protected void doInit(@NotNull Context context) throws Exception {
 		super.doInit(context);
 		Node<?> node = getNode();
-		if (!this.standard) {
-			this.scriptExecutorsManager = new ScriptExecutorsManager(new ObsScriptLogger(obsLogger), clientMongoOperator, jetContext.hazelcastInstance(),
-					node.getTaskId(), node.getId(),
-					StringUtils.equalsAnyIgnoreCase(processorBaseContext.getTaskDto().getSyncType(),
-							TaskDto.SYNC_TYPE_TEST_RUN, TaskDto.SYNC_TYPE_DEDUCE_SCHEMA));
+		if (batchMode) {
+			// Scripts run in pooled contexts, which get their own executors, see contextBindings
+			initJsContextPool();
+		} else if (!this.standard) {
+			this.scriptExecutorsManager = newScriptExecutorsManager();
 			((ScriptEngine) this.engine).put("ScriptExecutorsManager", scriptExecutorsManager);
 			List<Node<?>> predecessors = GraphUtil.predecessors(node, Node::isDataNode);
 			List<Node<?>> successors = GraphUtil.successors(node, Node::isDataNode);
 
-			this.source = getDefaultScriptExecutor(predecessors, "source");
-			this.target = getDefaultScriptExecutor(successors, "target");
+			this.source = getDefaultScriptExecutor(scriptExecutorsManager, predecessors, "source");
+			this.target = getDefaultScriptExecutor(scriptExecutorsManager, successors, "target");
 			((ScriptEngine) this.engine).put("source", source);
 			((ScriptEngine) this.engine).put("target", target);
 		}
 	}
 
-	private ScriptExecutorsManager.ScriptExecutor getDefaultScriptExecutor(List<Node<?>> nodes, String flag) {
+	private ScriptExecutorsManager newScriptExecutorsManager() {
+		Node<?> node = getNode();
+		return new ScriptExecutorsManager(new ObsScriptLogger(obsLogger), clientMongoOperator, jetContext.hazelcastInstance(),
+				node.getTaskId(), node.getId(),
+				StringUtils.equalsAnyIgnoreCase(processorBaseContext.getTaskDto().getSyncType(),
+						TaskDto.SYNC_TYPE_TEST_RUN, TaskDto.SYNC_TYPE_DEDUCE_SCHEMA));
+	}
+
+	private void initJsContextPool() {
+		ObsScriptLogger scriptLogger = new ObsScriptLogger(obsLogger, logger);
+		final ClassLoader[] externalClassLoader = new ClassLoader[1];
+		List<String> scripts = ScriptUtil.getScriptSources(script, javaScriptFunctions, clientMongoOperator,
+				urlClassLoader -> externalClassLoader[0] = urlClassLoader, standard, finalJs);
+		JsContextPool.ContextBindings contextBindings = new JsContextPool.ContextBindings() {
+			@Override
+			public Map<String, Object> create() {
+				return contextBindings(scriptLogger);
+			}
+
+			@Override
+			public void release(Map<String, Object> bindings) {
+				releaseContextBindings(bindings);
+			}
+		};
+		int poolSize = Math.max(parallelThreads, CommonUtils.getPropertyInt(JS_PROCESSOR_CONTEXT_POOL_SIZE_KEY, Runtime.getRuntime().availableProcessors()));
+		this.jsContextPool = new JsContextPool(getNode().getId(), scripts, contextBindings, scriptLogger, externalClassLoader[0], poolSize);
+		this.jsContextPool.init();
+		if (parallelThreads > 1) {
+			initWorkers();
+		}
+		obsLogger.info("Js processor node {}({}) runs script in batches, context pool size: {}, worker threads: {}",
+				getNode().getId(), getNode().getName(), poolSize, parallelThreads);
+	}
+
+	/**
+	 * Global objects of one pooled context. Contexts run on the js workers at the same time, the script executors hold
+	 * one connector each and the cache service keeps the caches it reported, so every context gets its own
+	 */
+	private Map<String, Object> contextBindings(ObsScriptLogger scriptLogger) {
+		Map<String, Object> bindings = new HashMap<>();
+		try {
+			if (finalJs) {
+				bindings.put("tapUtil", new io.tapdata.js.connector.base.JsUtil());
+				bindings.put("tapLog", scriptLogger);
+			}
+			if (!standard) {
+				ScriptExecutorsManager contextExecutorsManager = newScriptExecutorsManager();
+				bindings.put("ScriptExecutorsManager", contextExecutorsManager);
+				Node<?> node = getNode();
+				Optional.ofNullable(getDefaultScriptExecutor(contextExecutorsManager, GraphUtil.predecessors(node, Node::isDataNode), "source"))
+						.ifPresent(s -> bindings.put("source", s));
+				Optional.ofNullable(getDefaultScriptExecutor(contextExecutorsManager, GraphUtil.successors(node, Node::isDataNode), "target"))
+						.ifPresent(s -> bindings.put("target", s));
+			}
+			bindings.put("CacheService", new ScriptCacheService(clientMongoOperator, (DataProcessorContext) processorBaseContext));
+			bindings.put("log", scriptLogger);
+			return bindings;
+		} catch (RuntimeException e) {
+			releaseContextBindings(bindings);
+			throw e;
+		}
+	}
+
+	private static void releaseContextBindings(Map<String, Object> bindings) {
+		for (String name : Arrays.asList("source", "target")) {
+			Object scriptExecutor = bindings.get(name);
+			if (scriptExecutor instanceof ScriptExecutorsManager.ScriptExecutor) {
+				CommonUtils.ignoreAnyError(((ScriptExecutorsManager.ScriptExecutor) scriptExecutor)::close, TAG);
+			}
+		}
+		Object scriptExecutorsManager = bindings.get("ScriptExecutorsManager");
+		if (scriptExecutorsManager instanceof ScriptExecutorsManager) {
+			CommonUtils.ignoreAnyError(((ScriptExecutorsManager) scriptExecutorsManager)::close, TAG);
+		}
+	}
+
+	private void initWorkers() {
+		this.keySelector = new TapEventPartitionKeySelector(tapEvent -> {
+			try {
+				String tableId = getProcessResult(TapEventUtil.getTableId(tapEvent)).getTableId();
+				TapTable tapTable = processorBaseContext.getTapTableMap().get(null == tableId ? getNode().getId() : tableId);
+				return null == tapTable ? Collections.emptyList() : new ArrayList<>(tapTable.primaryKeys(true));
+			} catch (Exception e) {
+				obsLogger.warn("Can not find primary keys of table {}, its records will run on the first js worker: {}", TapEventUtil.getTableId(tapEvent), e.getMessage());
+				return Collections.emptyList();
+			}
+		});
+		this.workers = new ExecutorService[parallelThreads];
+		this.workerMetrics = new JsWorkerMetrics[parallelThreads];
+		for (int i = 0; i < parallelThreads; i++) {
+			String threadName = "js-processor-worker-" + getNode().getId() + "-" + i;
+			workers[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+				Thread thread = new Thread(runnable);
+				thread.setName(threadName);
+				return thread;
+			});
+			workerMetrics[i] = new JsWorkerMetrics();
+		}
+		lastWorkerMetricsLogTime = System.currentTimeMillis();
+	}
+
+	@Override
+	protected boolean supportBatch() {
+		return batchMode;
+	}
+
+	@Override
+	protected boolean supportCdcBatch() {
+		return batchMode;
+	}
+
+	private ScriptExecutorsManager.ScriptExecutor getDefaultScriptExecutor(ScriptExecutorsManager scriptExecutorsManager, List<Node<?>> nodes, String flag) {
 		TaskDto taskDto = processorBaseContext.getTaskDto();
 		if ("target".equals(flag) && taskDto.isTestTask()) {
-			return this.scriptExecutorsManager.createDummy();
+			return scriptExecutorsManager.createDummy();
 		}
 		if (nodes != null && nodes.size() > 0) {
 			Node<?> node = nodes.get(0);
@@ -185,7 +339,7 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
 					if (nodes.size() > 1) {
 						obsLogger.warn("Use the first node as the default script executor, please use it with caution.");
 					}
-					return this.scriptExecutorsManager.create(connections, clientMongoOperator, jetContext.hazelcastInstance(), new ObsScriptLogger(obsLogger));
+					return scriptExecutorsManager.create(connections, clientMongoOperator, jetContext.hazelcastInstance(), new ObsScriptLogger(obsLogger));
 				}
 			}
 		}
@@ -205,39 +359,9 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
 			return;
 		}
 
-		Map<String, Object> record = TapEventUtil.getAfter(tapEvent);
-		if (MapUtils.isEmpty(record) && MapUtils.isNotEmpty(TapEventUtil.getBefore(tapEvent))) {
-			record = TapEventUtil.getBefore(tapEvent);
-		}
-
-		String op = TapEventUtil.getOp(tapEvent);
-		ProcessContext processContext = new ProcessContext(op, tableName, null, null, null, tapdataEvent.getOffset());
-
-		Long referenceTime = ((TapRecordEvent) tapEvent).getReferenceTime();
-		long eventTime = referenceTime == null ? 0 : referenceTime;
-		processContext.setEventTime(eventTime);
-		processContext.setTs(eventTime);
-		SyncStage syncStage = tapdataEvent.getSyncStage();
-		processContext.setType(syncStage == null ? SyncStage.INITIAL_SYNC.name() : syncStage.name());
-		processContext.setSyncType(getProcessorBaseContext().getTaskDto().getSyncType());
-
-		ProcessContextEvent processContextEvent = processContext.getEvent();
-		if (processContextEvent == null) {
-			processContextEvent = new ProcessContextEvent(op, tableName, processContext.getSyncType(), eventTime);
-		}
-		Map<String, Object> before = TapEventUtil.getBefore(tapEvent);
-		if (null != before) {
-			processContextEvent.setBefore(before);
-		}
-		processContextEvent.setType(processContext.getType());
-		Map<String, Object> eventMap = MapUtil.obj2Map(processContextEvent);
-		Map<String, Object> contextMap = MapUtil.obj2Map(processContext);
-		contextMap.put("event", eventMap);
-		contextMap.put("before", before);
-		contextMap.put("info", tapEvent.getInfo());
-		contextMap.put("global", this.globalTaskContent);
+		Map<String, Object> record = getRecord(tapEvent);
 		Map<String, Object> context = this.processContextThreadLocal.get();
-		context.putAll(contextMap);
+		context.putAll(getContextMap(tapdataEvent, tableName));
 		((ScriptEngine) this.engine).put("context", context);
 
 
@@ -271,18 +395,197 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
 			scriptInvokeResult.set(engine.invokeFunction(ScriptUtil.FUNCTION_NAME, record));
 		}
 
-		if (StringUtils.isNotEmpty((CharSequence) context.get("op"))) {
-			op = (String) context.get("op");
+		String op = getOp(tapEvent, context);
+		context.clear();
+
+		acceptResult(tapdataEvent, op, scriptInvokeResult.get(), processResult, consumer);
+	}
+
+	/**
+	 * Batch mode: call the script once for all records of the batch in a pooled context
+	 */
+	@Override
+	protected void tryProcess(List<BatchEventWrapper> tapdataEvents, Consumer<List<BatchProcessResult>> consumer) {
+		if (null == jsContextPool) {
+			super.tryProcess(tapdataEvents, consumer);
+			return;
+		}
+		if (null == tapdataEvents) {
+			return;
+		}
+		List<TapdataEvent> recordEvents = new ArrayList<>(tapdataEvents.size());
+		List<Map<String, Object>> records = new ArrayList<>(tapdataEvents.size());
+		List<Map<String, Object>> contexts = new ArrayList<>(tapdataEvents.size());
+		for (BatchEventWrapper batchEventWrapper : tapdataEvents) {
+			TapdataEvent tapdataEvent = batchEventWrapper.getTapdataEvent();
+			TapEvent tapEvent = tapdataEvent.getTapEvent();
+			if (tapEvent instanceof TapRecordEvent) {
+				recordEvents.add(tapdataEvent);
+				records.add(getRecord(tapEvent));
+				contexts.add(getContextMap(tapdataEvent, TapEventUtil.getTableId(tapEvent)));
+			}
+		}
+		List<Object> results;
+		try {
+			if (records.isEmpty()) {
+				results = Collections.emptyList();
+			} else if (null == workers) {
+				results = jsContextPool.invokeBatch(records, contexts);
+			} else {
+				results = invokeParallel(recordEvents, records, contexts);
+			}
+		} catch (InterruptedException e) {
+			// Fail the node instead of dropping the batch, events of this batch are not offered downstream
+			Thread.currentThread().interrupt();
+			throw new TapCodeException(TaskProcessorExCode_11.JAVA_SCRIPT_PROCESS_FAILED, e);
+		} catch (Throwable throwable) {
+			throw new TapCodeException(TaskProcessorExCode_11.JAVA_SCRIPT_PROCESS_FAILED, throwable);
 		}
 
-		context.clear();
+		List<BatchProcessResult> batchProcessResults = new ArrayList<>(tapdataEvents.size());
+		int index = 0;
+		for (BatchEventWrapper batchEventWrapper : tapdataEvents) {
+			TapdataEvent tapdataEvent = batchEventWrapper.getTapdataEvent();
+			TapEvent tapEvent = tapdataEvent.getTapEvent();
+			ProcessResult processResult = getProcessResult(TapEventUtil.getTableId(tapEvent));
+			if (!(tapEvent instanceof TapRecordEvent)) {
+				batchProcessResults.add(new BatchProcessResult(batchEventWrapper, processResult));
+				continue;
+			}
+			String op = getOp(tapEvent, contexts.get(index));
+			acceptResult(tapdataEvent, op, results.get(index++), processResult, (event, result) -> {
+				BatchEventWrapper wrapper = event == tapdataEvent ? batchEventWrapper : new BatchEventWrapper(event, batchEventWrapper.getTapValueTransform());
+				batchProcessResults.add(new BatchProcessResult(wrapper, result));
+			});
+		}
+		consumer.accept(batchProcessResults);
+	}
+
+	/**
+	 * Split the batch by primary key over the workers, so records of one key run in order on one worker, then put the
+	 * results back in input order
+	 */
+	private List<Object> invokeParallel(List<TapdataEvent> recordEvents, List<Map<String, Object>> records, List<Map<String, Object>> contexts) throws Exception {
+		List<List<Integer>> partitions = new ArrayList<>(workers.length);
+		for (int i = 0; i < workers.length; i++) {
+			partitions.add(new ArrayList<>());
+		}
+		for (int i = 0; i < recordEvents.size(); i++) {
+			TapdataEvent tapdataEvent = recordEvents.get(i);
+			List<Object> partitionValue = keySelector.convert2OriginValue(keySelector.select(tapdataEvent.getTapEvent(), records.get(i)));
+			int partition = partitioner.partition(workers.length, tapdataEvent, partitionValue).getPartition();
+			partitions.get(Math.max(0, partition)).add(i);
+		}
+
+		List<Future<List<Object>>> futures = new ArrayList<>(workers.length);
+		for (int i = 0; i < workers.length; i++) {
+			List<Integer> indexes = partitions.get(i);
+			if (indexes.isEmpty()) {
+				futures.add(null);
+				continue;
+			}
+			JsWorkerMetrics metrics = workerMetrics[i];
+			futures.add(workers[i].submit(() -> {
+				List<Map<String, Object>> partitionRecords = new ArrayList<>(indexes.size());
+				List<Map<String, Object>> partitionContexts = new ArrayList<>(indexes.size());
+				for (int index : indexes) {
+					partitionRecords.add(records.get(index));
+					partitionContexts.add(contexts.get(index));
+				}
+				long start = System.nanoTime();
+				List<Object> partitionResults = jsContextPool.invokeBatch(partitionRecords, partitionContexts);
+				metrics.batch(indexes.size(), System.nanoTime() - start);
+				return partitionResults;
+			}));
+		}
+
+		Object[] results = new Object[records.size()];
+		for (int i = 0; i < workers.length; i++) {
+			Future<List<Object>> future = futures.get(i);
+			if (null == future) {
+				continue;
+			}
+			List<Object> partitionResults;
+			try {
+				partitionResults = future.get();
+			} catch (ExecutionException e) {
+				throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+			}
+			List<Integer> indexes = partitions.get(i);
+			for (int j = 0; j < indexes.size(); j++) {
+				results[indexes.get(j)] = partitionResults.get(j);
+			}
+		}
+		if (System.currentTimeMillis() - lastWorkerMetricsLogTime >= JsWorkerMetrics.LOG_INTERVAL_MS) {
+			logWorkerMetrics();
+		}
+		return Arrays.asList(results);
+	}
+
+	private void logWorkerMetrics() {
+		long now = System.currentTimeMillis();
+		long intervalMs = Math.max(1L, now - lastWorkerMetricsLogTime);
+		lastWorkerMetricsLogTime = now;
+		for (int i = 0; i < workerMetrics.length; i++) {
+			workerMetrics[i].log(obsLogger, i, intervalMs);
+		}
+	}
+
+	private static Map<String, Object> getRecord(TapEvent tapEvent) {
+		Map<String, Object> record = TapEventUtil.getAfter(tapEvent);
+		if (MapUtils.isEmpty(record) && MapUtils.isNotEmpty(TapEventUtil.getBefore(tapEvent))) {
+			record = TapEventUtil.getBefore(tapEvent);
+		}
+		return record;
+	}
+
+	private Map<String, Object> getContextMap(TapdataEvent tapdataEvent, String tableName) {
+		TapEvent tapEvent = tapdataEvent.getTapEvent();
+		String op = TapEventUtil.getOp(tapEvent);
+		ProcessContext processContext = new ProcessContext(op, tableName, null, null, null, tapdataEvent.getOffset());
 
-		if (null == scriptInvokeResult.get()) {
+		Long referenceTime = ((TapRecordEvent) tapEvent).getReferenceTime();
+		long eventTime = referenceTime == null ? 0 : referenceTime;
+		processContext.setEventTime(eventTime);
+		processContext.setTs(eventTime);
+		SyncStage syncStage = tapdataEvent.getSyncStage();
+		processContext.setType(syncStage == null ? SyncStage.INITIAL_SYNC.name() : syncStage.name());
+		processContext.setSyncType(getProcessorBaseContext().getTaskDto().getSyncType());
+
+		ProcessContextEvent processContextEvent = processContext.getEvent();
+		if (processContextEvent == null) {
+			processContextEvent = new ProcessContextEvent(op, tableName, processContext.getSyncType(), eventTime);
+		}
+		Map<String, Object> before = TapEventUtil.getBefore(tapEvent);
+		if (null != before) {
+			processContextEvent.setBefore(before);
+		}
+		processContextEvent.setType(processContext.getType());
+		Map<String, Object> eventMap = MapUtil.obj2Map(processContextEvent);
+		Map<String, Object> contextMap = MapUtil.obj2Map(processContext);
+		contextMap.put("event", eventMap);
+		contextMap.put("before", before);
+		contextMap.put("info", tapEvent.getInfo());
+		contextMap.put("global", this.globalTaskContent);
+		return contextMap;
+	}
+
+	private static String getOp(TapEvent tapEvent, Map<String, Object> context) {
+		if (StringUtils.isNotEmpty((CharSequence) context.get("op"))) {
+			return (String) context.get("op");
+		}
+		return TapEventUtil.getOp(tapEvent);
+	}
+
+	private void acceptResult(TapdataEvent tapdataEvent, String op, Object scriptInvokeResult, ProcessResult processResult,
+							  BiConsumer<TapdataEvent, ProcessResult> consumer) {
+		TapEvent tapEvent = tapdataEvent.getTapEvent();
+		if (null == scriptInvokeResult) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("The event does not need to continue to be processed {}", tapdataEvent);
 			}
-		} else if (scriptInvokeResult.get() instanceof List) {
-			for (Object o : (List) scriptInvokeResult.get()) {
+		} else if (scriptInvokeResult instanceof List) {
+			for (Object o : (List) scriptInvokeResult) {
 				Map<String, Object> recordMap = new HashMap<>();
 				MapUtil.copyToNewMap((Map<String, Object>) o, recordMap);
 				TapdataEvent cloneTapdataEvent = (TapdataEvent) tapdataEvent.clone();
@@ -293,7 +596,7 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
 			}
 		} else {
 			Map<String, Object> recordMap = new HashMap<>();
-			MapUtil.copyToNewMap((Map<String, Object>) scriptInvokeResult.get(), recordMap);
+			MapUtil.copyToNewMap((Map<String, Object>) scriptInvokeResult, recordMap);
 			TapEvent returnTapEvent = getTapEvent(tapEvent, op);
 			setRecordMap(returnTapEvent, op, recordMap);
 			tapdataEvent.setTapEvent(returnTapEvent);
@@ -340,6 +643,13 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
 			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.source).ifPresent(ScriptExecutorsManager.ScriptExecutor::close), TAG);
 			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.target).ifPresent(ScriptExecutorsManager.ScriptExecutor::close), TAG);
 			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.scriptExecutorsManager).ifPresent(ScriptExecutorsManager::close), TAG);
+			if (null != this.workers) {
+				CommonUtils.ignoreAnyError(this::logWorkerMetrics, TAG);
+				for (ExecutorService worker : workers) {
+					CommonUtils.ignoreAnyError(worker::shutdownNow, TAG);
+				}
+			}
+			CommonUtils.ignoreAnyError(() -> Optional.ofNullable(this.jsContextPool).ifPresent(JsContextPool::close), TAG);
 			CommonUtils.ignoreAnyError(() -> {
 				if (this.engine instanceof GraalJSScriptEngine) {
 					((GraalJSScriptEngine) this.engine).close();
@@ -350,6 +660,36 @@ public class HazelcastJavaScriptProcessorNode extends HazelcastProcessorBaseNode
 		}
 	}
 
+	/**
+	 * Records and busy time of a parallel js worker, logged at most once per {@link #LOG_INTERVAL_MS}
+	 */
+	private static class JsWorkerMetrics {
+		private static final long LOG_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1L);
+		private final AtomicLong batches = new AtomicLong();
+		private final AtomicLong records = new AtomicLong();
+		private final AtomicLong busyNanos = new AtomicLong();
+		private long loggedRecords;
+		private long loggedBusyNanos;
+
+		private void batch(int size, long nanos) {
+			batches.incrementAndGet();
+			records.addAndGet(size);
+			busyNanos.addAndGet(nanos);
+		}
+
+		private void log(ObsLogger obsLogger, int worker, long intervalMs) {
+			long totalRecords = records.get();
+			long totalBusyNanos = busyNanos.get();
+			long intervalRecords = totalRecords - loggedRecords;
+			long intervalBusyNanos = totalBusyNanos - loggedBusyNanos;
+			loggedRecords = totalRecords;
+			loggedBusyNanos = totalBusyNanos;
+			obsLogger.info("Js processor worker {}: batches: {}, records: {}, throughput: {} records/s, busy: {}%",
+					worker, batches.get(), totalRecords, intervalRecords * 1000 / intervalMs,
+					TimeUnit.NANOSECONDS.toMillis(intervalBusyNanos) * 100 / intervalMs);
+		}
+	}
+
 	public static void main(String[] args)throws FileNotFoundException, ScriptException {
 		final ScriptFactory scriptFactory = InstanceFactory.instance(ScriptFactory.class, "tapdata");
 		ScriptEngine e = scriptFactory.create(ScriptFactory.TYPE_JAVASCRIPT, new ScriptOptions().engineName(JSEngineEnum.GRAALVM_JS.getEngineName()));
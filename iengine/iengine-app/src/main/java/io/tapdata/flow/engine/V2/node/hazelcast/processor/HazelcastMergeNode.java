@@ -11,8 +11,11 @@ import com.tapdata.tm.commons.dag.Node;
 import com.tapdata.tm.commons.dag.nodes.TableNode;
 import com.tapdata.tm.commons.dag.process.MergeTableNode;
 import com.tapdata.tm.commons.externalStorage.ExternalStorageDto;
+import com.tapdata.tm.commons.externalStorage.ExternalStorageType;
 import com.tapdata.tm.commons.task.dto.MergeTableProperties;
+import io.tapdata.construct.HazelcastConstruct;
 import io.tapdata.construct.constructImpl.ConstructIMap;
+import io.tapdata.construct.constructImpl.ConstructOffHeapMap;
 import io.tapdata.entity.event.ddl.index.TapCreateIndexEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.schema.TapIndex;
@@ -24,6 +27,7 @@ import io.tapdata.exception.TapCodeException;
 import io.tapdata.flow.engine.V2.util.ExternalStorageUtil;
 import io.tapdata.flow.engine.V2.util.GraphUtil;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
+import io.tapdata.observable.logging.ObsLogger;
 import io.tapdata.pdk.apis.entity.merge.MergeInfo;
 import io.tapdata.pdk.apis.entity.merge.MergeLookupResult;
 import io.tapdata.pdk.core.utils.CommonUtils;
@@ -42,6 +46,7 @@ import org.springframework.data.mongodb.core.query.Query;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -56,10 +61,11 @@ import static com.tapdata.constant.ConnectorConstant.LOOKUP_TABLE_SUFFIX;
 public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 
 	public static final String TAG = HazelcastMergeNode.class.getSimpleName();
+	public static final String MERGE_CDC_BATCH_LOOKUP_ENABLE_KEY = "MERGE_CDC_BATCH_LOOKUP_ENABLE";
 	private Logger logger = LogManager.getLogger(HazelcastMergeNode.class);
 
 	// 缓存表信息{"前置节点id": "Hazelcast缓存资源{"join value string": {"pk value string": "after data"}}"}
-	private Map<String, ConstructIMap<Document>> mergeCacheMap;
+	private Map<String, HazelcastConstruct<Document>> mergeCacheMap;
 	// 合并配置信息{"前置节点id": "合并配置"}
 	private Map<String, MergeTableProperties> mergeTablePropertiesMap;
 	// 反查信息{"前置节点id": "需要反查的子表配置"}
@@ -76,6 +82,9 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 	private TapdataEvent createIndexEvent;
 	private final Map<String, Node<?>> preNodeMap = new ConcurrentHashMap<>();
 	private final Map<String, io.tapdata.pdk.apis.entity.merge.MergeTableProperties> preNodeIdPdkMergeTablePropertieMap = new ConcurrentHashMap<>();
+	// 反查读取的缓存id{"合并配置id": "所有子孙节点id"}
+	private final Map<String, Set<String>> lookupCacheIdsMap = new ConcurrentHashMap<>();
+	private final LookupMetrics lookupMetrics = new LookupMetrics();
 
 	public HazelcastMergeNode(DataProcessorContext dataProcessorContext) {
 		super(dataProcessorContext);
@@ -141,16 +150,50 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		initSourcePkOrUniqueFieldMap(null);
 	}
 
+	/**
+	 * Batch lookup of cdc events is off by default, enable it with {@link #MERGE_CDC_BATCH_LOOKUP_ENABLE_KEY}=true
+	 */
+	@Override
+	protected boolean supportCdcBatch() {
+		return CommonUtils.getPropertyBool(MERGE_CDC_BATCH_LOOKUP_ENABLE_KEY, false);
+	}
+
 	@Override
 	protected void tryProcess(List<HazelcastProcessorBaseNode.BatchEventWrapper> tapdataEvents, Consumer<List<BatchProcessResult>> consumer) {
-		List<BatchProcessResult> batchProcessResults = new ArrayList<>();
 		if (this.createIndexEvent != null) {
+			List<BatchProcessResult> batchProcessResults = new ArrayList<>();
 			BatchProcessResult batchProcessResult = new BatchProcessResult(new BatchEventWrapper(this.createIndexEvent, null), null);
 			batchProcessResults.add(batchProcessResult);
 			consumer.accept(batchProcessResults);
-			batchProcessResults.clear();
 			this.createIndexEvent = null;
 		}
+		// Split into continuous initial sync and cdc events, keep the event order
+		List<BatchEventWrapper> sameStageEvents = new ArrayList<>();
+		boolean cdcStage = false;
+		for (BatchEventWrapper batchEventWrapper : tapdataEvents) {
+			boolean cdcEvent = SyncStage.CDC == batchEventWrapper.getTapdataEvent().getSyncStage();
+			if (cdcEvent != cdcStage && !sameStageEvents.isEmpty()) {
+				tryProcessSameStage(sameStageEvents, cdcStage, consumer);
+				sameStageEvents = new ArrayList<>();
+			}
+			cdcStage = cdcEvent;
+			sameStageEvents.add(batchEventWrapper);
+		}
+		if (!sameStageEvents.isEmpty()) {
+			tryProcessSameStage(sameStageEvents, cdcStage, consumer);
+		}
+	}
+
+	private void tryProcessSameStage(List<BatchEventWrapper> tapdataEvents, boolean cdcStage, Consumer<List<BatchProcessResult>> consumer) {
+		if (cdcStage) {
+			tryProcessCdcBatch(tapdataEvents, consumer);
+		} else {
+			tryProcessInitialBatch(tapdataEvents, consumer);
+		}
+	}
+
+	private void tryProcessInitialBatch(List<BatchEventWrapper> tapdataEvents, Consumer<List<BatchProcessResult>> consumer) {
+		List<BatchProcessResult> batchProcessResults = new ArrayList<>();
 		List<BatchEventWrapper> batchCache = new ArrayList<>();
 		for (BatchEventWrapper batchEventWrapper : tapdataEvents) {
 			TapdataEvent tapdataEvent = batchEventWrapper.getTapdataEvent();
@@ -181,6 +224,167 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		}
 	}
 
+	/**
+	 * Same as {@link #tryProcess(TapdataEvent, BiConsumer)} for every event, but the lookups of the batch are collected and
+	 * done with one findAll per cache and join level. Pending lookups are done before an event updates a cache they read,
+	 * so every lookup still sees the cache as it was when its event arrived
+	 */
+	private void tryProcessCdcBatch(List<BatchEventWrapper> tapdataEvents, Consumer<List<BatchProcessResult>> consumer) {
+		List<BatchProcessResult> batchProcessResults = new ArrayList<>();
+		List<LookupTask> pendingLookups = new ArrayList<>();
+		Set<String> pendingLookupCacheIds = new HashSet<>();
+		for (BatchEventWrapper batchEventWrapper : tapdataEvents) {
+			TapdataEvent tapdataEvent = batchEventWrapper.getTapdataEvent();
+			if (!tapdataEvent.isDML()) {
+				batchLookup(pendingLookups, pendingLookupCacheIds);
+				batchProcessResults.add(new BatchProcessResult(batchEventWrapper, null));
+				consumer.accept(batchProcessResults);
+				batchProcessResults = new ArrayList<>();
+				continue;
+			}
+			String preTableName = getPreTableName(tapdataEvent);
+			if (needCache(tapdataEvent)) {
+				if (pendingLookupCacheIds.contains(getPreNodeId(tapdataEvent))) {
+					batchLookup(pendingLookups, pendingLookupCacheIds);
+				}
+				cache(tapdataEvent);
+			}
+			MergeInfo mergeInfo = wrapMergeInfo(tapdataEvent);
+			if (needLookup(tapdataEvent)) {
+				if (CollectionUtils.isEmpty(tapdataEvent.getNodeIds())) {
+					throw new TapEventException(TaskMergeProcessorExCode_16.LOOK_UP_MISSING_FROM_NODE_ID).addEvent(tapdataEvent.getTapEvent());
+				}
+				String preNodeId = getPreNodeId(tapdataEvent);
+				MergeTableProperties currentMergeTableProperty = this.mergeTablePropertiesMap.get(preNodeId);
+				if (CollectionUtils.isNotEmpty(currentMergeTableProperty.getChildren())) {
+					List<MergeLookupResult> mergeLookupResults = new ArrayList<>();
+					mergeInfo.setMergeLookupResults(mergeLookupResults);
+					pendingLookups.add(new LookupTask(tapdataEvent, currentMergeTableProperty, getAfter(tapdataEvent), mergeLookupResults));
+					pendingLookupCacheIds.addAll(getLookupCacheIds(currentMergeTableProperty));
+				}
+			}
+			batchProcessResults.add(new BatchProcessResult(batchEventWrapper, ProcessResult.create().tableId(preTableName)));
+		}
+		batchLookup(pendingLookups, pendingLookupCacheIds);
+		if (!batchProcessResults.isEmpty()) {
+			consumer.accept(batchProcessResults);
+		}
+	}
+
+	/**
+	 * Ids of all caches read by the lookup of the merge property, which are the ids of all its descendants
+	 */
+	private Set<String> getLookupCacheIds(MergeTableProperties mergeTableProperties) {
+		return lookupCacheIdsMap.computeIfAbsent(mergeTableProperties.getId(), k -> {
+			Set<String> ids = new HashSet<>();
+			Deque<MergeTableProperties> stack = new ArrayDeque<>();
+			stack.push(mergeTableProperties);
+			while (!stack.isEmpty()) {
+				List<MergeTableProperties> children = stack.pop().getChildren();
+				if (CollectionUtils.isEmpty(children)) continue;
+				for (MergeTableProperties child : children) {
+					ids.add(child.getId());
+					stack.push(child);
+				}
+			}
+			return ids;
+		});
+	}
+
+	/**
+	 * Batch version of {@link #recursiveLookup(MergeTableProperties, Map)}, resolve one join level of all tasks at a time:
+	 * join keys are grouped by child cache and each cache is read with one findAll, then the found rows are appended to
+	 * each task's result in the task and child order, and become the tasks of the next level
+	 */
+	private void batchLookup(List<LookupTask> lookupTasks, Set<String> lookupCacheIds) {
+		if (lookupTasks.isEmpty()) {
+			return;
+		}
+		List<LookupTask> tasks = new ArrayList<>(lookupTasks);
+		lookupTasks.clear();
+		lookupCacheIds.clear();
+		while (!tasks.isEmpty()) {
+			Map<String, Set<String>> joinValueKeysByCacheId = new LinkedHashMap<>();
+			for (LookupTask task : tasks) {
+				for (MergeTableProperties childMergeProperty : task.mergeTableProperties.getChildren()) {
+					String joinValueKey;
+					try {
+						joinValueKey = getJoinValueKeyByTarget(task.data, childMergeProperty, task.mergeTableProperties);
+					} catch (TapCodeException e) {
+						throw new TapEventException(e.getCode(), e.getMessage(), e.getCause()).addEvent(task.tapdataEvent.getTapEvent());
+					}
+					String encodeJoinValueKey = null == joinValueKey ? null : encode(joinValueKey);
+					task.encodeJoinValueKeys.add(encodeJoinValueKey);
+					if (null != encodeJoinValueKey) {
+						joinValueKeysByCacheId.computeIfAbsent(childMergeProperty.getId(), k -> new HashSet<>()).add(encodeJoinValueKey);
+					}
+				}
+			}
+			Map<String, Map<String, Object>> findDataByCacheId = new HashMap<>();
+			for (Map.Entry<String, Set<String>> entry : joinValueKeysByCacheId.entrySet()) {
+				HazelcastConstruct<Document> hazelcastConstruct = getHazelcastConstruct(entry.getKey());
+				Map<String, Object> findDataMap;
+				try {
+					findDataMap = hazelcastConstruct.findAll(entry.getValue());
+				} catch (Exception e) {
+					throw new TapCodeException(TaskMergeProcessorExCode_16.LOOK_UP_FIND_BY_JOIN_KEYS_FAILED, String.format("- Find construct name: %s\n- Encoded join keys: %s", hazelcastConstruct.getName(), entry.getValue()), e);
+				}
+				lookupMetrics.batch(entry.getValue().size(), findDataMap.size());
+				findDataByCacheId.put(entry.getKey(), findDataMap);
+			}
+			List<LookupTask> nextTasks = new ArrayList<>();
+			for (LookupTask task : tasks) {
+				List<MergeTableProperties> children = task.mergeTableProperties.getChildren();
+				for (int i = 0; i < children.size(); i++) {
+					String encodeJoinValueKey = task.encodeJoinValueKeys.get(i);
+					if (null == encodeJoinValueKey) {
+						continue;
+					}
+					MergeTableProperties childMergeProperty = children.get(i);
+					// Rows found by the same join key are shared by the tasks, they are read only from here on
+					Object found = findDataByCacheId.get(childMergeProperty.getId()).get(encodeJoinValueKey);
+					if (!(found instanceof Document) || MapUtils.isEmpty((Document) found)) {
+						continue;
+					}
+					Document findData = (Document) found;
+					io.tapdata.pdk.apis.entity.merge.MergeTableProperties pdkMergeTableProperty = copyMergeTableProperty(childMergeProperty);
+					MergeTableProperties.MergeType mergeType = childMergeProperty.getMergeType();
+					if (MergeTableProperties.MergeType.updateWrite == mergeType) {
+						Set<String> keySet = findData.keySet();
+						keySet.remove("_ts");
+						if (keySet.size() > 1) {
+							logger.warn("Update write merge lookup, find more than one row by join key: " + encodeJoinValueKey + ", will use first row: " + task.data);
+						}
+						String firstKey = findData.keySet().iterator().next();
+						Map<String, Object> lookupMap = (Map<String, Object>) findData.get(firstKey);
+						task.mergeLookupResults.add(newLookupResult(task, childMergeProperty, pdkMergeTableProperty, lookupMap, nextTasks));
+					} else if (MergeTableProperties.MergeType.updateIntoArray == mergeType) {
+						for (Object arrayData : findData.values()) {
+							if (!(arrayData instanceof Map)) continue;
+							task.mergeLookupResults.add(newLookupResult(task, childMergeProperty, pdkMergeTableProperty, (Map<String, Object>) arrayData, nextTasks));
+						}
+					}
+				}
+			}
+			tasks = nextTasks;
+		}
+		lookupMetrics.logIfNeed(obsLogger);
+	}
+
+	private MergeLookupResult newLookupResult(LookupTask parentTask, MergeTableProperties childMergeProperty,
+											  io.tapdata.pdk.apis.entity.merge.MergeTableProperties pdkMergeTableProperty,
+											  Map<String, Object> data, List<LookupTask> nextTasks) {
+		MergeLookupResult mergeLookupResult = new MergeLookupResult();
+		mergeLookupResult.setProperty(pdkMergeTableProperty);
+		mergeLookupResult.setData(data);
+		if (CollectionUtils.isNotEmpty(childMergeProperty.getChildren())) {
+			List<MergeLookupResult> childLookupResults = new ArrayList<>();
+			mergeLookupResult.setMergeLookupResults(childLookupResults);
+			nextTasks.add(new LookupTask(parentTask.tapdataEvent, childMergeProperty, data, childLookupResults));
+		}
+		return mergeLookupResult;
+	}
+
 	private boolean doBatchCacheIfNeed(List<BatchEventWrapper> batchCache) {
 		if (CollectionUtils.isNotEmpty(batchCache)) {
 			cache(batchCache.stream().map(BatchEventWrapper::getTapdataEvent).collect(Collectors.toList()));
@@ -273,16 +477,27 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 				}
 				externalStorageDto.setInMemSize(1000);
 				externalStorageDto.setWriteDelaySeconds(1);
-				ConstructIMap<Document> hazelcastConstruct = new ConstructIMap<>(jetContext.hazelcastInstance(), HazelcastMergeNode.class.getSimpleName(), cacheName, externalStorageDto);
+				HazelcastConstruct<Document> hazelcastConstruct = createMergeCache(jetContext.hazelcastInstance(), cacheName, externalStorageDto);
 				this.mergeCacheMap.put(mergeProperty.getId(), hazelcastConstruct);
+				if (hazelcastConstruct instanceof ConstructOffHeapMap) {
+					obsLogger.warn("Merge cache {} uses off heap external storage {}, it is not persistent, reset the task to rebuild the cache after the task or engine restarts", cacheName, externalStorageDto.getName());
+				}
 				obsLogger.info("Create imap name: {}, external storage: {}", cacheName, externalStorageDto);
 			}
 		}
 	}
 
+	private static HazelcastConstruct<Document> createMergeCache(HazelcastInstance hazelcastInstance, String cacheName, ExternalStorageDto externalStorageDto) {
+		if (null != externalStorageDto && ExternalStorageType.offheap.name().equals(externalStorageDto.getType())) {
+			return new ConstructOffHeapMap<>(HazelcastMergeNode.class.getSimpleName(), cacheName, externalStorageDto, Document.class);
+		}
+		return new ConstructIMap<>(hazelcastInstance, HazelcastMergeNode.class.getSimpleName(), cacheName, externalStorageDto);
+	}
+
 	private void initLookupMergeProperties() {
 		Node<?> node = this.processorBaseContext.getNode();
 		this.lookupMap = new HashMap<>();
+		this.lookupCacheIdsMap.clear();
 		this.needCacheIdList = new ArrayList<>();
 		List<MergeTableProperties> mergeProperties = ((MergeTableNode) node).getMergeProperties();
 		for (MergeTableProperties mergeProperty : mergeProperties) {
@@ -406,8 +621,8 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		return this.mergeTablePropertiesMap.get(preNodeId);
 	}
 
-	private ConstructIMap<Document> getHazelcastConstruct(String sourceNodeId) {
-		ConstructIMap<Document> hazelcastConstruct = this.mergeCacheMap.getOrDefault(sourceNodeId, null);
+	private HazelcastConstruct<Document> getHazelcastConstruct(String sourceNodeId) {
+		HazelcastConstruct<Document> hazelcastConstruct = this.mergeCacheMap.getOrDefault(sourceNodeId, null);
 		if (null == hazelcastConstruct) {
 			throw new TapCodeException(TaskMergeProcessorExCode_16.NOT_FOUND_CACHE_IN_MEMORY_MAP, String.format("Find cache by node id: %s\nMerge memory map key-value: %s",
 					sourceNodeId, this.mergeCacheMap.entrySet().stream().map(e -> e.getKey() + ":" + e.getValue()).collect(Collectors.joining(","))));
@@ -467,7 +682,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 	private void cache(TapdataEvent tapdataEvent) {
 		String op = getOp(tapdataEvent);
 		OperationType operationType = OperationType.fromOp(op);
-		ConstructIMap<Document> hazelcastConstruct = getHazelcastConstruct(getPreNodeId(tapdataEvent));
+		HazelcastConstruct<Document> hazelcastConstruct = getHazelcastConstruct(getPreNodeId(tapdataEvent));
 		MergeTableProperties mergeProperty = getMergeProperty(tapdataEvent);
 		switch (operationType) {
 			case INSERT:
@@ -517,7 +732,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		}
 		for (Map.Entry<String, List<TapdataEvent>> entry : preNodeIdPartitionEventMap.entrySet()) {
 			List<TapdataEvent> samePreNodeIdEvents = entry.getValue();
-			ConstructIMap<Document> hazelcastConstruct = getHazelcastConstruct(getPreNodeId(samePreNodeIdEvents.get(0)));
+			HazelcastConstruct<Document> hazelcastConstruct = getHazelcastConstruct(getPreNodeId(samePreNodeIdEvents.get(0)));
 			MergeTableProperties mergeProperty = getMergeProperty(samePreNodeIdEvents.get(0));
 			try {
 				upsertCache(samePreNodeIdEvents, mergeProperty, hazelcastConstruct);
@@ -542,7 +757,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		}
 	}
 
-	private void upsertCache(TapdataEvent tapdataEvent, MergeTableProperties mergeTableProperty, ConstructIMap<Document> hazelcastConstruct) {
+	private void upsertCache(TapdataEvent tapdataEvent, MergeTableProperties mergeTableProperty, HazelcastConstruct<Document> hazelcastConstruct) {
 		Map<String, Object> after = getAfter(tapdataEvent);
 		String joinValueKey = getJoinValueKeyBySource(after, mergeTableProperty);
 		String encodeJoinValueKey = encode(joinValueKey);
@@ -567,7 +782,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		}
 	}
 
-	private void upsertCache(List<TapdataEvent> tapdataEvents, MergeTableProperties mergeTableProperties, ConstructIMap<Document> hazelcastConstruct) {
+	private void upsertCache(List<TapdataEvent> tapdataEvents, MergeTableProperties mergeTableProperties, HazelcastConstruct<Document> hazelcastConstruct) {
 		Map<String, TapdataEvent> joinValueKeyTapdataEventMap = new HashMap<>();
 		for (TapdataEvent tapdataEvent : tapdataEvents) {
 			Map<String, Object> after = getAfter(tapdataEvent);
@@ -609,7 +824,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		}
 	}
 
-	private void deleteCache(TapdataEvent tapdataEvent, MergeTableProperties mergeTableProperty, ConstructIMap<Document> hazelcastConstruct) throws Exception {
+	private void deleteCache(TapdataEvent tapdataEvent, MergeTableProperties mergeTableProperty, HazelcastConstruct<Document> hazelcastConstruct) throws Exception {
 		Map<String, Object> before = getBefore(tapdataEvent);
 		String joinValueKey = getJoinValueKeyBySource(before, mergeTableProperty);
 		String encodeJoinValueKey = encode(joinValueKey);
@@ -811,7 +1026,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		List<MergeLookupResult> mergeLookupResults = new ArrayList<>();
 		for (MergeTableProperties childMergeProperty : children) {
 			MergeTableProperties.MergeType mergeType = childMergeProperty.getMergeType();
-			ConstructIMap<Document> hazelcastConstruct = getHazelcastConstruct(childMergeProperty.getId());
+			HazelcastConstruct<Document> hazelcastConstruct = getHazelcastConstruct(childMergeProperty.getId());
 			String joinValueKey = getJoinValueKeyByTarget(data, childMergeProperty, mergeTableProperties);
 			if (joinValueKey == null) {
 				continue;
@@ -855,6 +1070,58 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 		return mergeLookupResults;
 	}
 
+	private static class LookupTask {
+		private final TapdataEvent tapdataEvent;
+		private final MergeTableProperties mergeTableProperties;
+		private final Map<String, Object> data;
+		private final List<MergeLookupResult> mergeLookupResults;
+		/**
+		 * Encoded join value key of each child, same order as the children, null if the data has no such join key
+		 */
+		private final List<String> encodeJoinValueKeys = new ArrayList<>();
+
+		private LookupTask(TapdataEvent tapdataEvent, MergeTableProperties mergeTableProperties, Map<String, Object> data, List<MergeLookupResult> mergeLookupResults) {
+			this.tapdataEvent = tapdataEvent;
+			this.mergeTableProperties = mergeTableProperties;
+			this.data = data;
+			this.mergeLookupResults = mergeLookupResults;
+		}
+	}
+
+	/**
+	 * Batch lookup statistics: keys per findAll and the ratio of keys found in the cache, logged at most once per {@link #LOG_INTERVAL_MS}
+	 */
+	private static class LookupMetrics {
+		private static final long LOG_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1L);
+		private long batches;
+		private long keys;
+		private long hits;
+		private int maxBatchSize;
+		private long lastLogTime = System.currentTimeMillis();
+
+		private void batch(int keySize, int hitSize) {
+			batches++;
+			keys += keySize;
+			hits += hitSize;
+			maxBatchSize = Math.max(maxBatchSize, keySize);
+		}
+
+		private void logIfNeed(ObsLogger obsLogger) {
+			if (System.currentTimeMillis() - lastLogTime >= LOG_INTERVAL_MS) {
+				log(obsLogger);
+			}
+		}
+
+		private void log(ObsLogger obsLogger) {
+			lastLogTime = System.currentTimeMillis();
+			if (batches <= 0) {
+				return;
+			}
+			obsLogger.info("Merge lookup batches: {}, avg batch size: {}, max batch size: {}, hit ratio: {}%",
+					batches, keys / batches, maxBatchSize, keys > 0 ? hits * 100 / keys : 0);
+		}
+	}
+
 	private enum JoinConditionType {
 		SOURCE("source"), TARGET("target"),
 		;
@@ -898,7 +1165,7 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 					} catch (Exception e) {
 						throw new TapCodeException(TaskMergeProcessorExCode_16.CLEAR_MERGE_CACHE_GET_CACHE_NAME_FAILED, e);
 					}
-					ConstructIMap<Document> imap = new ConstructIMap<>(hazelcastInstance, HazelcastMergeNode.class.getSimpleName(), cacheName, externalStorageDto);
+					HazelcastConstruct<Document> imap = createMergeCache(hazelcastInstance, cacheName, externalStorageDto);
 					try {
 						imap.clear();
 						imap.destroy();
@@ -958,8 +1225,9 @@ public class HazelcastMergeNode extends HazelcastProcessorBaseNode {
 	@Override
 	protected void doClose() throws Exception {
 		try {
+			CommonUtils.ignoreAnyError(() -> lookupMetrics.log(obsLogger), TAG);
 			if (MapUtils.isNotEmpty(mergeCacheMap)) {
-				for (ConstructIMap<Document> constructIMap : mergeCacheMap.values()) {
+				for (HazelcastConstruct<Document> constructIMap : mergeCacheMap.values()) {
 					try {
 						obsLogger.info("Destroy merge cache resource: {}", constructIMap.getName());
 						constructIMap.destroy();
@@ -41,8 +41,12 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 	 */
 	private boolean ignore;
 
-	protected SyncStage syncStage;
+	protected volatile SyncStage syncStage;
 	private boolean enableInitialBatch = false;
+	/**
+	 * Keep feeding cdc events to the batch processor after initial sync, see {@link #supportCdcBatch()}
+	 */
+	private boolean enableCdcBatch = false;
 	protected InitialBatchProcessor initialBatchProcessor;
 
 	private final DelayHandler delayHandler;
@@ -63,11 +67,26 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 
 	private void initEnableInitialBatch() {
 		Node node = getNode();
-		if (node instanceof MergeTableNode) {
+		if (node instanceof MergeTableNode || supportBatch()) {
 			enableInitialBatch = true;
+			enableCdcBatch = supportCdcBatch();
 		}
 	}
 
+	/**
+	 * @return true if initial sync events should be processed by {@link #tryProcess(List, Consumer)}, merge table node always does
+	 */
+	protected boolean supportBatch() {
+		return false;
+	}
+
+	/**
+	 * @return true if cdc events should also be processed by {@link #tryProcess(List, Consumer)}, only works for nodes with initial batch enabled
+	 */
+	protected boolean supportCdcBatch() {
+		return false;
+	}
+
 	private void initInitialBatchProcessorIfNeed() {
 		if (!this.enableInitialBatch) {
 			return;
@@ -77,7 +96,7 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 				List<TapdataEvent> tapdataEvents = new ArrayList<>();
 				List<BatchEventWrapper> cacheBatchEvents = new ArrayList<>();
 				while (isRunning()) {
-					List<BatchEventWrapper> batchEventWrappers = ibp.drainTo();
+					List<BatchEventWrapper> batchEventWrappers = ibp.drainTo(SyncStage.INITIAL_SYNC == syncStage ? InitialBatchProcessor.BATCH_TIMEOUT_MS : InitialBatchProcessor.CDC_BATCH_TIMEOUT_MS);
 					if (CollectionUtils.isEmpty(batchEventWrappers)) {
 						continue;
 					}
@@ -103,7 +122,7 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 
 					for (TapdataEvent tapdataEvent : tapdataEvents) {
 						while (isRunning()) {
-							if (offer(tapdataEvent)) {
+							if (delayHandler.process(() -> offer(tapdataEvent))) {
 								if (tapdataEvent instanceof TapdataCompleteSnapshotEvent) {
 									synchronized (ibp.sourceNodeIds) {
 										String sourceNodeId = tapdataEvent.getNodeIds().get(0);
@@ -127,8 +146,16 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 	}
 
 	private List<TapdataEvent> batchProcess(List<BatchEventWrapper> batchEventWrappers) {
+		List<TapdataEvent> inputEvents = new ArrayList<>(batchEventWrappers.size());
+		for (BatchEventWrapper batchEventWrapper : batchEventWrappers) {
+			inputEvents.add(batchEventWrapper.getTapdataEvent());
+		}
 		List<TapdataEvent> result = new ArrayList<>();
-		tryProcess(batchEventWrappers, processResults -> {
+		AspectUtils.executeProcessorFuncAspect(ProcessorNodeProcessAspect.class, () -> new ProcessorNodeProcessAspect()
+				.processorBaseContext(getProcessorBaseContext())
+				.inputEvent(inputEvents.get(0))
+				.inputEvents(inputEvents)
+				.start(), processorNodeProcessAspect -> tryProcess(batchEventWrappers, processResults -> {
 			if (CollectionUtils.isEmpty(processResults)) {
 				return;
 			}
@@ -159,8 +186,11 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 				}
 
 				result.add(tapdataEvent);
+				if (null != processorNodeProcessAspect) {
+					AspectUtils.accept(processorNodeProcessAspect.state(ProcessorNodeProcessAspect.STATE_PROCESSING).getConsumers(), tapdataEvent);
+				}
 			}
-		});
+		}));
 		return result;
 	}
 
@@ -174,30 +204,23 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 			TapdataEvent tapdataEvent = (TapdataEvent) item;
 			List<TapdataEvent> processedEventList = new ArrayList<>();
 			try {
+				if (null != tapdataEvent.getSyncStage()) {
+					syncStage = tapdataEvent.getSyncStage();
+				}
+				if (needInitialBatch()) {
+					// Processed in batch, the aspect is executed once per batch in batchProcess
+					offerToInitialBatch(tapdataEvent);
+					return result.get();
+				}
 				AspectUtils.executeProcessorFuncAspect(ProcessorNodeProcessAspect.class, () -> new ProcessorNodeProcessAspect()
 						.processorBaseContext(getProcessorBaseContext())
 						.inputEvent(tapdataEvent)
 						.start(), (processorNodeProcessAspect) -> {
-					if (null != tapdataEvent.getSyncStage()) {
-						syncStage = tapdataEvent.getSyncStage();
-					}
 					if (controlOrIgnoreEvent(tapdataEvent)) {
-						if (needInitialBatch()) {
-							while (isRunning()) {
-								try {
-									if (initialBatchProcessor.offer(new BatchEventWrapper(tapdataEvent, null))) {
-										break;
-									}
-								} catch (InterruptedException e) {
-									break;
-								}
-							}
-						} else {
-							// control tapdata event, skip the process consider process is done
-							processedEventList.add(tapdataEvent);
-							if (null != processorNodeProcessAspect) {
-								AspectUtils.accept(processorNodeProcessAspect.state(ProcessorNodeProcessAspect.STATE_PROCESSING).getConsumers(), tapdataEvent);
-							}
+						// control tapdata event, skip the process consider process is done
+						processedEventList.add(tapdataEvent);
+						if (null != processorNodeProcessAspect) {
+							AspectUtils.accept(processorNodeProcessAspect.state(ProcessorNodeProcessAspect.STATE_PROCESSING).getConsumers(), tapdataEvent);
 						}
 						return;
 					}
@@ -207,48 +230,33 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 					if (tapdataEvent.isDML()) {
 						tapValueTransform.set(transformFromTapValue(tapdataEvent));
 					}
-					if (needInitialBatch()) {
-						if (initialBatchProcessor.status == InitialBatchProcessor.NOT_RUN) {
-							initialBatchProcessor.running();
-						}
-						while (isRunning()) {
-							try {
-								if (initialBatchProcessor.offer(new BatchEventWrapper(tapdataEvent, tapValueTransform.get()))) {
-									break;
-								}
-							} catch (InterruptedException e) {
-								break;
-							}
-						}
+					if (waitInitialBatchFinishIfNeed()) {
+						result.compareAndSet(true, false);
+						return;
 					} else {
-						if (waitInitialBatchFinishIfNeed()) {
-							result.compareAndSet(true, false);
+						result.compareAndSet(false, true);
+					}
+					tryProcess(tapdataEvent, (event, processResult) -> {
+						if (null == event) {
 							return;
-						} else {
-							result.compareAndSet(false, true);
 						}
-						tryProcess(tapdataEvent, (event, processResult) -> {
-							if (null == event) {
-								return;
+						if (tapdataEvent.isDML()) {
+							if (processResult == null) {
+								processResult = getProcessResult(TapEventUtil.getTableId(tapdataEvent.getTapEvent()));
 							}
-							if (tapdataEvent.isDML()) {
-								if (processResult == null) {
-									processResult = getProcessResult(TapEventUtil.getTableId(tapdataEvent.getTapEvent()));
-								}
-								if (null != processResult.getTableId()) {
-									transformToTapValue(event, processorBaseContext.getTapTableMap(), processResult.getTableId(), tapValueTransform.get());
-								} else {
-									transformToTapValue(event, processorBaseContext.getTapTableMap(), getNode().getId(), tapValueTransform.get());
-								}
+							if (null != processResult.getTableId()) {
+								transformToTapValue(event, processorBaseContext.getTapTableMap(), processResult.getTableId(), tapValueTransform.get());
+							} else {
+								transformToTapValue(event, processorBaseContext.getTapTableMap(), getNode().getId(), tapValueTransform.get());
 							}
+						}
 
-							// consider process is done
-							processedEventList.add(event);
-							if (null != processorNodeProcessAspect) {
-								AspectUtils.accept(processorNodeProcessAspect.state(ProcessorNodeProcessAspect.STATE_PROCESSING).getConsumers(), event);
-							}
-						});
-					}
+						// consider process is done
+						processedEventList.add(event);
+						if (null != processorNodeProcessAspect) {
+							AspectUtils.accept(processorNodeProcessAspect.state(ProcessorNodeProcessAspect.STATE_PROCESSING).getConsumers(), event);
+						}
+					});
 				});
 			} catch (Throwable throwable) {
 				if (throwable instanceof TapCodeException) {
@@ -273,12 +281,35 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 		return result.get();
 	}
 
+	private void offerToInitialBatch(TapdataEvent tapdataEvent) {
+		TapValueTransform tapValueTransform = null;
+		if (!controlOrIgnoreEvent(tapdataEvent)) {
+			// Update memory from ddl event info map
+			updateMemoryFromDDLInfoMap(tapdataEvent, getTgtTableNameFromTapEvent(tapdataEvent.getTapEvent()));
+			if (tapdataEvent.isDML()) {
+				tapValueTransform = transformFromTapValue(tapdataEvent);
+			}
+			if (initialBatchProcessor.status == InitialBatchProcessor.NOT_RUN) {
+				initialBatchProcessor.running();
+			}
+		}
+		while (isRunning()) {
+			try {
+				if (initialBatchProcessor.offer(new BatchEventWrapper(tapdataEvent, tapValueTransform))) {
+					break;
+				}
+			} catch (InterruptedException e) {
+				break;
+			}
+		}
+	}
+
 	private boolean controlOrIgnoreEvent(TapdataEvent tapdataEvent) {
 		return null == tapdataEvent.getTapEvent() || ignore;
 	}
 
 	private boolean needInitialBatch() {
-		return enableInitialBatch && SyncStage.INITIAL_SYNC == syncStage;
+		return enableInitialBatch && (SyncStage.INITIAL_SYNC == syncStage || enableCdcBatch);
 	}
 
 	private boolean waitInitialBatchFinishIfNeed() {
@@ -373,6 +404,7 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 	private static class InitialBatchProcessor {
 		static final int BATCH_SIZE = 1000;
 		static final long BATCH_TIMEOUT_MS = 1000L;
+		static final long CDC_BATCH_TIMEOUT_MS = 100L;
 		static final int NOT_RUN = 1;
 		static final int RUNNING = 2;
 		static final int FINISH = 3;
@@ -412,10 +444,10 @@ public abstract class HazelcastProcessorBaseNode extends HazelcastBaseNode {
 			return tapdataEventQueue.offer(batchEventWrapper, TimeUnit.SECONDS.toMillis(1L), TimeUnit.MILLISECONDS);
 		}
 
-		List<BatchEventWrapper> drainTo() {
+		List<BatchEventWrapper> drainTo(long timeoutMs) {
 			List<BatchEventWrapper> tapdataEvents = new ArrayList<>();
 			try {
-				Queues.drain(tapdataEventQueue, tapdataEvents, BATCH_SIZE, BATCH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+				Queues.drain(tapdataEventQueue, tapdataEvents, BATCH_SIZE, timeoutMs, TimeUnit.MILLISECONDS);
 			} catch (InterruptedException ignored) {
 			}
 			return tapdataEvents;
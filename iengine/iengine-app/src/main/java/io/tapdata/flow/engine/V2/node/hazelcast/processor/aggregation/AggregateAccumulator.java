@@ -0,0 +1,356 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor.aggregation;
+
+import org.bson.Document;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Running state of one group: row count, sum and, for MIN/MAX, the count of each distinct value.
+ * <p>
+ * Every value can be retracted by delete or update, so MIN/MAX stay exact after the current extreme is removed, and
+ * the state only grows with distinct values instead of rows. Null values are counted as rows but not as values.
+ * <p>
+ * Distinct values are split into sorted pages of at most {@link #DEFAULT_PAGE_SIZE} values, each page is stored as its
+ * own document, and the group document only keeps the range and size of every page. So a group with many distinct
+ * values never hits the document size limit of the storage, MIN/MAX are read from the page ranges, and a change only
+ * loads and writes back the page holding the value.
+ */
+public class AggregateAccumulator {
+
+	public static final int DEFAULT_PAGE_SIZE = 1000;
+
+	private static final String COUNT_KEY = "count";
+	private static final String SUM_KEY = "sum";
+	private static final String VALUES_KEY = "values";
+	private static final String VALUE_KEY = "v";
+	private static final String VALUE_COUNT_KEY = "c";
+	private static final String PAGES_KEY = "pages";
+	private static final String NEXT_PAGE_KEY = "nextPage";
+	private static final String PAGE_ID_KEY = "p";
+	private static final String PAGE_MIN_KEY = "min";
+	private static final String PAGE_MAX_KEY = "max";
+	private static final String PAGE_SIZE_KEY = "n";
+
+	private long count;
+
+	private BigDecimal sum = BigDecimal.ZERO;
+
+	/**
+	 * Value pages in value order, ranges do not overlap and no page is empty, null if MIN/MAX is not needed
+	 */
+	private final List<ValuePage> pages;
+
+	private final int pageSize;
+
+	private long nextPage;
+
+	private PageLoader pageLoader;
+
+	/**
+	 * Pages removed since the state was loaded, their documents should be deleted
+	 */
+	private final Set<Long> removedPages = new HashSet<>();
+
+	/**
+	 * Load the document of a value page, null if there is no such page
+	 */
+	public interface PageLoader {
+		Document load(long pageId) throws Exception;
+	}
+
+	public AggregateAccumulator(boolean trackValues) {
+		this(trackValues, DEFAULT_PAGE_SIZE);
+	}
+
+	public AggregateAccumulator(boolean trackValues, int pageSize) {
+		if (pageSize < 2) {
+			throw new IllegalArgumentException("Page size must be greater than 1: " + pageSize);
+		}
+		this.pages = trackValues ? new ArrayList<>() : null;
+		this.pageSize = pageSize;
+	}
+
+	public static boolean trackValues(String aggregatorOp) {
+		return "MAX".equalsIgnoreCase(aggregatorOp) || "MIN".equalsIgnoreCase(aggregatorOp);
+	}
+
+	public void add(BigDecimal value) {
+		count++;
+		if (null == value) return;
+		sum = sum.add(value);
+		if (null != pages) {
+			addValue(value, 1L);
+		}
+	}
+
+	public void retract(BigDecimal value) {
+		count--;
+		if (null == value) return;
+		sum = sum.subtract(value);
+		if (null == pages || pages.isEmpty()) return;
+		int index = pageIndex(value);
+		ValuePage page = pages.get(index);
+		if (value.compareTo(page.min) < 0 || value.compareTo(page.max) > 0) return;
+		TreeMap<BigDecimal, Long> values = values(page);
+		values.computeIfPresent(value, (v, c) -> c > 1 ? c - 1 : null);
+		if (values.isEmpty()) {
+			pages.remove(index);
+			removedPages.add(page.id);
+			return;
+		}
+		page.refresh();
+	}
+
+	/**
+	 * Row value changed, row count is not changed
+	 */
+	public void replace(BigDecimal oldValue, BigDecimal newValue) {
+		retract(oldValue);
+		add(newValue);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public BigDecimal getSum() {
+		return sum;
+	}
+
+	/**
+	 * @return max value, null if no value
+	 */
+	public BigDecimal getMax() {
+		return null == pages || pages.isEmpty() ? null : pages.get(pages.size() - 1).max;
+	}
+
+	/**
+	 * @return min value, null if no value
+	 */
+	public BigDecimal getMin() {
+		return null == pages || pages.isEmpty() ? null : pages.get(0).min;
+	}
+
+	public int distinctValues() {
+		if (null == pages) return 0;
+		int distinct = 0;
+		for (ValuePage page : pages) {
+			distinct += page.size;
+		}
+		return distinct;
+	}
+
+	/**
+	 * @return ids of all value pages of the group
+	 */
+	public List<Long> pageIds() {
+		if (null == pages) return Collections.emptyList();
+		List<Long> pageIds = new ArrayList<>(pages.size());
+		for (ValuePage page : pages) {
+			pageIds.add(page.id);
+		}
+		return pageIds;
+	}
+
+	/**
+	 * @return ids of pages emptied since the state was loaded
+	 */
+	public Set<Long> removedPageIds() {
+		return removedPages;
+	}
+
+	/**
+	 * @return page id -> page document, of the pages changed since the state was loaded
+	 */
+	public Map<Long, Document> dirtyPages() {
+		if (null == pages) return Collections.emptyMap();
+		Map<Long, Document> dirtyPages = new LinkedHashMap<>();
+		for (ValuePage page : pages) {
+			if (page.dirty) {
+				List<Document> values = new ArrayList<>(page.values.size());
+				for (Map.Entry<BigDecimal, Long> entry : page.values.entrySet()) {
+					values.add(new Document(VALUE_KEY, entry.getKey().toPlainString()).append(VALUE_COUNT_KEY, entry.getValue()));
+				}
+				dirtyPages.put(page.id, new Document(VALUES_KEY, values));
+			}
+		}
+		return dirtyPages;
+	}
+
+	/**
+	 * Group document with the page ranges, the pages are written separately, see {@link #dirtyPages()}.
+	 * Numbers are kept as plain strings, so the state is stored the same in every external storage
+	 */
+	public Document toDocument() {
+		Document document = new Document(COUNT_KEY, count).append(SUM_KEY, sum.toPlainString());
+		if (null != pages) {
+			List<Document> pageRanges = new ArrayList<>(pages.size());
+			for (ValuePage page : pages) {
+				pageRanges.add(new Document(PAGE_ID_KEY, page.id)
+						.append(PAGE_MIN_KEY, page.min.toPlainString())
+						.append(PAGE_MAX_KEY, page.max.toPlainString())
+						.append(PAGE_SIZE_KEY, page.size));
+			}
+			document.append(PAGES_KEY, pageRanges).append(NEXT_PAGE_KEY, nextPage);
+		}
+		return document;
+	}
+
+	public static AggregateAccumulator fromDocument(Document document, boolean trackValues) {
+		return fromDocument(document, trackValues, null);
+	}
+
+	/**
+	 * @param pageLoader loads value pages when a value of them changes, not needed for states without pages
+	 */
+	public static AggregateAccumulator fromDocument(Document document, boolean trackValues, PageLoader pageLoader) {
+		AggregateAccumulator accumulator = new AggregateAccumulator(trackValues);
+		accumulator.pageLoader = pageLoader;
+		if (null == document) {
+			return accumulator;
+		}
+		Object count = document.get(COUNT_KEY);
+		accumulator.count = count instanceof Number ? ((Number) count).longValue() : 0L;
+		BigDecimal sum = AggregatorUtils.getBigDecimal(document.get(SUM_KEY));
+		accumulator.sum = null == sum ? BigDecimal.ZERO : sum;
+		if (!trackValues) {
+			return accumulator;
+		}
+		Object nextPage = document.get(NEXT_PAGE_KEY);
+		accumulator.nextPage = nextPage instanceof Number ? ((Number) nextPage).longValue() : 0L;
+		Object pageRanges = document.get(PAGES_KEY);
+		if (pageRanges instanceof List) {
+			for (Object pageRange : (List<?>) pageRanges) {
+				if (!(pageRange instanceof Map)) continue;
+				Map<?, ?> range = (Map<?, ?>) pageRange;
+				ValuePage page = new ValuePage(((Number) range.get(PAGE_ID_KEY)).longValue());
+				page.min = AggregatorUtils.getBigDecimal(range.get(PAGE_MIN_KEY));
+				page.max = AggregatorUtils.getBigDecimal(range.get(PAGE_MAX_KEY));
+				page.size = ((Number) range.get(PAGE_SIZE_KEY)).intValue();
+				accumulator.pages.add(page);
+			}
+		}
+		// State written before values were paged keeps all values in the group document
+		Object values = document.get(VALUES_KEY);
+		if (values instanceof List) {
+			readValues((List<?>) values, (value, c) -> accumulator.addValue(value, c));
+		}
+		return accumulator;
+	}
+
+	private void addValue(BigDecimal value, long valueCount) {
+		if (pages.isEmpty()) {
+			pages.add(newPage());
+		}
+		int index = pageIndex(value);
+		ValuePage page = pages.get(index);
+		TreeMap<BigDecimal, Long> values = values(page);
+		values.merge(value, valueCount, Long::sum);
+		page.refresh();
+		if (page.size > pageSize) {
+			// Move the upper half into a new page right after this one
+			ValuePage upper = newPage();
+			Iterator<Map.Entry<BigDecimal, Long>> iterator = values.entrySet().iterator();
+			for (int i = 0; iterator.hasNext(); i++) {
+				Map.Entry<BigDecimal, Long> entry = iterator.next();
+				if (i >= page.size / 2) {
+					upper.values.put(entry.getKey(), entry.getValue());
+					iterator.remove();
+				}
+			}
+			page.refresh();
+			upper.refresh();
+			pages.add(index + 1, upper);
+		}
+	}
+
+	private ValuePage newPage() {
+		ValuePage page = new ValuePage(nextPage++);
+		page.values = new TreeMap<>();
+		return page;
+	}
+
+	/**
+	 * @return index of the last page whose min is not greater than the value, 0 if the value is less than all pages
+	 */
+	private int pageIndex(BigDecimal value) {
+		int low = 0;
+		int high = pages.size() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (pages.get(mid).min.compareTo(value) <= 0) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private TreeMap<BigDecimal, Long> values(ValuePage page) {
+		if (null == page.values) {
+			Document document;
+			try {
+				document = null == pageLoader ? null : pageLoader.load(page.id);
+			} catch (Exception e) {
+				throw new RuntimeException("Load aggregate value page " + page.id + " failed, error: " + e.getMessage(), e);
+			}
+			if (null == document) {
+				throw new IllegalStateException("Aggregate value page " + page.id + " not found");
+			}
+			TreeMap<BigDecimal, Long> values = new TreeMap<>();
+			Object pageValues = document.get(VALUES_KEY);
+			if (pageValues instanceof List) {
+				readValues((List<?>) pageValues, values::put);
+			}
+			page.values = values;
+		}
+		page.dirty = true;
+		return page.values;
+	}
+
+	private static void readValues(List<?> values, ValueConsumer consumer) {
+		for (Object value : values) {
+			if (!(value instanceof Map)) continue;
+			Map<?, ?> valueCount = (Map<?, ?>) value;
+			Object c = valueCount.get(VALUE_COUNT_KEY);
+			consumer.accept(AggregatorUtils.getBigDecimal(valueCount.get(VALUE_KEY)), c instanceof Number ? ((Number) c).longValue() : 1L);
+		}
+	}
+
+	private interface ValueConsumer {
+		void accept(BigDecimal value, Long count);
+	}
+
+	private static class ValuePage {
+		private final long id;
+		private BigDecimal min;
+		private BigDecimal max;
+		private int size;
+		/**
+		 * Distinct value -> rows of the value, null until the page is loaded
+		 */
+		private TreeMap<BigDecimal, Long> values;
+		private boolean dirty;
+
+		private ValuePage(long id) {
+			this.id = id;
+		}
+
+		private void refresh() {
+			min = values.firstKey();
+			max = values.lastKey();
+			size = values.size();
+			dirty = true;
+		}
+	}
+}
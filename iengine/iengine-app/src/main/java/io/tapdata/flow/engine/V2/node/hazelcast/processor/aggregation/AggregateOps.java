@@ -13,6 +13,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -101,6 +102,73 @@ public class AggregateOps {
 
 	}
 
+	/**
+	 * Apply a record event to the group accumulator and put the aggregate value into the event, for all operators.
+	 * A row is added or retracted by the changed count, or by the event type if the count is not changed, update
+	 * without changed count (no group by) replaces the value of the row
+	 */
+	public static boolean accumulate(String aggregatorOp, String aggregatorField, AggregateAccumulator accumulator, WrapItem wrappedItem) {
+		TapRecordEvent tapRecordEvent = (TapRecordEvent) wrappedItem.getMessage();
+		Map<String, Object> before = TapEventUtil.getBefore(tapRecordEvent);
+		Map<String, Object> after = TapEventUtil.getAfter(tapRecordEvent);
+		BigDecimal changedCount = wrappedItem.getChangedCount();
+		if (changedCount != null && changedCount.signum() != 0) {
+			if (changedCount.signum() > 0) {
+				accumulator.add(getFieldValue(after, aggregatorField));
+			} else {
+				accumulator.retract(getFieldValue(before, aggregatorField));
+			}
+		} else if (tapRecordEvent instanceof TapDeleteRecordEvent) {
+			accumulator.retract(getFieldValue(before, aggregatorField));
+		} else if (tapRecordEvent instanceof TapInsertRecordEvent) {
+			accumulator.add(getFieldValue(after, aggregatorField));
+		} else if (tapRecordEvent instanceof TapUpdateRecordEvent && before != null && !before.isEmpty()) {
+			accumulator.replace(getFieldValue(before, aggregatorField), getFieldValue(after, aggregatorField));
+		}
+
+		BigDecimal count = BigDecimal.valueOf(accumulator.getCount());
+		if (accumulator.getCount() > 0) {
+			switch (aggregatorOp) {
+				case COUNT:
+					postProcessCount(tapRecordEvent, count);
+					break;
+				case SUM:
+					postProcessSum(tapRecordEvent, accumulator.getSum());
+					break;
+				case AVG:
+					postProcessAvg(tapRecordEvent, accumulator.getSum(), count);
+					break;
+				case MAX:
+					postProcessMax(tapRecordEvent, valueList(accumulator.getMax()));
+					break;
+				case MIN:
+					postProcessMin(tapRecordEvent, valueList(accumulator.getMin()));
+					break;
+				default:
+					throw new RuntimeException("Unimplemented aggregatorOp type: " + aggregatorOp);
+			}
+		}
+		wrappedItem.setCachedRollingAggregateCounter(count);
+		wrappedItem.setOutputGroupKey(wrappedItem.getCachedGroupByKey());
+		wrappedItem.setCachedGroupByKey(null);
+		return true;
+	}
+
+	private static BigDecimal getFieldValue(Map<String, Object> map, String aggregatorField) {
+		if (map == null || aggregatorField == null) {
+			return null;
+		}
+		try {
+			return AggregatorUtils.getBigDecimal(map.get(aggregatorField));
+		} catch (Exception ignore) {
+			return null;
+		}
+	}
+
+	private static List<BigDecimal> valueList(BigDecimal value) {
+		return value == null ? Collections.emptyList() : Collections.singletonList(value);
+	}
+
 	private static BigDecimal updateCounter(ConstructIMap<BigDecimal> cache, String cacheKey, MessageEntity event, BigDecimal changedCount) throws Exception {
 		String counterCacheKey = cacheKey + "#counter";
 		final OperationType operationType = OperationType.fromOp(event.getOp());
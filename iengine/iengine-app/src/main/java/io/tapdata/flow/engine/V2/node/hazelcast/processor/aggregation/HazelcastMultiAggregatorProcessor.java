@@ -2,6 +2,7 @@ package io.tapdata.flow.engine.V2.node.hazelcast.processor.aggregation;
 
 import com.google.common.collect.Lists;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.core.Inbox;
 import com.tapdata.constant.MapUtil;
 import com.tapdata.entity.MessageEntity;
 import com.tapdata.entity.OperationType;
@@ -20,7 +21,10 @@ import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.utils.InstanceFactory;
 import io.tapdata.entity.utils.TapUtils;
+import io.tapdata.error.TaskProcessorExCode_11;
+import io.tapdata.exception.TapCodeException;
 import io.tapdata.flow.engine.V2.node.hazelcast.HazelcastBaseNode;
+import io.tapdata.flow.engine.V2.util.DelayHandler;
 import io.tapdata.flow.engine.V2.util.TapEventUtil;
 import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.schema.TapTableMap;
@@ -29,6 +33,7 @@ import lombok.Setter;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.bson.Document;
 import org.jetbrains.annotations.NotNull;
 
 import java.math.BigDecimal;
@@ -44,6 +49,12 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 
 	private final Logger logger = LogManager.getLogger(HazelcastMultiAggregatorProcessor.class);
 	private static final String CONSTRUCT_REFERENCE_ID = HazelcastMultiAggregatorProcessor.class.getSimpleName();
+	/**
+	 * 开启后每个分组只保存累加器（行数、和、MIN/MAX的值计数），并按批处理事件，每批每个分组只输出一次结果
+	 */
+	public static final String AGGREGATE_ACCUMULATOR_ENABLE_KEY = "AGGREGATE_ACCUMULATOR_ENABLE";
+	public static final String AGGREGATE_BATCH_SIZE_KEY = "AGGREGATE_BATCH_SIZE";
+	public static final int DEFAULT_AGGREGATE_BATCH_SIZE = 1000;
 
 	private final List<Aggregator> aggregators = new ArrayList<>();
 
@@ -57,12 +68,32 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 
 	private volatile ConstructIMap<List<BigDecimal>> cacheList;
 
+	private volatile ConstructIMap<Document> cacheAccumulators;
+
+	/**
+	 * 累加器的MIN/MAX值分页，key为分组key加页号
+	 */
+	private volatile ConstructIMap<Document> cacheAccumulatorValues;
+
+	private final boolean accumulatorEnable;
+
+	private final int batchSize;
+
+	private AccumulatorStore accumulatorStore;
+
+	/**
+	 * 当前批次待输出的结果，按分组合并，不在批处理中时为null
+	 */
+	private LinkedHashMap<Object, BatchOutput> batchOutputs;
+
 	private final List<String> targetFieldsName = new ArrayList<>();
 
 	private TapRecordEvent originalTapRecordEvent;
 
 	private TapValueTransform tapValueTransform;
 
+	private final DelayHandler delayHandler;
+
 	public HazelcastMultiAggregatorProcessor(ProcessorBaseContext processorBaseContext) {
 		super(processorBaseContext);
 		Node<?> node = processorBaseContext.getNode();
@@ -73,6 +104,9 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 		AggregationProcessorNode aggNode = (AggregationProcessorNode) node;
 		nodeId = aggNode.getId();
 		rules = aggNode.getAggregations();
+		accumulatorEnable = CommonUtils.getPropertyBool(AGGREGATE_ACCUMULATOR_ENABLE_KEY, false);
+		batchSize = Math.max(1, CommonUtils.getPropertyInt(AGGREGATE_BATCH_SIZE_KEY, DEFAULT_AGGREGATE_BATCH_SIZE));
+		delayHandler = new DelayHandler(obsLogger, nodeId + "-" + node.getName());
 	}
 
 	private void initCache(String nodeId, HazelcastInstance hazelcastInstance) {
@@ -84,11 +118,40 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 			CONSTRUCT_REFERENCE_ID,
 				nodeId + "-" + "AggregatorCacheList",
 				externalStorageDto);
+		ConstructIMap<Document> accumulators = new DocumentIMap<>(hazelcastInstance,
+			CONSTRUCT_REFERENCE_ID,
+				nodeId + "-" + "AggregatorAccumulator",
+				externalStorageDto);
+		checkStateMode(accumulators);
+		if (accumulatorEnable) {
+			cacheAccumulators = accumulators;
+			cacheAccumulatorValues = new DocumentIMap<>(hazelcastInstance,
+				CONSTRUCT_REFERENCE_ID,
+					nodeId + "-" + "AggregatorAccumulatorValues",
+					externalStorageDto);
+			accumulatorStore = new AccumulatorStore();
+		}
+	}
+
+	/**
+	 * Legacy caches and accumulators can not be converted to each other, switching the mode on a task with state would
+	 * start the groups from empty, so refuse it until the task is reset
+	 */
+	private void checkStateMode(ConstructIMap<Document> accumulators) {
+		boolean legacyState = !cacheNumbers.isEmpty() || !cacheList.isEmpty();
+		boolean accumulatorState = !accumulators.isEmpty();
+		if (accumulatorEnable ? legacyState && !accumulatorState : accumulatorState) {
+			throw new TapCodeException(TaskProcessorExCode_11.AGGREGATE_STATE_MODE_MISMATCH, String.format(
+					"Node %s has aggregate state of %s mode, but %s is %s now",
+					nodeId, accumulatorState ? "accumulator" : "legacy", AGGREGATE_ACCUMULATOR_ENABLE_KEY, accumulatorEnable));
+		}
 	}
 
 	public static void clearCache(String nodeId, HazelcastInstance hazelcastInstance) {
 		ConstructIMap<BigDecimal> cacheNumbers = new DocumentIMap<>(hazelcastInstance, CONSTRUCT_REFERENCE_ID, nodeId + "-" + "AggregatorCache");
 		ConstructIMap<ArrayList<BigDecimal>> cacheList = new DocumentIMap<>(hazelcastInstance, CONSTRUCT_REFERENCE_ID, nodeId + "-" + "AggregatorCacheList");
+		ConstructIMap<Document> cacheAccumulators = new DocumentIMap<>(hazelcastInstance, CONSTRUCT_REFERENCE_ID, nodeId + "-" + "AggregatorAccumulator");
+		ConstructIMap<Document> cacheAccumulatorValues = new DocumentIMap<>(hazelcastInstance, CONSTRUCT_REFERENCE_ID, nodeId + "-" + "AggregatorAccumulatorValues");
 
 		CommonUtils.handleAnyErrors(null, () -> {
 			try {
@@ -104,6 +167,20 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 			} catch (Exception e) {
 				throw new RuntimeException("Clear aggregate cache failed, name: " + cacheNumbers.getName() + "(" + cacheNumbers.getType() + "), error: " + e.getMessage(), e);
 			}
+		}, () -> {
+			try {
+				cacheAccumulators.clear();
+				cacheAccumulators.destroy();
+			} catch (Exception e) {
+				throw new RuntimeException("Clear aggregate cache failed, name: " + cacheAccumulators.getName() + "(" + cacheAccumulators.getType() + "), error: " + e.getMessage(), e);
+			}
+		}, () -> {
+			try {
+				cacheAccumulatorValues.clear();
+				cacheAccumulatorValues.destroy();
+			} catch (Exception e) {
+				throw new RuntimeException("Clear aggregate cache failed, name: " + cacheAccumulatorValues.getName() + "(" + cacheAccumulatorValues.getType() + "), error: " + e.getMessage(), e);
+			}
 		});
 	}
 
@@ -163,6 +240,76 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 		logger.info("close aggregator, nodeId: {}", nodeId);
 	}
 
+	/**
+	 * 累加器模式下按批处理：整批事件先更新分组状态，再把状态一次写回缓存，每个分组只输出最后一次结果
+	 */
+	@Override
+	public void process(int ordinal, @NotNull Inbox inbox) {
+		if (!accumulatorEnable) {
+			super.process(ordinal, inbox);
+			return;
+		}
+		List<Object> items = new ArrayList<>();
+		inbox.drainTo(items, batchSize);
+		batchOutputs = new LinkedHashMap<>();
+		try {
+			for (Object item : items) {
+				if (!isRunning()) {
+					return;
+				}
+				if (!(item instanceof TapdataEvent)) {
+					continue;
+				}
+				TapdataEvent tapdataEvent = (TapdataEvent) item;
+				if (null == tapdataEvent.getMessageEntity() && !(tapdataEvent.getTapEvent() instanceof TapRecordEvent)) {
+					// 非数据事件保持顺序，先输出之前的结果
+					flushBatch();
+					offerUntilSuccess(tapdataEvent);
+					continue;
+				}
+				processAggregateEvent(tapdataEvent);
+			}
+			flushBatch();
+		} finally {
+			batchOutputs = null;
+		}
+	}
+
+	private void flushBatch() {
+		try {
+			accumulatorStore.flush();
+		} catch (Exception e) {
+			throw new RuntimeException("Save aggregate state failed, nodeId: " + nodeId + ", error: " + e.getMessage(), e);
+		}
+		for (BatchOutput output : batchOutputs.values()) {
+			offerUntilSuccess(output.event);
+		}
+		batchOutputs.clear();
+	}
+
+	private void offerUntilSuccess(TapdataEvent tapdataEvent) {
+		while (isRunning()) {
+			if (delayHandler.process(() -> offer(tapdataEvent))) break;
+		}
+	}
+
+	/**
+	 * 批处理中按分组合并结果，否则直接输出
+	 */
+	private void emitResult(String groupKey, TapdataEvent event) {
+		if (null == batchOutputs) {
+			offer(event);
+			return;
+		}
+		Object key = null == groupKey ? new Object() : groupKey;
+		BatchOutput output = batchOutputs.remove(key);
+		output = null == output ? new BatchOutput(event) : output.merge(event);
+		if (null != output) {
+			// 重新放到最后，最后输出的事件带有最新的offset
+			batchOutputs.put(key, output);
+		}
+	}
+
 	@Override
 	protected boolean tryProcess(int ordinal, @NotNull Object item) {
 		logger.info("try process aggregator, nodeId: {}", nodeId);
@@ -183,11 +330,21 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 			return true;
 		}
 		if (null == tapdataEvent.getMessageEntity() && !(tapdataEvent.getTapEvent() instanceof TapRecordEvent)) {
-			while (isRunning()) {
-				if (offer(tapdataEvent)) break;
-			}
+			offerUntilSuccess(tapdataEvent);
 			return true;
 		}
+		processAggregateEvent(tapdataEvent);
+		if (accumulatorEnable) {
+			try {
+				accumulatorStore.flush();
+			} catch (Exception e) {
+				throw new RuntimeException("Save aggregate state failed, nodeId: " + nodeId + ", error: " + e.getMessage(), e);
+			}
+		}
+		return true;
+	}
+
+	private void processAggregateEvent(TapdataEvent tapdataEvent) {
 		tapValueTransform = transformFromTapValue(tapdataEvent);
 		if (tapdataEvent.getTapEvent() instanceof TapRecordEvent) {
 			originalTapRecordEvent = (TapRecordEvent) tapdataEvent.getTapEvent();
@@ -209,7 +366,140 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 				}
 			}
 		}
-		return true;
+	}
+
+	/**
+	 * 一个分组在当前批次的输出，同一分组的多次变更合并为一个事件:
+	 * 首个事件为insert时合并为insert（最后为delete则不输出），否则合并为update或delete
+	 */
+	private static class BatchOutput {
+		private final boolean firstInsert;
+		private final TapdataEvent event;
+
+		private BatchOutput(TapdataEvent event) {
+			this(event.getTapEvent() instanceof TapInsertRecordEvent, event);
+		}
+
+		private BatchOutput(boolean firstInsert, TapdataEvent event) {
+			this.firstInsert = firstInsert;
+			this.event = event;
+		}
+
+		private BatchOutput merge(TapdataEvent next) {
+			if (!(next.getTapEvent() instanceof TapRecordEvent)) {
+				return new BatchOutput(firstInsert, next);
+			}
+			TapRecordEvent tapRecordEvent = (TapRecordEvent) next.getTapEvent();
+			if (firstInsert) {
+				if (tapRecordEvent instanceof TapDeleteRecordEvent) {
+					return null;
+				} else if (tapRecordEvent instanceof TapUpdateRecordEvent) {
+					TapInsertRecordEvent cloneInsert = new TapInsertRecordEvent();
+					tapRecordEvent.clone(cloneInsert);
+					cloneInsert.setAfter(((TapUpdateRecordEvent) tapRecordEvent).getAfter());
+					next.setTapEvent(cloneInsert);
+				}
+			} else if (tapRecordEvent instanceof TapInsertRecordEvent) {
+				TapUpdateRecordEvent cloneUpdate = new TapUpdateRecordEvent();
+				tapRecordEvent.clone(cloneUpdate);
+				cloneUpdate.setAfter(((TapInsertRecordEvent) tapRecordEvent).getAfter());
+				next.setTapEvent(cloneUpdate);
+			}
+			return new BatchOutput(firstInsert, next);
+		}
+	}
+
+	/**
+	 * 累加器状态的批内缓存，每个分组每批最多读写缓存一次
+	 */
+	private class AccumulatorStore {
+		/**
+		 * 分组key -> 累加器，null表示分组不存在
+		 */
+		private final Map<String, AggregateAccumulator> states = new HashMap<>();
+		private final Set<String> dirtyKeys = new HashSet<>();
+		/**
+		 * 分组key -> 待删除的值分页
+		 */
+		private final Map<String, Set<Long>> pageDeletes = new HashMap<>();
+
+		private AggregateAccumulator load(String cacheKey, boolean trackValues) throws Exception {
+			if (!states.containsKey(cacheKey)) {
+				Document document = cacheAccumulators.find(cacheKey);
+				states.put(cacheKey, null == document ? null : AggregateAccumulator.fromDocument(document, trackValues,
+						pageId -> cacheAccumulatorValues.find(pageKey(cacheKey, pageId))));
+			}
+			return states.get(cacheKey);
+		}
+
+		private boolean exists(String cacheKey, boolean trackValues) throws Exception {
+			return null != load(cacheKey, trackValues);
+		}
+
+		private AggregateAccumulator get(String cacheKey, boolean trackValues) throws Exception {
+			AggregateAccumulator accumulator = load(cacheKey, trackValues);
+			return null == accumulator ? new AggregateAccumulator(trackValues) : accumulator;
+		}
+
+		private void put(String cacheKey, AggregateAccumulator accumulator) {
+			if (accumulator.getCount() > 0) {
+				states.put(cacheKey, accumulator);
+			} else {
+				states.put(cacheKey, null);
+				Set<Long> deletes = pageDeletes.computeIfAbsent(cacheKey, k -> new HashSet<>());
+				deletes.addAll(accumulator.pageIds());
+				deletes.addAll(accumulator.removedPageIds());
+			}
+			dirtyKeys.add(cacheKey);
+		}
+
+		/**
+		 * 先写值分页，再写分组，最后删除不再引用的分页，中途失败只会留下无用的分页
+		 */
+		private void flush() throws Exception {
+			if (dirtyKeys.isEmpty()) {
+				states.clear();
+				return;
+			}
+			Map<String, Document> upserts = new HashMap<>();
+			Map<String, Document> pageUpserts = new HashMap<>();
+			List<String> deletes = new ArrayList<>();
+			for (String cacheKey : dirtyKeys) {
+				AggregateAccumulator accumulator = states.get(cacheKey);
+				Set<Long> pageIds = pageDeletes.computeIfAbsent(cacheKey, k -> new HashSet<>());
+				if (null == accumulator) {
+					deletes.add(cacheKey);
+				} else {
+					pageIds.addAll(accumulator.removedPageIds());
+					for (Map.Entry<Long, Document> entry : accumulator.dirtyPages().entrySet()) {
+						pageUpserts.put(pageKey(cacheKey, entry.getKey()), entry.getValue());
+						pageIds.remove(entry.getKey());
+					}
+					upserts.put(cacheKey, accumulator.toDocument());
+				}
+			}
+			if (!pageUpserts.isEmpty()) {
+				cacheAccumulatorValues.insertMany(pageUpserts);
+			}
+			if (!upserts.isEmpty()) {
+				cacheAccumulators.insertMany(upserts);
+			}
+			for (String cacheKey : deletes) {
+				cacheAccumulators.delete(cacheKey);
+			}
+			for (Map.Entry<String, Set<Long>> entry : pageDeletes.entrySet()) {
+				for (Long pageId : entry.getValue()) {
+					cacheAccumulatorValues.delete(pageKey(entry.getKey(), pageId));
+				}
+			}
+			pageDeletes.clear();
+			dirtyKeys.clear();
+			states.clear();
+		}
+
+		private String pageKey(String cacheKey, long pageId) {
+			return cacheKey + "#" + pageId;
+		}
 	}
 
 	public abstract static class AggregatorProcessorBase {
@@ -855,6 +1145,13 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 							cacheKey = "global_aggregator_" + name;
 							wrappedItem.setCachedGroupByKey(cacheKey);
 						}
+						if (accumulatorEnable && wrappedItem.isTapRecordEvent()) {
+							boolean trackValues = AggregateAccumulator.trackValues(aggregatorOp);
+							AggregateAccumulator accumulator = accumulatorStore.get(cacheKey, trackValues);
+							AggregateOps.accumulate(aggregatorOp, aggregatorField, accumulator, wrappedItem);
+							accumulatorStore.put(cacheKey, accumulator);
+							return Lists.newArrayList(wrappedItem);
+						}
 						switch (aggregatorOp) {
 							case "COUNT":
 								if (wrappedItem.isEvent()) {
@@ -1042,7 +1339,7 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 						}
 					}
 					transformToTapValue(event, processorBaseContext.getTapTableMap(), processorBaseContext.getNode().getId(), tapValueTransform);
-					offer(event);
+					emitResult(wrappedItem.getOutputGroupKey(), event);
 				} else {
 					throw new RuntimeException("not implement");
 				}
@@ -1070,6 +1367,9 @@ public class HazelcastMultiAggregatorProcessor extends HazelcastBaseNode {
 		}
 
 		private boolean checkCacheKeyIfExist(final String cacheKey, final String aggregatorOp) throws Exception {
+			if (accumulatorEnable) {
+				return accumulatorStore.exists(cacheKey, AggregateAccumulator.trackValues(aggregatorOp));
+			}
 			if ("COUNT".equalsIgnoreCase(aggregatorOp) || "SUM".equalsIgnoreCase(aggregatorOp) || "AVG".equalsIgnoreCase(aggregatorOp)) {
 				return cacheNumbers.exists(cacheKey);
 			} else {
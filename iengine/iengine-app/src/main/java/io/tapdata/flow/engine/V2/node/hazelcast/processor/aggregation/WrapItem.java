@@ -28,6 +28,11 @@ public class WrapItem implements Cloneable {
 
 	private BigDecimal cachedRollingAggregateCounter;
 
+	/**
+	 * 最后一个聚合器的分组key，批量处理时同一分组只输出一次
+	 */
+	private String outputGroupKey;
+
 	/***
 	 * 把输入参数带着输出
 	 * FinishP中带出去
@@ -42,6 +47,7 @@ public class WrapItem implements Cloneable {
 		newItem.setChangedCount(changedCount);
 		newItem.setCachedGroupByKey(cachedGroupByKey);
 		newItem.setCachedRollingAggregateCounter(cachedRollingAggregateCounter);
+		newItem.setOutputGroupKey(outputGroupKey);
 		newItem.setEvent((TapdataEvent) event.clone());
 		return newItem;
 	}
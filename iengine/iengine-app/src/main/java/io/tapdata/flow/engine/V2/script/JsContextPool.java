@@ -0,0 +1,306 @@
+package io.tapdata.flow.engine.V2.script;
+
+import com.tapdata.constant.MapUtil;
+import com.tapdata.processor.LoggingOutputStream;
+import com.tapdata.processor.ScriptUtil;
+import io.tapdata.Application;
+import io.tapdata.entity.logger.Log;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import org.apache.logging.log4j.Level;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyArray;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pool of GraalJS contexts running the same js processor script.
+ * <p>
+ * The scripts are parsed once into a polyglot {@link Engine} shared by all contexts, each context only evaluates the
+ * cached sources. A GraalJS context can not be used by two threads at the same time, so every worker thread borrows
+ * its own context; contexts are created on demand up to max size. A thread gets the context it used last time if that
+ * one is idle, so globals a script keeps between calls stay with the same worker.
+ * <p>
+ * {@link #invokeBatch(List, List)} calls the script once per batch: {@link ScriptUtil#BATCH_FUNCTION_NAME} if the
+ * script defines it, otherwise {@link ScriptUtil#FUNCTION_NAME} per record inside js, with the global context set to
+ * the record's context.
+ * <p>
+ * Contexts run on different worker threads at the same time, so global objects that are not thread safe are created
+ * for each context by {@link ContextBindings}, and released when the context is closed.
+ */
+public class JsContextPool implements Closeable {
+
+	private static final String TAG = JsContextPool.class.getSimpleName();
+	private static final String BATCH_INVOKER = "__tapProcessBatch";
+	private static final String BATCH_INVOKER_SCRIPT = "function " + BATCH_INVOKER + "(records, contexts) {\n" +
+			"\tif (typeof " + ScriptUtil.BATCH_FUNCTION_NAME + " === 'function') {\n" +
+			"\t\treturn " + ScriptUtil.BATCH_FUNCTION_NAME + "(Array.from(records), Array.from(contexts));\n" +
+			"\t}\n" +
+			"\tvar results = new Array(records.length);\n" +
+			"\tfor (var i = 0; i < records.length; i++) {\n" +
+			"\t\tglobalThis.context = contexts[i];\n" +
+			"\t\tresults[i] = " + ScriptUtil.FUNCTION_NAME + "(records[i]);\n" +
+			"\t}\n" +
+			"\treturn results;\n" +
+			"}";
+
+	private final Engine engine;
+	private final List<Source> sources;
+	private final ContextBindings contextBindings;
+	private final ClassLoader classLoader;
+	private final LoggingOutputStream out;
+	private final LoggingOutputStream err;
+	private final int maxSize;
+	private final AtomicInteger size = new AtomicInteger();
+	private final BlockingQueue<PooledContext> idleContexts = new LinkedBlockingQueue<>();
+	private final List<PooledContext> contexts = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<PooledContext> lastContext = new ThreadLocal<>();
+	private volatile boolean closed;
+
+	/**
+	 * Global objects of the contexts
+	 */
+	public interface ContextBindings {
+		/**
+		 * @return global objects of a new context, e.g. log, source, target
+		 */
+		Map<String, Object> create();
+
+		/**
+		 * Release the objects created for a context, called when the context is closed
+		 */
+		default void release(Map<String, Object> bindings) {
+		}
+	}
+
+	/**
+	 * @param bindings global objects shared by all contexts, they are called by worker threads at the same time, so
+	 *                 they must be thread safe
+	 */
+	public JsContextPool(String name, List<String> scripts, Map<String, Object> bindings, Log log, ClassLoader classLoader, int maxSize) {
+		this(name, scripts, () -> bindings, log, classLoader, maxSize);
+	}
+
+	/**
+	 * @param scripts         scripts to eval in order, see {@link ScriptUtil#getScriptSources}
+	 * @param contextBindings creates the global objects of each context
+	 * @param classLoader     class loader of external jars in the scripts, null to use the engine class loader
+	 */
+	public JsContextPool(String name, List<String> scripts, ContextBindings contextBindings, Log log, ClassLoader classLoader, int maxSize) {
+		this.out = new LoggingOutputStream(log, Level.INFO);
+		this.err = new LoggingOutputStream(log, Level.ERROR);
+		this.classLoader = null == classLoader ? Application.class.getClassLoader() : classLoader;
+		this.engine = Engine.newBuilder()
+				.allowExperimentalOptions(true)
+				.option("engine.WarnInterpreterOnly", "false")
+				.out(out)
+				.err(err)
+				.build();
+		this.sources = new ArrayList<>();
+		for (int i = 0; i < scripts.size(); i++) {
+			sources.add(Source.newBuilder("js", scripts.get(i), name + "-" + i + ".js").cached(true).buildLiteral());
+		}
+		sources.add(Source.newBuilder("js", BATCH_INVOKER_SCRIPT, BATCH_INVOKER + ".js").cached(true).buildLiteral());
+		this.contextBindings = contextBindings;
+		this.maxSize = Math.max(1, maxSize);
+	}
+
+	/**
+	 * Create the first context, so that script errors are thrown on init
+	 */
+	public void init() {
+		if (reserve()) {
+			idleContexts.offer(createContext());
+		}
+	}
+
+	/**
+	 * @param records        records passed to the script, modified in place if the script does
+	 * @param recordContexts context of each record, the script may set op
+	 * @return result of each record, null, a map or a list of maps, copied out of js
+	 */
+	public List<Object> invokeBatch(List<Map<String, Object>> records, List<Map<String, Object>> recordContexts) throws InterruptedException {
+		PooledContext pooledContext = borrow();
+		boolean broken = false;
+		try {
+			return applyClassLoader(() -> pooledContext.invokeBatch(records, recordContexts));
+		} catch (PolyglotException e) {
+			broken = e.isCancelled() || e.isExit() || e.isInternalError();
+			throw e;
+		} finally {
+			if (broken) {
+				discard(pooledContext);
+			} else {
+				idleContexts.offer(pooledContext);
+			}
+		}
+	}
+
+	private PooledContext borrow() throws InterruptedException {
+		PooledContext pooledContext = lastContext.get();
+		if (null == pooledContext || !idleContexts.remove(pooledContext)) {
+			pooledContext = idleContexts.poll();
+			if (null == pooledContext) {
+				pooledContext = reserve() ? createContext() : waitIdle();
+			}
+			lastContext.set(pooledContext);
+		}
+		return pooledContext;
+	}
+
+	private PooledContext waitIdle() throws InterruptedException {
+		PooledContext pooledContext;
+		while (null == (pooledContext = idleContexts.poll(1L, TimeUnit.SECONDS))) {
+			if (closed) {
+				throw new IllegalStateException("Js context pool is closed");
+			}
+		}
+		return pooledContext;
+	}
+
+	private boolean reserve() {
+		int current;
+		while ((current = size.get()) < maxSize) {
+			if (size.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Create a context for a slot taken by {@link #reserve()}
+	 */
+	private PooledContext createContext() {
+		try {
+			if (closed) {
+				throw new IllegalStateException("Js context pool is closed");
+			}
+			PooledContext pooledContext = applyClassLoader(PooledContext::new);
+			contexts.add(pooledContext);
+			return pooledContext;
+		} catch (RuntimeException e) {
+			size.decrementAndGet();
+			throw e;
+		}
+	}
+
+	private void discard(PooledContext pooledContext) {
+		if (contexts.remove(pooledContext)) {
+			size.decrementAndGet();
+		}
+		CommonUtils.ignoreAnyError(() -> pooledContext.context.close(true), TAG);
+		CommonUtils.ignoreAnyError(() -> contextBindings.release(pooledContext.bindings), TAG);
+	}
+
+	private <T> T applyClassLoader(Supplier<T> supplier) {
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		Thread.currentThread().setContextClassLoader(classLoader);
+		try {
+			return supplier.get();
+		} finally {
+			Thread.currentThread().setContextClassLoader(contextClassLoader);
+		}
+	}
+
+	public int getSize() {
+		return size.get();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		for (PooledContext pooledContext : contexts) {
+			discard(pooledContext);
+		}
+		idleContexts.clear();
+		CommonUtils.ignoreAnyError(() -> engine.close(true), TAG);
+	}
+
+	private class PooledContext {
+		private final Context context;
+		private final Map<String, Object> bindings;
+		private final Value batchInvoker;
+
+		private PooledContext() {
+			this.bindings = contextBindings.create();
+			this.context = Context.newBuilder("js")
+					.engine(engine)
+					.allowAllAccess(true)
+					.allowHostAccess(HostAccess.newBuilder(HostAccess.ALL)
+							.targetTypeMapping(Value.class, Object.class,
+									v -> v.hasArrayElements() && v.hasMembers(), v -> v.as(List.class)).build())
+					.out(out)
+					.err(err)
+					.build();
+			try {
+				Value globals = context.getBindings("js");
+				bindings.forEach(globals::putMember);
+				for (Source source : sources) {
+					context.eval(source);
+				}
+				this.batchInvoker = globals.getMember(BATCH_INVOKER);
+			} catch (RuntimeException e) {
+				context.close(true);
+				CommonUtils.ignoreAnyError(() -> contextBindings.release(bindings), TAG);
+				throw new RuntimeException(String.format("script eval error: %s, %s", TAG, e.getMessage()), e);
+			}
+		}
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private List<Object> invokeBatch(List<Map<String, Object>> records, List<Map<String, Object>> recordContexts) {
+			Value results = batchInvoker.execute(ProxyArray.fromList((List) records), ProxyArray.fromList((List) recordContexts));
+			if (null == results || !results.hasArrayElements() || results.getArraySize() != records.size()) {
+				throw new IllegalStateException(String.format("Function %s should return an array of %s results, but got: %s",
+						ScriptUtil.BATCH_FUNCTION_NAME, records.size(), results));
+			}
+			List<Object> list = new ArrayList<>(records.size());
+			for (int i = 0; i < records.size(); i++) {
+				list.add(copy(results.getArrayElement(i)));
+			}
+			return list;
+		}
+
+		/**
+		 * Js values are only valid while this thread holds the context, copy them out
+		 */
+		private Object copy(Value value) {
+			if (value.isNull()) {
+				return null;
+			}
+			Object result = value.as(Object.class);
+			if (result instanceof Map) {
+				Map<String, Object> map = new HashMap<>();
+				MapUtil.copyToNewMap((Map<?, ?>) result, map);
+				return map;
+			} else if (result instanceof List) {
+				List<Object> list = new ArrayList<>(((List<?>) result).size());
+				for (Object o : (List<?>) result) {
+					if (o instanceof Map) {
+						Map<String, Object> map = new HashMap<>();
+						MapUtil.copyToNewMap((Map<?, ?>) o, map);
+						list.add(map);
+					} else {
+						list.add(o);
+					}
+				}
+				return list;
+			}
+			return result;
+		}
+	}
+}
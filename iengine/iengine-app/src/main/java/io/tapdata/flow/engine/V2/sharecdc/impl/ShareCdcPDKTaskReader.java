@@ -11,12 +11,14 @@ import com.tapdata.constant.JSONUtil;
 import com.tapdata.entity.Connections;
 import com.tapdata.entity.OperationType;
 import com.tapdata.entity.sharecdc.LogContent;
+import com.tapdata.entity.sharecdc.ShareCdcConstant;
 import com.tapdata.entity.task.NodeUtil;
 import com.tapdata.tm.commons.externalStorage.ExternalStorageDto;
 import com.tapdata.tm.commons.task.dto.TaskDto;
 import io.tapdata.common.sharecdc.ShareCdcUtil;
 import io.tapdata.construct.ConstructIterator;
 import io.tapdata.construct.HazelcastConstruct;
+import io.tapdata.construct.constructImpl.ConstructIMap;
 import io.tapdata.construct.constructImpl.ConstructRingBuffer;
 import io.tapdata.entity.event.TapBaseEvent;
 import io.tapdata.entity.event.TapEvent;
@@ -34,8 +36,10 @@ import io.tapdata.flow.engine.V2.sharecdc.ShareCdcContext;
 import io.tapdata.flow.engine.V2.sharecdc.ShareCdcTaskContext;
 import io.tapdata.flow.engine.V2.sharecdc.ShareCdcTaskPdkContext;
 import io.tapdata.flow.engine.V2.sharecdc.exception.ShareCdcUnsupportedException;
+import io.tapdata.flow.engine.V2.util.AppendNotifier;
 import io.tapdata.flow.engine.V2.util.ExternalStorageUtil;
 import io.tapdata.flow.engine.V2.util.PdkUtil;
+import io.tapdata.flow.engine.V2.util.SequenceRangeIndex;
 import io.tapdata.flow.engine.V2.util.SkipIdleProcessor;
 import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
 import io.tapdata.pdk.core.utils.CommonUtils;
@@ -73,6 +77,13 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 	public static final String TAG = ShareCdcPDKTaskReader.class.getSimpleName();
 	private final static ObjectSerializable OBJECT_SERIALIZABLE = InstanceFactory.instance(ObjectSerializable.class);
 	public static final int QUEUE_CAPACITY = 100;
+	/**
+	 * Read all tables in one thread, woken up by the share cdc writer in the same engine instead of polling each table
+	 */
+	public static final String SHARE_CDC_READ_NOTIFY_ENABLE_KEY = "SHARE_CDC_READ_NOTIFY_ENABLE";
+	public static final String SHARE_CDC_READ_NOTIFY_FALLBACK_MS_KEY = "SHARE_CDC_READ_NOTIFY_FALLBACK_MS";
+	public static final long DEFAULT_SHARE_CDC_READ_NOTIFY_FALLBACK_MS = 1000L;
+	private static final int NOTIFY_READ_BATCH = 100;
 	private ExecutorService readThreadPool;
 	private TaskDto logCollectorTaskDto;
 	private HazelcastInstance hazelcastInstance;
@@ -86,6 +97,13 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 	private Future<?> future;
 	private StreamReadConsumer streamReadConsumer;
 	private CountDownLatch readCountDown;
+	private long notifyFallbackMs = DEFAULT_SHARE_CDC_READ_NOTIFY_FALLBACK_MS;
+	/**
+	 * Not null if the log collector writes all tables into one shared log
+	 */
+	private ConstructRingBuffer<Document> sharedLog;
+	private ConstructIMap<Document> sharedLogIndex;
+	private SharedLogReadRunner sharedLogReadRunner;
 
 	ShareCdcPDKTaskReader(Object offset) {
 		super();
@@ -178,63 +196,123 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 		logCollectorExternalStorage.setTtlDay(0);
 		shareCdcContext.getObsLogger().info(logWrapper("Will use external storage: " + logCollectorExternalStorage));
 
+		// Check log collector writes shared log
+		ConstructIMap<Document> index = new ConstructIMap<>(hazelcastInstance, constructReferenceId, ShareCdcUtil.getSharedLogIndexName(this.logCollectorTaskDto), logCollectorExternalStorage);
+		boolean sharedLogEnabled;
+		try {
+			sharedLogEnabled = index.exists(ShareCdcConstant.SHARED_LOG_MARKER_KEY);
+		} catch (Exception e) {
+			throw new ShareCdcUnsupportedException("Check shared log index failed; Error: " + e.getMessage(), e, false);
+		}
+		checkOffsetMode(sharedLogEnabled);
+		if (sharedLogEnabled) {
+			this.sharedLogIndex = index;
+			this.sharedLog = new ConstructRingBuffer<>(hazelcastInstance, constructReferenceId, ShareCdcUtil.getSharedLogConstructName(this.logCollectorTaskDto), logCollectorExternalStorage);
+			logger.info(logWrapper(++step, "Log collector writes shared log: " + sharedLog.getName()));
+		}
+
 		// Check start point valid of each table
 		step = checkTableStartPointValid(step);
 		return step;
 	}
 
+	/**
+	 * Sequences of the log storage of each table and of the shared log are not comparable, an offset saved in the other
+	 * mode would start reading at a wrong position. Offsets of the shared log mode are marked by
+	 * {@link ShareCdcConstant#SHARED_LOG_MARKER_KEY}
+	 */
+	private void checkOffsetMode(boolean sharedLogEnabled) throws ShareCdcUnsupportedException {
+		boolean sharedLogOffset = sequenceMap.containsKey(ShareCdcConstant.SHARED_LOG_MARKER_KEY);
+		boolean hasTableOffset = tableNames.stream().anyMatch(sequenceMap::containsKey);
+		if (hasTableOffset && sharedLogOffset != sharedLogEnabled) {
+			throw new ShareCdcUnsupportedException(String.format("Share cdc offset was saved when log collector %s shared log, but now it %s, the offset cannot be used",
+					sharedLogOffset ? "wrote" : "did not write", sharedLogEnabled ? "writes" : "does not write"), false);
+		}
+		if (sharedLogEnabled) {
+			sequenceMap.put(ShareCdcConstant.SHARED_LOG_MARKER_KEY, 1L);
+		} else {
+			sequenceMap.remove(ShareCdcConstant.SHARED_LOG_MARKER_KEY);
+		}
+	}
+
 	private int checkTableStartPointValid(int step) throws ShareCdcUnsupportedException {
 		logger.info(logWrapper(++step, "Check tables start point valid"));
-		for (String tableName : tableNames) {
-			ConstructRingBuffer<Document> constructRingBuffer = getConstruct(tableName);
-			// Check cdc start timestamp is available in log storage
-			try {
-				if (sequenceMap.containsKey(tableName)) {
-					continue;
-				}
-				String syncType = "";
-				if (shareCdcContext instanceof ShareCdcTaskContext) {
-					TaskDto taskDto = ((ShareCdcTaskContext) shareCdcContext).getTaskDto();
-					syncType = taskDto.getSyncType();
+		if (null != sharedLog) {
+			// All tables are in the shared log, check it once for tables starting by timestamp
+			long headSequence = sharedLog.getRingbuffer().headSequence();
+			boolean startByTimestamp = false;
+			for (String tableName : tableNames) {
+				Long sequence = sequenceMap.get(tableName);
+				if (null == sequence) {
+					startByTimestamp = true;
+				} else if (sequence < headSequence) {
+					throw new ShareCdcUnsupportedException("Shared log[" + sharedLog.getName() + "] detected unusable, table[" + tableName + "] offset sequence("
+							+ sequence + ") is before the first sequence(" + headSequence + ") in shared log", false);
 				}
-				if (null != this.shareCdcContext.getCdcStartTs() && this.shareCdcContext.getCdcStartTs().compareTo(0L) > 0) {
-					ConstructIterator<Document> iterator = constructRingBuffer.find();
-					Document firstLogDocument = iterator.peek(15L, TimeUnit.SECONDS);
-					if (null != firstLogDocument) {
-						LogContent logContent = JSONUtil.map2POJO(firstLogDocument, new TypeReference<LogContent>() {
-						});
-
-						if (!syncType.equals(SyncTypeEnum.CDC.getSyncType())
-								&& logContent.getType().equals(LogContent.LogContentType.SIGN.name())) {
-							if (logger.isDebugEnabled()) {
-								logger.debug("Found first log is a sign log: " + logContent);
-							}
-						} else if (logContent.getTimestamp() > this.shareCdcContext.getCdcStartTs()) {
-							// First data's timestamp in storage must be lte task start cdc timestamp
-							throw new ShareCdcUnsupportedException("Log storage[" + tableName + "] detected unusable, first log timestamp("
-									+ Instant.ofEpochMilli(logContent.getTimestamp()) + ") is greater than task cdc start timestamp("
-									+ Instant.ofEpochMilli(this.shareCdcContext.getCdcStartTs()) + ")", false);
-						}
-						if (logger.isDebugEnabled()) {
-							logger.debug(logWrapper(++step, String.format("Log storage %s is available, first log timestamp: %s, task cdc start timestamp: %s",
-									constructRingBuffer.getName(),
-									Instant.ofEpochMilli(logContent.getTimestamp()),
-									Instant.ofEpochMilli(this.shareCdcContext.getCdcStartTs()))
-							));
-						}
-					} else {
+			}
+			if (startByTimestamp) {
+				step = checkStartPointValid(sharedLog, sharedLog.getName(), step);
+			}
+			return step;
+		}
+		for (String tableName : tableNames) {
+			if (sequenceMap.containsKey(tableName)) {
+				continue;
+			}
+			step = checkStartPointValid(getConstruct(tableName), tableName, step);
+		}
+		return step;
+	}
+
+	/**
+	 * Check cdc start timestamp is available in log storage
+	 */
+	private int checkStartPointValid(ConstructRingBuffer<Document> constructRingBuffer, String storageName, int step) throws ShareCdcUnsupportedException {
+		try {
+			String syncType = "";
+			if (shareCdcContext instanceof ShareCdcTaskContext) {
+				TaskDto taskDto = ((ShareCdcTaskContext) shareCdcContext).getTaskDto();
+				syncType = taskDto.getSyncType();
+			}
+			if (null != this.shareCdcContext.getCdcStartTs() && this.shareCdcContext.getCdcStartTs().compareTo(0L) > 0) {
+				ConstructIterator<Document> iterator = constructRingBuffer.find();
+				Document firstLogDocument = iterator.peek(15L, TimeUnit.SECONDS);
+				if (null != firstLogDocument) {
+					LogContent logContent = JSONUtil.map2POJO(firstLogDocument, new TypeReference<LogContent>() {
+					});
+
+					if (!syncType.equals(SyncTypeEnum.CDC.getSyncType())
+							&& logContent.getType().equals(LogContent.LogContentType.SIGN.name())) {
 						if (logger.isDebugEnabled()) {
-							logger.debug(logWrapper(++step, String.format("Log storage %s is empty and available to use", constructRingBuffer.getName())));
+							logger.debug("Found first log is a sign log: " + logContent);
 						}
+					} else if (logContent.getTimestamp() > this.shareCdcContext.getCdcStartTs()) {
+						// First data's timestamp in storage must be lte task start cdc timestamp
+						throw new ShareCdcUnsupportedException("Log storage[" + storageName + "] detected unusable, first log timestamp("
+								+ Instant.ofEpochMilli(logContent.getTimestamp()) + ") is greater than task cdc start timestamp("
+								+ Instant.ofEpochMilli(this.shareCdcContext.getCdcStartTs()) + ")", false);
+					}
+					if (logger.isDebugEnabled()) {
+						logger.debug(logWrapper(++step, String.format("Log storage %s is available, first log timestamp: %s, task cdc start timestamp: %s",
+								constructRingBuffer.getName(),
+								Instant.ofEpochMilli(logContent.getTimestamp()),
+								Instant.ofEpochMilli(this.shareCdcContext.getCdcStartTs()))
+						));
 					}
 				} else {
 					if (logger.isDebugEnabled()) {
-						logger.debug(logWrapper(++step, "Task incremental start timestamp less than 0, table [{}] will read from first line"), tableName);
+						logger.debug(logWrapper(++step, String.format("Log storage %s is empty and available to use", constructRingBuffer.getName())));
 					}
 				}
-			} catch (Exception e) {
-				throw new ShareCdcUnsupportedException("Find from storage failed; Error: " + e.getMessage(), e, false);
+			} else {
+				if (logger.isDebugEnabled()) {
+					logger.debug(logWrapper(++step, "Task incremental start timestamp less than 0, log storage [{}] will read from first line"), storageName);
+				}
 			}
+		} catch (ShareCdcUnsupportedException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new ShareCdcUnsupportedException("Find from storage failed; Error: " + e.getMessage(), e, false);
 		}
 		return step;
 	}
@@ -274,8 +352,19 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 	public void listen(StreamReadConsumer streamReadConsumer) throws Exception {
 		logger.info(logWrapper("Starting listen share log storage..."));
 		this.streamReadConsumer = streamReadConsumer;
-		int size = Math.max(1, tableNames.size() / threadNum);
-		List<List<String>> partitionTableNames = ListUtils.partition(tableNames, size);
+		if (null != sharedLog) {
+			listenSharedLog(streamReadConsumer);
+			return;
+		}
+		boolean readByNotify = CommonUtils.getPropertyBool(SHARE_CDC_READ_NOTIFY_ENABLE_KEY, false);
+		List<List<String>> partitionTableNames;
+		if (readByNotify) {
+			notifyFallbackMs = Math.max(10L, CommonUtils.getPropertyLong(SHARE_CDC_READ_NOTIFY_FALLBACK_MS_KEY, DEFAULT_SHARE_CDC_READ_NOTIFY_FALLBACK_MS));
+			partitionTableNames = Collections.singletonList(tableNames);
+		} else {
+			int size = Math.max(1, tableNames.size() / threadNum);
+			partitionTableNames = ListUtils.partition(tableNames, size);
+		}
 		threadNum = partitionTableNames.size();
 		this.readThreadPool = new ThreadPoolExecutor(threadNum + 1, threadNum + 1, 0L, TimeUnit.SECONDS, new SynchronousQueue<>());
 		int index = 1;
@@ -288,7 +377,8 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 					shareCdcContext
 			);
 			try {
-				this.readThreadPool.submit(readRunner::read);
+				Runnable read = readByNotify ? readRunner::readByNotify : readRunner::read;
+				this.readThreadPool.submit(read);
 				this.readRunners.add(readRunner);
 			} catch (RejectedExecutionException ignored) {
 			}
@@ -302,6 +392,22 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 		}
 	}
 
+	private void listenSharedLog(StreamReadConsumer streamReadConsumer) throws Exception {
+		notifyFallbackMs = Math.max(10L, CommonUtils.getPropertyLong(SHARE_CDC_READ_NOTIFY_FALLBACK_MS_KEY, DEFAULT_SHARE_CDC_READ_NOTIFY_FALLBACK_MS));
+		this.readThreadPool = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.SECONDS, new SynchronousQueue<>());
+		future = this.readThreadPool.submit(this::readPreVersionData);
+		this.readCountDown = new CountDownLatch(1);
+		this.sharedLogReadRunner = new SharedLogReadRunner();
+		this.readThreadPool.submit(sharedLogReadRunner::read);
+		try {
+			poll(streamReadConsumer);
+		} catch (Exception e) {
+			String err = "An internal error occurred, will close; Error: " + e.getMessage();
+			this.close();
+			throw new Exception(err, e);
+		}
+	}
+
 	private void readPreVersionData() {
 		if (shareCdcContext instanceof ShareCdcTaskContext) {
 			TaskDto taskDto = ((ShareCdcTaskContext) shareCdcContext).getTaskDto();
@@ -353,6 +459,25 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 		}
 	}
 
+	/**
+	 * Wait for reading old version log data completed
+	 *
+	 * @return false if interrupted
+	 */
+	private boolean waitPreVersionData() {
+		while (running.get()) {
+			if (null == future || future.isDone()) {
+				break;
+			}
+			try {
+				TimeUnit.MILLISECONDS.sleep(10L);
+			} catch (InterruptedException e) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private class ReadRunner {
 		private int index;
 		private ShareCdcContext shareCdcContext;
@@ -387,125 +512,177 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 		public void read() {
 			Thread.currentThread().setName(THREAD_NAME_PREFIX + "-" + taskDto.getName() + "-" + index);
 			shareCdcContext.getObsLogger().info(logWrapper("Starting read log from hazelcast construct, tables: " + tableNames));
-			while (running.get()) {
-				if (null == future || future.isDone()) {
-					break;
-				}
-				try {
-					TimeUnit.MILLISECONDS.sleep(10L);
-				} catch (InterruptedException e) {
-					break;
-				}
+			if (!waitPreVersionData()) {
+				return;
 			}
 
 			try (SkipIdleProcessor<String> skipIdleProcessor = new SkipIdleProcessor<>(() -> running.get(), tableNames)) {
-				final BiFunction<String, ShareCdcReaderResource, ConstructIterator<Document>> constructItFn = (tableName, shareCdcReaderResource) -> {
-					HazelcastConstruct<Document> construct = shareCdcReaderResource.construct;
-					if (null == shareCdcReaderResource.sequence) {
-						try {
-							// Find first sequence by timestamp
-							if (null == this.shareCdcContext.getCdcStartTs()) {
-								throw new RuntimeException("Cannot found table[" + tableName + "] share cdc start time from sync progress");
-							}
-							long sequenceFindByTs = construct.findSequence(this.shareCdcContext.getCdcStartTs());
-							shareCdcReaderResource.sequence(sequenceFindByTs);
-							sequenceMap.put(tableName, sequenceFindByTs);
-							shareCdcContext.getObsLogger().info(logWrapper("Find sequence in construct(" + tableName + ") by timestamp(" + Instant.ofEpochMilli(this.shareCdcContext.getCdcStartTs()) + "): " + sequenceFindByTs));
-						} catch (Exception e) {
-							String err = "Find sequence by timestamp failed, timestamp: " + this.shareCdcContext.getCdcStartTs() + "; Error: " + e.getMessage();
-							handleFailed(err, e);
-							return null;
+				while (running.get()) {
+					Boolean needBreak = skipIdleProcessor.process(readerResourceMap, (tableName, readerResourceMap) -> readOne(tableName));
+
+					if (Boolean.TRUE.equals(needBreak)) break;
+				}
+			} catch (Exception e) {
+				String err = "Reader occur unknown error, will stop";
+				handleFailed(err, e);
+			}
+		}
+
+		/**
+		 * Read all tables in this thread, a table is only read again after the share cdc writer signals an append to
+		 * its construct, or every {@link #notifyFallbackMs} for writers in other engines
+		 */
+		public void readByNotify() {
+			Thread.currentThread().setName(THREAD_NAME_PREFIX + "-" + taskDto.getName() + "-" + index);
+			shareCdcContext.getObsLogger().info(logWrapper("Starting read log from hazelcast construct by append notification, tables: " + tableNames));
+			Map<String, String> constructTableNames = new HashMap<>();
+			readerResourceMap.forEach((tableName, resource) -> constructTableNames.put(resource.construct.getName(), tableName));
+			// Subscribe before the first read, appends after it are never missed
+			try (AppendNotifier.Subscription subscription = AppendNotifier.getInstance().subscribe(constructTableNames.keySet())) {
+				if (!waitPreVersionData()) {
+					return;
+				}
+				Set<String> readyTables = new LinkedHashSet<>(tableNames);
+				while (running.get()) {
+					Iterator<String> iterator = readyTables.iterator();
+					while (iterator.hasNext() && running.get()) {
+						String tableName = iterator.next();
+						Boolean status = null;
+						for (int i = 0; i < NOTIFY_READ_BATCH && running.get(); i++) {
+							status = readOne(tableName);
+							if (!Boolean.FALSE.equals(status)) break;
 						}
-					}
-					if (shareCdcReaderResource.firstTime) {
-						shareCdcReaderResource.firstTime = false;
-						readCountDown.countDown();
-						if (readCountDown.getCount() <= 0 && null != streamReadConsumer) {
-							streamReadConsumer.streamReadStarted();
+						if (Boolean.TRUE.equals(status)) {
+							return;
 						}
-						shareCdcContext.getObsLogger().info(logWrapper("Starting read '{}' log, sequence: {}"), tableName, shareCdcReaderResource.sequence);
-					}
-					// Find hazelcast construct iterator
-					Map<String, Object> filter = new HashMap<>();
-					filter.put(ConstructRingBuffer.SEQUENCE_KEY, shareCdcReaderResource.sequence);
-					ConstructIterator<Document> iterator;
-					if (null == shareCdcReaderResource.iterator) {
-						try {
-							iterator = construct.find(filter);
-							shareCdcReaderResource.iterator = iterator;
-							logger.info(logWrapper("Find by " + tableName + " filter: " + filter));
-						} catch (Exception e) {
-							String err = "Find from hazelcast construct " + construct.getClass().getName() + " failed, filter: " + filter + "; Error: " + e.getMessage();
-							handleFailed(err);
-							return null;
+						// Table with more data stays ready, the others wait for signal
+						if (null == status) {
+							iterator.remove();
 						}
 					}
-					iterator = shareCdcReaderResource.iterator;
-					if (iterator == null) {
-						String err = "Find hazelcast construct " + construct.getClass().getName() + " failed, iterator result is null, filter: " + filter;
-						handleFailed(err);
-						return null;
+					Set<String> signaled = readyTables.isEmpty() ? subscription.await(notifyFallbackMs, TimeUnit.MILLISECONDS) : subscription.poll();
+					if (readyTables.isEmpty() && signaled.isEmpty()) {
+						readyTables.addAll(tableNames);
+						continue;
 					}
-					return iterator;
-				};
-
-				final Boolean ctlStatusBreak = true, ctlStatusIdle = null, ctlStatusNormal = false;
-				while (running.get()) {
-					Boolean needBreak = skipIdleProcessor.process(readerResourceMap, (tableName, readerResourceMap) -> {
-						ShareCdcReaderResource shareCdcReaderResource = readerResourceMap.get(tableName);
-						if (null == shareCdcReaderResource) {
-							if (running.get()) {
-								throw new RuntimeException("Cannot found table[" + tableName + "] share cdc reader resource");
-							} else {
-								return ctlStatusIdle;
-							}
-						}
-
-						ConstructIterator<Document> iterator = constructItFn.apply(tableName, shareCdcReaderResource);
-						if (null == iterator) {
-							return ctlStatusBreak;
+					for (String constructName : signaled) {
+						String tableName = constructTableNames.get(constructName);
+						if (null != tableName) {
+							readyTables.add(tableName);
 						}
+					}
+				}
+			} catch (InterruptedException ignored) {
+				Thread.currentThread().interrupt();
+			} catch (Exception e) {
+				String err = "Reader occur unknown error, will stop";
+				handleFailed(err, e);
+			}
+		}
 
-						List<Document> documents = new ArrayList<>();
-						try {
-							Document document = iterator.tryNext();
-							if (null == document) {
-								return ctlStatusIdle;
-							}
-
-							if (document.containsKey("type") && LogContent.LogContentType.SIGN.name().equals(document.getString("type"))) {
-								return ctlStatusNormal;
-							}
-							documents.add(document);
-						} catch (DistributedObjectDestroyedException e) {
-							return ctlStatusIdle;
-						} catch (Exception e) {
-							String err = "Find next failed, sequence: " + iterator.getSequence();
-							handleFailed(err, e);
-							return ctlStatusIdle;
-						}
+		/**
+		 * Read one log document of the table
+		 *
+		 * @return true: stop reading, null: no data, false: read one
+		 */
+		private Boolean readOne(String tableName) {
+			final Boolean ctlStatusBreak = true, ctlStatusIdle = null, ctlStatusNormal = false;
+			ShareCdcReaderResource shareCdcReaderResource = readerResourceMap.get(tableName);
+			if (null == shareCdcReaderResource) {
+				if (running.get()) {
+					throw new RuntimeException("Cannot found table[" + tableName + "] share cdc reader resource");
+				} else {
+					return ctlStatusIdle;
+				}
+			}
 
-						if (logger.isDebugEnabled()) {
-							logger.debug("Received log documents");
-							shareCdcContext.getObsLogger().debug("Received log documents");
-							documents.forEach(doc -> logger.debug("  " + doc.toJson()));
-						}
-						sequenceMap.put(tableName, iterator.getSequence());
-						documents.forEach(doc -> enqueue(tapEventWrapper(doc)));
-						if (shareCdcReaderResource.firstData) {
-							shareCdcContext.getObsLogger().info(logWrapper("Successfully read " + tableName + "'s first log data, will continue to read the log"));
-							shareCdcReaderResource.firstData = false;
-						}
+			ConstructIterator<Document> iterator = findIterator(tableName, shareCdcReaderResource);
+			if (null == iterator) {
+				return ctlStatusBreak;
+			}
 
-						return ctlStatusNormal;
-					});
+			List<Document> documents = new ArrayList<>();
+			try {
+				Document document = iterator.tryNext();
+				if (null == document) {
+					return ctlStatusIdle;
+				}
 
-					if (Boolean.TRUE.equals(needBreak)) break;
+				if (document.containsKey("type") && LogContent.LogContentType.SIGN.name().equals(document.getString("type"))) {
+					return ctlStatusNormal;
 				}
+				documents.add(document);
+			} catch (DistributedObjectDestroyedException e) {
+				return ctlStatusIdle;
 			} catch (Exception e) {
-				String err = "Reader occur unknown error, will stop";
+				String err = "Find next failed, sequence: " + iterator.getSequence();
 				handleFailed(err, e);
+				return ctlStatusIdle;
+			}
+
+			if (logger.isDebugEnabled()) {
+				logger.debug("Received log documents");
+				shareCdcContext.getObsLogger().debug("Received log documents");
+				documents.forEach(doc -> logger.debug("  " + doc.toJson()));
+			}
+			sequenceMap.put(tableName, iterator.getSequence());
+			documents.forEach(doc -> enqueue(tapEventWrapper(doc)));
+			if (shareCdcReaderResource.firstData) {
+				shareCdcContext.getObsLogger().info(logWrapper("Successfully read " + tableName + "'s first log data, will continue to read the log"));
+				shareCdcReaderResource.firstData = false;
+			}
+
+			return ctlStatusNormal;
+		}
+
+		private ConstructIterator<Document> findIterator(String tableName, ShareCdcReaderResource shareCdcReaderResource) {
+			HazelcastConstruct<Document> construct = shareCdcReaderResource.construct;
+			if (null == shareCdcReaderResource.sequence) {
+				try {
+					// Find first sequence by timestamp
+					if (null == this.shareCdcContext.getCdcStartTs()) {
+						throw new RuntimeException("Cannot found table[" + tableName + "] share cdc start time from sync progress");
+					}
+					long sequenceFindByTs = construct.findSequence(this.shareCdcContext.getCdcStartTs());
+					shareCdcReaderResource.sequence(sequenceFindByTs);
+					sequenceMap.put(tableName, sequenceFindByTs);
+					shareCdcContext.getObsLogger().info(logWrapper("Find sequence in construct(" + tableName + ") by timestamp(" + Instant.ofEpochMilli(this.shareCdcContext.getCdcStartTs()) + "): " + sequenceFindByTs));
+				} catch (Exception e) {
+					String err = "Find sequence by timestamp failed, timestamp: " + this.shareCdcContext.getCdcStartTs() + "; Error: " + e.getMessage();
+					handleFailed(err, e);
+					return null;
+				}
+			}
+			if (shareCdcReaderResource.firstTime) {
+				shareCdcReaderResource.firstTime = false;
+				readCountDown.countDown();
+				if (readCountDown.getCount() <= 0 && null != streamReadConsumer) {
+					streamReadConsumer.streamReadStarted();
+				}
+				shareCdcContext.getObsLogger().info(logWrapper("Starting read '{}' log, sequence: {}"), tableName, shareCdcReaderResource.sequence);
+			}
+			// Find hazelcast construct iterator
+			Map<String, Object> filter = new HashMap<>();
+			filter.put(ConstructRingBuffer.SEQUENCE_KEY, shareCdcReaderResource.sequence);
+			ConstructIterator<Document> iterator;
+			if (null == shareCdcReaderResource.iterator) {
+				try {
+					iterator = construct.find(filter);
+					shareCdcReaderResource.iterator = iterator;
+					logger.info(logWrapper("Find by " + tableName + " filter: " + filter));
+				} catch (Exception e) {
+					String err = "Find from hazelcast construct " + construct.getClass().getName() + " failed, filter: " + filter + "; Error: " + e.getMessage();
+					handleFailed(err);
+					return null;
+				}
+			}
+			iterator = shareCdcReaderResource.iterator;
+			if (iterator == null) {
+				String err = "Find hazelcast construct " + construct.getClass().getName() + " failed, iterator result is null, filter: " + filter;
+				handleFailed(err);
+				return null;
 			}
+			return iterator;
 		}
 
 		public void close() {
@@ -518,6 +695,159 @@ public class ShareCdcPDKTaskReader extends ShareCdcHZReader implements Serializa
 		}
 	}
 
+	/**
+	 * Reads the shared log of all tables in one thread. Only sequence ranges indexed for the tables of this task are
+	 * read, records of other tables inside a range are skipped. Each table's sequence in {@link #sequenceMap} is the
+	 * next shared log sequence to read for it.
+	 */
+	private class SharedLogReadRunner {
+		private static final int READ_BATCH = 1000;
+		/**
+		 * table id in shared log -> table name
+		 */
+		private final Map<String, String> tableIdNames = new HashMap<>();
+		private final Map<String, SequenceRangeIndex> indexes = new HashMap<>();
+
+		private SharedLogReadRunner() {
+			for (String tableName : tableNames) {
+				String tableId = null != connNamespaceStr ? ShareCdcUtil.joinNamespaces(Arrays.asList(connNamespaceStr, tableName)) : tableName;
+				tableIdNames.put(tableId, tableName);
+			}
+		}
+
+		public void read() {
+			TaskDto taskDto = ((ShareCdcTaskContext) shareCdcContext).getTaskDto();
+			Thread.currentThread().setName(THREAD_NAME_PREFIX + "-" + taskDto.getName() + "-Shared-Log");
+			shareCdcContext.getObsLogger().info(logWrapper("Starting read shared log " + sharedLog.getName() + ", tables: " + tableNames));
+			// Subscribe before the first read, appends after it are never missed
+			try (AppendNotifier.Subscription subscription = AppendNotifier.getInstance().subscribe(Collections.singletonList(sharedLog.getName()))) {
+				if (!waitPreVersionData()) {
+					return;
+				}
+				long position = startSequence();
+				readCountDown.countDown();
+				if (null != streamReadConsumer) {
+					streamReadConsumer.streamReadStarted();
+				}
+				loadIndexes();
+				while (running.get()) {
+					long next = nextSequence(position);
+					if (next < 0) {
+						// Caught up with the index, wait for the writer
+						subscription.await(notifyFallbackMs, TimeUnit.MILLISECONDS);
+						loadIndexes();
+						continue;
+					}
+					int count = (int) Math.min(READ_BATCH, rangeEnd(next) - next + 1);
+					Map<String, Object> filter = new HashMap<>();
+					filter.put(ConstructRingBuffer.SEQUENCE_KEY, next);
+					List<Document> documents = sharedLog.find(filter).tryNextMany(count, unused -> !running.get());
+					if (null == documents || documents.isEmpty()) {
+						subscription.await(notifyFallbackMs, TimeUnit.MILLISECONDS);
+						continue;
+					}
+					for (int i = 0; i < documents.size(); i++) {
+						readDocument(next + i, documents.get(i));
+					}
+					position = next + documents.size();
+					// Tables without records before position need not read them again after restart
+					for (String tableName : tableNames) {
+						Long sequence = sequenceMap.get(tableName);
+						if (null == sequence || sequence < position) {
+							sequenceMap.put(tableName, position);
+						}
+					}
+				}
+			} catch (InterruptedException ignored) {
+				Thread.currentThread().interrupt();
+			} catch (Exception e) {
+				String err = "Shared log reader occur unknown error, will stop";
+				handleFailed(err, e);
+			}
+		}
+
+		private void readDocument(long sequence, Document document) {
+			if (null == document || (document.containsKey("type") && LogContent.LogContentType.SIGN.name().equals(document.getString("type")))) {
+				return;
+			}
+			String tableName = tableIdNames.get(getTableId(document));
+			if (null == tableName) {
+				return;
+			}
+			Long tableSequence = sequenceMap.get(tableName);
+			if (null != tableSequence && sequence < tableSequence) {
+				return;
+			}
+			sequenceMap.put(tableName, sequence + 1);
+			enqueue(tapEventWrapper(document));
+		}
+
+		/**
+		 * @return the smallest sequence of all tables, from offset or found by cdc start timestamp
+		 */
+		private long startSequence() throws Exception {
+			long start = Long.MAX_VALUE;
+			Long sequenceFindByTs = null;
+			for (String tableName : tableNames) {
+				Long sequence = sequenceMap.get(tableName);
+				if (null == sequence) {
+					if (null == sequenceFindByTs) {
+						if (null == shareCdcContext.getCdcStartTs()) {
+							throw new RuntimeException("Cannot found table[" + tableName + "] share cdc start time from sync progress");
+						}
+						sequenceFindByTs = sharedLog.findSequence(shareCdcContext.getCdcStartTs());
+						shareCdcContext.getObsLogger().info(logWrapper("Find sequence in shared log by timestamp(" + Instant.ofEpochMilli(shareCdcContext.getCdcStartTs()) + "): " + sequenceFindByTs));
+					}
+					sequence = sequenceFindByTs;
+					sequenceMap.put(tableName, sequence);
+				}
+				start = Math.min(start, sequence);
+			}
+			return start == Long.MAX_VALUE ? 0 : start;
+		}
+
+		private void loadIndexes() {
+			Map<String, Object> documents = sharedLogIndex.findAll(tableIdNames.keySet());
+			for (Map.Entry<String, Object> entry : documents.entrySet()) {
+				if (!(entry.getValue() instanceof Document)) {
+					continue;
+				}
+				List<?> ranges = ((Document) entry.getValue()).get(ShareCdcConstant.SHARED_LOG_RANGES_FIELD, List.class);
+				indexes.put(entry.getKey(), SequenceRangeIndex.fromList((List<Number>) ranges,
+						ShareCdcConstant.SHARED_LOG_INDEX_MERGE_GAP, ShareCdcConstant.SHARED_LOG_INDEX_MAX_RANGES));
+			}
+		}
+
+		private long nextSequence(long position) {
+			long next = -1;
+			for (SequenceRangeIndex index : indexes.values()) {
+				long sequence = index.nextSequence(position);
+				if (sequence >= 0 && (next < 0 || sequence < next)) {
+					next = sequence;
+				}
+			}
+			return next;
+		}
+
+		private long rangeEnd(long sequence) {
+			long end = sequence;
+			for (SequenceRangeIndex index : indexes.values()) {
+				end = Math.max(end, index.rangeEnd(sequence));
+			}
+			return end;
+		}
+
+		private String getTableId(Document document) {
+			Object namespaces = document.get("tableNamespaces");
+			if (namespaces instanceof List && !((List<?>) namespaces).isEmpty()) {
+				List<String> list = new ArrayList<>();
+				((List<?>) namespaces).forEach(namespace -> list.add(String.valueOf(namespace)));
+				return ShareCdcUtil.joinNamespaces(list);
+			}
+			return document.getString("fromTable");
+		}
+	}
+
 	private static class ShareCdcReaderResource {
 		private final HazelcastConstruct<Document> construct;
 		private Long sequence;
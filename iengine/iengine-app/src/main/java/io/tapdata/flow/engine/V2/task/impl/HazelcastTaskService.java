@@ -97,6 +97,7 @@ import io.tapdata.flow.engine.V2.util.MergeTableUtil;
 import io.tapdata.flow.engine.V2.util.NodeUtil;
 import io.tapdata.observable.logging.ObsLogger;
 import io.tapdata.observable.logging.ObsLoggerFactory;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.schema.TapTableMap;
 import io.tapdata.schema.TapTableUtil;
 import lombok.SneakyThrows;
@@ -381,6 +382,9 @@ public class HazelcastTaskService implements TaskService<TaskDto> {
 			tapTableMap = TapTableUtil.getTapTableMap(node, tmCurrentTime);
 		} else {
 			tapTableMap = TapTableUtil.getTapTableMapByNodeId(node.getId(), tmCurrentTime);
+			if (CommonUtils.getPropertyBool(TapTableMap.TAP_TABLE_PREFETCH_ENABLE_KEY, false)) {
+				tapTableMap.prefetch();
+			}
 		}
 		return tapTableMap;
 	}
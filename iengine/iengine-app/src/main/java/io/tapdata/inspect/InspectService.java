@@ -15,6 +15,7 @@ import com.tapdata.mongo.ClientMongoOperator;
 import io.tapdata.common.SettingService;
 import io.tapdata.inspect.cdc.InspectCdcUtils;
 import io.tapdata.inspect.cdc.compare.RowCountInspectCdcJob;
+import io.tapdata.inspect.compare.TableRowChecksumInspectJob;
 import io.tapdata.inspect.compare.TableRowContentInspectJob;
 import io.tapdata.inspect.compare.TableRowCountInspectJob;
 import io.tapdata.inspect.compare.TableRowScriptInspectJob;
@@ -298,7 +299,9 @@ public class InspectService {
 			public Runnable createTableInspectJob(InspectTaskContext inspectTaskContext) {
 				// 高级校验，进入 TableRowScriptInspectJob
 				// 非全匹配，不走高级校验
-				if (!inspectTaskContext.getTask().isFullMatch() || !inspectTaskContext.getTask().isShowAdvancedVerification()) {
+				if (TableRowChecksumInspectJob.isSupported(inspectTaskContext)) {
+					return new TableRowChecksumInspectJob(inspectTaskContext);
+				} else if (!inspectTaskContext.getTask().isFullMatch() || !inspectTaskContext.getTask().isShowAdvancedVerification()) {
 					return new TableRowContentInspectJob(inspectTaskContext);
 				} else {
 					return new TableRowScriptInspectJob(inspectTaskContext);
@@ -13,6 +13,7 @@ import io.tapdata.pdk.apis.functions.ConnectorFunctions;
 import io.tapdata.pdk.apis.functions.PDKMethod;
 import io.tapdata.pdk.apis.functions.connector.source.BatchCountFunction;
 import io.tapdata.pdk.apis.functions.connector.target.QueryByAdvanceFilterFunction;
+import io.tapdata.pdk.apis.partition.TapPartitionFilter;
 import io.tapdata.pdk.core.api.ConnectorNode;
 import io.tapdata.pdk.core.monitor.PDKInvocationMonitor;
 import org.apache.commons.collections.CollectionUtils;
@@ -51,9 +52,18 @@ public class PdkResult extends BaseResult<Map<String, Object>> {
 	private int diffKeyIndex;
 	private final List<String> dataKeys;
 	private final List<List<Object>> diffKeyValues;
+	private int partitionFilterIndex;
+	private final List<TapPartitionFilter> partitionFilters;
 	private final AtomicReference<Thread> queryThreadAR = new AtomicReference<>();
 
 	public PdkResult(List<String> sortColumns, Connections connections, String tableName, Set<String> columns, ConnectorNode connectorNode, boolean fullMatch, List<String> dataKeys, List<List<Object>> diffKeyValues) {
+		this(sortColumns, connections, tableName, columns, connectorNode, fullMatch, dataKeys, diffKeyValues, null);
+	}
+
+	/**
+	 * @param partitionFilters only query rows in these key ranges, one after another, null to query all rows
+	 */
+	public PdkResult(List<String> sortColumns, Connections connections, String tableName, Set<String> columns, ConnectorNode connectorNode, boolean fullMatch, List<String> dataKeys, List<List<Object>> diffKeyValues, List<TapPartitionFilter> partitionFilters) {
 		super(sortColumns, connections, tableName);
 		this.connectorNode = connectorNode;
 		for (String sortColumn : sortColumns) {
@@ -67,7 +77,8 @@ public class PdkResult extends BaseResult<Map<String, Object>> {
 		if (null == tapTable) {
 			throw new RuntimeException("Table '" + connections.getName() + "'.'" + tableName + "' not exists.");
 		}
-		this.hasNext = new AtomicBoolean(true);
+		this.partitionFilters = partitionFilters;
+		this.hasNext = new AtomicBoolean(null == partitionFilters || !partitionFilters.isEmpty());
 		this.running = new AtomicBoolean(true);
 		this.codecsFilterManager = connectorNode.getCodecsFilterManager();
 		this.defaultCodecsFilterManager = TapCodecsFilterManager.create(TapCodecsRegistry.create());
@@ -193,7 +204,12 @@ public class PdkResult extends BaseResult<Map<String, Object>> {
 				queryThreadAR.set(new Thread(() -> {
 					Thread.currentThread().setName(String.format("INSPECT-QUERY-%s.%s", connections.getId(), tableName));
 					try {
-						TapAdvanceFilter tapAdvanceFilter = TapAdvanceFilter.create();
+						TapAdvanceFilter tapAdvanceFilter;
+						if (null != partitionFilters && partitionFilterIndex < partitionFilters.size()) {
+							tapAdvanceFilter = partitionFilters.get(partitionFilterIndex++).toAdvanceFilter();
+						} else {
+							tapAdvanceFilter = TapAdvanceFilter.create();
+						}
 
 						// query one difference data, because pdk api not support 'or' conditions.
 						if (null != diffKeyValues && diffKeyIndex < diffKeyValues.size()) {
@@ -230,7 +246,8 @@ public class PdkResult extends BaseResult<Map<String, Object>> {
 									}
 								}
 							}), TAG);
-						if (null == diffKeyValues || diffKeyIndex >= diffKeyValues.size()) {
+						if ((null == diffKeyValues || diffKeyIndex >= diffKeyValues.size())
+								&& (null == partitionFilters || partitionFilterIndex >= partitionFilters.size())) {
 							hasNext.set(false);
 						}
 					} catch (Exception e) {
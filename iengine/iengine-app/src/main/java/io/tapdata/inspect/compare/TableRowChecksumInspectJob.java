@@ -0,0 +1,503 @@
+package io.tapdata.inspect.compare;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.tapdata.entity.Connections;
+import com.tapdata.entity.MysqlJson;
+import com.tapdata.entity.inspect.InspectDataSource;
+import com.tapdata.entity.inspect.InspectTask;
+import com.tapdata.tm.commons.dag.vo.ReadPartitionOptions;
+import io.tapdata.entity.codec.TapCodecsRegistry;
+import io.tapdata.entity.codec.filter.TapCodecsFilterManager;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapIndexEx;
+import io.tapdata.entity.schema.TapIndexField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.value.DateTime;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.inspect.InspectTaskContext;
+import io.tapdata.pdk.apis.entity.Projection;
+import io.tapdata.pdk.apis.entity.QueryOperator;
+import io.tapdata.pdk.apis.entity.TapAdvanceFilter;
+import io.tapdata.pdk.apis.functions.ConnectorFunctions;
+import io.tapdata.pdk.apis.functions.PDKMethod;
+import io.tapdata.pdk.apis.functions.connector.source.CountByPartitionFilterFunction;
+import io.tapdata.pdk.apis.functions.connector.source.GetReadPartitionOptions;
+import io.tapdata.pdk.apis.functions.connector.source.GetReadPartitionsFunction;
+import io.tapdata.pdk.apis.functions.connector.target.QueryByAdvanceFilterFunction;
+import io.tapdata.pdk.apis.partition.ReadPartition;
+import io.tapdata.pdk.apis.partition.TapPartitionFilter;
+import io.tapdata.pdk.apis.partition.splitter.TypeSplitterMap;
+import io.tapdata.pdk.core.api.ConnectorNode;
+import io.tapdata.pdk.core.monitor.PDKInvocationMonitor;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.types.ObjectId;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Content inspection that compares checksums of key ranges before comparing rows.
+ * <p>
+ * The source table is split into key ranges by the connector's read partition splitting. For each range, both sides
+ * compute the row count (pushed down when the connector can count by partition filter) and an order-independent hash
+ * of the rows in a streaming pass, ranges are compared in parallel. Only the ranges whose count or hash differs are
+ * compared row by row, rows of the matched ranges are counted as passed.
+ * <p>
+ * Values are normalized before hashing, so that rows {@link DefaultCompare} sees as different never have the same
+ * hash. Rows it sees as equal may still hash differently, e.g. a number compared with a string, then the range is only
+ * compared row by row.
+ */
+public class TableRowChecksumInspectJob extends TableRowContentInspectJob {
+	private final Logger logger = LogManager.getLogger(TableRowChecksumInspectJob.class);
+	private static final String TAG = TableRowChecksumInspectJob.class.getSimpleName();
+	public static final String INSPECT_CHECKSUM_ENABLE_KEY = "INSPECT_CHECKSUM_ENABLE";
+	public static final String INSPECT_CHECKSUM_THREADS_KEY = "INSPECT_CHECKSUM_THREADS";
+	public static final String INSPECT_CHECKSUM_CHUNK_SIZE_KEY = "INSPECT_CHECKSUM_CHUNK_SIZE";
+	private static final int DIGEST_BATCH_SIZE = 1000;
+	private static final long SPLIT_TIMEOUT_MINUTES = 60;
+	private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+	private List<TapPartitionFilter> sourceDiffFilters;
+	private List<TapPartitionFilter> targetDiffFilters;
+
+	public TableRowChecksumInspectJob(InspectTaskContext inspectTaskContext) {
+		super(inspectTaskContext);
+	}
+
+	/**
+	 * Checksum only works for a full inspection of a whole table, advanced verification and the re-check of differences
+	 * are done by the other jobs
+	 */
+	public static boolean isSupported(InspectTaskContext inspectTaskContext) {
+		InspectTask task = inspectTaskContext.getTask();
+		return CommonUtils.getPropertyBool(INSPECT_CHECKSUM_ENABLE_KEY, false)
+				&& null == inspectTaskContext.getInspectResultParentId()
+				&& !(task.isFullMatch() && task.isShowAdvancedVerification());
+	}
+
+	@Override
+	protected void doRun() {
+		try {
+			checksum();
+		} catch (InterruptedException e) {
+			// Stopped, do not fall back to compare all rows
+			Thread.currentThread().interrupt();
+			return;
+		} catch (Throwable e) {
+			logger.warn("Checksum of table {} and {} failed, compare all rows instead: {}",
+					inspectTask.getSource().getTable(), inspectTask.getTarget().getTable(), e.getMessage(), e);
+			sourceDiffFilters = null;
+			targetDiffFilters = null;
+			current = 0;
+			both = 0;
+			rowPassed = 0;
+		}
+		super.doRun();
+	}
+
+	@Override
+	protected BaseResult<Map<String, Object>> queryForCursor(Connections connections, InspectDataSource inspectDataSource, ConnectorNode connectorNode, boolean fullMatch, List<String> dataKeys, List<List<Object>> diffKeyValues) {
+		List<TapPartitionFilter> partitionFilters = inspectDataSource == inspectTask.getSource() ? sourceDiffFilters : targetDiffFilters;
+		return queryForCursor(connections, inspectDataSource, connectorNode, fullMatch, dataKeys, diffKeyValues, partitionFilters);
+	}
+
+	private void checksum() throws Throwable {
+		InspectDataSource sourceDataSource = inspectTask.getSource();
+		InspectDataSource targetDataSource = inspectTask.getTarget();
+		TapTable sourceTable = sourceNode.getConnectorContext().getTableMap().get(sourceDataSource.getTable());
+		TapTable targetTable = targetNode.getConnectorContext().getTableMap().get(targetDataSource.getTable());
+		List<String> sourceKeys = getSortColumns(sourceDataSource.getSortColumn());
+		List<String> targetKeys = getSortColumns(targetDataSource.getSortColumn());
+
+		String unsupported = checkUnsupported(sourceTable, targetTable, sourceKeys, targetKeys);
+		if (null != unsupported) {
+			logger.info("Compare all rows of table {} and {}, because {}", sourceDataSource.getTable(), targetDataSource.getTable(), unsupported);
+			return;
+		}
+
+		Map<String, String> targetKeyMap = new HashMap<>();
+		for (int i = 0; i < sourceKeys.size(); i++) {
+			targetKeyMap.put(sourceKeys.get(i), targetKeys.get(i));
+		}
+		List<String> sourceColumns = getHashColumns(sourceDataSource, sourceKeys);
+		List<String> targetColumns = getHashColumns(targetDataSource, targetKeys);
+		Projection sourceProjection = getProjection(sourceKeys, sourceColumns);
+		Projection targetProjection = getProjection(targetKeys, targetColumns);
+
+		long checksumStart = System.currentTimeMillis();
+		List<TapPartitionFilter> chunks = splitChunks(sourceTable);
+		int threads = Math.max(1, CommonUtils.getPropertyInt(INSPECT_CHECKSUM_THREADS_KEY, 4));
+		AtomicInteger threadIndex = new AtomicInteger();
+		ExecutorService executorService = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+				r -> new Thread(r, String.format("INSPECT-CHECKSUM-%s.%s-%s", source.getId(), sourceDataSource.getTable(), threadIndex.getAndIncrement())));
+		List<TapPartitionFilter> sourceFilters = new ArrayList<>();
+		List<TapPartitionFilter> targetFilters = new ArrayList<>();
+		long matchedRows = 0;
+		try {
+			List<Future<ChunkDigest[]>> futures = new ArrayList<>(chunks.size());
+			for (TapPartitionFilter chunk : chunks) {
+				TapPartitionFilter targetChunk = toTargetFilter(chunk, targetKeyMap);
+				futures.add(executorService.submit(() -> digest(
+						new DigestSide(sourceNode, sourceTable, chunk, sourceColumns, sourceProjection),
+						new DigestSide(targetNode, targetTable, targetChunk, targetColumns, targetProjection))));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				ChunkDigest[] digests;
+				try {
+					digests = futures.get(i).get();
+				} catch (ExecutionException e) {
+					throw e.getCause();
+				}
+				if (digests[0].equals(digests[1])) {
+					matchedRows += digests[0].count;
+				} else {
+					logger.debug("Chunk {} is different, source {}, target {}", chunks.get(i), digests[0], digests[1]);
+					sourceFilters.add(chunks.get(i));
+					targetFilters.add(toTargetFilter(chunks.get(i), targetKeyMap));
+				}
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+
+		sourceDiffFilters = sourceFilters;
+		targetDiffFilters = targetFilters;
+		current += matchedRows;
+		both += matchedRows;
+		if (inspectTask.isFullMatch()) {
+			rowPassed += matchedRows;
+		}
+		logger.info("Checksum of table {} and {} completed, {} chunks, {} different, {} rows passed, takes {}ms",
+				sourceDataSource.getTable(), targetDataSource.getTable(), chunks.size(), sourceFilters.size(), matchedRows,
+				System.currentTimeMillis() - checksumStart);
+	}
+
+	private String checkUnsupported(TapTable sourceTable, TapTable targetTable, List<String> sourceKeys, List<String> targetKeys) {
+		if (null == sourceTable || null == targetTable) {
+			return "table model not found";
+		}
+		if (null == sourceNode.getConnectorFunctions().getGetReadPartitionsFunction()) {
+			return "source connector can not split read partitions";
+		}
+		if (null == sourceNode.getConnectorFunctions().getQueryByAdvanceFilterFunction()
+				|| null == targetNode.getConnectorFunctions().getQueryByAdvanceFilterFunction()) {
+			return "connector does not support query by filter function";
+		}
+		TapIndexEx partitionIndex = sourceTable.partitionIndex();
+		if (null == partitionIndex || CollectionUtils.isEmpty(partitionIndex.getIndexFields())) {
+			return "source table has no primary key";
+		}
+		List<String> partitionKeys = partitionIndex.getIndexFields().stream().map(TapIndexField::getName).collect(Collectors.toList());
+		if (!partitionKeys.equals(sourceKeys) || sourceKeys.size() != targetKeys.size()) {
+			return String.format("sort columns %s -> %s are not the primary key %s", sourceKeys, targetKeys, partitionKeys);
+		}
+		for (int i = 0; i < sourceKeys.size(); i++) {
+			TapField sourceField = sourceTable.getNameFieldMap().get(sourceKeys.get(i));
+			TapField targetField = targetTable.getNameFieldMap().get(targetKeys.get(i));
+			// key range boundaries of the source are used to query the target
+			if (null == sourceField || null == targetField || null == sourceField.getTapType() || null == targetField.getTapType()
+					|| sourceField.getTapType().getClass() != targetField.getTapType().getClass()) {
+				return String.format("type of key %s -> %s is different", sourceKeys.get(i), targetKeys.get(i));
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return columns to hash in order, null to hash all columns by name
+	 */
+	private List<String> getHashColumns(InspectDataSource inspectDataSource, List<String> keys) {
+		if (!inspectTask.isFullMatch()) {
+			return keys;
+		}
+		if (CollectionUtils.isEmpty(inspectTask.getSource().getColumns()) || CollectionUtils.isEmpty(inspectTask.getTarget().getColumns())) {
+			return null;
+		}
+		List<String> columns = new ArrayList<>(keys);
+		columns.addAll(inspectDataSource.getColumns());
+		return columns;
+	}
+
+	private Projection getProjection(List<String> keys, List<String> columns) {
+		if (null == columns) {
+			return null;
+		}
+		Projection projection = new Projection();
+		Set<String> fields = new LinkedHashSet<>(keys);
+		fields.addAll(columns);
+		fields.forEach(projection::include);
+		return projection;
+	}
+
+	private List<TapPartitionFilter> splitChunks(TapTable tapTable) throws InterruptedException {
+		GetReadPartitionsFunction getReadPartitionsFunction = sourceNode.getConnectorFunctions().getGetReadPartitionsFunction();
+		List<ReadPartition> readPartitions = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch completed = new CountDownLatch(1);
+		PDKInvocationMonitor.invoke(sourceNode, PDKMethod.SOURCE_GET_READ_PARTITIONS,
+				() -> getReadPartitionsFunction.getReadPartitions(
+						sourceNode.getConnectorContext(),
+						tapTable,
+						GetReadPartitionOptions.create()
+								.maxRecordInPartition(CommonUtils.getPropertyLong(INSPECT_CHECKSUM_CHUNK_SIZE_KEY, 100_000L))
+								.minMaxSplitPieces(100)
+								.splitType(ReadPartitionOptions.SPLIT_TYPE_BY_COUNT)
+								.typeSplitterMap(new TypeSplitterMap())
+								.consumer(readPartitions::add)
+								.completedRunnable(completed::countDown)), TAG);
+		if (!completed.await(SPLIT_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+			throw new RuntimeException("Split read partitions of table " + tapTable.getId() + " timeout");
+		}
+		List<ReadPartition> sorted;
+		synchronized (readPartitions) {
+			sorted = new ArrayList<>(readPartitions);
+		}
+		Collections.sort(sorted);
+		return sorted.stream().map(ReadPartition::getPartitionFilter).collect(Collectors.toList());
+	}
+
+	private TapPartitionFilter toTargetFilter(TapPartitionFilter partitionFilter, Map<String, String> targetKeyMap) {
+		TapPartitionFilter targetFilter = TapPartitionFilter.create()
+				.leftBoundary(toTargetOperator(partitionFilter.getLeftBoundary(), targetKeyMap))
+				.rightBoundary(toTargetOperator(partitionFilter.getRightBoundary(), targetKeyMap));
+		if (null != partitionFilter.getMatch()) {
+			DataMap match = DataMap.create();
+			partitionFilter.getMatch().forEach((k, v) -> match.kv(targetKeyMap.getOrDefault(k, k), v));
+			targetFilter.match(match);
+		}
+		return targetFilter;
+	}
+
+	private QueryOperator toTargetOperator(QueryOperator operator, Map<String, String> targetKeyMap) {
+		if (null == operator) {
+			return null;
+		}
+		return new QueryOperator(targetKeyMap.getOrDefault(operator.getKey(), operator.getKey()), operator.getValue(), operator.getOperator());
+	}
+
+	/**
+	 * @return digest of source and target, the hash is skipped if the counts pushed down are different
+	 */
+	private ChunkDigest[] digest(DigestSide sourceSide, DigestSide targetSide) {
+		CountByPartitionFilterFunction sourceCount = sourceSide.connectorNode.getConnectorFunctions().getCountByPartitionFilterFunction();
+		CountByPartitionFilterFunction targetCount = targetSide.connectorNode.getConnectorFunctions().getCountByPartitionFilterFunction();
+		if (null != sourceCount && null != targetCount) {
+			ChunkDigest sourceDigest = new ChunkDigest(sourceSide.count(sourceCount));
+			ChunkDigest targetDigest = new ChunkDigest(targetSide.count(targetCount));
+			if (sourceDigest.count != targetDigest.count) {
+				return new ChunkDigest[]{sourceDigest, targetDigest};
+			}
+		}
+		return new ChunkDigest[]{sourceSide.hash(), targetSide.hash()};
+	}
+
+	private static class DigestSide {
+		private final ConnectorNode connectorNode;
+		private final TapTable tapTable;
+		private final TapPartitionFilter partitionFilter;
+		private final List<String> columns;
+		private final Projection projection;
+
+		private DigestSide(ConnectorNode connectorNode, TapTable tapTable, TapPartitionFilter partitionFilter, List<String> columns, Projection projection) {
+			this.connectorNode = connectorNode;
+			this.tapTable = tapTable;
+			this.partitionFilter = partitionFilter;
+			this.columns = columns;
+			this.projection = projection;
+		}
+
+		private long count(CountByPartitionFilterFunction countByPartitionFilterFunction) {
+			AtomicReference<Long> count = new AtomicReference<>();
+			PDKInvocationMonitor.invoke(connectorNode, PDKMethod.COUNT_BY_PARTITION_FILTER,
+					() -> count.set(countByPartitionFilterFunction.countByPartitionFilter(connectorNode.getConnectorContext(), tapTable, partitionFilter.toAdvanceFilter())), TAG);
+			return count.get();
+		}
+
+		/**
+		 * Rows are converted the same way as {@link PdkResult}, so the hash sees the values the row compare sees
+		 */
+		private ChunkDigest hash() {
+			ConnectorFunctions connectorFunctions = connectorNode.getConnectorFunctions();
+			QueryByAdvanceFilterFunction queryByAdvanceFilterFunction = connectorFunctions.getQueryByAdvanceFilterFunction();
+			TapCodecsFilterManager codecsFilterManager = connectorNode.getCodecsFilterManager();
+			TapCodecsFilterManager defaultCodecsFilterManager = TapCodecsFilterManager.create(TapCodecsRegistry.create());
+			TapAdvanceFilter tapAdvanceFilter = partitionFilter.toAdvanceFilter().batchSize(DIGEST_BATCH_SIZE);
+			tapAdvanceFilter.setProjection(projection);
+			ChunkDigest digest = new ChunkDigest(0);
+			AtomicReference<Throwable> throwable = new AtomicReference<>();
+			PDKInvocationMonitor.invoke(connectorNode, PDKMethod.SOURCE_QUERY_BY_ADVANCE_FILTER,
+					() -> queryByAdvanceFilterFunction.query(connectorNode.getConnectorContext(), tapAdvanceFilter, tapTable, filterResults -> {
+						if (null != filterResults.getError()) {
+							throwable.set(filterResults.getError());
+						}
+						List<Map<String, Object>> results = filterResults.getResults();
+						if (CollectionUtils.isEmpty(results)) return;
+						for (Map<String, Object> result : results) {
+							codecsFilterManager.transformToTapValueMap(result, tapTable.getNameFieldMap());
+							defaultCodecsFilterManager.transformFromTapValueMap(result);
+							digest.add(hashRow(result, columns));
+						}
+					}), TAG);
+			if (null != throwable.get()) {
+				throw new RuntimeException("Query chunk " + partitionFilter + " of table " + tapTable.getId() + " failed", throwable.get());
+			}
+			return digest;
+		}
+	}
+
+	static HashCode hashRow(Map<String, Object> row, List<String> columns) {
+		Hasher hasher = HASH_FUNCTION.newHasher();
+		if (null == columns) {
+			// missing fields equal null fields
+			new TreeMap<>(row).forEach((k, v) -> {
+				if (null != v) {
+					hasher.putString(k, StandardCharsets.UTF_8);
+					putValue(hasher, v);
+				}
+			});
+		} else {
+			for (String column : columns) {
+				putValue(hasher, row.get(column));
+			}
+		}
+		return hasher.hash();
+	}
+
+	/**
+	 * Type tags and delimiters keep different values from having the same input bytes
+	 */
+	static void putValue(Hasher hasher, Object value) {
+		if (value instanceof MysqlJson) {
+			try {
+				value = ((MysqlJson) value).toObject();
+			} catch (Exception e) {
+				value = ((MysqlJson) value).getData();
+			}
+		}
+		if (null == value) {
+			hasher.putByte((byte) 0);
+		} else if (value instanceof Map) {
+			hasher.putByte((byte) '{');
+			Map<String, Object> sorted = new TreeMap<>();
+			((Map<?, ?>) value).forEach((k, v) -> sorted.put(String.valueOf(k), v));
+			sorted.forEach((k, v) -> {
+				hasher.putString(k, StandardCharsets.UTF_8).putByte((byte) ':');
+				putValue(hasher, v);
+			});
+			hasher.putByte((byte) '}');
+		} else if (value instanceof Collection) {
+			hasher.putByte((byte) '[');
+			for (Object o : (Collection<?>) value) {
+				putValue(hasher, o);
+			}
+			hasher.putByte((byte) ']');
+		} else if (value.getClass().isArray() && !(value instanceof byte[])) {
+			hasher.putByte((byte) '[');
+			for (int i = 0, len = Array.getLength(value); i < len; i++) {
+				putValue(hasher, Array.get(value, i));
+			}
+			hasher.putByte((byte) ']');
+		} else if (value instanceof Number) {
+			String number;
+			try {
+				number = new BigDecimal(value.toString()).stripTrailingZeros().toPlainString();
+			} catch (NumberFormatException e) {
+				// NaN, Infinity
+				number = value.toString();
+			}
+			hasher.putByte((byte) 'n').putString(number, StandardCharsets.UTF_8).putByte((byte) 0);
+		} else {
+			value = try2String(value);
+			if (value instanceof String) {
+				hasher.putByte((byte) 's').putString(((String) value).trim(), StandardCharsets.UTF_8).putByte((byte) 0);
+			} else {
+				hasher.putByte((byte) 'o').putString(value.getClass().getName(), StandardCharsets.UTF_8).putByte((byte) ':')
+						.putString(value.toString(), StandardCharsets.UTF_8).putByte((byte) 0);
+			}
+		}
+	}
+
+	/**
+	 * Same as {@link DefaultCompare}
+	 */
+	private static Object try2String(Object val) {
+		if (val instanceof ObjectId) {
+			return ((ObjectId) val).toHexString();
+		} else if (val instanceof byte[]) {
+			return new String((byte[]) val, StandardCharsets.UTF_8);
+		} else if (val instanceof Date) {
+			return ((Date) val).toInstant().toString();
+		} else if (val instanceof Instant) {
+			return val.toString();
+		} else if (val instanceof DateTime) {
+			return ((DateTime) val).toInstant().toString();
+		}
+		return val;
+	}
+
+	/**
+	 * Row count and the sum of row hashes, the sum does not depend on the order of rows
+	 */
+	static class ChunkDigest {
+		private long count;
+		private long sum1;
+		private long sum2;
+
+		ChunkDigest(long count) {
+			this.count = count;
+		}
+
+		void add(HashCode hashCode) {
+			ByteBuffer buffer = ByteBuffer.wrap(hashCode.asBytes());
+			count++;
+			sum1 += buffer.getLong();
+			sum2 += buffer.getLong();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof ChunkDigest)) return false;
+			ChunkDigest that = (ChunkDigest) o;
+			return count == that.count && sum1 == that.sum1 && sum2 == that.sum2;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(count) * 31 + Long.hashCode(sum1 ^ sum2);
+		}
+
+		@Override
+		public String toString() {
+			return "count " + count + ", hash " + Long.toHexString(sum1) + Long.toHexString(sum2);
+		}
+	}
+}
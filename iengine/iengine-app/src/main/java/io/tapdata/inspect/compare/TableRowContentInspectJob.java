@@ -14,6 +14,7 @@ import com.tapdata.entity.inspect.InspectResultStats;
 import com.tapdata.entity.inspect.InspectStatus;
 import com.tapdata.entity.inspect.InspectTask;
 import io.tapdata.inspect.InspectTaskContext;
+import io.tapdata.pdk.apis.partition.TapPartitionFilter;
 import io.tapdata.pdk.core.api.ConnectorNode;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -351,7 +352,11 @@ public class TableRowContentInspectJob extends InspectTableRowJob {
 		}
 	}
 
-	private BaseResult<Map<String, Object>> queryForCursor(Connections connections, InspectDataSource inspectDataSource, ConnectorNode connectorNode, boolean fullMatch, List<String> dataKeys, List<List<Object>> diffKeyValues) {
+	protected BaseResult<Map<String, Object>> queryForCursor(Connections connections, InspectDataSource inspectDataSource, ConnectorNode connectorNode, boolean fullMatch, List<String> dataKeys, List<List<Object>> diffKeyValues) {
+		return queryForCursor(connections, inspectDataSource, connectorNode, fullMatch, dataKeys, diffKeyValues, null);
+	}
+
+	protected BaseResult<Map<String, Object>> queryForCursor(Connections connections, InspectDataSource inspectDataSource, ConnectorNode connectorNode, boolean fullMatch, List<String> dataKeys, List<List<Object>> diffKeyValues, List<TapPartitionFilter> partitionFilters) {
 		inspectDataSource.setDirection("DESC"); // force desc
 		Set<String> columns = null;
 		if (null != inspectDataSource.getColumns()) {
@@ -365,7 +370,8 @@ public class TableRowContentInspectJob extends InspectTableRowJob {
 				connectorNode,
 				fullMatch,
 				dataKeys,
-				diffKeyValues
+				diffKeyValues,
+				partitionFilters
 		);
 	}
 
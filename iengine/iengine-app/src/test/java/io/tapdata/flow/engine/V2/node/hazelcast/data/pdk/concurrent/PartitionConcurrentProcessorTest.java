@@ -0,0 +1,193 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent;
+
+import com.tapdata.entity.TapdataEvent;
+import com.tapdata.tm.commons.task.dto.TaskDto;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.PartitionResult;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector.PartitionKeySelector;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static io.tapdata.entity.simplify.TapSimplify.entry;
+import static io.tapdata.entity.simplify.TapSimplify.insertRecordEvent;
+import static io.tapdata.entity.simplify.TapSimplify.map;
+
+/**
+ * Low watermark offset commit: events of id % 2 go to partition 0 or 1, an offset is flushed only when it and every
+ * event before it are processed
+ */
+public class PartitionConcurrentProcessorTest {
+
+	private final List<Object> flushedOffsets = new CopyOnWriteArrayList<>();
+	private final Set<Integer> processedIds = ConcurrentHashMap.newKeySet();
+	private final Map<Integer, CountDownLatch> blockedIds = new ConcurrentHashMap<>();
+	private final List<Throwable> errors = new CopyOnWriteArrayList<>();
+	private PartitionConcurrentProcessor processor;
+
+	@Before
+	public void setUp() {
+		TaskDto taskDto = new TaskDto();
+		taskDto.setId(new ObjectId());
+		taskDto.setName("test");
+		processor = new PartitionConcurrentProcessor(
+				2,
+				10,
+				(partitionSize, event, partitionValue) -> new PartitionResult<>((Integer) partitionValue.get(0) % partitionSize, event),
+				new PartitionKeySelector<TapEvent, Object, Map<String, Object>>() {
+					@Override
+					public List<Object> select(TapEvent event, Map<String, Object> row) {
+						return Collections.singletonList(row.get("id"));
+					}
+
+					@Override
+					public List<Object> convert2OriginValue(List<Object> values) {
+						return values;
+					}
+				},
+				events -> {
+					for (TapdataEvent event : events) {
+						Integer id = (Integer) ((TapInsertRecordEvent) event.getTapEvent()).getAfter().get("id");
+						CountDownLatch latch = blockedIds.get(id);
+						if (null != latch) {
+							try {
+								latch.await(10L, TimeUnit.SECONDS);
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+								return;
+							}
+						}
+						processedIds.add(id);
+					}
+				},
+				event -> flushedOffsets.add(event.getStreamOffset()),
+				(throwable, message) -> errors.add(throwable),
+				() -> true,
+				taskDto,
+				true
+		);
+		processor.start();
+	}
+
+	@After
+	public void tearDown() {
+		blockedIds.values().forEach(CountDownLatch::countDown);
+		processor.forceStop();
+		Assert.assertTrue("Processor errors " + errors, errors.isEmpty());
+	}
+
+	@Test
+	public void testOffsetAdvancesToContiguousFinishedPrefix() throws Exception {
+		CountDownLatch releaseId4 = block(4);
+		process(2, "o1");
+		// Partition 0 drains a batch of events at a time, keep event 2 out of the batch of event 4
+		waitUntil(() -> processedIds.contains(2));
+		process(1, "o2");
+		process(4, "o3");
+		process(3, "o4");
+
+		waitUntil(() -> processedIds.contains(3) && flushedOffsets.contains("o2"));
+		Thread.sleep(500L);
+		// Event 3 of o4 is done, but event 4 of o3 is not, so the offset stays at o2
+		Assert.assertEquals("o2", lastFlushed());
+		Assert.assertFalse(flushedOffsets.contains("o3"));
+		Assert.assertFalse(flushedOffsets.contains("o4"));
+
+		releaseId4.countDown();
+		waitUntil(() -> "o4".equals(lastFlushed()));
+		assertFlushedInOrder("o1", "o2", "o3", "o4");
+	}
+
+	@Test
+	public void testOffsetWaitsForSlowPartition() throws Exception {
+		CountDownLatch releaseId1 = block(1);
+		process(1, "o1");
+		process(2, "o2");
+		process(4, "o3");
+
+		waitUntil(() -> processedIds.contains(2) && processedIds.contains(4));
+		Thread.sleep(500L);
+		// First event is not done, nothing after it can be committed
+		Assert.assertTrue(flushedOffsets.isEmpty());
+
+		releaseId1.countDown();
+		waitUntil(() -> "o3".equals(lastFlushed()));
+		assertFlushedInOrder("o1", "o2", "o3");
+	}
+
+	@Test
+	public void testOffsetOfBatchFlushedAfterAllPartitionsProcessed() throws Exception {
+		CountDownLatch releaseId3 = block(3);
+		List<TapdataEvent> batch = new ArrayList<>();
+		for (int id = 1; id <= 6; id++) {
+			batch.add(event(id, "o" + id));
+		}
+		processor.process(batch, true);
+
+		waitUntil(() -> processedIds.contains(6));
+		Thread.sleep(500L);
+		Assert.assertTrue(flushedOffsets.isEmpty());
+
+		releaseId3.countDown();
+		// Only the newest offset of a batch is a checkpoint
+		waitUntil(() -> "o6".equals(lastFlushed()));
+		Assert.assertEquals(Collections.singletonList("o6"), flushedOffsets);
+	}
+
+	private CountDownLatch block(int id) {
+		CountDownLatch latch = new CountDownLatch(1);
+		blockedIds.put(id, latch);
+		return latch;
+	}
+
+	private void process(int id, String offset) {
+		processor.process(Collections.singletonList(event(id, offset)), true);
+	}
+
+	private static TapdataEvent event(int id, String offset) {
+		TapdataEvent tapdataEvent = new TapdataEvent();
+		tapdataEvent.setTapEvent(insertRecordEvent(map(entry("id", id)), "t"));
+		tapdataEvent.setStreamOffset(offset);
+		return tapdataEvent;
+	}
+
+	private Object lastFlushed() {
+		return flushedOffsets.isEmpty() ? null : flushedOffsets.get(flushedOffsets.size() - 1);
+	}
+
+	/**
+	 * Flushed offsets are in order and a subsequence of the given ones, a commit may skip offsets but never goes back
+	 */
+	private void assertFlushedInOrder(String... offsets) {
+		int index = 0;
+		for (Object flushedOffset : flushedOffsets) {
+			while (index < offsets.length && !offsets[index].equals(flushedOffset)) {
+				index++;
+			}
+			Assert.assertTrue("Unexpected flushed offsets " + flushedOffsets, index < offsets.length);
+			index++;
+		}
+	}
+
+	private static void waitUntil(Supplier<Boolean> condition) throws InterruptedException {
+		// Partition threads wait up to 3 seconds for a full batch
+		for (int i = 0; i < 200 && !condition.get(); i++) {
+			Thread.sleep(50L);
+		}
+		Assert.assertTrue(condition.get());
+	}
+}
@@ -0,0 +1,179 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PipelineWriteProcessorTest {
+
+	private ExecutorService executorService;
+	private AtomicBoolean nodeRunning;
+	private AtomicReference<Throwable> reportedError;
+	private PipelineWriteProcessor processor;
+
+	@Before
+	public void setUp() {
+		executorService = Executors.newFixedThreadPool(4);
+		nodeRunning = new AtomicBoolean(true);
+		reportedError = new AtomicReference<>();
+		processor = new PipelineWriteProcessor(executorService, 4, 2, (throwable, message) -> reportedError.set(throwable), nodeRunning::get);
+	}
+
+	@After
+	public void tearDown() {
+		processor.forceStop();
+	}
+
+	@Test
+	public void testSameKeyBatchesWrittenInOrder() throws Exception {
+		List<String> written = new CopyOnWriteArrayList<>();
+		CountDownLatch releaseFirst = new CountDownLatch(1);
+		processor.submit("t1", keys(1, 2), () -> {
+			await(releaseFirst);
+			written.add("first");
+		});
+		CountDownLatch otherKeyWritten = new CountDownLatch(1);
+		processor.submit("t1", keys(3), () -> {
+			written.add("other key");
+			otherKeyWritten.countDown();
+		});
+		// A batch of other keys overtakes the blocked one
+		Assert.assertTrue(otherKeyWritten.await(5L, TimeUnit.SECONDS));
+
+		Thread submitter = new Thread(() -> {
+			try {
+				processor.submit("t1", keys(2), () -> written.add("second"));
+			} catch (InterruptedException ignored) {
+			}
+		});
+		submitter.start();
+		submitter.join(200L);
+		// Same key batch waits for the first one
+		Assert.assertTrue(submitter.isAlive());
+		Assert.assertEquals(Collections.singletonList("other key"), written);
+
+		releaseFirst.countDown();
+		submitter.join(5000L);
+		Assert.assertTrue(processor.barrier());
+		Assert.assertEquals(Arrays.asList("other key", "first", "second"), written);
+	}
+
+	@Test
+	public void testOffsetCommittedAfterAcknowledged() throws Exception {
+		CountDownLatch releaseWrite = new CountDownLatch(1);
+		List<String> flushed = new CopyOnWriteArrayList<>();
+		processor.submit("t1", keys(1), () -> await(releaseWrite));
+		Assert.assertTrue(processor.commitOffset(() -> flushed.add("offset 1")));
+		processor.submit("t2", keys(1), () -> {
+		});
+		Assert.assertTrue(processor.commitOffset(() -> flushed.add("offset 2")));
+		Thread.sleep(100L);
+		// The second batch is done, but the first one is not acknowledged yet
+		Assert.assertTrue(flushed.isEmpty());
+
+		releaseWrite.countDown();
+		Assert.assertTrue(processor.barrier());
+		Assert.assertEquals(Arrays.asList("offset 1", "offset 2"), flushed);
+
+		// Nothing in flight, flush immediately
+		Assert.assertTrue(processor.commitOffset(() -> flushed.add("offset 3")));
+		Assert.assertEquals(3, flushed.size());
+	}
+
+	@Test
+	public void testOffsetNotCommittedAfterFailedWrite() throws Exception {
+		List<String> flushed = new CopyOnWriteArrayList<>();
+		CountDownLatch releaseWrite = new CountDownLatch(1);
+		processor.submit("t1", keys(1), () -> {
+			await(releaseWrite);
+			throw new IllegalStateException("write failed");
+		});
+		processor.commitOffset(() -> flushed.add("offset"));
+		releaseWrite.countDown();
+		try {
+			processor.barrier();
+			Assert.fail("Barrier should throw the write error");
+		} catch (RuntimeException e) {
+			Assert.assertEquals("write failed", e.getCause().getMessage());
+		}
+		Assert.assertTrue(flushed.isEmpty());
+		// Error handler is called after the batch is marked failed
+		for (int i = 0; i < 50 && null == reportedError.get(); i++) {
+			Thread.sleep(100L);
+		}
+		Assert.assertEquals("write failed", reportedError.get().getMessage());
+	}
+
+	@Test
+	public void testRejectedSubmitStopsOffsetCommit() throws Exception {
+		List<String> flushed = new CopyOnWriteArrayList<>();
+		CountDownLatch releaseWrite = new CountDownLatch(1);
+		processor.submit("t1", keys(1), () -> await(releaseWrite));
+		processor.commitOffset(() -> flushed.add("offset 1"));
+
+		nodeRunning.set(false);
+		Assert.assertFalse(processor.submit("t1", keys(2), () -> flushed.add("never written")));
+		Assert.assertFalse(processor.commitOffset(() -> flushed.add("offset 2")));
+
+		releaseWrite.countDown();
+		Assert.assertTrue(processor.drain(5L, TimeUnit.SECONDS));
+		// Offset 1 was pending when the later batch got rejected, it is dropped too
+		Assert.assertTrue(flushed.isEmpty());
+	}
+
+	@Test
+	public void testStopDrainsInFlightBatches() throws Exception {
+		List<String> flushed = new CopyOnWriteArrayList<>();
+		CountDownLatch releaseWrite = new CountDownLatch(1);
+		AtomicBoolean written = new AtomicBoolean();
+		processor.submit("t1", keys(1), () -> {
+			await(releaseWrite);
+			written.set(true);
+		});
+		processor.commitOffset(() -> flushed.add("offset"));
+
+		Thread stopper = new Thread(() -> processor.stop(5L, TimeUnit.SECONDS));
+		stopper.start();
+		stopper.join(200L);
+		Assert.assertTrue(stopper.isAlive());
+
+		releaseWrite.countDown();
+		stopper.join(5000L);
+		Assert.assertFalse(stopper.isAlive());
+		Assert.assertTrue(written.get());
+		Assert.assertEquals(Collections.singletonList("offset"), flushed);
+	}
+
+	private static Set<List<Object>> keys(Object... values) {
+		Set<List<Object>> keys = new HashSet<>();
+		for (Object value : values) {
+			keys.add(Collections.singletonList(value));
+		}
+		return keys;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			if (!latch.await(10L, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Timeout waiting latch");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.partition;
+
+import com.tapdata.entity.TapdataEvent;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.HazelcastSourcePartitionReadDataNode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class PartitionEventMergerTest {
+
+	private HazelcastSourcePartitionReadDataNode sourcePdkDataNode;
+	private AtomicBoolean nodeRunning;
+	private PartitionEventMerger partitionEventMerger;
+
+	@Before
+	public void setUp() {
+		sourcePdkDataNode = mock(HazelcastSourcePartitionReadDataNode.class, Mockito.RETURNS_DEEP_STUBS);
+		nodeRunning = new AtomicBoolean(true);
+		partitionEventMerger = new PartitionEventMerger(sourcePdkDataNode, 2, nodeRunning::get);
+	}
+
+	@After
+	public void tearDown() {
+		partitionEventMerger.stop();
+	}
+
+	@Test
+	public void testDrainedAfterAllBatchesEnqueued() throws Exception {
+		List<TapdataEvent> enqueuedEvents = new CopyOnWriteArrayList<>();
+		doAnswer(invocation -> enqueuedEvents.add(invocation.getArgument(0))).when(sourcePdkDataNode).enqueue(any());
+		partitionEventMerger.start();
+		AtomicInteger callbacks = new AtomicInteger();
+		for (int i = 0; i < 5; i++) {
+			partitionEventMerger.offer("p1", events(3), callbacks::incrementAndGet);
+			partitionEventMerger.offer("p2", events(1), callbacks::incrementAndGet);
+		}
+
+		Assert.assertEquals(Long.valueOf(15L), partitionEventMerger.awaitDrained("p1"));
+		Assert.assertEquals(Long.valueOf(5L), partitionEventMerger.awaitDrained("p2"));
+		Assert.assertEquals(20, enqueuedEvents.size());
+		Assert.assertEquals(10, callbacks.get());
+		Assert.assertNull(partitionEventMerger.enqueuedCount("p1"));
+	}
+
+	@Test
+	public void testNotDrainedWhenNodeStopped() throws Exception {
+		CountDownLatch enqueueEntered = new CountDownLatch(1);
+		CountDownLatch releaseEnqueue = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			enqueueEntered.countDown();
+			releaseEnqueue.await(10L, TimeUnit.SECONDS);
+			return null;
+		}).when(sourcePdkDataNode).enqueue(any());
+		partitionEventMerger.start();
+		AtomicInteger callbacks = new AtomicInteger();
+		partitionEventMerger.offer("p1", events(1), callbacks::incrementAndGet);
+		Assert.assertTrue(enqueueEntered.await(5L, TimeUnit.SECONDS));
+
+		// Node stops while the batch is still being enqueued
+		nodeRunning.set(false);
+		Assert.assertNull(partitionEventMerger.awaitDrained("p1"));
+		releaseEnqueue.countDown();
+		for (int i = 0; i < 50 && partitionEventMerger.enqueuedCount("p1") == 0L; i++) {
+			Thread.sleep(100L);
+		}
+		Assert.assertEquals(Long.valueOf(1L), partitionEventMerger.enqueuedCount("p1"));
+		// Batch finished after stop is still not counted as drained
+		Assert.assertNull(partitionEventMerger.awaitDrained("p1"));
+	}
+
+	@Test
+	public void testNotDrainedWhenOfferedAfterStop() throws Exception {
+		partitionEventMerger.start();
+		partitionEventMerger.stop();
+		partitionEventMerger.offer("p1", events(1), () -> Assert.fail("Batch should not be enqueued after stop"));
+		Assert.assertNull(partitionEventMerger.awaitDrained("p1"));
+	}
+
+	private static List<TapdataEvent> events(int size) {
+		List<TapdataEvent> events = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			events.add(new TapdataEvent());
+		}
+		return Collections.unmodifiableList(events);
+	}
+}
@@ -0,0 +1,103 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.partition;
+
+import com.tapdata.entity.TapdataEvent;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.HazelcastSourcePartitionReadDataNode;
+import org.apache.logging.log4j.LogManager;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static io.tapdata.entity.simplify.TapSimplify.entry;
+import static io.tapdata.entity.simplify.TapSimplify.insertRecordEvent;
+import static io.tapdata.entity.simplify.TapSimplify.map;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PartitionFieldParentHandlerTest {
+
+	private HazelcastSourcePartitionReadDataNode sourcePdkDataNode;
+	private PartitionEventMerger partitionEventMerger;
+
+	@Before
+	public void setUp() throws Exception {
+		sourcePdkDataNode = mock(HazelcastSourcePartitionReadDataNode.class);
+		Field logger = HazelcastSourcePartitionReadDataNode.class.getDeclaredField("logger");
+		logger.setAccessible(true);
+		logger.set(sourcePdkDataNode, LogManager.getLogger(PartitionFieldParentHandlerTest.class));
+		partitionEventMerger = mock(PartitionEventMerger.class);
+		when(sourcePdkDataNode.getPartitionEventMerger()).thenReturn(partitionEventMerger);
+		when(sourcePdkDataNode.removeTables()).thenReturn(new ArrayList<>(Collections.singletonList("t2")));
+	}
+
+	@Test
+	public void testRemovedTablesFilteredBeforeMerge() {
+		List<TapEvent> events = Arrays.asList(insert("t1", 1), insert("t2", 2), insert("t1", 3));
+		when(sourcePdkDataNode.wrapTapdataEvent(events)).thenReturn(wrap(events));
+
+		new PartitionFieldParentHandler(new TapTable("t1"), "p1").enqueueTapEvents(null, events, sourcePdkDataNode);
+
+		ArgumentCaptor<List> offered = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<Runnable> enqueued = ArgumentCaptor.forClass(Runnable.class);
+		verify(partitionEventMerger).offer(eq("p1"), offered.capture(), enqueued.capture());
+		Assert.assertEquals(2, offered.getValue().size());
+		for (Object tapdataEvent : offered.getValue()) {
+			Assert.assertEquals("t1", ((TapRecordEvent) ((TapdataEvent) tapdataEvent).getTapEvent()).getTableId());
+		}
+		enqueued.getValue().run();
+		// Progress counts the events really enqueued
+		verify(sourcePdkDataNode).partitionEnqueued("t1", "p1", 2L);
+		verify(sourcePdkDataNode, never()).enqueue(any());
+	}
+
+	@Test
+	public void testBatchOfRemovedTablesNotMerged() {
+		List<TapEvent> events = Arrays.asList(insert("t2", 1), insert("t2", 2));
+		when(sourcePdkDataNode.wrapTapdataEvent(events)).thenReturn(wrap(events));
+
+		new PartitionFieldParentHandler(new TapTable("t2"), "p1").enqueueTapEvents(null, events, sourcePdkDataNode);
+
+		verify(partitionEventMerger, never()).offer(anyString(), anyList(), any());
+		verify(sourcePdkDataNode, never()).enqueue(any());
+	}
+
+	@Test
+	public void testFilterRemovedTables() {
+		List<TapdataEvent> tapdataEvents = wrap(Arrays.asList(insert("t1", 1), insert("t2", 2)));
+		TapdataEvent controlEvent = new TapdataEvent();
+		tapdataEvents.add(controlEvent);
+
+		Assert.assertSame(tapdataEvents, PartitionFieldParentHandler.filterRemovedTables(tapdataEvents, null));
+		List<TapdataEvent> filtered = PartitionFieldParentHandler.filterRemovedTables(tapdataEvents, Collections.singletonList("t2"));
+		Assert.assertEquals(Arrays.asList(tapdataEvents.get(0), controlEvent), filtered);
+	}
+
+	private static TapEvent insert(String table, int id) {
+		return insertRecordEvent(map(entry("id", id)), table);
+	}
+
+	private static List<TapdataEvent> wrap(List<TapEvent> events) {
+		List<TapdataEvent> tapdataEvents = new ArrayList<>();
+		for (TapEvent event : events) {
+			TapdataEvent tapdataEvent = new TapdataEvent();
+			tapdataEvent.setTapEvent(event);
+			tapdataEvents.add(tapdataEvent);
+		}
+		return tapdataEvents;
+	}
+}
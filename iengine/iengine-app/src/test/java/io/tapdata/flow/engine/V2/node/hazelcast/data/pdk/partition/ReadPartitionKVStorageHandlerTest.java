@@ -0,0 +1,111 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.partition;
+
+import io.tapdata.async.master.JobContext;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.HazelcastSourcePartitionReadDataNode;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.PDKSourceContext;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.ReadPartitionContext;
+import io.tapdata.pdk.apis.partition.ReadPartition;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static io.tapdata.entity.simplify.TapSimplify.deleteDMLEvent;
+import static io.tapdata.entity.simplify.TapSimplify.entry;
+import static io.tapdata.entity.simplify.TapSimplify.insertRecordEvent;
+import static io.tapdata.entity.simplify.TapSimplify.map;
+import static io.tapdata.entity.simplify.TapSimplify.updateDMLEvent;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stream events received while a partition is sent are kept in a sequence storage and replayed in order
+ */
+public class ReadPartitionKVStorageHandlerTest {
+
+	private HazelcastSourcePartitionReadDataNode sourcePdkDataNode;
+	private JobContext jobContext;
+	private ReadPartitionKVStorageHandler handler;
+	private final List<TapEvent> received = new CopyOnWriteArrayList<>();
+
+	@Before
+	public void setUp() {
+		sourcePdkDataNode = mock(HazelcastSourcePartitionReadDataNode.class, Mockito.RETURNS_DEEP_STUBS);
+		sourcePdkDataNode.batchSize = 2;
+		when(sourcePdkDataNode.getNode().getTaskId()).thenReturn("task");
+		when(sourcePdkDataNode.getNode().getId()).thenReturn("node");
+		when(sourcePdkDataNode.getConnectorNode().getConnectorClassLoader()).thenReturn(ReadPartitionKVStorageHandlerTest.class.getClassLoader());
+		when(sourcePdkDataNode.getConnectorNode().getConnectorFunctions().getQueryByAdvanceFilterFunction()).thenReturn(null);
+		when(sourcePdkDataNode.getSyncProgress().getBatchOffsetObj()).thenReturn(new ConcurrentHashMap<>());
+		doAnswer(invocation -> received.addAll(invocation.getArgument(0))).when(sourcePdkDataNode).handleStreamEventsReceived(anyList(), any());
+
+		jobContext = mock(JobContext.class);
+		when(jobContext.getContext(ReadPartitionContext.class)).thenReturn(mock(ReadPartitionContext.class));
+		handler = new ReadPartitionKVStorageHandler(PDKSourceContext.create().sourcePdkDataNode(sourcePdkDataNode),
+				new TapTable("t"), ReadPartition.create().id("p1"), sourcePdkDataNode);
+	}
+
+	@Test
+	public void testEventsDuringSendingReplayedInOrder() {
+		handler.handleStartCachingStreamData(jobContext);
+		handler.handleReadPartition(jobContext);
+		handler.handleSendingDataFromPartition(jobContext);
+
+		// Changes of the same row, they are replayed one by one instead of only the last one
+		handler.handleInsertRecordEvent(insertRecordEvent(row(1, "a"), "t"), row(1, "a"), key(1));
+		handler.handleUpdateRecordEvent(updateDMLEvent(row(1, "a"), row(1, "b"), "t"), row(1, "b"), key(1));
+		handler.handleDeleteRecordEvent(deleteDMLEvent(row(1, "b"), "t"), key(1));
+		handler.handleInsertRecordEvent(insertRecordEvent(row(2, "c"), "t"), row(2, "c"), key(2));
+		// Row moved to another partition
+		handler.deleteFromPartition(deleteDMLEvent(row(3, "d"), "t"), key(3));
+		Assert.assertTrue(received.isEmpty());
+
+		handler.handleFinishedPartition(jobContext);
+
+		Assert.assertEquals(5, received.size());
+		Assert.assertEquals("a", ((TapInsertRecordEvent) received.get(0)).getAfter().get("name"));
+		Assert.assertEquals("b", ((TapUpdateRecordEvent) received.get(1)).getAfter().get("name"));
+		Assert.assertEquals(1, ((TapDeleteRecordEvent) received.get(2)).getBefore().get("id"));
+		Assert.assertEquals(2, ((TapInsertRecordEvent) received.get(3)).getAfter().get("id"));
+		Assert.assertEquals(3, ((TapDeleteRecordEvent) received.get(4)).getBefore().get("id"));
+		Assert.assertTrue(handler.isFinished());
+
+		// Events after the partition finished pass through
+		handler.handleDeleteRecordEvent(deleteDMLEvent(row(2, "c"), "t"), key(2));
+		Assert.assertEquals(6, received.size());
+	}
+
+	@Test
+	public void testFinishedWithoutEventsDuringSending() {
+		handler.handleStartCachingStreamData(jobContext);
+		handler.handleReadPartition(jobContext);
+		handler.handleSendingDataFromPartition(jobContext);
+
+		handler.handleFinishedPartition(jobContext);
+
+		Assert.assertTrue(received.isEmpty());
+		Map<?, ?> batchOffset = (Map<?, ?>) sourcePdkDataNode.getSyncProgress().getBatchOffsetObj();
+		Assert.assertEquals(Long.valueOf(0L), ((PartitionTableOffset) batchOffset.get("t")).getCompletedPartitions().get("p1"));
+	}
+
+	private static Map<String, Object> row(int id, String name) {
+		return map(entry("id", id), entry("name", name));
+	}
+
+	private static Map<String, Object> key(int id) {
+		return map(entry("id", id));
+	}
+}
@@ -0,0 +1,175 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor;
+
+import com.tapdata.entity.TapdataEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.logger.TapLog;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.partitioner.KeysPartitioner;
+import io.tapdata.flow.engine.V2.node.hazelcast.data.pdk.concurrent.selector.TapEventPartitionKeySelector;
+import io.tapdata.flow.engine.V2.script.JsContextPool;
+import org.graalvm.polyglot.PolyglotException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static io.tapdata.entity.simplify.TapSimplify.entry;
+import static io.tapdata.entity.simplify.TapSimplify.insertRecordEvent;
+import static io.tapdata.entity.simplify.TapSimplify.map;
+
+/**
+ * Records of a batch split by primary key over the js workers, results must come back in input order
+ */
+public class HazelcastJavaScriptProcessorNodeParallelTest {
+
+	private static final int WORKERS = 4;
+	private static final String SCRIPT = "var Thread = Java.type('java.lang.Thread');\n" +
+			"function process(record) {\n" +
+			"\tif (record.fail) { throw 'bad record ' + record.id; }\n" +
+			"\t// Later records of a worker finish first if they wait less\n" +
+			"\tThread.sleep(record.id % 3);\n" +
+			"\trecord.worker = Thread.currentThread().getName();\n" +
+			"\treturn record;\n" +
+			"}";
+
+	private HazelcastJavaScriptProcessorNode jsNode;
+	private JsContextPool jsContextPool;
+	private ExecutorService[] workers;
+
+	@Before
+	public void setUp() throws Exception {
+		jsNode = (HazelcastJavaScriptProcessorNode) unsafe().allocateInstance(HazelcastJavaScriptProcessorNode.class);
+		jsContextPool = new JsContextPool("test", Collections.singletonList(SCRIPT), Collections.emptyMap(), new TapLog(), getClass().getClassLoader(), WORKERS);
+		workers = new ExecutorService[WORKERS];
+		Class<?> metricsClass = Class.forName(HazelcastJavaScriptProcessorNode.class.getName() + "$JsWorkerMetrics");
+		Constructor<?> metricsConstructor = metricsClass.getDeclaredConstructor();
+		metricsConstructor.setAccessible(true);
+		Object workerMetrics = Array.newInstance(metricsClass, WORKERS);
+		for (int i = 0; i < WORKERS; i++) {
+			String threadName = "js-worker-" + i;
+			workers[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, threadName));
+			Array.set(workerMetrics, i, metricsConstructor.newInstance());
+		}
+		setField("jsContextPool", jsContextPool);
+		setField("workers", workers);
+		setField("workerMetrics", workerMetrics);
+		setField("lastWorkerMetricsLogTime", System.currentTimeMillis());
+		setField("keySelector", new TapEventPartitionKeySelector(tapEvent -> Collections.singletonList("id")));
+		setField("partitioner", new KeysPartitioner());
+	}
+
+	@After
+	public void tearDown() {
+		if (null != workers) {
+			for (ExecutorService worker : workers) {
+				worker.shutdownNow();
+			}
+		}
+		if (null != jsContextPool) {
+			jsContextPool.close();
+		}
+	}
+
+	@Test
+	public void testResultsInInputOrder() throws Throwable {
+		List<TapdataEvent> recordEvents = new ArrayList<>();
+		List<Map<String, Object>> records = new ArrayList<>();
+		// Every key twice, the second time after all other keys
+		for (int i = 0; i < 40; i++) {
+			addRecord(recordEvents, records, i % 20, false);
+		}
+
+		List<Object> results = invokeParallel(recordEvents, records);
+
+		Assert.assertEquals(records.size(), results.size());
+		Map<Object, String> keyWorkers = new HashMap<>();
+		Set<String> usedWorkers = new HashSet<>();
+		for (int i = 0; i < results.size(); i++) {
+			Map<?, ?> result = (Map<?, ?>) results.get(i);
+			Assert.assertEquals("Result " + i, i % 20, ((Number) result.get("id")).intValue());
+			String worker = (String) result.get("worker");
+			usedWorkers.add(worker);
+			// Records of one key run on one worker, so they keep their order
+			String keyWorker = keyWorkers.putIfAbsent(result.get("id"), worker);
+			Assert.assertTrue(null == keyWorker || keyWorker.equals(worker));
+		}
+		Assert.assertTrue(usedWorkers.size() > 1);
+	}
+
+	@Test
+	public void testFailedRecordFailsBatch() throws Throwable {
+		List<TapdataEvent> recordEvents = new ArrayList<>();
+		List<Map<String, Object>> records = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			addRecord(recordEvents, records, i, i == 7);
+		}
+
+		try {
+			invokeParallel(recordEvents, records);
+			Assert.fail("error of one record should fail the whole batch");
+		} catch (PolyglotException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("bad record 7"));
+		}
+
+		// Workers and contexts are still usable, the next batch gets all results
+		recordEvents.clear();
+		records.clear();
+		for (int i = 0; i < 20; i++) {
+			addRecord(recordEvents, records, i, false);
+		}
+		List<Object> results = invokeParallel(recordEvents, records);
+		for (int i = 0; i < results.size(); i++) {
+			Assert.assertEquals(i, ((Number) ((Map<?, ?>) results.get(i)).get("id")).intValue());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Object> invokeParallel(List<TapdataEvent> recordEvents, List<Map<String, Object>> records) throws Throwable {
+		List<Map<String, Object>> contexts = new ArrayList<>();
+		for (int i = 0; i < records.size(); i++) {
+			contexts.add(new HashMap<>());
+		}
+		Method method = HazelcastJavaScriptProcessorNode.class.getDeclaredMethod("invokeParallel", List.class, List.class, List.class);
+		method.setAccessible(true);
+		try {
+			return (List<Object>) method.invoke(jsNode, recordEvents, records, contexts);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static void addRecord(List<TapdataEvent> recordEvents, List<Map<String, Object>> records, int id, boolean fail) {
+		TapInsertRecordEvent insertRecordEvent = insertRecordEvent(map(entry("id", id), entry("fail", fail)), "t");
+		TapdataEvent tapdataEvent = new TapdataEvent();
+		tapdataEvent.setTapEvent(insertRecordEvent);
+		recordEvents.add(tapdataEvent);
+		records.add(insertRecordEvent.getAfter());
+	}
+
+	private void setField(String name, Object value) throws Exception {
+		Field field = HazelcastJavaScriptProcessorNode.class.getDeclaredField(name);
+		field.setAccessible(true);
+		field.set(jsNode, value);
+	}
+
+	private static Unsafe unsafe() throws Exception {
+		Field field = Unsafe.class.getDeclaredField("theUnsafe");
+		field.setAccessible(true);
+		return (Unsafe) field.get(null);
+	}
+}
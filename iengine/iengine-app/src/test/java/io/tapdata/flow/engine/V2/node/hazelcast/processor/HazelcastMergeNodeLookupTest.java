@@ -0,0 +1,195 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor;
+
+import com.tapdata.entity.TapdataEvent;
+import com.tapdata.tm.commons.task.dto.MergeTableProperties;
+import io.tapdata.construct.HazelcastConstruct;
+import io.tapdata.pdk.apis.entity.merge.MergeLookupResult;
+import org.apache.logging.log4j.LogManager;
+import org.bson.Document;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batch lookup of cdc events must give the same merge lookup results as the per event recursive lookup
+ */
+public class HazelcastMergeNodeLookupTest {
+
+	private HazelcastMergeNode mergeNode;
+	private MergeTableProperties mainProperty;
+	private final Map<String, Map<String, Document>> caches = new HashMap<>();
+	private final AtomicInteger findAllCalls = new AtomicInteger();
+
+	@Before
+	public void setUp() throws Exception {
+		// main -> user (update write) -> addresses (update into array)
+		//      -> orders (update into array)
+		MergeTableProperties addressProperty = property("address", MergeTableProperties.MergeType.updateIntoArray, "user_id", "user.id", "user.addresses", null);
+		MergeTableProperties userProperty = property("user", MergeTableProperties.MergeType.updateWrite, "id", "user_id", "user", Collections.singletonList(addressProperty));
+		MergeTableProperties orderProperty = property("order", MergeTableProperties.MergeType.updateIntoArray, "main_id", "id", "orders", null);
+		mainProperty = property("main", MergeTableProperties.MergeType.appendWrite, null, null, null, Arrays.asList(userProperty, orderProperty));
+
+		cacheRow("user", "u1", row("id", "u1", "name", "user 1"));
+		cacheRow("user", "u2", row("id", "u2", "name", "user 2"));
+		cacheRow("address", "u1", row("id", "a1", "user_id", "u1", "city", "city 1"));
+		cacheRow("address", "u1", row("id", "a2", "user_id", "u1", "city", "city 2"));
+		cacheRow("order", "1", row("id", "o1", "main_id", 1));
+		cacheRow("order", "1", row("id", "o2", "main_id", 1));
+		cacheRow("order", "3", row("id", "o3", "main_id", 3));
+
+		Map<String, HazelcastConstruct<Document>> mergeCacheMap = new HashMap<>();
+		for (String cacheId : Arrays.asList("user", "address", "order")) {
+			mergeCacheMap.put(cacheId, construct(cacheId));
+		}
+		mergeNode = (HazelcastMergeNode) unsafe().allocateInstance(HazelcastMergeNode.class);
+		setField("mergeCacheMap", mergeCacheMap);
+		setField("lookupCacheIdsMap", new ConcurrentHashMap<>());
+		setField("logger", LogManager.getLogger(HazelcastMergeNode.class));
+		Constructor<?> lookupMetricsConstructor = Class.forName(HazelcastMergeNode.class.getName() + "$LookupMetrics").getDeclaredConstructor();
+		lookupMetricsConstructor.setAccessible(true);
+		setField("lookupMetrics", lookupMetricsConstructor.newInstance());
+	}
+
+	@Test
+	public void testBatchLookupSameAsRecursiveLookup() throws Exception {
+		List<Map<String, Object>> mainRows = Arrays.asList(
+				row("id", 1, "user_id", "u1"),
+				row("id", 2, "user_id", "u1"),
+				row("id", 3, "user_id", "u2"),
+				// No join key to user, no match in orders
+				row("id", 4));
+
+		List<List<MergeLookupResult>> batchResults = new ArrayList<>();
+		List<Object> lookupTasks = new ArrayList<>();
+		for (Map<String, Object> mainRow : mainRows) {
+			List<MergeLookupResult> mergeLookupResults = new ArrayList<>();
+			batchResults.add(mergeLookupResults);
+			lookupTasks.add(lookupTask(mainRow, mergeLookupResults));
+		}
+		Set<String> lookupCacheIds = new HashSet<>(Arrays.asList("user", "address", "order"));
+		Method batchLookup = HazelcastMergeNode.class.getDeclaredMethod("batchLookup", List.class, Set.class);
+		batchLookup.setAccessible(true);
+		batchLookup.invoke(mergeNode, lookupTasks, lookupCacheIds);
+		Assert.assertTrue(lookupTasks.isEmpty());
+		Assert.assertTrue(lookupCacheIds.isEmpty());
+		// One findAll for user and order at the first level, one for address at the second level
+		Assert.assertEquals(3, findAllCalls.get());
+
+		Method recursiveLookup = HazelcastMergeNode.class.getDeclaredMethod("recursiveLookup", MergeTableProperties.class, Map.class);
+		recursiveLookup.setAccessible(true);
+		for (int i = 0; i < mainRows.size(); i++) {
+			List<MergeLookupResult> expected = (List<MergeLookupResult>) recursiveLookup.invoke(mergeNode, mainProperty, mainRows.get(i));
+			Assert.assertEquals("Main row " + mainRows.get(i), render(expected), render(batchResults.get(i)));
+		}
+		Assert.assertEquals("[user{id=u1, name=user 1}[user.addresses{id=a1, user_id=u1, city=city 1}[], user.addresses{id=a2, user_id=u1, city=city 2}[]], "
+				+ "orders{id=o1, main_id=1}[], orders{id=o2, main_id=1}[]]", render(batchResults.get(0)));
+		Assert.assertEquals("[]", render(batchResults.get(3)));
+	}
+
+	private Object lookupTask(Map<String, Object> data, List<MergeLookupResult> mergeLookupResults) throws Exception {
+		Constructor<?> constructor = Class.forName(HazelcastMergeNode.class.getName() + "$LookupTask")
+				.getDeclaredConstructor(TapdataEvent.class, MergeTableProperties.class, Map.class, List.class);
+		constructor.setAccessible(true);
+		return constructor.newInstance(new TapdataEvent(), mainProperty, data, mergeLookupResults);
+	}
+
+	private static String render(List<MergeLookupResult> mergeLookupResults) {
+		if (null == mergeLookupResults) {
+			return "[]";
+		}
+		List<String> rendered = new ArrayList<>();
+		for (MergeLookupResult mergeLookupResult : mergeLookupResults) {
+			rendered.add(mergeLookupResult.getProperty().getTargetPath() + mergeLookupResult.getData() + render(mergeLookupResult.getMergeLookupResults()));
+		}
+		return rendered.toString();
+	}
+
+	private HazelcastConstruct<Document> construct(String cacheId) {
+		Map<String, Document> cache = caches.get(cacheId);
+		return new HazelcastConstruct<Document>() {
+			@Override
+			public Document find(String key) {
+				Document document = cache.get(key);
+				// Like a real cache, every read gets its own copy
+				return null == document ? null : new Document(document);
+			}
+
+			@Override
+			public Map<String, Object> findAll(Set<String> keys) {
+				findAllCalls.incrementAndGet();
+				Map<String, Object> found = new HashMap<>();
+				for (String key : keys) {
+					Document document = find(key);
+					if (null != document) {
+						found.put(key, document);
+					}
+				}
+				return found;
+			}
+
+			@Override
+			public String getName() {
+				return cacheId;
+			}
+		};
+	}
+
+	private void cacheRow(String cacheId, String joinValue, Map<String, Object> row) {
+		String key = Base64.getEncoder().encodeToString(joinValue.getBytes(StandardCharsets.UTF_8));
+		caches.computeIfAbsent(cacheId, k -> new HashMap<>()).computeIfAbsent(key, k -> new Document()).put(String.valueOf(row.get("id")), row);
+	}
+
+	private static MergeTableProperties property(String id, MergeTableProperties.MergeType mergeType, String sourceJoinKey, String targetJoinKey,
+												 String targetPath, List<MergeTableProperties> children) {
+		MergeTableProperties mergeTableProperties = new MergeTableProperties();
+		mergeTableProperties.setId(id);
+		mergeTableProperties.setMergeType(mergeType);
+		mergeTableProperties.setTargetPath(targetPath);
+		mergeTableProperties.setChildren(children);
+		if (null != sourceJoinKey) {
+			Map<String, String> joinKey = new HashMap<>();
+			joinKey.put("source", sourceJoinKey);
+			joinKey.put("target", targetJoinKey);
+			mergeTableProperties.setJoinKeys(Collections.singletonList(joinKey));
+		}
+		return mergeTableProperties;
+	}
+
+	private static Map<String, Object> row(Object... keyValues) {
+		Map<String, Object> row = new LinkedHashMap<>();
+		for (int i = 0; i < keyValues.length; i += 2) {
+			row.put((String) keyValues[i], keyValues[i + 1]);
+		}
+		return row;
+	}
+
+	private void setField(String name, Object value) throws Exception {
+		Field field = HazelcastMergeNode.class.getDeclaredField(name);
+		field.setAccessible(true);
+		field.set(mergeNode, value);
+	}
+
+	private static Unsafe unsafe() throws Exception {
+		Field field = Unsafe.class.getDeclaredField("theUnsafe");
+		field.setAccessible(true);
+		return (Unsafe) field.get(null);
+	}
+}
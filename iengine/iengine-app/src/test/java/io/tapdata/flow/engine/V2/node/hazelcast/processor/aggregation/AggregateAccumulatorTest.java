@@ -0,0 +1,201 @@
+package io.tapdata.flow.engine.V2.node.hazelcast.processor.aggregation;
+
+import org.bson.Document;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AggregateAccumulatorTest {
+
+	@Test
+	public void testCountSumMinMax() {
+		AggregateAccumulator accumulator = new AggregateAccumulator(true);
+		Assert.assertNull(accumulator.getMin());
+		Assert.assertNull(accumulator.getMax());
+		accumulator.add(new BigDecimal("3"));
+		accumulator.add(new BigDecimal("1.5"));
+		accumulator.add(new BigDecimal("7"));
+		accumulator.add(null);
+
+		// Null value counts as a row, not as a value
+		Assert.assertEquals(4L, accumulator.getCount());
+		Assert.assertEquals(0, new BigDecimal("11.5").compareTo(accumulator.getSum()));
+		Assert.assertEquals(0, new BigDecimal("1.5").compareTo(accumulator.getMin()));
+		Assert.assertEquals(0, new BigDecimal("7").compareTo(accumulator.getMax()));
+		Assert.assertEquals(3, accumulator.distinctValues());
+	}
+
+	@Test
+	public void testRetractOnDelete() {
+		AggregateAccumulator accumulator = new AggregateAccumulator(true);
+		accumulator.add(new BigDecimal("5"));
+		accumulator.add(new BigDecimal("9"));
+		accumulator.add(new BigDecimal("9"));
+		accumulator.add(new BigDecimal("2"));
+
+		// One of two rows of the max is deleted, max stays
+		accumulator.retract(new BigDecimal("9"));
+		Assert.assertEquals(0, new BigDecimal("9").compareTo(accumulator.getMax()));
+		accumulator.retract(new BigDecimal("9.0"));
+		Assert.assertEquals(0, new BigDecimal("5").compareTo(accumulator.getMax()));
+		accumulator.retract(new BigDecimal("2"));
+		Assert.assertEquals(0, new BigDecimal("5").compareTo(accumulator.getMin()));
+		Assert.assertEquals(1L, accumulator.getCount());
+		Assert.assertEquals(0, new BigDecimal("5").compareTo(accumulator.getSum()));
+
+		accumulator.retract(new BigDecimal("5"));
+		Assert.assertEquals(0L, accumulator.getCount());
+		Assert.assertEquals(0, BigDecimal.ZERO.compareTo(accumulator.getSum()));
+		Assert.assertNull(accumulator.getMin());
+		Assert.assertNull(accumulator.getMax());
+		Assert.assertEquals(0, accumulator.distinctValues());
+	}
+
+	@Test
+	public void testReplaceOnUpdate() {
+		AggregateAccumulator accumulator = new AggregateAccumulator(true);
+		accumulator.add(new BigDecimal("1"));
+		accumulator.add(new BigDecimal("10"));
+
+		accumulator.replace(new BigDecimal("10"), new BigDecimal("4"));
+		Assert.assertEquals(2L, accumulator.getCount());
+		Assert.assertEquals(0, new BigDecimal("5").compareTo(accumulator.getSum()));
+		Assert.assertEquals(0, new BigDecimal("4").compareTo(accumulator.getMax()));
+
+		// Value set to null, the row stays
+		accumulator.replace(new BigDecimal("1"), null);
+		Assert.assertEquals(2L, accumulator.getCount());
+		Assert.assertEquals(0, new BigDecimal("4").compareTo(accumulator.getMin()));
+		accumulator.replace(null, new BigDecimal("-3"));
+		Assert.assertEquals(0, new BigDecimal("-3").compareTo(accumulator.getMin()));
+		Assert.assertEquals(0, BigDecimal.ONE.compareTo(accumulator.getSum()));
+	}
+
+	@Test
+	public void testWithoutTrackValues() {
+		Assert.assertTrue(AggregateAccumulator.trackValues("max"));
+		Assert.assertTrue(AggregateAccumulator.trackValues("MIN"));
+		Assert.assertFalse(AggregateAccumulator.trackValues("SUM"));
+		AggregateAccumulator accumulator = new AggregateAccumulator(false);
+		accumulator.add(new BigDecimal("2"));
+		accumulator.add(new BigDecimal("3"));
+		accumulator.retract(new BigDecimal("2"));
+		Assert.assertEquals(1L, accumulator.getCount());
+		Assert.assertEquals(0, new BigDecimal("3").compareTo(accumulator.getSum()));
+		Assert.assertNull(accumulator.getMax());
+		Assert.assertFalse(accumulator.toDocument().containsKey("values"));
+		Assert.assertFalse(accumulator.toDocument().containsKey("pages"));
+	}
+
+	@Test
+	public void testDocumentRoundTrip() {
+		Map<Long, Document> pageStore = new HashMap<>();
+		AggregateAccumulator accumulator = new AggregateAccumulator(true);
+		accumulator.add(new BigDecimal("0.1"));
+		accumulator.add(new BigDecimal("0.1"));
+		accumulator.add(new BigDecimal("12345678901234567890.5"));
+		Document document = save(accumulator, pageStore);
+
+		AggregateAccumulator restored = AggregateAccumulator.fromDocument(document, true, pageStore::get);
+		Assert.assertEquals(3L, restored.getCount());
+		Assert.assertEquals(0, accumulator.getSum().compareTo(restored.getSum()));
+		Assert.assertEquals(0, new BigDecimal("0.1").compareTo(restored.getMin()));
+		Assert.assertEquals(0, new BigDecimal("12345678901234567890.5").compareTo(restored.getMax()));
+		// Value counts are restored, retracting one of the two min rows keeps the min
+		restored.retract(new BigDecimal("0.1"));
+		Assert.assertEquals(0, new BigDecimal("0.1").compareTo(restored.getMin()));
+
+		AggregateAccumulator empty = AggregateAccumulator.fromDocument(null, true);
+		Assert.assertEquals(0L, empty.getCount());
+		Assert.assertEquals(0, BigDecimal.ZERO.compareTo(empty.getSum()));
+	}
+
+	@Test
+	public void testValuesSplitIntoPages() throws Exception {
+		Map<Long, Document> pageStore = new HashMap<>();
+		AggregateAccumulator accumulator = new AggregateAccumulator(true, 4);
+		for (int i = 1; i <= 20; i++) {
+			accumulator.add(BigDecimal.valueOf(i));
+		}
+		Assert.assertEquals(20, accumulator.distinctValues());
+		Assert.assertTrue(accumulator.pageIds().size() > 1);
+		Document document = save(accumulator, pageStore);
+		// Group document only keeps page ranges
+		Assert.assertFalse(document.containsKey("values"));
+		Assert.assertEquals(accumulator.pageIds().size(), ((List<?>) document.get("pages")).size());
+		for (Document page : pageStore.values()) {
+			Assert.assertTrue(((List<?>) page.get("values")).size() <= 4);
+		}
+
+		List<Long> loadedPages = new ArrayList<>();
+		AggregateAccumulator restored = AggregateAccumulator.fromDocument(document, true, pageId -> {
+			loadedPages.add(pageId);
+			return pageStore.get(pageId);
+		});
+		// Min and max come from the page ranges, no page is loaded
+		Assert.assertEquals(0, BigDecimal.ONE.compareTo(restored.getMin()));
+		Assert.assertEquals(0, new BigDecimal("20").compareTo(restored.getMax()));
+		Assert.assertTrue(loadedPages.isEmpty());
+
+		// Only the page of the value is loaded and written back
+		restored.retract(new BigDecimal("20"));
+		Assert.assertEquals(1, loadedPages.size());
+		Assert.assertEquals(0, new BigDecimal("19").compareTo(restored.getMax()));
+		Assert.assertEquals(1, restored.dirtyPages().size());
+	}
+
+	@Test
+	public void testEmptiedPagesAreRemoved() throws Exception {
+		Map<Long, Document> pageStore = new HashMap<>();
+		AggregateAccumulator accumulator = new AggregateAccumulator(true, 4);
+		for (int i = 1; i <= 12; i++) {
+			accumulator.add(BigDecimal.valueOf(i));
+		}
+		AggregateAccumulator restored = AggregateAccumulator.fromDocument(save(accumulator, pageStore), true, pageStore::get);
+		int pages = restored.pageIds().size();
+		// Remove the lowest values until the first page is empty
+		for (int i = 1; i <= 12 && restored.pageIds().size() == pages; i++) {
+			restored.retract(BigDecimal.valueOf(i));
+		}
+		Assert.assertEquals(pages - 1, restored.pageIds().size());
+		Assert.assertEquals(1, restored.removedPageIds().size());
+		Assert.assertFalse(restored.pageIds().containsAll(restored.removedPageIds()));
+
+		AggregateAccumulator again = AggregateAccumulator.fromDocument(save(restored, pageStore), true, pageStore::get);
+		Assert.assertEquals(restored.getMin(), again.getMin());
+		Assert.assertEquals(restored.distinctValues(), again.distinctValues());
+		// Retracting a value not in any page only changes count and sum
+		again.retract(new BigDecimal("100"));
+		Assert.assertEquals(restored.getMax(), again.getMax());
+	}
+
+	@Test
+	public void testInlineValuesAreRead() {
+		List<Document> values = new ArrayList<>();
+		values.add(new Document("v", "3").append("c", 2L));
+		values.add(new Document("v", "8").append("c", 1L));
+		Document document = new Document("count", 3L).append("sum", "14").append("values", values);
+
+		AggregateAccumulator accumulator = AggregateAccumulator.fromDocument(document, true);
+		Assert.assertEquals(0, new BigDecimal("3").compareTo(accumulator.getMin()));
+		Assert.assertEquals(0, new BigDecimal("8").compareTo(accumulator.getMax()));
+		accumulator.retract(new BigDecimal("3"));
+		Assert.assertEquals(0, new BigDecimal("3").compareTo(accumulator.getMin()));
+		// The values are moved into pages on the next save
+		Assert.assertEquals(1, accumulator.dirtyPages().size());
+		Assert.assertFalse(accumulator.toDocument().containsKey("values"));
+	}
+
+	private static Document save(AggregateAccumulator accumulator, Map<Long, Document> pageStore) {
+		pageStore.putAll(accumulator.dirtyPages());
+		for (Long pageId : accumulator.removedPageIds()) {
+			pageStore.remove(pageId);
+		}
+		return accumulator.toDocument();
+	}
+}
@@ -0,0 +1,240 @@
+package io.tapdata.flow.engine.V2.script;
+
+import io.tapdata.entity.logger.TapLog;
+import org.graalvm.polyglot.PolyglotException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Borrow, reuse and discard of pooled js contexts, and the per record fallback of scripts without a batch function
+ */
+public class JsContextPoolTest {
+
+	private JsContextPool pool;
+
+	@After
+	public void tearDown() {
+		if (null != pool) {
+			pool.close();
+		}
+	}
+
+	@Test
+	public void testPerRecordFallbackSetsContextOfEachRecord() throws Exception {
+		pool = pool(2, "function process(record) { record.table = context.tableName; return record; }");
+
+		List<Object> results = pool.invokeBatch(records(1, 2), Arrays.asList(context("a"), context("b")));
+
+		Assert.assertEquals(2, results.size());
+		Assert.assertEquals("a", ((Map<?, ?>) results.get(0)).get("table"));
+		Assert.assertEquals("b", ((Map<?, ?>) results.get(1)).get("table"));
+		Assert.assertEquals(1, ((Number) ((Map<?, ?>) results.get(0)).get("id")).intValue());
+	}
+
+	@Test
+	public void testBatchFunctionCalledOnceForBatch() throws Exception {
+		pool = pool(2, "var calls = 0;\n" +
+				"function process(record) { throw 'per record function should not be called'; }\n" +
+				"function processBatch(records, contexts) {\n" +
+				"\tcalls++;\n" +
+				"\treturn records.map(function (record, i) { record.calls = calls; return i === 1 ? null : [record, record]; });\n" +
+				"}");
+
+		List<Object> results = pool.invokeBatch(records(1, 2), Arrays.asList(context("t"), context("t")));
+
+		// A list result is a list of maps, null filters the record
+		Assert.assertEquals(2, ((List<?>) results.get(0)).size());
+		Assert.assertEquals(1, ((Number) ((Map<?, ?>) ((List<?>) results.get(0)).get(0)).get("calls")).intValue());
+		Assert.assertNull(results.get(1));
+	}
+
+	@Test
+	public void testBatchFunctionWithWrongResultSize() throws Exception {
+		pool = pool(1, "function processBatch(records, contexts) { return [records[0]]; }");
+
+		try {
+			pool.invokeBatch(records(1, 2), Arrays.asList(context("t"), context("t")));
+			Assert.fail("results of a wrong size should be rejected");
+		} catch (IllegalStateException e) {
+			Assert.assertTrue(e.getMessage().contains("processBatch"));
+		}
+		// A script error does not break the context, it is put back for the next batch
+		Assert.assertEquals(1, pool.getSize());
+		Assert.assertEquals(1, pool.invokeBatch(records(1), Collections.singletonList(context("t"))).size());
+	}
+
+	@Test
+	public void testSameThreadReusesItsContext() throws Exception {
+		pool = pool(2, "var count = 0;\n" +
+				"function process(record) { record.count = ++count; return record; }");
+
+		pool.invokeBatch(records(1), Collections.singletonList(context("t")));
+		List<Object> results = pool.invokeBatch(records(2), Collections.singletonList(context("t")));
+
+		// Globals of the script stay with the worker, no second context is created
+		Assert.assertEquals(2, ((Number) ((Map<?, ?>) results.get(0)).get("count")).intValue());
+		Assert.assertEquals(1, pool.getSize());
+	}
+
+	@Test
+	public void testConcurrentBatchesBorrowUpToMaxSize() throws Exception {
+		CountDownLatch allRunning = new CountDownLatch(2);
+		pool = pool(2, Collections.singletonMap("allRunning", allRunning),
+				"function process(record) { allRunning.countDown(); allRunning.await(); return record; }");
+
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			Thread thread = new Thread(() -> {
+				try {
+					pool.invokeBatch(records(1), Collections.singletonList(context("t")));
+				} catch (Throwable e) {
+					error.set(e);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join(TimeUnit.SECONDS.toMillis(30L));
+			Assert.assertFalse(thread.isAlive());
+		}
+
+		// Each thread held its own context at the same time
+		Assert.assertNull(error.get());
+		Assert.assertEquals(2, pool.getSize());
+	}
+
+	@Test
+	public void testEachContextGetsItsOwnBindings() throws Exception {
+		CountDownLatch allRunning = new CountDownLatch(2);
+		AtomicInteger contextCount = new AtomicInteger();
+		List<Map<String, Object>> created = new CopyOnWriteArrayList<>();
+		List<Map<String, Object>> released = new CopyOnWriteArrayList<>();
+		pool = new JsContextPool("test", Collections.singletonList(
+				"function process(record) { allRunning.countDown(); allRunning.await(); record.owner = owner.get(); return record; }"),
+				new JsContextPool.ContextBindings() {
+					@Override
+					public Map<String, Object> create() {
+						Map<String, Object> bindings = new HashMap<>();
+						bindings.put("allRunning", allRunning);
+						bindings.put("owner", new AtomicReference<>("context-" + contextCount.incrementAndGet()));
+						created.add(bindings);
+						return bindings;
+					}
+
+					@Override
+					public void release(Map<String, Object> bindings) {
+						released.add(bindings);
+					}
+				}, new TapLog(), JsContextPoolTest.class.getClassLoader(), 2);
+
+		List<Object> owners = new CopyOnWriteArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			Thread thread = new Thread(() -> {
+				try {
+					owners.add(((Map<?, ?>) pool.invokeBatch(records(1), Collections.singletonList(context("t"))).get(0)).get("owner"));
+				} catch (Throwable e) {
+					owners.add(e);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join(TimeUnit.SECONDS.toMillis(30L));
+			Assert.assertFalse(thread.isAlive());
+		}
+
+		// Two threads at the same time never share the objects of a context
+		Assert.assertEquals(2, created.size());
+		Assert.assertEquals(2, owners.size());
+		Assert.assertNotEquals(owners.get(0), owners.get(1));
+		Assert.assertTrue(released.isEmpty());
+		pool.close();
+		Assert.assertEquals(created.size(), released.size());
+		Assert.assertTrue(released.containsAll(created));
+	}
+
+	@Test
+	public void testCancelledContextIsDiscarded() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		pool = pool(1, Collections.singletonMap("started", started),
+				"function process(record) { started.countDown(); while (true) {} }");
+
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		Thread thread = new Thread(() -> {
+			try {
+				pool.invokeBatch(records(1), Collections.singletonList(context("t")));
+			} catch (Throwable e) {
+				error.set(e);
+			}
+		});
+		thread.start();
+		Assert.assertTrue(started.await(30L, TimeUnit.SECONDS));
+		pool.close();
+		thread.join(TimeUnit.SECONDS.toMillis(30L));
+
+		Assert.assertFalse(thread.isAlive());
+		Assert.assertTrue(error.get() instanceof PolyglotException);
+		Assert.assertTrue(((PolyglotException) error.get()).isCancelled());
+		Assert.assertEquals(0, pool.getSize());
+		try {
+			pool.invokeBatch(records(1), Collections.singletonList(context("t")));
+			Assert.fail("closed pool should not create contexts");
+		} catch (IllegalStateException e) {
+			Assert.assertEquals(0, pool.getSize());
+		}
+	}
+
+	@Test
+	public void testScriptErrorOnInit() {
+		pool = pool(1, "function process(record) {");
+		try {
+			pool.init();
+			Assert.fail("script error should be thrown on init");
+		} catch (RuntimeException e) {
+			Assert.assertTrue(e.getMessage().contains("script eval error"));
+		}
+		// The slot of the failed context is given back
+		Assert.assertEquals(0, pool.getSize());
+	}
+
+	private static JsContextPool pool(int maxSize, String script) {
+		return pool(maxSize, Collections.emptyMap(), script);
+	}
+
+	private static JsContextPool pool(int maxSize, Map<String, Object> bindings, String script) {
+		return new JsContextPool("test", Collections.singletonList(script), bindings, new TapLog(), JsContextPoolTest.class.getClassLoader(), maxSize);
+	}
+
+	private static List<Map<String, Object>> records(int... ids) {
+		List<Map<String, Object>> records = new ArrayList<>();
+		for (int id : ids) {
+			Map<String, Object> record = new HashMap<>();
+			record.put("id", id);
+			records.add(record);
+		}
+		return records;
+	}
+
+	private static Map<String, Object> context(String tableName) {
+		Map<String, Object> context = new HashMap<>();
+		context.put("tableName", tableName);
+		return context;
+	}
+}
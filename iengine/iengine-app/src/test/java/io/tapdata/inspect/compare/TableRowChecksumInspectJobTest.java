@@ -0,0 +1,124 @@
+package io.tapdata.inspect.compare;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row hashes of the checksum inspection, rows the row compare sees as different must never hash the same
+ */
+public class TableRowChecksumInspectJobTest {
+
+	@Test
+	public void testNumbersHashByValue() {
+		Assert.assertEquals(hash(1), hash(1L));
+		Assert.assertEquals(hash(1), hash(1.0D));
+		Assert.assertEquals(hash(1), hash(new BigDecimal("1.000")));
+		Assert.assertEquals(hash(100), hash(new BigDecimal("1E+2")));
+		Assert.assertNotEquals(hash(1), hash(10));
+		Assert.assertNotEquals(hash(1), hash(1.5F));
+		Assert.assertEquals(hash(Double.NaN), hash(Float.NaN));
+	}
+
+	@Test
+	public void testTypeTagsAndDelimiters() {
+		Assert.assertNotEquals(hash(1), hash("1"));
+		Assert.assertNotEquals(hash((Object) null), hash(""));
+		Assert.assertNotEquals(hash(Arrays.asList("ab", "c")), hash(Arrays.asList("a", "bc")));
+		Assert.assertNotEquals(hash(Collections.singletonList(Collections.emptyList())), hash(Collections.emptyList()));
+		Assert.assertNotEquals(hash(Collections.singletonMap("a", "b")), hash(Arrays.asList("a", "b")));
+		// Strings are trimmed like the row compare does
+		Assert.assertEquals(hash("a"), hash(" a "));
+	}
+
+	@Test
+	public void testEquivalentValues() {
+		Assert.assertEquals(hash(Arrays.asList(1, "a")), hash(new Object[]{1L, "a"}));
+		Assert.assertEquals(hash(new Date(1000L)), hash(Instant.ofEpochMilli(1000L)));
+		Assert.assertEquals(hash("abc".getBytes()), hash("abc"));
+
+		Map<String, Object> map1 = new LinkedHashMap<>();
+		map1.put("a", 1);
+		map1.put("b", Collections.singletonMap("c", 2));
+		Map<String, Object> map2 = new LinkedHashMap<>();
+		map2.put("b", Collections.singletonMap("c", 2L));
+		map2.put("a", 1.0D);
+		Assert.assertEquals(hash(map1), hash(map2));
+	}
+
+	@Test
+	public void testHashRowWithColumns() {
+		List<String> columns = Arrays.asList("id", "name");
+		Map<String, Object> row = row("id", 1, "name", "a", "other", "x");
+
+		// Columns not hashed do not change the hash
+		Assert.assertEquals(TableRowChecksumInspectJob.hashRow(row, columns), TableRowChecksumInspectJob.hashRow(row("id", 1, "name", "a"), columns));
+		Assert.assertNotEquals(TableRowChecksumInspectJob.hashRow(row, columns), TableRowChecksumInspectJob.hashRow(row("id", 1, "name", "b"), columns));
+		// Values are hashed in column order, without names
+		Assert.assertNotEquals(TableRowChecksumInspectJob.hashRow(row("id", "a", "name", 1), columns), TableRowChecksumInspectJob.hashRow(row, columns));
+		Assert.assertEquals(TableRowChecksumInspectJob.hashRow(row("id", 1), columns), TableRowChecksumInspectJob.hashRow(row("id", 1, "name", null), columns));
+	}
+
+	@Test
+	public void testHashRowWithAllColumns() {
+		Map<String, Object> row = row("id", 1, "name", "a");
+
+		Assert.assertEquals(TableRowChecksumInspectJob.hashRow(row, null), TableRowChecksumInspectJob.hashRow(row("name", "a", "id", 1), null));
+		// Missing fields equal null fields
+		Assert.assertEquals(TableRowChecksumInspectJob.hashRow(row, null), TableRowChecksumInspectJob.hashRow(row("id", 1, "name", "a", "other", null), null));
+		// Names are hashed, the same values under other names differ
+		Assert.assertNotEquals(TableRowChecksumInspectJob.hashRow(row, null), TableRowChecksumInspectJob.hashRow(row("id", 1, "title", "a"), null));
+	}
+
+	@Test
+	public void testChunkDigestIgnoresRowOrder() {
+		HashCode hash1 = TableRowChecksumInspectJob.hashRow(row("id", 1), null);
+		HashCode hash2 = TableRowChecksumInspectJob.hashRow(row("id", 2), null);
+		HashCode hash3 = TableRowChecksumInspectJob.hashRow(row("id", 3), null);
+
+		TableRowChecksumInspectJob.ChunkDigest digest1 = digest(hash1, hash2, hash3);
+		TableRowChecksumInspectJob.ChunkDigest digest2 = digest(hash3, hash1, hash2);
+		Assert.assertEquals(digest1, digest2);
+		Assert.assertEquals(digest1.hashCode(), digest2.hashCode());
+
+		Assert.assertNotEquals(digest1, digest(hash1, hash2));
+		Assert.assertNotEquals(digest1, digest(hash1, hash2, hash2));
+		// Only the count is known when counts are pushed down
+		Assert.assertEquals(new TableRowChecksumInspectJob.ChunkDigest(0), digest());
+		Assert.assertNotEquals(new TableRowChecksumInspectJob.ChunkDigest(3), digest1);
+	}
+
+	private static HashCode hash(Object value) {
+		Hasher hasher = Hashing.murmur3_128().newHasher();
+		TableRowChecksumInspectJob.putValue(hasher, value);
+		return hasher.hash();
+	}
+
+	private static TableRowChecksumInspectJob.ChunkDigest digest(HashCode... hashCodes) {
+		TableRowChecksumInspectJob.ChunkDigest digest = new TableRowChecksumInspectJob.ChunkDigest(0);
+		for (HashCode hashCode : hashCodes) {
+			digest.add(hashCode);
+		}
+		return digest;
+	}
+
+	private static Map<String, Object> row(Object... keyValues) {
+		Map<String, Object> row = new HashMap<>();
+		for (int i = 0; i < keyValues.length; i += 2) {
+			row.put((String) keyValues[i], keyValues[i + 1]);
+		}
+		return row;
+	}
+}
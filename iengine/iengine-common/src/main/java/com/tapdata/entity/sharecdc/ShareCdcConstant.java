@@ -7,4 +7,16 @@ package com.tapdata.entity.sharecdc;
  **/
 public class ShareCdcConstant {
 	public static final String SETTING_SHARE_CDC_ENABLE = "share_cdc_enable";
+	/**
+	 * Log collector writes all tables into one ring buffer with a per table sequence range index, instead of one ring
+	 * buffer per table. Readers detect it by {@link #SHARED_LOG_MARKER_KEY} in the index
+	 */
+	public static final String SHARED_LOG_ENABLE_KEY = "SHARE_CDC_SHARED_LOG_ENABLE";
+	public static final String SHARED_LOG_MARKER_KEY = "__SHARED_LOG__";
+	public static final String SHARED_LOG_RANGES_FIELD = "ranges";
+	/**
+	 * Sequences of a table closer than this are indexed as one range
+	 */
+	public static final long SHARED_LOG_INDEX_MERGE_GAP = 1000L;
+	public static final int SHARED_LOG_INDEX_MAX_RANGES = 4096;
 }
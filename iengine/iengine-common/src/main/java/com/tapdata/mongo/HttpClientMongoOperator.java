@@ -19,6 +19,7 @@ import com.tapdata.entity.User;
 import com.tapdata.entity.dataflow.DataFlow;
 import com.tapdata.tm.commons.task.dto.TaskDto;
 import io.tapdata.exception.ManagementException;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.ArrayUtils;
@@ -54,6 +55,8 @@ public class HttpClientMongoOperator extends ClientMongoOperator {
 
 	private ConfigurationCenter configCenter;
 
+	private volatile RestRequestCoalescer requestCoalescer;
+
 	private final static int EXCLUDE_MODE = 0;
 	private final static int INCLUDE_MODE = 1;
 	private final static int ALL_MODE = 2;
@@ -449,6 +452,9 @@ public class HttpClientMongoOperator extends ClientMongoOperator {
 
 		validateToken();
 
+		if (null != requestCoalescer && requestCoalescer.submit(collection, obj)) {
+			return;
+		}
 		Map<String, Object> params = new HashMap<>();
 		addToken(params);
 		restTemplateOperator.post(obj, collection, params);
@@ -469,6 +475,9 @@ public class HttpClientMongoOperator extends ClientMongoOperator {
 	public void insertMany(List<?> list, String collection) {
 		validateToken();
 
+		if (null != requestCoalescer && requestCoalescer.submit(collection, list)) {
+			return;
+		}
 		Map<String, Object> params = new HashMap<>();
 		addToken(params);
 		restTemplateOperator.post(list, collection, params);
@@ -478,6 +487,10 @@ public class HttpClientMongoOperator extends ClientMongoOperator {
 	public void insertMany(List<?> list, String collection, Predicate<?> stop) {
 		validateToken();
 
+		// A coalesced write waits for the bulk request, stop only applies to a direct post
+		if (null != requestCoalescer && requestCoalescer.submit(collection, list)) {
+			return;
+		}
 		Map<String, Object> params = new HashMap<>();
 		addToken(params);
 		restTemplateOperator.post(list, collection, params, stop);
@@ -492,8 +505,36 @@ public class HttpClientMongoOperator extends ClientMongoOperator {
 		restTemplateOperator.post(list, collection + "/batch", params, stop);
 	}
 
+	/**
+	 * Merge sync progress saves, share cdc table metrics and monitoring logs of all tasks into bulk requests
+	 */
+	public synchronized void enableRequestCoalescing() {
+		if (null != requestCoalescer) {
+			return;
+		}
+		String syncProgressPrefix = ConnectorConstant.TASK_COLLECTION + "/syncProgress/";
+		String shareCdcTableMetrics = ConnectorConstant.SHARE_CDC_TABLE_METRICS_COLLECTION + "/saveOrUpdateDaily";
+		requestCoalescer = new RestRequestCoalescer(
+				(resource, body) -> {
+					validateToken();
+					Map<String, Object> params = new HashMap<>();
+					addToken(params);
+					restTemplateOperator.post(body, resource, params);
+				},
+				restTemplateOperator.getMetrics(),
+				CommonUtils.getPropertyLong(RestRequestCoalescer.MANAGER_REST_COALESCE_LINGER_MS_KEY, 200L),
+				CommonUtils.getPropertyInt(RestRequestCoalescer.MANAGER_REST_COALESCE_MAX_BATCH_KEY, 100))
+				.register(syncProgressPrefix + "batch", resource -> resource.startsWith(syncProgressPrefix), RestRequestCoalescer.MAP_BY_RESOURCE_ID_MERGER)
+				.register(shareCdcTableMetrics, shareCdcTableMetrics::equals, RestRequestCoalescer.LIST_MERGER)
+				.register("MonitoringLogs/batch", "MonitoringLogs/batch"::equals, RestRequestCoalescer.LIST_MERGER)
+				.register("MonitoringLogs/batchJson", "MonitoringLogs/batchJson"::equals, RestRequestCoalescer.LIST_MERGER);
+	}
+
 	@Override
 	public void releaseResource() {
+		if (null != requestCoalescer) {
+			requestCoalescer.close();
+		}
 		if (mongoTemplate != null) {
 			Mongo mongo = mongoTemplate.getMongoDbFactory().getLegacyDb().getMongo();
 			mongo.close();
@@ -0,0 +1,252 @@
+package com.tapdata.mongo;
+
+import io.tapdata.exception.ManagementException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Merge writes to the same manager endpoint into one bulk request.
+ * <p>
+ * A write is queued under the first registered rule matching its resource, the queue is flushed every linger time or
+ * once it reaches max batch size, one flush at a time per rule. The caller waits until the bulk request carrying its
+ * write is done, and gets the error if it failed, so a write is never acknowledged before the manager has it.
+ */
+public class RestRequestCoalescer implements Closeable {
+	public static final String MANAGER_REST_COALESCE_ENABLE_KEY = "MANAGER_REST_COALESCE_ENABLE";
+	public static final String MANAGER_REST_COALESCE_LINGER_MS_KEY = "MANAGER_REST_COALESCE_LINGER_MS";
+	public static final String MANAGER_REST_COALESCE_MAX_BATCH_KEY = "MANAGER_REST_COALESCE_MAX_BATCH";
+	private static final Logger logger = LogManager.getLogger(RestRequestCoalescer.class);
+
+	/**
+	 * Merge queued bodies into the body of the bulk request
+	 */
+	public interface BulkMerger {
+		Object merge(List<String> resources, List<Object> bodies);
+	}
+
+	/**
+	 * Concatenate list bodies, for endpoints accepting a list
+	 */
+	public static final BulkMerger LIST_MERGER = (resources, bodies) -> {
+		List<Object> merged = new ArrayList<>();
+		for (Object body : bodies) {
+			merged.addAll((List<?>) body);
+		}
+		return merged;
+	};
+
+	/**
+	 * Group map bodies by the last path segment of their resources, later entries override earlier ones
+	 */
+	public static final BulkMerger MAP_BY_RESOURCE_ID_MERGER = (resources, bodies) -> {
+		Map<String, Map<Object, Object>> merged = new LinkedHashMap<>();
+		for (int i = 0; i < resources.size(); i++) {
+			String resource = resources.get(i);
+			String id = resource.substring(resource.lastIndexOf('/') + 1);
+			merged.computeIfAbsent(id, k -> new LinkedHashMap<>()).putAll((Map<?, ?>) bodies.get(i));
+		}
+		return merged;
+	};
+
+	private final List<Rule> rules = new ArrayList<>();
+	private final Map<String, Rule> bulkResourceRules = new ConcurrentHashMap<>();
+	private final BiConsumer<String, Object> bulkPoster;
+	private final RestRequestMetrics metrics;
+	private final int maxBatch;
+	private final ScheduledExecutorService lingerExecutor;
+	private final ExecutorService flushExecutor;
+	private volatile boolean closed;
+
+	/**
+	 * @param bulkPoster post the merged body to the bulk resource, throws if it failed
+	 */
+	public RestRequestCoalescer(BiConsumer<String, Object> bulkPoster, RestRequestMetrics metrics, long lingerMs, int maxBatch) {
+		this.bulkPoster = bulkPoster;
+		this.metrics = metrics;
+		this.maxBatch = Math.max(1, maxBatch);
+		AtomicInteger threadCounter = new AtomicInteger();
+		this.lingerExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "Rest-Request-Coalescer-Linger");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.flushExecutor = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "Rest-Request-Coalescer-Flush-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		long linger = Math.max(1L, lingerMs);
+		lingerExecutor.scheduleWithFixedDelay(this::flushAll, linger, linger, TimeUnit.MILLISECONDS);
+	}
+
+	public RestRequestCoalescer register(String bulkResource, Predicate<String> resourceMatcher, BulkMerger merger) {
+		Rule rule = new Rule(bulkResource, resourceMatcher, merger);
+		synchronized (rules) {
+			rules.add(rule);
+		}
+		bulkResourceRules.put(bulkResource, rule);
+		return this;
+	}
+
+	/**
+	 * Queue the write and wait until it is posted in a bulk request
+	 *
+	 * @return false if no rule matches the resource, the caller should post it directly
+	 */
+	public boolean submit(String resource, Object body) {
+		Rule rule = match(resource);
+		if (null == rule || closed) {
+			return false;
+		}
+		PendingWrite pendingWrite = new PendingWrite(resource, body);
+		rule.queue.offer(pendingWrite);
+		metrics.queued(rule.bulkResource, 1);
+		int queuedSize = rule.queuedSize.incrementAndGet();
+		if (closed) {
+			// Closed after the check, no more linger ticks
+			flush(rule);
+		} else if (queuedSize >= maxBatch) {
+			scheduleFlush(rule);
+		}
+		try {
+			pendingWrite.future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ManagementException("Interrupted while waiting for bulk request " + rule.bulkResource, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new ManagementException("Bulk request " + rule.bulkResource + " failed, " + cause.getMessage(), cause);
+		}
+		return true;
+	}
+
+	private Rule match(String resource) {
+		synchronized (rules) {
+			for (Rule rule : rules) {
+				if (rule.resourceMatcher.test(resource)) {
+					return rule;
+				}
+			}
+		}
+		return null;
+	}
+
+	private void flushAll() {
+		for (Rule rule : bulkResourceRules.values()) {
+			if (!rule.queue.isEmpty()) {
+				scheduleFlush(rule);
+			}
+		}
+	}
+
+	private void scheduleFlush(Rule rule) {
+		if (rule.flushing.compareAndSet(false, true)) {
+			try {
+				flushExecutor.execute(() -> flush(rule));
+			} catch (RuntimeException e) {
+				rule.flushing.set(false);
+				throw e;
+			}
+		}
+	}
+
+	private void flush(Rule rule) {
+		try {
+			List<PendingWrite> batch = new ArrayList<>(maxBatch);
+			PendingWrite pendingWrite;
+			do {
+				batch.clear();
+				while (batch.size() < maxBatch && null != (pendingWrite = rule.queue.poll())) {
+					batch.add(pendingWrite);
+				}
+				if (batch.isEmpty()) {
+					break;
+				}
+				rule.queuedSize.addAndGet(-batch.size());
+				metrics.queued(rule.bulkResource, -batch.size());
+				post(rule, batch);
+			} while (batch.size() >= maxBatch);
+		} finally {
+			rule.flushing.set(false);
+		}
+		// Writes queued after the last poll and before the flag reset are picked up by the next linger tick
+	}
+
+	private void post(Rule rule, List<PendingWrite> batch) {
+		try {
+			List<String> resources = new ArrayList<>(batch.size());
+			List<Object> bodies = new ArrayList<>(batch.size());
+			for (PendingWrite write : batch) {
+				resources.add(write.resource);
+				bodies.add(write.body);
+			}
+			bulkPoster.accept(rule.bulkResource, rule.merger.merge(resources, bodies));
+			metrics.writesCoalesced(rule.bulkResource, batch.size());
+			for (PendingWrite write : batch) {
+				write.future.complete(null);
+			}
+		} catch (Throwable e) {
+			logger.warn("Bulk request {} with {} writes failed, {}", rule.bulkResource, batch.size(), e.getMessage());
+			for (PendingWrite write : batch) {
+				write.future.completeExceptionally(e);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		lingerExecutor.shutdownNow();
+		for (Rule rule : bulkResourceRules.values()) {
+			flush(rule);
+		}
+		flushExecutor.shutdown();
+	}
+
+	private static class Rule {
+		private final String bulkResource;
+		private final Predicate<String> resourceMatcher;
+		private final BulkMerger merger;
+		private final ConcurrentLinkedQueue<PendingWrite> queue = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger queuedSize = new AtomicInteger();
+		private final AtomicBoolean flushing = new AtomicBoolean();
+
+		private Rule(String bulkResource, Predicate<String> resourceMatcher, BulkMerger merger) {
+			this.bulkResource = bulkResource;
+			this.resourceMatcher = resourceMatcher;
+			this.merger = merger;
+		}
+	}
+
+	private static class PendingWrite {
+		private final String resource;
+		private final Object body;
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		private PendingWrite(String resource, Object body) {
+			this.resource = resource;
+			this.body = body;
+		}
+	}
+}
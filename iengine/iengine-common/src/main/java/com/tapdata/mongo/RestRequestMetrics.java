@@ -0,0 +1,151 @@
+package com.tapdata.mongo;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Latency and queue depth of manager requests by endpoint, logged every report interval.
+ * <p>
+ * Endpoint is the request path without base url and query, ids in the path are replaced with {@link #ID}.
+ */
+public class RestRequestMetrics {
+	public static final String MANAGER_REST_METRICS_REPORT_INTERVAL_SECONDS_KEY = "MANAGER_REST_METRICS_REPORT_INTERVAL_SECONDS";
+	private static final Logger logger = LogManager.getLogger(RestRequestMetrics.class);
+	private static final String ID = ":id";
+	private static final Pattern ID_PATTERN = Pattern.compile("^([0-9a-fA-F]{24}|[0-9a-fA-F-]{36}|\\d+)$");
+
+	private final Map<String, EndpointStats> endpointStats = new ConcurrentHashMap<>();
+	private final long reportIntervalMs;
+	private final AtomicLong lastReportTime = new AtomicLong(System.currentTimeMillis());
+
+	public RestRequestMetrics(long reportIntervalMs) {
+		this.reportIntervalMs = reportIntervalMs;
+	}
+
+	public void requestCompleted(String endpoint, long latencyMs, boolean success) {
+		EndpointStats stats = stats(endpoint);
+		stats.requests.increment();
+		if (!success) {
+			stats.errors.increment();
+		}
+		stats.latencyTotal.add(latencyMs);
+		stats.latencyMax.accumulate(latencyMs);
+		reportIfNeed();
+	}
+
+	public void readDeduplicated(String endpoint) {
+		stats(endpoint).deduplicated.increment();
+	}
+
+	public void writesCoalesced(String endpoint, int writes) {
+		stats(endpoint).coalesced.add(writes);
+	}
+
+	public void queued(String endpoint, int delta) {
+		stats(endpoint).queueDepth.addAndGet(delta);
+	}
+
+	public Map<String, String> snapshot() {
+		Map<String, String> snapshot = new TreeMap<>();
+		endpointStats.forEach((endpoint, stats) -> snapshot.put(endpoint, stats.toString()));
+		return snapshot;
+	}
+
+	private void reportIfNeed() {
+		if (reportIntervalMs <= 0) {
+			return;
+		}
+		long last = lastReportTime.get();
+		long now = System.currentTimeMillis();
+		if (now - last < reportIntervalMs || !lastReportTime.compareAndSet(last, now)) {
+			return;
+		}
+		Map<String, String> report = new TreeMap<>();
+		endpointStats.forEach((endpoint, stats) -> {
+			if (stats.hasActivity()) {
+				report.put(endpoint, stats.toString());
+				stats.reset();
+			}
+		});
+		if (!report.isEmpty()) {
+			logger.info("Manager requests in last {}s: {}", (now - last) / 1000, report);
+		}
+	}
+
+	private EndpointStats stats(String endpoint) {
+		return endpointStats.computeIfAbsent(endpoint, k -> new EndpointStats());
+	}
+
+	/**
+	 * @param url request url, with or without base url and query
+	 */
+	public static String endpoint(String baseURL, String url) {
+		if (url == null) {
+			return "unknown";
+		}
+		String path = url;
+		if (baseURL != null && path.startsWith(baseURL)) {
+			path = path.substring(baseURL.length());
+		}
+		int queryIndex = path.indexOf('?');
+		if (queryIndex >= 0) {
+			path = path.substring(0, queryIndex);
+		}
+		String[] segments = path.split("/");
+		StringBuilder endpoint = new StringBuilder();
+		for (String segment : segments) {
+			if (segment.isEmpty()) {
+				continue;
+			}
+			if (endpoint.length() > 0) {
+				endpoint.append('/');
+			}
+			endpoint.append(ID_PATTERN.matcher(segment).matches() ? ID : segment);
+		}
+		return endpoint.toString();
+	}
+
+	private static class EndpointStats {
+		private final LongAdder requests = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+		private final LongAdder latencyTotal = new LongAdder();
+		private final LongAccumulator latencyMax = new LongAccumulator(Long::max, 0);
+		private final LongAdder deduplicated = new LongAdder();
+		private final LongAdder coalesced = new LongAdder();
+		private final AtomicInteger queueDepth = new AtomicInteger();
+
+		private boolean hasActivity() {
+			return requests.sum() > 0 || deduplicated.sum() > 0 || queueDepth.get() > 0;
+		}
+
+		private void reset() {
+			requests.reset();
+			errors.reset();
+			latencyTotal.reset();
+			latencyMax.reset();
+			deduplicated.reset();
+			coalesced.reset();
+		}
+
+		@Override
+		public String toString() {
+			long count = requests.sum();
+			return "requests=" + count +
+					", errors=" + errors.sum() +
+					", avgMs=" + (count > 0 ? latencyTotal.sum() / count : 0) +
+					", maxMs=" + latencyMax.get() +
+					", deduplicatedReads=" + deduplicated.sum() +
+					", coalescedWrites=" + coalesced.sum() +
+					", queueDepth=" + queueDepth.get();
+		}
+	}
+}
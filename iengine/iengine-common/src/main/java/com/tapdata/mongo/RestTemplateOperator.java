@@ -15,6 +15,7 @@ import io.tapdata.exception.ManagementException;
 import io.tapdata.exception.RestAuthException;
 import io.tapdata.exception.RestDoNotRetryException;
 import io.tapdata.exception.RestException;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -57,11 +58,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 public class RestTemplateOperator {
+	public static final String MANAGER_REST_READ_DEDUPE_ENABLE_KEY = "MANAGER_REST_READ_DEDUPE_ENABLE";
 
 	private Logger logger = LogManager.getLogger(RestTemplateOperator.class);
 
@@ -83,6 +88,15 @@ public class RestTemplateOperator {
 
 	private final AtomicLong logCount = new AtomicLong(0);
 
+	private final RestRequestMetrics metrics = new RestRequestMetrics(CommonUtils.getPropertyLong(RestRequestMetrics.MANAGER_REST_METRICS_REPORT_INTERVAL_SECONDS_KEY, 300) * 1000L);
+
+	private final boolean dedupeReads = CommonUtils.getPropertyBool(MANAGER_REST_READ_DEDUPE_ENABLE_KEY, false);
+
+	/**
+	 * Identical GET requests in flight, later callers wait for the response of the first one
+	 */
+	private final Map<String, CompletableFuture<ResponseEntity<ResponseBody>>> inFlightReads = new ConcurrentHashMap<>();
+
 	private RestTemplateOperator() {
 	}
 
@@ -392,7 +406,7 @@ public class RestTemplateOperator {
 				}
 				httpEntity = new HttpEntity<>(headers);
 			}
-			ResponseEntity<ResponseBody> responseEntity = restTemplate.exchange(uri, HttpMethod.GET, httpEntity, ResponseBody.class);
+			ResponseEntity<ResponseBody> responseEntity = exchangeGet(uri, httpEntity);
 
 			if (successResp(responseEntity)) {
 				ResponseBody responseBody = responseEntity.getBody();
@@ -436,7 +450,7 @@ public class RestTemplateOperator {
 				}
 
 				URI uri = retryInfo.getURI(resource, params);
-				ResponseEntity<ResponseBody> responseEntity = restTemplate.exchange(uri, HttpMethod.GET, httpEntity, ResponseBody.class);
+				ResponseEntity<ResponseBody> responseEntity = exchangeGet(uri, httpEntity);
 
 				if (successResp(responseEntity)) {
 					ResponseBody responseBody = responseEntity.getBody();
@@ -453,8 +467,7 @@ public class RestTemplateOperator {
 					}
 					if (data instanceof List) {
 						if (CollectionUtils.isNotEmpty((List) data)) {
-							responseBody.setData(((List) data).get(0));
-							return getBody(responseBody, className);
+							return getBody(((List) data).get(0), className);
 						} else {
 							return null;
 						}
@@ -529,6 +542,54 @@ public class RestTemplateOperator {
 		return baseURLs;
 	}
 
+	public RestRequestMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * The response may be shared by identical requests, read it only
+	 */
+	private ResponseEntity<ResponseBody> exchangeGet(URI uri, HttpEntity<String> httpEntity) throws InterruptedException {
+		if (!dedupeReads) {
+			return restTemplate.exchange(uri, HttpMethod.GET, httpEntity, ResponseBody.class);
+		}
+		String key = null == httpEntity ? uri.toString() : uri + "|" + httpEntity.getHeaders();
+		CompletableFuture<ResponseEntity<ResponseBody>> future = new CompletableFuture<>();
+		CompletableFuture<ResponseEntity<ResponseBody>> inFlight = inFlightReads.putIfAbsent(key, future);
+		if (null != inFlight) {
+			metrics.readDeduplicated(endpoint(uri.toString()));
+			try {
+				return inFlight.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new ManagementException(e.getCause().getMessage(), e.getCause());
+			}
+		}
+		try {
+			ResponseEntity<ResponseBody> responseEntity = restTemplate.exchange(uri, HttpMethod.GET, httpEntity, ResponseBody.class);
+			future.complete(responseEntity);
+			return responseEntity;
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlightReads.remove(key, future);
+		}
+	}
+
+	private String endpoint(String url) {
+		if (null != baseURLs && null != url) {
+			for (String base : baseURLs) {
+				if (url.startsWith(base)) {
+					return RestRequestMetrics.endpoint(base, url);
+				}
+			}
+		}
+		return RestRequestMetrics.endpoint(null, url);
+	}
+
 	private synchronized String changeBaseURLToNext(String baseURL) {
 		int index = 0;
 
@@ -582,8 +643,10 @@ public class RestTemplateOperator {
 	}
 
 	private <T> T getBody(ResponseBody responseBody, Class<T> className) throws IOException {
+		return getBody(responseBody.getData(), className);
+	}
 
-		Object data = responseBody.getData();
+	private <T> T getBody(Object data, Class<T> className) throws IOException {
 		if (data != null) {
 			return JSONUtil.json2POJO(JSONUtil.obj2Json(data), className);
 		}
@@ -660,6 +723,17 @@ public class RestTemplateOperator {
 
 	private <T> T retryWrap(TryFunc<T> func, Predicate<?> stop) {
 		RetryInfo retryInfo = new RetryInfo(baseURL, Optional.ofNullable(getRetryTimeout).map(Supplier::get).orElse(retryTime * retryInterval));
+		boolean success = false;
+		try {
+			T result = retryWrap(retryInfo, func, stop);
+			success = true;
+			return result;
+		} finally {
+			metrics.requestCompleted(endpoint(retryInfo.reqURL), System.currentTimeMillis() - retryInfo.begin, success);
+		}
+	}
+
+	private <T> T retryWrap(RetryInfo retryInfo, TryFunc<T> func, Predicate<?> stop) {
 		do {
 			try {
 				T result = func.tryFunc(retryInfo);
@@ -65,6 +65,15 @@ public class ScriptUtil {
 
 	public static final String SCRIPT_FUNCTION_NAME = "validate";
 
+	/**
+	 * Optional function of js processor, called with an array of records and an array of their contexts, returns an
+	 * array of results in the same order. {@link #FUNCTION_NAME} is called per record when it is not defined
+	 */
+	public static final String BATCH_FUNCTION_NAME = "processBatch";
+
+	private static final String[] STANDARDIZATION_JS_UTILS = {"js/csvUtils.js", "js/arrayUtils.js", "js/dateUtils.js",
+			"js/exceptionUtils.js", "js/stringUtils.js", "js/mapUtils.js", "js/log.js"};
+
 	public static ScriptEngine getScriptEngine(String jsEngineName) {
 		return getScriptEngine(jsEngineName,
 				new LoggingOutputStream(new Log4jScriptLogger(logger), Level.INFO),
@@ -492,13 +501,9 @@ public class ScriptUtil {
 		}catch (Exception es){
 			throw new RuntimeException(String.format("Can not init standardized JS engine, %s", es.getMessage()), es);
 		}
-		evalJs(e, "js/csvUtils.js");
-		evalJs(e, "js/arrayUtils.js");
-		evalJs(e, "js/dateUtils.js");
-		evalJs(e, "js/exceptionUtils.js");
-		evalJs(e, "js/stringUtils.js");
-		evalJs(e, "js/mapUtils.js");
-		evalJs(e, "js/log.js");
+		for (String jsUtil : STANDARDIZATION_JS_UTILS) {
+			evalJs(e, jsUtil);
+		}
 
 		try {
 			e.eval(scripts);
@@ -598,12 +603,47 @@ public class ScriptUtil {
 		return buildInMethod.toString();
 	}
 
+	/**
+	 * Scripts to eval in order for a js processor engine built without javax.script, the same as
+	 * {@link #getScriptEngine} or {@link #getScriptStandardizationEngine} evaluate. The standardized scripts also need
+	 * tapUtil and tapLog bindings
+	 */
+	public static List<String> getScriptSources(String script,
+												List<JavaScriptFunctions> javaScriptFunctions,
+												ClientMongoOperator clientMongoOperator,
+												Consumer<URLClassLoader> consumer,
+												boolean standard,
+												boolean standardization) {
+		if (StringUtils.isBlank(script)) {
+			script = "function process(record){\n\treturn record;\n}";
+		}
+		List<String> sources = new ArrayList<>();
+		if (standardization) {
+			for (String jsUtil : STANDARDIZATION_JS_UTILS) {
+				sources.add(readJs(jsUtil));
+			}
+			sources.add(script + System.lineSeparator() + initStandardizationBuildInMethod(javaScriptFunctions, clientMongoOperator, consumer, standard));
+		} else {
+			sources.add(script + System.lineSeparator() + initBuildInMethod(javaScriptFunctions, clientMongoOperator, consumer, standard));
+		}
+		return sources;
+	}
+
 	private static void evalJs(ScriptEngine engine, String fileClassPath){
+		String js = readJs(fileClassPath);
 		try {
-			ClassPathResource classPathResource = new ClassPathResource(fileClassPath);
-			engine.eval(IOUtils.toString(classPathResource.getInputStream(), StandardCharsets.UTF_8));
+			engine.eval(js);
 		}catch (Throwable ex){
 			throw new RuntimeException(String.format("script eval js util error: %s, %s", fileClassPath, ex.getMessage()), ex);
 		}
 	}
+
+	private static String readJs(String fileClassPath) {
+		try {
+			ClassPathResource classPathResource = new ClassPathResource(fileClassPath);
+			return IOUtils.toString(classPathResource.getInputStream(), StandardCharsets.UTF_8);
+		} catch (Throwable ex) {
+			throw new RuntimeException(String.format("script eval js util error: %s, %s", fileClassPath, ex.getMessage()), ex);
+		}
+	}
 }
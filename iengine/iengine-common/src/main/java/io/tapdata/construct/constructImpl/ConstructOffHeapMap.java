@@ -0,0 +1,141 @@
+package io.tapdata.construct.constructImpl;
+
+import com.tapdata.tm.commons.externalStorage.ExternalStorageDto;
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.entity.utils.ObjectSerializable;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Key/value construct backed by an {@link OffHeapKVStore}, used for external storage type {@code offheap}.
+ * <p>
+ * Values are serialized by {@link ObjectSerializable} and kept in direct memory, or in memory mapped files under
+ * {@link ExternalStorageDto#getUri()} when it is not blank, so nothing but the returned values lives on the heap. Like
+ * {@code memory} the data is not persistent: stores are registered by name in this engine only, and {@link #destroy()}
+ * releases the store, so the data is gone once the node closes or the engine restarts. Only constructs that can be rebuilt
+ * from the source, like merge caches refilled by a task reset, may use it.
+ */
+public class ConstructOffHeapMap<T> extends BaseConstruct<T> {
+	public static final String SEGMENT_SIZE_MB_KEY = "OFF_HEAP_STORE_SEGMENT_SIZE_MB";
+	private static final int MAX_SEGMENT_SIZE_MB = 1024;
+
+	private final OffHeapKVStore store;
+	private final Class<T> valueType;
+
+	public ConstructOffHeapMap(String referenceId, String name, ExternalStorageDto externalStorageDto, Class<T> valueType) {
+		super(referenceId, name, externalStorageDto);
+		this.valueType = valueType;
+		String uri = null == externalStorageDto ? null : externalStorageDto.getUri();
+		File directory = StringUtils.isBlank(uri) ? null : new File(uri);
+		int segmentSizeMB = Math.min(Math.max(CommonUtils.getPropertyInt(SEGMENT_SIZE_MB_KEY, OffHeapKVStore.DEFAULT_SEGMENT_SIZE >> 20), 1), MAX_SEGMENT_SIZE_MB);
+		this.store = OffHeapKVStore.getOrCreate(name, () -> new OffHeapKVStore(name, directory, segmentSizeMB << 20));
+	}
+
+	private byte[] serialized(T data) {
+		return InstanceFactory.instance(ObjectSerializable.class).fromObject(data);
+	}
+
+	private T deserialized(byte[] data) {
+		Object value = InstanceFactory.instance(ObjectSerializable.class).toObject(data);
+		if (null != value && !valueType.isInstance(value)) {
+			throw new IllegalStateException("Value in off heap store " + name + " is " + value.getClass().getName() + ", expect " + valueType.getName());
+		}
+		return valueType.cast(value);
+	}
+
+	private static byte[] keyBytes(String key) {
+		return key.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public int insert(String key, T data) throws Exception {
+		store.put(keyBytes(key), serialized(data));
+		return 1;
+	}
+
+	@Override
+	public long insertMany(Map<String, T> data) throws Exception {
+		for (Map.Entry<String, T> entry : data.entrySet()) {
+			store.put(keyBytes(entry.getKey()), serialized(entry.getValue()));
+		}
+		return data.size();
+	}
+
+	@Override
+	public int update(String key, T data) throws Exception {
+		return insert(key, data);
+	}
+
+	@Override
+	public int upsert(String key, T data) throws Exception {
+		return insert(key, data);
+	}
+
+	@Override
+	public int delete(String key) throws Exception {
+		return store.remove(keyBytes(key)) ? 1 : 0;
+	}
+
+	@Override
+	public T find(String key) throws Exception {
+		byte[] bytes = store.get(keyBytes(key));
+		if (null == bytes) {
+			return null;
+		}
+		return deserialized(bytes);
+	}
+
+	@Override
+	public Map<String, Object> findAll(Set<String> keys) {
+		Map<String, Object> result = new HashMap<>();
+		for (String key : keys) {
+			byte[] bytes = store.get(keyBytes(key));
+			if (null == bytes) {
+				continue;
+			}
+			result.put(key, deserialized(bytes));
+		}
+		return result;
+	}
+
+	@Override
+	public boolean exists(String key) throws Exception {
+		return store.containsKey(keyBytes(key));
+	}
+
+	@Override
+	public void clear() throws Exception {
+		store.clear();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return store.isEmpty();
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getType() {
+		return "OffHeap";
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		OffHeapKVStore.destroy(name);
+	}
+
+	@Override
+	public String toString() {
+		return store.toString();
+	}
+}
@@ -127,6 +127,37 @@ public class ConstructRingBuffer<T extends Document> extends BaseConstruct<T> {
 		return count.get();
 	}
 
+	/**
+	 * Append all data in one operation, the data gets consecutive sequences
+	 *
+	 * @return sequence of the last appended data, -1 if stopped before the append completed
+	 */
+	public long addAll(List<T> data, Predicate<Void> stop) throws Exception {
+		if (null == this.ringbuffer || null == data || data.isEmpty()) {
+			return -1;
+		}
+		AtomicLong lastSequence = new AtomicLong(-1);
+		AtomicReference<RuntimeException> error = new AtomicReference<>();
+		CountDownLatch countDownLatch = new CountDownLatch(1);
+		this.ringbuffer.addAllAsync(data, OverflowPolicy.OVERWRITE)
+				.whenComplete((sequence, err) -> {
+					try {
+						if (null != err) {
+							error.set(new RuntimeException(err));
+						} else {
+							lastSequence.set(sequence);
+						}
+					} finally {
+						countDownLatch.countDown();
+					}
+				});
+		CommonUtils.countDownAwait(stop, countDownLatch);
+		if (null != error.get()) {
+			throw error.get();
+		}
+		return lastSequence.get();
+	}
+
 	@Override
 	public String getName() {
 		return this.ringbuffer.getName();
@@ -0,0 +1,544 @@
+package io.tapdata.construct.constructImpl;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Byte array key/value store kept outside the java heap.
+ * <p>
+ * Records ({@code [key length][value length][key][value]}) are appended to fixed size segments, either direct buffers or,
+ * when a directory is given, memory mapped files so the data set can grow past the heap and the direct memory limit and is
+ * paged by the OS. Keys are located through an open addressing hash index which is also off heap: every slot is one long
+ * holding a 16 bits key fingerprint and the 48 bits record address, so a lookup costs no object allocation besides the
+ * returned value and only reads the key of a record whose fingerprint matches.
+ * <p>
+ * Updates and removes leave the old record behind as garbage, once garbage is more than half of the appended bytes the live
+ * records are copied into new segments. The store is not persistent, all data is gone after {@link #close()}.
+ */
+public class OffHeapKVStore implements AutoCloseable {
+	private static final Logger logger = LogManager.getLogger(OffHeapKVStore.class);
+	private final static String LOG_PREFIX = "[Off heap store] - ";
+	private static final Map<String, OffHeapKVStore> STORES = new ConcurrentHashMap<>();
+	private static final AtomicLong FILE_SEQ = new AtomicLong();
+
+	public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+	private static final int MIN_SEGMENT_SIZE = 1 << 10;
+	private static final int RECORD_HEADER_SIZE = 8;
+	private static final int MAX_SEGMENTS = 0x7FFF;
+	private static final long EMPTY = 0L;
+	private static final long TOMBSTONE = -1L;
+	private static final long ADDRESS_MASK = (1L << 48) - 1;
+	private static final int INDEX_CHUNK_SHIFT = 20;
+	private static final int INDEX_CHUNK_SLOTS = 1 << INDEX_CHUNK_SHIFT;
+	private static final int MIN_INDEX_CAPACITY = 1 << 10;
+	private static final long MAX_INDEX_CAPACITY = 1L << 40;
+
+	private final String name;
+	private final File directory;
+	private final int segmentSize;
+
+	private List<ByteBuffer> segments = new ArrayList<>();
+	private List<File> segmentFiles = new ArrayList<>();
+	private int writeOffset;
+	private ByteBuffer[] index;
+	private long indexCapacity;
+	private long indexMask;
+	private long size;
+	private long tombstones;
+	private long appendedBytes;
+	private long garbageBytes;
+	private boolean closed;
+
+	/**
+	 * @param name        store name, used in logs and segment file names
+	 * @param directory   directory of memory mapped segment files, null to use direct buffers
+	 * @param segmentSize bytes of one segment, a record bigger than that gets a segment of its own
+	 */
+	public OffHeapKVStore(String name, File directory, int segmentSize) {
+		if (segmentSize < MIN_SEGMENT_SIZE) {
+			throw new IllegalArgumentException(LOG_PREFIX + "Segment size must not be less than " + MIN_SEGMENT_SIZE + ": " + segmentSize);
+		}
+		if (null != directory && !directory.isDirectory() && !directory.mkdirs()) {
+			throw new IllegalArgumentException(LOG_PREFIX + "Cannot create directory: " + directory.getAbsolutePath());
+		}
+		this.name = name;
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		initIndex(MIN_INDEX_CAPACITY);
+	}
+
+	/**
+	 * Get the store registered with the name, or create and register a new one, same as a hazelcast map is got by name
+	 */
+	public static OffHeapKVStore getOrCreate(String name, Supplier<OffHeapKVStore> creator) {
+		return STORES.computeIfAbsent(name, k -> {
+			OffHeapKVStore store = creator.get();
+			logger.info(LOG_PREFIX + "Created off heap store: {}", store);
+			return store;
+		});
+	}
+
+	/**
+	 * Close and unregister the store with the name
+	 *
+	 * @return true if there was such a store
+	 */
+	public static boolean destroy(String name) {
+		OffHeapKVStore store = STORES.remove(name);
+		if (null == store) {
+			return false;
+		}
+		store.close();
+		return true;
+	}
+
+	public synchronized byte[] get(byte[] key) {
+		checkOpen();
+		long slotIndex = findSlot(key, hash(key));
+		if (slotIndex < 0) {
+			return null;
+		}
+		long address = getSlot(slotIndex) & ADDRESS_MASK;
+		ByteBuffer segment = segments.get(segmentOf(address));
+		int offset = offsetOf(address);
+		int keyLength = segment.getInt(offset);
+		int valueLength = segment.getInt(offset + 4);
+		byte[] value = new byte[valueLength];
+		ByteBuffer duplicate = segment.duplicate();
+		duplicate.position(offset + RECORD_HEADER_SIZE + keyLength);
+		duplicate.get(value);
+		return value;
+	}
+
+	public synchronized boolean containsKey(byte[] key) {
+		checkOpen();
+		return findSlot(key, hash(key)) >= 0;
+	}
+
+	/**
+	 * @return true if the key did not exist before
+	 */
+	public synchronized boolean put(byte[] key, byte[] value) {
+		checkOpen();
+		if (null == key || null == value) {
+			throw new NullPointerException();
+		}
+		long hash = hash(key);
+		long slotIndex = findSlot(key, hash);
+		long address = append(key, value);
+		long slot = ((long) fingerprint(hash) << 48) | address;
+		if (slotIndex >= 0) {
+			garbageBytes += recordSize(getSlot(slotIndex) & ADDRESS_MASK);
+			setSlot(slotIndex, slot);
+			compactIfNeed();
+			return false;
+		}
+		insertSlot(hash, slot);
+		size++;
+		if (size + tombstones > indexCapacity - (indexCapacity >>> 2)) {
+			// Grow only when live keys need it, otherwise rehash in place to drop tombstones
+			rehash(size > indexCapacity >>> 1 ? indexCapacity << 1 : indexCapacity);
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if the key existed
+	 */
+	public synchronized boolean remove(byte[] key) {
+		checkOpen();
+		long slotIndex = findSlot(key, hash(key));
+		if (slotIndex < 0) {
+			return false;
+		}
+		garbageBytes += recordSize(getSlot(slotIndex) & ADDRESS_MASK);
+		setSlot(slotIndex, TOMBSTONE);
+		size--;
+		tombstones++;
+		compactIfNeed();
+		return true;
+	}
+
+	public synchronized void clear() {
+		checkOpen();
+		releaseSegments(segments, segmentFiles);
+		segments = new ArrayList<>();
+		segmentFiles = new ArrayList<>();
+		writeOffset = 0;
+		appendedBytes = 0L;
+		garbageBytes = 0L;
+		initIndex(MIN_INDEX_CAPACITY);
+	}
+
+	public synchronized long size() {
+		return size;
+	}
+
+	public synchronized boolean isEmpty() {
+		return size == 0L;
+	}
+
+	/**
+	 * @return bytes of all appended records, including garbage
+	 */
+	public synchronized long appendedBytes() {
+		return appendedBytes;
+	}
+
+	public synchronized long garbageBytes() {
+		return garbageBytes;
+	}
+
+	/**
+	 * @return off heap bytes held by segments and index
+	 */
+	public synchronized long allocatedBytes() {
+		long bytes = indexCapacity * 8;
+		for (ByteBuffer segment : segments) {
+			bytes += segment.capacity();
+		}
+		return bytes;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		releaseSegments(segments, segmentFiles);
+		for (ByteBuffer chunk : index) {
+			release(chunk);
+		}
+		segments = new ArrayList<>();
+		segmentFiles = new ArrayList<>();
+		index = new ByteBuffer[0];
+		size = 0L;
+		logger.info(LOG_PREFIX + "Closed off heap store: {}", name);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "OffHeapKVStore{" +
+				"name='" + name + '\'' +
+				", mode=" + (null == directory ? "direct" : "mmap:" + directory.getAbsolutePath()) +
+				", segmentSize=" + segmentSize +
+				", size=" + size +
+				", segments=" + segments.size() +
+				", appendedBytes=" + appendedBytes +
+				", garbageBytes=" + garbageBytes +
+				'}';
+	}
+
+	private long findSlot(byte[] key, long hash) {
+		int fingerprint = fingerprint(hash);
+		long i = hash & indexMask;
+		while (true) {
+			long slot = getSlot(i);
+			if (slot == EMPTY) {
+				return -1L;
+			}
+			if (slot != TOMBSTONE && (int) (slot >>> 48) == fingerprint && keyEquals(slot & ADDRESS_MASK, key)) {
+				return i;
+			}
+			i = (i + 1) & indexMask;
+		}
+	}
+
+	private void insertSlot(long hash, long slot) {
+		long i = hash & indexMask;
+		while (true) {
+			long current = getSlot(i);
+			if (current == EMPTY || current == TOMBSTONE) {
+				if (current == TOMBSTONE) {
+					tombstones--;
+				}
+				setSlot(i, slot);
+				return;
+			}
+			i = (i + 1) & indexMask;
+		}
+	}
+
+	private boolean keyEquals(long address, byte[] key) {
+		ByteBuffer segment = segments.get(segmentOf(address));
+		int offset = offsetOf(address);
+		if (segment.getInt(offset) != key.length) {
+			return false;
+		}
+		int keyOffset = offset + RECORD_HEADER_SIZE;
+		for (int i = 0; i < key.length; i++) {
+			if (segment.get(keyOffset + i) != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long append(byte[] key, byte[] value) {
+		long recordSize = (long) RECORD_HEADER_SIZE + key.length + value.length;
+		if (recordSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(LOG_PREFIX + "Record too large: " + recordSize);
+		}
+		return append(key, value, 0, value.length);
+	}
+
+	private long append(byte[] key, byte[] value, int valueOffset, int valueLength) {
+		int recordSize = RECORD_HEADER_SIZE + key.length + valueLength;
+		if (segments.isEmpty() || writeOffset + recordSize > segments.get(segments.size() - 1).capacity()) {
+			newSegment(Math.max(segmentSize, recordSize));
+		}
+		int segmentIndex = segments.size() - 1;
+		ByteBuffer duplicate = segments.get(segmentIndex).duplicate();
+		duplicate.position(writeOffset);
+		duplicate.putInt(key.length);
+		duplicate.putInt(valueLength);
+		duplicate.put(key);
+		duplicate.put(value, valueOffset, valueLength);
+		long address = ((long) segmentIndex << 32) | writeOffset;
+		writeOffset += recordSize;
+		appendedBytes += recordSize;
+		return address;
+	}
+
+	private int recordSize(long address) {
+		ByteBuffer segment = segments.get(segmentOf(address));
+		int offset = offsetOf(address);
+		return RECORD_HEADER_SIZE + segment.getInt(offset) + segment.getInt(offset + 4);
+	}
+
+	private void newSegment(int capacity) {
+		if (segments.size() >= MAX_SEGMENTS) {
+			throw new IllegalStateException(LOG_PREFIX + "Too many segments in store " + name + ", max: " + MAX_SEGMENTS + ", segment size: " + segmentSize);
+		}
+		if (null == directory) {
+			segments.add(ByteBuffer.allocateDirect(capacity));
+			segmentFiles.add(null);
+		} else {
+			File file = new File(directory, name.replaceAll("[^\\w.-]", "_") + "-" + FILE_SEQ.incrementAndGet() + ".seg");
+			try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+				randomAccessFile.setLength(capacity);
+				segments.add(randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+				segmentFiles.add(file);
+			} catch (IOException e) {
+				deleteFile(file);
+				throw new RuntimeException(LOG_PREFIX + "Map segment file failed: " + file.getAbsolutePath() + ", error: " + e.getMessage(), e);
+			}
+		}
+		writeOffset = 0;
+	}
+
+	/**
+	 * Copy live records into new segments once more than half of the appended bytes is garbage
+	 */
+	private void compactIfNeed() {
+		if (garbageBytes < segmentSize || garbageBytes < (appendedBytes >>> 1)) {
+			return;
+		}
+		long startMs = System.currentTimeMillis();
+		long beforeBytes = appendedBytes;
+		List<ByteBuffer> oldSegments = segments;
+		List<File> oldSegmentFiles = segmentFiles;
+		segments = new ArrayList<>();
+		segmentFiles = new ArrayList<>();
+		writeOffset = 0;
+		appendedBytes = 0L;
+		garbageBytes = 0L;
+		for (long i = 0; i < indexCapacity; i++) {
+			long slot = getSlot(i);
+			if (slot == EMPTY || slot == TOMBSTONE) {
+				continue;
+			}
+			long address = slot & ADDRESS_MASK;
+			ByteBuffer duplicate = oldSegments.get(segmentOf(address)).duplicate();
+			duplicate.position(offsetOf(address));
+			byte[] key = new byte[duplicate.getInt()];
+			byte[] value = new byte[duplicate.getInt()];
+			duplicate.get(key);
+			duplicate.get(value);
+			setSlot(i, (slot & ~ADDRESS_MASK) | append(key, value, 0, value.length));
+		}
+		releaseSegments(oldSegments, oldSegmentFiles);
+		logger.info(LOG_PREFIX + "Compacted off heap store {}, {} bytes -> {} bytes, cost {} ms", name, beforeBytes, appendedBytes, System.currentTimeMillis() - startMs);
+	}
+
+	private void initIndex(long capacity) {
+		if (null != index) {
+			for (ByteBuffer chunk : index) {
+				release(chunk);
+			}
+		}
+		index = allocateIndex(capacity);
+		indexCapacity = capacity;
+		indexMask = capacity - 1;
+		size = 0L;
+		tombstones = 0L;
+	}
+
+	private void rehash(long newCapacity) {
+		if (newCapacity > MAX_INDEX_CAPACITY) {
+			throw new IllegalStateException(LOG_PREFIX + "Index of store " + name + " is full, capacity: " + indexCapacity);
+		}
+		ByteBuffer[] oldIndex = index;
+		long oldCapacity = indexCapacity;
+		index = allocateIndex(newCapacity);
+		indexCapacity = newCapacity;
+		indexMask = newCapacity - 1;
+		tombstones = 0L;
+		for (long i = 0; i < oldCapacity; i++) {
+			long slot = oldIndex[(int) (i >>> INDEX_CHUNK_SHIFT)].getLong((int) (i & (INDEX_CHUNK_SLOTS - 1)) << 3);
+			if (slot == EMPTY || slot == TOMBSTONE) {
+				continue;
+			}
+			insertSlot(hash(readKey(slot & ADDRESS_MASK)), slot);
+		}
+		for (ByteBuffer chunk : oldIndex) {
+			release(chunk);
+		}
+	}
+
+	private byte[] readKey(long address) {
+		ByteBuffer duplicate = segments.get(segmentOf(address)).duplicate();
+		duplicate.position(offsetOf(address));
+		byte[] key = new byte[duplicate.getInt()];
+		duplicate.position(duplicate.position() + 4);
+		duplicate.get(key);
+		return key;
+	}
+
+	private static ByteBuffer[] allocateIndex(long capacity) {
+		int chunkSlots = (int) Math.min(capacity, INDEX_CHUNK_SLOTS);
+		ByteBuffer[] chunks = new ByteBuffer[(int) (capacity / chunkSlots)];
+		for (int i = 0; i < chunks.length; i++) {
+			// Direct buffers are zero filled, which is EMPTY
+			chunks[i] = ByteBuffer.allocateDirect(chunkSlots << 3);
+		}
+		return chunks;
+	}
+
+	private long getSlot(long i) {
+		return index[(int) (i >>> INDEX_CHUNK_SHIFT)].getLong((int) (i & (INDEX_CHUNK_SLOTS - 1)) << 3);
+	}
+
+	private void setSlot(long i, long slot) {
+		index[(int) (i >>> INDEX_CHUNK_SHIFT)].putLong((int) (i & (INDEX_CHUNK_SLOTS - 1)) << 3, slot);
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException(LOG_PREFIX + "Store " + name + " is closed");
+		}
+	}
+
+	private static int segmentOf(long address) {
+		return (int) (address >>> 32);
+	}
+
+	private static int offsetOf(long address) {
+		return (int) address;
+	}
+
+	/**
+	 * 64 bits FNV-1a with a final mix, low bits pick the slot and high 16 bits are the fingerprint
+	 */
+	private static long hash(byte[] key) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : key) {
+			h ^= b;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * Never 0, so an occupied slot can not be mistaken for {@link #EMPTY}
+	 */
+	private static int fingerprint(long hash) {
+		return (int) (hash >>> 48) | 1;
+	}
+
+	private static void releaseSegments(List<ByteBuffer> segments, List<File> files) {
+		for (ByteBuffer segment : segments) {
+			release(segment);
+		}
+		for (File file : files) {
+			deleteFile(file);
+		}
+	}
+
+	private static void deleteFile(File file) {
+		if (null != file && file.exists() && !file.delete()) {
+			logger.warn(LOG_PREFIX + "Delete segment file failed: {}", file.getAbsolutePath());
+		}
+	}
+
+	private static void release(ByteBuffer buffer) {
+		BufferCleaner.clean(buffer);
+	}
+
+	/**
+	 * Free direct and mapped buffers right away instead of waiting for GC, best effort on java 8 and 9+
+	 */
+	private static class BufferCleaner {
+		private static final Object UNSAFE;
+		private static final Method INVOKE_CLEANER;
+
+		static {
+			Object unsafe = null;
+			Method invokeCleaner = null;
+			try {
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				unsafe = theUnsafe.get(null);
+			} catch (Throwable ignored) {
+				// java 8, use DirectBuffer#cleaner
+				invokeCleaner = null;
+			}
+			UNSAFE = unsafe;
+			INVOKE_CLEANER = invokeCleaner;
+		}
+
+		private static void clean(ByteBuffer buffer) {
+			if (!buffer.isDirect()) {
+				return;
+			}
+			try {
+				if (null != INVOKE_CLEANER) {
+					INVOKE_CLEANER.invoke(UNSAFE, buffer);
+				} else {
+					Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+					cleanerMethod.setAccessible(true);
+					Object cleaner = cleanerMethod.invoke(buffer);
+					if (null != cleaner) {
+						cleaner.getClass().getMethod("clean").invoke(cleaner);
+					}
+				}
+			} catch (Throwable ignored) {
+				// Left to GC
+			}
+		}
+	}
+}
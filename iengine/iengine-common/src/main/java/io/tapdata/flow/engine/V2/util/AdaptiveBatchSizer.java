@@ -0,0 +1,125 @@
+package io.tapdata.flow.engine.V2.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Batch size per table, adjusted by write cost and errors (AIMD).
+ * <ul>
+ *     <li>Smoothed write cost above the target latency: size * {@link #DECREASE_FACTOR}</li>
+ *     <li>Write error: size / 2</li>
+ *     <li>Full batch and smoothed write cost below {@link #INCREASE_THRESHOLD} of the target latency: size + step, step is
+ *     a tenth of the initial size</li>
+ * </ul>
+ * The size always stays in [min, max]. Thread safe, write threads report while the queue consumer reads the size.
+ */
+public class AdaptiveBatchSizer {
+	static final double DECREASE_FACTOR = 0.7D;
+	static final double INCREASE_THRESHOLD = 0.8D;
+	static final double FULL_BATCH_RATIO = 0.8D;
+	private static final double COST_SMOOTHING = 0.3D;
+
+	private final int minSize;
+	private final int maxSize;
+	private final int initialSize;
+	private final int increaseStep;
+	private final long targetLatencyMs;
+	private final Map<String, TableBatch> tableBatchMap = new ConcurrentHashMap<>();
+	private volatile int effectiveSize;
+
+	public AdaptiveBatchSizer(int minSize, int maxSize, int initialSize, long targetLatencyMs) {
+		if (minSize < 1 || maxSize < minSize) {
+			throw new IllegalArgumentException(String.format("Illegal adaptive batch size range [%s, %s]", minSize, maxSize));
+		}
+		if (targetLatencyMs < 1) {
+			throw new IllegalArgumentException("Adaptive batch target latency must be greater than 0: " + targetLatencyMs);
+		}
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.initialSize = Math.min(Math.max(initialSize, minSize), maxSize);
+		this.increaseStep = Math.max(1, this.initialSize / 10);
+		this.targetLatencyMs = targetLatencyMs;
+		this.effectiveSize = this.initialSize;
+	}
+
+	/**
+	 * @param table table of the next batch, null if unknown
+	 * @return batch size of the table, the last used size if table is null
+	 */
+	public int batchSize(String table) {
+		if (null != table) {
+			effectiveSize = tableBatch(table).size;
+		}
+		return effectiveSize;
+	}
+
+	/**
+	 * @return last used batch size
+	 */
+	public int getEffectiveSize() {
+		return effectiveSize;
+	}
+
+	/**
+	 * Report a successful write
+	 *
+	 * @param events event count of the batch
+	 * @param costMs write cost of the batch
+	 */
+	public void onSuccess(String table, int events, long costMs) {
+		if (null == table || events <= 0) return;
+		TableBatch tableBatch = tableBatch(table);
+		synchronized (tableBatch) {
+			tableBatch.smoothedCostMs = tableBatch.smoothedCostMs < 0 ? costMs
+					: tableBatch.smoothedCostMs * (1 - COST_SMOOTHING) + costMs * COST_SMOOTHING;
+			if (tableBatch.smoothedCostMs > targetLatencyMs) {
+				tableBatch.size = Math.max(minSize, (int) (tableBatch.size * DECREASE_FACTOR));
+			} else if (events >= tableBatch.size * FULL_BATCH_RATIO && tableBatch.smoothedCostMs < targetLatencyMs * INCREASE_THRESHOLD) {
+				tableBatch.size = Math.min(maxSize, tableBatch.size + increaseStep);
+			}
+		}
+	}
+
+	/**
+	 * Report a failed write, the size of the table is halved
+	 */
+	public void onError(String table) {
+		if (null == table) return;
+		TableBatch tableBatch = tableBatch(table);
+		synchronized (tableBatch) {
+			tableBatch.size = Math.max(minSize, tableBatch.size / 2);
+			tableBatch.smoothedCostMs = -1D;
+		}
+	}
+
+	public int getMinSize() {
+		return minSize;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	private TableBatch tableBatch(String table) {
+		return tableBatchMap.computeIfAbsent(table, t -> new TableBatch(initialSize));
+	}
+
+	@Override
+	public String toString() {
+		return "AdaptiveBatchSizer{" +
+				"minSize=" + minSize +
+				", maxSize=" + maxSize +
+				", initialSize=" + initialSize +
+				", targetLatencyMs=" + targetLatencyMs +
+				'}';
+	}
+
+	private static class TableBatch {
+		private volatile int size;
+		private double smoothedCostMs = -1D;
+
+		private TableBatch(int size) {
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package io.tapdata.flow.engine.V2.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signals readers that new data was appended to a named log, e.g. a share cdc ring buffer.
+ * <p>
+ * The writer calls {@link #notifyAppended(String)} after each append. A reader thread subscribes all names it reads
+ * once, then waits on its {@link Subscription} instead of polling every name: signals of the same name are coalesced
+ * until the reader takes them. Only writers in the same process are seen, so readers should still poll all names
+ * after a wait times out.
+ */
+public class AppendNotifier {
+
+	private static final AppendNotifier INSTANCE = new AppendNotifier();
+
+	private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+	public static AppendNotifier getInstance() {
+		return INSTANCE;
+	}
+
+	public Subscription subscribe(Collection<String> names) {
+		Subscription subscription = new Subscription(names);
+		for (String name : subscription.names) {
+			subscriptions.computeIfAbsent(name, k -> new CopyOnWriteArraySet<>()).add(subscription);
+		}
+		return subscription;
+	}
+
+	public void notifyAppended(String name) {
+		Set<Subscription> set = subscriptions.get(name);
+		if (null == set) {
+			return;
+		}
+		for (Subscription subscription : set) {
+			subscription.signal(name);
+		}
+	}
+
+	public int getSubscriptionCount(String name) {
+		Set<Subscription> set = subscriptions.get(name);
+		return null == set ? 0 : set.size();
+	}
+
+	private void unsubscribe(Subscription subscription) {
+		for (String name : subscription.names) {
+			subscriptions.computeIfPresent(name, (k, set) -> {
+				set.remove(subscription);
+				return set.isEmpty() ? null : set;
+			});
+		}
+	}
+
+	public class Subscription implements AutoCloseable {
+		private final Set<String> names;
+		private final Object lock = new Object();
+		private Set<String> signaled = new LinkedHashSet<>();
+
+		private Subscription(Collection<String> names) {
+			this.names = Collections.unmodifiableSet(new LinkedHashSet<>(names));
+		}
+
+		private void signal(String name) {
+			synchronized (lock) {
+				if (signaled.add(name) && signaled.size() == 1) {
+					lock.notifyAll();
+				}
+			}
+		}
+
+		/**
+		 * Take the names signaled since the last call, without waiting
+		 */
+		public Set<String> poll() {
+			synchronized (lock) {
+				return take();
+			}
+		}
+
+		/**
+		 * Take the names signaled since the last call, wait until one is signaled or timeout
+		 *
+		 * @return signaled names, empty if timeout
+		 */
+		public Set<String> await(long timeout, TimeUnit unit) throws InterruptedException {
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			synchronized (lock) {
+				long remaining;
+				while (signaled.isEmpty() && (remaining = deadline - System.nanoTime()) > 0) {
+					TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+				}
+				return take();
+			}
+		}
+
+		private Set<String> take() {
+			if (signaled.isEmpty()) {
+				return Collections.emptySet();
+			}
+			Set<String> result = signaled;
+			signaled = new LinkedHashSet<>();
+			return result;
+		}
+
+		public Set<String> getNames() {
+			return names;
+		}
+
+		@Override
+		public void close() {
+			unsubscribe(this);
+		}
+	}
+}
@@ -100,6 +100,11 @@ public class ExternalStorageUtil {
 			case httptm:
 				persistenceStorageAbstractConfig = getHttpTMConfig(externalStorageDto, constructType, constructName);
 				break;
+			case offheap:
+				// Off heap storage is only implemented by ConstructOffHeapMap for merge caches, a silent fall back to heap memory
+				// would drop the persistence of share cdc ring buffers and state maps
+				throw new IllegalArgumentException(LOG_PREFIX + "External storage " + externalStorageDto.getName() + " type offheap only supports merge caches, cannot be used for "
+						+ constructType + " " + constructName + ", choose a persistent external storage instead");
 			default:
 				throw new RuntimeException("Nonsupport external storage type: " + externalStorageDto.getType());
 		}
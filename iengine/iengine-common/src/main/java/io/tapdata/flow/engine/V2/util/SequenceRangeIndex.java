@@ -0,0 +1,153 @@
+package io.tapdata.flow.engine.V2.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sparse index of the sequences one table owns in a log shared by many tables: a sorted list of [start, end] ranges.
+ * <p>
+ * Sequences are added in increasing order. A sequence closer than {@code mergeGap} to the last range extends it, so
+ * the index stays small and readers only read some records of other tables inside a range. When there are more than
+ * {@code maxRanges} ranges, the two oldest ranges are merged.
+ */
+public class SequenceRangeIndex {
+
+	private final long mergeGap;
+	private final int maxRanges;
+	/**
+	 * start0, end0, start1, end1 ...
+	 */
+	private long[] ranges;
+	private int size;
+
+	public SequenceRangeIndex(long mergeGap, int maxRanges) {
+		this.mergeGap = Math.max(0, mergeGap);
+		this.maxRanges = Math.max(1, maxRanges);
+		this.ranges = new long[8];
+	}
+
+	public static SequenceRangeIndex fromList(List<? extends Number> list, long mergeGap, int maxRanges) {
+		SequenceRangeIndex index = new SequenceRangeIndex(mergeGap, maxRanges);
+		if (null != list) {
+			for (int i = 0; i + 1 < list.size(); i += 2) {
+				index.add(list.get(i).longValue(), list.get(i + 1).longValue());
+			}
+		}
+		return index;
+	}
+
+	public void add(long sequence) {
+		add(sequence, sequence);
+	}
+
+	/**
+	 * Add range [start, end], start must not be less than the start of the last range
+	 */
+	public void add(long start, long end) {
+		if (end < start) {
+			return;
+		}
+		if (size > 0) {
+			int last = (size - 1) * 2;
+			if (start < ranges[last]) {
+				throw new IllegalArgumentException("Sequence " + start + " is less than the last range start " + ranges[last]);
+			}
+			if (start - ranges[last + 1] <= mergeGap + 1) {
+				ranges[last + 1] = Math.max(ranges[last + 1], end);
+				return;
+			}
+		}
+		if (size == maxRanges) {
+			ranges[1] = ranges[3];
+			System.arraycopy(ranges, 4, ranges, 2, (size - 2) * 2);
+			size--;
+		}
+		if (size * 2 + 2 > ranges.length) {
+			ranges = Arrays.copyOf(ranges, ranges.length * 2);
+		}
+		ranges[size * 2] = start;
+		ranges[size * 2 + 1] = end;
+		size++;
+	}
+
+	/**
+	 * Remove sequences before head, e.g. overwritten or expired
+	 */
+	public void trimBefore(long headSequence) {
+		int removed = 0;
+		while (removed < size && ranges[removed * 2 + 1] < headSequence) {
+			removed++;
+		}
+		if (removed > 0) {
+			System.arraycopy(ranges, removed * 2, ranges, 0, (size - removed) * 2);
+			size -= removed;
+		}
+		if (size > 0 && ranges[0] < headSequence) {
+			ranges[0] = headSequence;
+		}
+	}
+
+	/**
+	 * @return the first indexed sequence not less than from, -1 if none
+	 */
+	public long nextSequence(long from) {
+		int i = rangeOf(from);
+		return i >= size ? -1 : Math.max(from, ranges[i * 2]);
+	}
+
+	/**
+	 * @return end of the range containing sequence, -1 if not indexed
+	 */
+	public long rangeEnd(long sequence) {
+		int i = rangeOf(sequence);
+		return i < size && ranges[i * 2] <= sequence ? ranges[i * 2 + 1] : -1;
+	}
+
+	/**
+	 * @return index of the first range whose end is not less than sequence
+	 */
+	private int rangeOf(long sequence) {
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (ranges[mid * 2 + 1] < sequence) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	public long getLastSequence() {
+		return size == 0 ? -1 : ranges[size * 2 - 1];
+	}
+
+	public int getRangeCount() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public List<Long> toList() {
+		List<Long> list = new ArrayList<>(size * 2);
+		for (int i = 0; i < size * 2; i++) {
+			list.add(ranges[i]);
+		}
+		return list;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < size; i++) {
+			if (i > 0) sb.append(", ");
+			sb.append(ranges[i * 2]).append('-').append(ranges[i * 2 + 1]);
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -0,0 +1,459 @@
+package io.tapdata.flow.engine.V2.util;
+
+import java.lang.reflect.Array;
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single-producer/single-consumer queue backed by a preallocated ring of slots.
+ * <p>
+ * Exactly one thread may offer and exactly one thread may poll/drain at the same time. Sequences are published with
+ * ordered writes, so the hand-off needs neither locks nor per-element node allocation. {@link #drainTo(Collection, int)}
+ * claims all available slots with a single read of the producer sequence and releases them with a single publish.
+ * <p>
+ * Implements {@link BlockingQueue} so it can replace a {@link java.util.concurrent.LinkedBlockingQueue} together with
+ * Guava's {@code Queues.drain}; blocking calls wait according to the configured {@link WaitStrategy}.
+ * {@link #iterator()} returns a weakly consistent snapshot of the published elements, it may be used from any thread.
+ * {@link #remove(Object)} and {@link Iterator#remove()} move slots the consumer owns, they must only be called by the consumer.
+ */
+public class SpscRingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private final Object[] slots;
+	private final int mask;
+	private final int capacity;
+	private final WaitStrategy waitStrategy;
+	/**
+	 * Next sequence the consumer will read, written only by the consumer
+	 */
+	private final Sequence head = new Sequence();
+	/**
+	 * Next sequence the producer will write, written only by the producer
+	 */
+	private final Sequence tail = new Sequence();
+	/**
+	 * Producer local copy of {@link #head}, refreshed only when the ring looks full
+	 */
+	private long headCache;
+	/**
+	 * Consumer local copy of {@link #tail}, refreshed only when the ring looks empty
+	 */
+	private long tailCache;
+
+	public SpscRingBufferQueue(int capacity) {
+		this(capacity, WaitStrategy.SLEEPING);
+	}
+
+	public SpscRingBufferQueue(int capacity, WaitStrategy waitStrategy) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be greater than 0: " + capacity);
+		}
+		if (capacity > MAX_CAPACITY) {
+			throw new IllegalArgumentException("Capacity must not be greater than " + MAX_CAPACITY + ": " + capacity);
+		}
+		this.capacity = capacity;
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.slots = new Object[size];
+		this.mask = size - 1;
+		this.waitStrategy = null == waitStrategy ? WaitStrategy.SLEEPING : waitStrategy;
+	}
+
+	@Override
+	public boolean offer(E e) {
+		checkNotNull(e);
+		long currentTail = tail.get();
+		if (currentTail - headCache >= capacity) {
+			headCache = head.get();
+			if (currentTail - headCache >= capacity) {
+				return false;
+			}
+		}
+		slots[(int) currentTail & mask] = e;
+		tail.lazySet(currentTail + 1);
+		return true;
+	}
+
+	/**
+	 * Offer as many elements of {@code elements} as fit into the ring, publishing them with one sequence update
+	 *
+	 * @return number of elements written, counted from the head of the collection
+	 */
+	public int offerBatch(Collection<? extends E> elements) {
+		if (null == elements || elements.isEmpty()) {
+			return 0;
+		}
+		long currentTail = tail.get();
+		long free = capacity - (currentTail - headCache);
+		if (free < elements.size()) {
+			headCache = head.get();
+			free = capacity - (currentTail - headCache);
+		}
+		int written = 0;
+		for (E element : elements) {
+			if (written >= free) {
+				break;
+			}
+			checkNotNull(element);
+			slots[(int) (currentTail + written) & mask] = element;
+			written++;
+		}
+		if (written > 0) {
+			tail.lazySet(currentTail + written);
+		}
+		return written;
+	}
+
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+		checkNotNull(e);
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		int counter = 0;
+		while (!offer(e)) {
+			if (System.nanoTime() - deadline >= 0) {
+				return false;
+			}
+			counter = waitStrategy.idle(counter);
+		}
+		return true;
+	}
+
+	@Override
+	public void put(E e) throws InterruptedException {
+		checkNotNull(e);
+		int counter = 0;
+		while (!offer(e)) {
+			counter = waitStrategy.idle(counter);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+		long currentHead = head.get();
+		if (currentHead >= tailCache) {
+			tailCache = tail.get();
+			if (currentHead >= tailCache) {
+				return null;
+			}
+		}
+		int index = (int) currentHead & mask;
+		E e = (E) slots[index];
+		slots[index] = null;
+		head.lazySet(currentHead + 1);
+		return e;
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		int counter = 0;
+		E e;
+		while (null == (e = poll())) {
+			if (System.nanoTime() - deadline >= 0) {
+				return null;
+			}
+			counter = waitStrategy.idle(counter);
+		}
+		return e;
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		int counter = 0;
+		E e;
+		while (null == (e = poll())) {
+			counter = waitStrategy.idle(counter);
+		}
+		return e;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() {
+		long currentHead = head.get();
+		if (currentHead >= tail.get()) {
+			return null;
+		}
+		return (E) slots[(int) currentHead & mask];
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public int drainTo(Collection<? super E> c, int maxElements) {
+		checkNotNull(c);
+		if (c == this) {
+			throw new IllegalArgumentException("Cannot drain to self");
+		}
+		if (maxElements <= 0) {
+			return 0;
+		}
+		long currentHead = head.get();
+		tailCache = tail.get();
+		int n = (int) Math.min(maxElements, tailCache - currentHead);
+		if (n <= 0) {
+			return 0;
+		}
+		for (int i = 0; i < n; i++) {
+			int index = (int) (currentHead + i) & mask;
+			c.add((E) slots[index]);
+			slots[index] = null;
+		}
+		head.lazySet(currentHead + n);
+		return n;
+	}
+
+	@Override
+	public int size() {
+		// Read head first, so a concurrent publish can only make the result larger, never negative
+		long currentHead = head.get();
+		long currentTail = tail.get();
+		return (int) Math.max(0L, Math.min(capacity, currentTail - currentHead));
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return head.get() >= tail.get();
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return capacity - size();
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public WaitStrategy getWaitStrategy() {
+		return waitStrategy;
+	}
+
+	/**
+	 * Snapshot of the elements between head and tail, elements polled while copying are left out
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new SnapshotIterator(snapshot());
+	}
+
+	@Override
+	public Object[] toArray() {
+		return snapshot();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T[] toArray(T[] a) {
+		Object[] snapshot = snapshot();
+		if (a.length < snapshot.length) {
+			a = (T[]) Array.newInstance(a.getClass().getComponentType(), snapshot.length);
+		}
+		System.arraycopy(snapshot, 0, a, 0, snapshot.length);
+		if (a.length > snapshot.length) {
+			a[snapshot.length] = null;
+		}
+		return a;
+	}
+
+	/**
+	 * Remove the first element equal to {@code o}, must only be called by the consumer
+	 */
+	@Override
+	public boolean remove(Object o) {
+		if (null == o) {
+			return false;
+		}
+		long currentHead = head.get();
+		long currentTail = tail.get();
+		for (long sequence = currentHead; sequence < currentTail; sequence++) {
+			if (o.equals(slots[(int) sequence & mask])) {
+				removeAt(currentHead, sequence);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Shift the elements before {@code sequence} one slot towards the tail and release the head slot, the producer
+	 * never touches slots between head and tail, so this is safe while it keeps offering
+	 */
+	private void removeAt(long currentHead, long sequence) {
+		for (long i = sequence; i > currentHead; i--) {
+			slots[(int) i & mask] = slots[(int) (i - 1) & mask];
+		}
+		slots[(int) currentHead & mask] = null;
+		head.lazySet(currentHead + 1);
+	}
+
+	private boolean removeSame(Object o) {
+		long currentHead = head.get();
+		long currentTail = tail.get();
+		for (long sequence = currentHead; sequence < currentTail; sequence++) {
+			if (o == slots[(int) sequence & mask]) {
+				removeAt(currentHead, sequence);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Object[] snapshot() {
+		long startHead = head.get();
+		long currentTail = tail.get();
+		int n = (int) Math.max(0L, Math.min(capacity, currentTail - startHead));
+		Object[] elements = new Object[n];
+		for (int i = 0; i < n; i++) {
+			elements[i] = slots[(int) (startHead + i) & mask];
+		}
+		// A slot below the current head may have been polled, or reused by the producer, while copying
+		long skip = Math.min(n, head.get() - startHead);
+		int size = 0;
+		for (int i = (int) skip; i < n; i++) {
+			if (null != elements[i]) {
+				elements[size++] = elements[i];
+			}
+		}
+		if (size == n) {
+			return elements;
+		}
+		Object[] result = new Object[size];
+		System.arraycopy(elements, 0, result, 0, size);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{capacity=" + capacity + ", size=" + size() + ", waitStrategy=" + waitStrategy + "}";
+	}
+
+	private static void checkNotNull(Object o) {
+		if (null == o) {
+			throw new NullPointerException();
+		}
+	}
+
+	/**
+	 * How a producer waits for free slots, or a consumer waits for published slots
+	 */
+	public enum WaitStrategy {
+		/**
+		 * Spin without giving up the cpu, lowest latency, burns one core per waiting thread
+		 */
+		BUSY_SPIN {
+			@Override
+			int idle(int counter) throws InterruptedException {
+				checkInterrupted();
+				return counter + 1;
+			}
+		},
+		/**
+		 * Spin for a while, then yield the cpu to other threads
+		 */
+		YIELDING {
+			@Override
+			int idle(int counter) throws InterruptedException {
+				checkInterrupted();
+				if (counter >= SPIN_TRIES) {
+					Thread.yield();
+				}
+				return counter + 1;
+			}
+		},
+		/**
+		 * Spin, then yield, then park for a short time; a good default when the cpu is shared with other tasks
+		 */
+		SLEEPING {
+			@Override
+			int idle(int counter) throws InterruptedException {
+				checkInterrupted();
+				if (counter >= SPIN_TRIES + YIELD_TRIES) {
+					LockSupport.parkNanos(PARK_NANOS);
+				} else if (counter >= SPIN_TRIES) {
+					Thread.yield();
+				}
+				return counter + 1;
+			}
+		},
+		;
+
+		private static final int SPIN_TRIES = 100;
+		private static final int YIELD_TRIES = 100;
+		private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100L);
+
+		abstract int idle(int counter) throws InterruptedException;
+
+		public static WaitStrategy fromString(String name) {
+			if (null != name) {
+				for (WaitStrategy waitStrategy : values()) {
+					if (waitStrategy.name().equalsIgnoreCase(name.trim())) {
+						return waitStrategy;
+					}
+				}
+			}
+			return SLEEPING;
+		}
+
+		private static void checkInterrupted() throws InterruptedException {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+
+	private class SnapshotIterator implements Iterator<E> {
+		private final Object[] elements;
+		private int cursor;
+		private Object lastReturned;
+
+		private SnapshotIterator(Object[] elements) {
+			this.elements = elements;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return cursor < elements.length;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public E next() {
+			if (cursor >= elements.length) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = elements[cursor++];
+			return (E) lastReturned;
+		}
+
+		@Override
+		public void remove() {
+			if (null == lastReturned) {
+				throw new IllegalStateException();
+			}
+			removeSame(lastReturned);
+			lastReturned = null;
+		}
+	}
+
+	/**
+	 * Padded sequence, so head and tail are unlikely to share a cache line
+	 */
+	@SuppressWarnings("unused")
+	private static class Sequence extends AtomicLong {
+		private long p1, p2, p3, p4, p5, p6, p7;
+	}
+}
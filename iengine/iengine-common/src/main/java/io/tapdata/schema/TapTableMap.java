@@ -2,31 +2,43 @@ package io.tapdata.schema;
 
 import com.tapdata.constant.BeanUtil;
 import com.tapdata.constant.ConnectorConstant;
+import com.tapdata.constant.JSONUtil;
 import com.tapdata.mongo.ClientMongoOperator;
 import com.tapdata.tm.commons.util.ConnHeartbeatUtils;
 import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.utils.cache.Iterator;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.data.mongodb.core.query.Query;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.springframework.data.mongodb.core.query.Criteria.where;
 
@@ -36,10 +48,16 @@ import static org.springframework.data.mongodb.core.query.Criteria.where;
  * @create 2022-05-10 11:16
  **/
 public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K, V> {
+	public static final String TAP_TABLE_PREFETCH_ENABLE_KEY = "TAP_TABLE_PREFETCH_ENABLE";
+	public static final String TAP_TABLE_PREFETCH_PAGE_SIZE_KEY = "TAP_TABLE_PREFETCH_PAGE_SIZE";
+	public static final String TAP_TABLE_PREFETCH_THREADS_KEY = "TAP_TABLE_PREFETCH_THREADS";
+	private static final int KEY_LOCK_STRIPES = 64;
 	protected final String nodeId;
 	protected final Long time;
 	protected final Map<K, String> tableNameAndQualifiedNameMap;
 	private final Lock lock = new ReentrantLock();
+	private final Lock[] keyLocks = new Lock[KEY_LOCK_STRIPES];
+	private final Map<K, V> tapTables = new ConcurrentHashMap<>();
 
 	protected TapTableMap(String nodeId, Long time, Map<K, String> tableNameAndQualifiedNameMap) {
 		if (StringUtils.isBlank(nodeId)) {
@@ -48,6 +66,9 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 		this.nodeId = nodeId;
 		this.time = time;
 		this.tableNameAndQualifiedNameMap = new ConcurrentHashMap<>(tableNameAndQualifiedNameMap);
+		for (int i = 0; i < keyLocks.length; i++) {
+			keyLocks[i] = new ReentrantLock();
+		}
 	}
 
 	public static TapTableMap<String, TapTable> create(String nodeId) {
@@ -68,7 +89,10 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 
 	public static TapTableMap<String, TapTable> create(String prefix, String nodeId, Map<String, String> tableNameAndQualifiedNameMap, Long time) {
 		TapTableMap<String, TapTable> tapTableMap;
-		if (tableNameAndQualifiedNameMap.size() > 99) {
+		int maxHeapEntries = CommonUtils.getPropertyInt(TapTableMapSpillFile.TAP_TABLE_MAX_HEAP_ENTRIES_KEY, 0);
+		if (maxHeapEntries > 0) {
+			tapTableMap = new TapTableMapSpillFile<>(prefix, nodeId, time, tableNameAndQualifiedNameMap, maxHeapEntries);
+		} else if (tableNameAndQualifiedNameMap.size() > 99) {
 			tapTableMap = new TapTableMapEhcache<>(prefix, nodeId, time, tableNameAndQualifiedNameMap);
 //			tapTableMap = new TapTableMapTapStorage<>(prefix, nodeId, time, tableNameAndQualifiedNameMap);
 		} else {
@@ -238,14 +262,14 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 	}
 
 	protected V getTapTable(K key) {
-		V tapTable = super.get(key);
+		V tapTable = getLoadedTapTable(key);
 		if (null == tapTable) {
 			try {
-				tapTable = handleWithLock(() -> {
-					V tmp = super.get(key);
+				tapTable = handleWithLock(key, () -> {
+					V tmp = getLoadedTapTable(key);
 					if (null == tmp) {
 						tmp = findSchema(key);
-						super.put(key, tmp);
+						putTapTable(key, tmp);
 					}
 					return tmp;
 				});
@@ -256,16 +280,124 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 		return tapTable;
 	}
 
+	/**
+	 * @return the schema already loaded, null if it should be found from manager
+	 */
+	protected V getLoadedTapTable(K key) {
+		return tapTables.get(key);
+	}
+
 	protected void putTapTable(K key, V value) {
-		super.put(key, value);
+		if (null == value) {
+			tapTables.remove(key);
+		} else {
+			tapTables.put(key, value);
+		}
 	}
 
 	protected V removeTapTable(K key) {
-		return super.remove(key);
+		return tapTables.remove(key);
 	}
 
 	protected void clearTapTable() {
-		super.clear();
+		tapTables.clear();
+	}
+
+	/**
+	 * Load schemas of all tables not loaded yet, see {@link #prefetch(Collection)}
+	 */
+	public void prefetch() {
+		prefetch(tableNameAndQualifiedNameMap.keySet());
+	}
+
+	/**
+	 * Load schemas of tables not loaded yet with one request per page of qualified names, pages are requested in
+	 * parallel. Tables not returned by manager are still found one by one when they are got.
+	 */
+	public void prefetch(Collection<K> keys) {
+		List<K> pending = keys.stream()
+				.filter(k -> StringUtils.isNotBlank(tableNameAndQualifiedNameMap.get(k)) && null == getLoadedTapTable(k))
+				.collect(Collectors.toList());
+		if (pending.isEmpty()) {
+			return;
+		}
+		List<List<K>> pages = ListUtils.partition(pending, Math.max(1, CommonUtils.getPropertyInt(TAP_TABLE_PREFETCH_PAGE_SIZE_KEY, 50)));
+		int threads = Math.min(pages.size(), Math.max(1, CommonUtils.getPropertyInt(TAP_TABLE_PREFETCH_THREADS_KEY, 4)));
+		AtomicInteger threadIndex = new AtomicInteger();
+		ExecutorService executorService = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+				r -> new Thread(r, "TapTableMap-prefetch-" + nodeId + "-" + threadIndex.getAndIncrement()));
+		try {
+			List<Future<?>> futures = new ArrayList<>(pages.size());
+			for (List<K> page : pages) {
+				futures.add(executorService.submit(() -> prefetchPage(page)));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Prefetch schema failed, node id: " + nodeId + ", message: " + e.getCause().getMessage(), e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	private void prefetchPage(List<K> keys) {
+		Map<K, TapTable> schemas = findSchemas(keys);
+		for (Map.Entry<K, TapTable> entry : schemas.entrySet()) {
+			K key = entry.getKey();
+			V tapTable = (V) sortFields(entry.getValue());
+			try {
+				handleWithLock(key, () -> {
+					if (null == getLoadedTapTable(key)) {
+						putTapTable(key, tapTable);
+					}
+					return null;
+				});
+			} catch (Exception e) {
+				throw new RuntimeException("Put prefetched schema failed, table: " + key + ", message: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	protected Map<K, TapTable> findSchemas(List<K> keys) {
+		Map<String, K> qualifiedNameKeyMap = new HashMap<>();
+		for (K key : keys) {
+			qualifiedNameKeyMap.put(tableNameAndQualifiedNameMap.get(key), key);
+		}
+		List<String> qualifiedNames = new ArrayList<>(qualifiedNameKeyMap.keySet());
+		ClientMongoOperator clientMongoOperator = BeanUtil.getBean(ClientMongoOperator.class);
+		Map<K, TapTable> result = new HashMap<>();
+		if (null != time && time.compareTo(0L) > 0) {
+			Map<String, Object> param = new HashMap<>();
+			param.put("qualifiedNames", qualifiedNames);
+			param.put("time", time);
+			Map<?, ?> tapTableMap = clientMongoOperator.postOne(param, ConnectorConstant.METADATA_HISTROY_COLLECTION + "/batch", Map.class);
+			if (null != tapTableMap) {
+				for (Map.Entry<?, ?> entry : tapTableMap.entrySet()) {
+					K key = qualifiedNameKeyMap.get(String.valueOf(entry.getKey()));
+					if (null != key && null != entry.getValue()) {
+						try {
+							result.put(key, JSONUtil.json2POJO(JSONUtil.obj2Json(entry.getValue()), TapTable.class));
+						} catch (Exception e) {
+							throw new RuntimeException("Parse schema failed, qualified name: " + entry.getKey() + ", message: " + e.getMessage(), e);
+						}
+					}
+				}
+			}
+		} else {
+			// tables of a node have different names, returned tables do not have the qualified name
+			Query query = Query.query(where("qualified_name").in(qualifiedNames)).limit(qualifiedNames.size());
+			List<TapTable> tapTableList = clientMongoOperator.find(query, ConnectorConstant.METADATA_INSTANCE_COLLECTION + "/tapTables", TapTable.class);
+			Set<K> keySet = new HashSet<>(keys);
+			for (TapTable tapTable : tapTableList) {
+				if (null != tapTable && keySet.contains(tapTable.getId())) {
+					result.put((K) tapTable.getId(), tapTable);
+				}
+			}
+		}
+		return result;
 	}
 
 	protected V findSchema(K k) {
@@ -297,7 +429,10 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 		if (null == tapTable) {
 			throw new RuntimeException("Table name \"" + k + "\" not exists, qualified name: " + qualifiedName);
 		}
+		return (V) sortFields(tapTable);
+	}
 
+	protected static TapTable sortFields(TapTable tapTable) {
 		LinkedHashMap<String, TapField> nameFieldMap = tapTable.getNameFieldMap();
 		if (MapUtils.isNotEmpty(nameFieldMap)) {
 			LinkedHashMap<String, TapField> sortedFieldMap = new LinkedHashMap<>();
@@ -319,16 +454,27 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 			}).forEach(entry -> sortedFieldMap.put(entry.getKey(), entry.getValue()));
 			tapTable.setNameFieldMap(sortedFieldMap);
 		}
-		return (V) tapTable;
+		return tapTable;
 	}
 
 	protected <T> T handleWithLock(Supplier<T> supplier) throws Exception {
-		try {
-			while (!Thread.currentThread().isInterrupted()) {
-				if (lock.tryLock(3, TimeUnit.SECONDS)) {
-					break;
-				}
+		return handleWithLock(lock, supplier);
+	}
+
+	/**
+	 * Lock only the tables with the same lock stripe as key, so that schemas of different tables are found in parallel
+	 */
+	protected <T> T handleWithLock(K key, Supplier<T> supplier) throws Exception {
+		return handleWithLock(keyLocks[(key.hashCode() & Integer.MAX_VALUE) % KEY_LOCK_STRIPES], supplier);
+	}
+
+	private static <T> T handleWithLock(Lock lock, Supplier<T> supplier) throws Exception {
+		while (!lock.tryLock(3, TimeUnit.SECONDS)) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedException("Interrupted while waiting for lock");
 			}
+		}
+		try {
 			return supplier.get();
 		} finally {
 			lock.unlock();
@@ -341,7 +487,7 @@ public class TapTableMap<K extends String, V extends TapTable> extends HashMap<K
 	}
 
 	protected void resetTapTable() {
-		super.clear();
+		tapTables.clear();
 	}
 
 	public Iterator<io.tapdata.entity.utils.cache.Entry<TapTable>> iterator() {
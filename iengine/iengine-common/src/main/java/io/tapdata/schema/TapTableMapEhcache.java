@@ -56,7 +56,7 @@ public class TapTableMapEhcache<K extends String, V extends TapTable> extends Ta
     }
 
     @Override
-    protected V getTapTable(K key) {
+    protected V getLoadedTapTable(K key) {
         EhcacheKVMap<V> ehcacheKVMap = Optional.ofNullable(getEhcacheKVMap()).orElseGet(() -> {
             try {
                 return handleWithLock(() -> {
@@ -73,23 +73,7 @@ public class TapTableMapEhcache<K extends String, V extends TapTable> extends Ta
         if (null == ehcacheKVMap) {
             throw new IllegalArgumentException(String.format("Cannot create TapTableMap, node id: %s, map name: %s", nodeId, mapKey));
         }
-
-        V tapTable = ehcacheKVMap.get(key);
-        if (null == tapTable) {
-            try {
-                tapTable = handleWithLock(() -> {
-                    V tmp = ehcacheKVMap.get(key);
-                    if (null == tmp) {
-                        tmp = findSchema(key);
-                        ehcacheKVMap.put(key, tmp);
-                    }
-                    return tmp;
-                });
-            } catch (Exception e) {
-                throw new RuntimeException("Find schema failed, message: " + e.getMessage(), e);
-            }
-        }
-        return tapTable;
+        return ehcacheKVMap.get(key);
     }
 
     @Override
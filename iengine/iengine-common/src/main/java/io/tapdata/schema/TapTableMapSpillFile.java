@@ -0,0 +1,210 @@
+package io.tapdata.schema;
+
+import com.tapdata.constant.EngineConstant;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.entity.utils.ObjectSerializable;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Table map keeping at most max heap entries schemas on heap.
+ * <p>
+ * The least recently used schema is evicted to a local spill file, compressed, and read back from the file when it is
+ * got again instead of finding it from manager. A schema is written to the file once, it is only written again after
+ * it was put.
+ * <p>
+ * Spill files are kept under the engine work dir, every map has its own file, which is deleted when the map is reset or
+ * cleared, that is done when the node closes.
+ */
+public class TapTableMapSpillFile<K extends String, V extends TapTable> extends TapTableMap<K, V> {
+	public static final String TAP_TABLE_MAX_HEAP_ENTRIES_KEY = "TAP_TABLE_MAX_HEAP_ENTRIES";
+	public static final String TAP_TABLE_PREFIX = "TAP_TABLE_";
+	private static final String SPILL_PATH = "tap_table_spill";
+
+	private final File spillFile;
+	private final Map<K, V> heapEntries;
+	/**
+	 * key -> offset and length in the spill file
+	 */
+	private final Map<K, long[]> spillIndex = new ConcurrentHashMap<>();
+	private final ObjectSerializable objectSerializable = InstanceFactory.instance(ObjectSerializable.class);
+	private FileChannel spillChannel;
+
+	public TapTableMapSpillFile(String prefix, String nodeId, Long time, Map<K, String> tableNameAndQualifiedNameMap, int maxHeapEntries) {
+		super(nodeId, time, tableNameAndQualifiedNameMap);
+		String mapKey = StringUtils.isNotEmpty(prefix) ? prefix + "_" + TAP_TABLE_PREFIX + nodeId : TAP_TABLE_PREFIX + nodeId;
+		// Maps of the same node may be open at the same time, each one owns its file
+		this.spillFile = new File(spillDir(), mapKey + "_" + UUID.randomUUID() + ".spill");
+		int max = Math.max(1, maxHeapEntries);
+		this.heapEntries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				if (size() <= max) {
+					return false;
+				}
+				if (!spillIndex.containsKey(eldest.getKey())) {
+					spillIndex.put(eldest.getKey(), spill(eldest.getValue()));
+				}
+				return true;
+			}
+		};
+	}
+
+	@Override
+	protected V getLoadedTapTable(K key) {
+		synchronized (heapEntries) {
+			V tapTable = heapEntries.get(key);
+			if (null != tapTable) {
+				return tapTable;
+			}
+		}
+		long[] position = spillIndex.get(key);
+		if (null == position) {
+			return null;
+		}
+		V tapTable = read(key, position);
+		synchronized (heapEntries) {
+			if (null != tapTable && position == spillIndex.get(key)) {
+				heapEntries.put(key, tapTable);
+			}
+		}
+		return tapTable;
+	}
+
+	@Override
+	protected void putTapTable(K key, V value) {
+		synchronized (heapEntries) {
+			spillIndex.remove(key);
+			if (null == value) {
+				heapEntries.remove(key);
+			} else {
+				heapEntries.put(key, value);
+			}
+		}
+	}
+
+	@Override
+	protected V removeTapTable(K key) {
+		synchronized (heapEntries) {
+			spillIndex.remove(key);
+			return heapEntries.remove(key);
+		}
+	}
+
+	@Override
+	protected void clearTapTable() {
+		synchronized (heapEntries) {
+			spillIndex.clear();
+			heapEntries.clear();
+			closeSpillFile();
+		}
+	}
+
+	@Override
+	protected void resetTapTable() {
+		clearTapTable();
+	}
+
+	/**
+	 * Spill dir under the work dir of the engine, the temp dir if the work dir is not set
+	 */
+	static File spillDir() {
+		String workDir = CommonUtils.getProperty(EngineConstant.ENV_WORKER_DIR_KEY);
+		if (StringUtils.isBlank(workDir)) {
+			workDir = System.getProperty("java.io.tmpdir");
+		}
+		return new File(workDir, SPILL_PATH);
+	}
+
+	File getSpillFile() {
+		return spillFile;
+	}
+
+	public int getHeapEntries() {
+		synchronized (heapEntries) {
+			return heapEntries.size();
+		}
+	}
+
+	public int getSpilledEntries() {
+		return spillIndex.size();
+	}
+
+	/**
+	 * Append the compressed schema to the spill file, called with heap entries locked
+	 */
+	private long[] spill(V tapTable) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (OutputStream out = new GZIPOutputStream(bytes)) {
+				out.write(objectSerializable.fromObject(tapTable));
+			}
+			if (null == spillChannel) {
+				FileUtils.forceMkdir(spillFile.getParentFile());
+				spillChannel = FileChannel.open(spillFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			}
+			long offset = spillChannel.size();
+			ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+			while (buffer.hasRemaining()) {
+				spillChannel.write(buffer, offset + buffer.position());
+			}
+			return new long[]{offset, bytes.size()};
+		} catch (IOException e) {
+			throw new RuntimeException("Spill schema " + tapTable.getId() + " to " + spillFile + " failed, message: " + e.getMessage(), e);
+		}
+	}
+
+	private V read(K key, long[] position) {
+		try {
+			FileChannel channel;
+			synchronized (heapEntries) {
+				channel = spillChannel;
+			}
+			if (null == channel) {
+				// cleared
+				return null;
+			}
+			ByteBuffer buffer = ByteBuffer.allocate((int) position[1]);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, position[0] + buffer.position()) < 0) {
+					throw new IOException("Unexpected end of spill file");
+				}
+			}
+			try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(buffer.array()))) {
+				return (V) objectSerializable.toObject(IOUtils.toByteArray(in));
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Read schema " + key + " from " + spillFile + " failed, message: " + e.getMessage(), e);
+		}
+	}
+
+	private void closeSpillFile() {
+		if (null != spillChannel) {
+			try {
+				spillChannel.close();
+			} catch (IOException ignored) {
+			}
+			spillChannel = null;
+		}
+		FileUtils.deleteQuietly(spillFile);
+	}
+}
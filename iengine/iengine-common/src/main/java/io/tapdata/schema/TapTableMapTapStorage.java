@@ -31,23 +31,8 @@ public class TapTableMapTapStorage<K extends String, V extends TapTable> extends
 	}
 
 	@Override
-	protected V getTapTable(K key) {
-		V tapTable = (V) getStorage().get(key);
-		if (null == tapTable) {
-			try {
-				tapTable = handleWithLock(() -> {
-					V tmp = (V) getStorage().get(key);
-					if (null == tmp) {
-						tmp = findSchema(key);
-						getStorage().put(key, tmp);
-					}
-					return tmp;
-				});
-			} catch (Exception e) {
-				throw new RuntimeException("Find schema failed, message: " + e.getMessage(), e);
-			}
-		}
-		return tapTable;
+	protected V getLoadedTapTable(K key) {
+		return (V) getStorage().get(key);
 	}
 
 	@Override
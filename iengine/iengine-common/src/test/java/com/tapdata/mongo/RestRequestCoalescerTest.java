@@ -0,0 +1,85 @@
+package com.tapdata.mongo;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RestRequestCoalescerTest {
+
+	@Test
+	public void testConcurrentWritesAreMerged() throws InterruptedException {
+		int writers = 10;
+		List<Object> bulkBodies = Collections.synchronizedList(new ArrayList<>());
+		// No linger flush during the test, the bulk is flushed when the last writer fills the batch
+		RestRequestCoalescer coalescer = new RestRequestCoalescer((resource, body) -> bulkBodies.add(body), new RestRequestMetrics(0), 60_000L, writers)
+				.register("Task/syncProgress/batch", resource -> resource.startsWith("Task/syncProgress/"), RestRequestCoalescer.MAP_BY_RESOURCE_ID_MERGER);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			CountDownLatch done = new CountDownLatch(writers);
+			for (int i = 0; i < writers; i++) {
+				int taskIndex = i % 2;
+				int writer = i;
+				new Thread(() -> {
+					Map<String, String> syncProgress = new HashMap<>();
+					syncProgress.put("node_" + writer, "offset_" + writer);
+					try {
+						start.await();
+						coalescer.submit("Task/syncProgress/task" + taskIndex, syncProgress);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						done.countDown();
+					}
+				}).start();
+			}
+			start.countDown();
+			Assert.assertTrue(done.await(30L, TimeUnit.SECONDS));
+
+			Assert.assertEquals(1, bulkBodies.size());
+			Map<String, Map<Object, Object>> merged = (Map<String, Map<Object, Object>>) bulkBodies.get(0);
+			Assert.assertEquals(5, merged.get("task0").size());
+			Assert.assertEquals(5, merged.get("task1").size());
+			Assert.assertEquals("offset_3", merged.get("task1").get("node_3"));
+		} finally {
+			coalescer.close();
+		}
+	}
+
+	@Test
+	public void testUnmatchedResourceAndFailure() {
+		AtomicInteger posts = new AtomicInteger();
+		RestRequestCoalescer coalescer = new RestRequestCoalescer((resource, body) -> {
+			posts.incrementAndGet();
+			throw new IllegalStateException("manager unavailable");
+		}, new RestRequestMetrics(0), 10, 1)
+				.register("MonitoringLogs/batch", "MonitoringLogs/batch"::equals, RestRequestCoalescer.LIST_MERGER);
+		try {
+			Assert.assertFalse(coalescer.submit("MonitoringLogs/batchJson", Arrays.asList("a", "b")));
+			Assert.assertEquals(0, posts.get());
+			try {
+				coalescer.submit("MonitoringLogs/batch", Arrays.asList("a", "b"));
+				Assert.fail("Bulk request failure should be thrown to the caller");
+			} catch (IllegalStateException e) {
+				Assert.assertEquals("manager unavailable", e.getMessage());
+			}
+			Assert.assertEquals(1, posts.get());
+		} finally {
+			coalescer.close();
+		}
+	}
+
+	@Test
+	public void testEndpoint() {
+		Assert.assertEquals("Task/syncProgress/:id", RestRequestMetrics.endpoint("http://127.0.0.1:3000/api/", "http://127.0.0.1:3000/api/Task/syncProgress/6461a2e9e5b5c9d1d0f3a1b2?access_token=abc"));
+		Assert.assertEquals("MonitoringLogs/batch", RestRequestMetrics.endpoint(null, "MonitoringLogs/batch"));
+	}
+}
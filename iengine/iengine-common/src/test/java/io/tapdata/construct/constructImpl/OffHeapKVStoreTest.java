@@ -0,0 +1,126 @@
+package io.tapdata.construct.constructImpl;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class OffHeapKVStoreTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testPutGetRemove() {
+		try (OffHeapKVStore store = new OffHeapKVStore("test", null, 1024)) {
+			Assert.assertNull(store.get(bytes("a")));
+			Assert.assertTrue(store.put(bytes("a"), bytes("1")));
+			Assert.assertFalse(store.put(bytes("a"), bytes("2")));
+			Assert.assertArrayEquals(bytes("2"), store.get(bytes("a")));
+			Assert.assertTrue(store.containsKey(bytes("a")));
+			Assert.assertEquals(1L, store.size());
+			Assert.assertTrue(store.remove(bytes("a")));
+			Assert.assertFalse(store.remove(bytes("a")));
+			Assert.assertNull(store.get(bytes("a")));
+			Assert.assertTrue(store.isEmpty());
+			Assert.assertTrue(store.put(bytes(""), new byte[0]));
+			Assert.assertArrayEquals(new byte[0], store.get(bytes("")));
+		}
+	}
+
+	@Test
+	public void testRecordBiggerThanSegment() {
+		try (OffHeapKVStore store = new OffHeapKVStore("test", null, 1024)) {
+			byte[] value = new byte[5000];
+			new Random(1).nextBytes(value);
+			store.put(bytes("big"), value);
+			store.put(bytes("small"), bytes("v"));
+			Assert.assertArrayEquals(value, store.get(bytes("big")));
+			Assert.assertArrayEquals(bytes("v"), store.get(bytes("small")));
+		}
+	}
+
+	@Test
+	public void testRandomOperationsAgainstHashMap() {
+		randomOperations(new OffHeapKVStore("direct", null, 4096));
+	}
+
+	@Test
+	public void testRandomOperationsMemoryMapped() throws Exception {
+		File directory = temporaryFolder.newFolder("offheap");
+		randomOperations(new OffHeapKVStore("mmap", directory, 4096));
+		File[] files = directory.listFiles();
+		Assert.assertNotNull(files);
+		Assert.assertEquals(0, files.length);
+	}
+
+	@Test
+	public void testCompactKeepsLiveRecords() {
+		try (OffHeapKVStore store = new OffHeapKVStore("test", null, 1024)) {
+			for (int round = 0; round < 100; round++) {
+				for (int i = 0; i < 50; i++) {
+					store.put(bytes("key-" + i), bytes("value-" + i + "-" + round));
+				}
+			}
+			Assert.assertEquals(50L, store.size());
+			Assert.assertTrue(store.garbageBytes() < store.appendedBytes());
+			Assert.assertTrue(store.appendedBytes() < 50 * 1024);
+			for (int i = 0; i < 50; i++) {
+				Assert.assertArrayEquals(bytes("value-" + i + "-99"), store.get(bytes("key-" + i)));
+			}
+		}
+	}
+
+	@Test
+	public void testClearAndRegistry() {
+		OffHeapKVStore store = OffHeapKVStore.getOrCreate("registry", () -> new OffHeapKVStore("registry", null, 1024));
+		Assert.assertSame(store, OffHeapKVStore.getOrCreate("registry", () -> new OffHeapKVStore("other", null, 1024)));
+		store.put(bytes("a"), bytes("1"));
+		store.clear();
+		Assert.assertTrue(store.isEmpty());
+		Assert.assertNull(store.get(bytes("a")));
+		store.put(bytes("a"), bytes("1"));
+		Assert.assertArrayEquals(bytes("1"), store.get(bytes("a")));
+		Assert.assertTrue(OffHeapKVStore.destroy("registry"));
+		Assert.assertFalse(OffHeapKVStore.destroy("registry"));
+		Assert.assertNotSame(store, OffHeapKVStore.getOrCreate("registry", () -> new OffHeapKVStore("registry", null, 1024)));
+		OffHeapKVStore.destroy("registry");
+	}
+
+	private static void randomOperations(OffHeapKVStore store) {
+		try {
+			Map<String, byte[]> expected = new HashMap<>();
+			Random random = new Random(42);
+			for (int i = 0; i < 200_000; i++) {
+				String key = "k" + random.nextInt(20_000);
+				int op = random.nextInt(10);
+				if (op < 6) {
+					byte[] value = new byte[random.nextInt(64)];
+					random.nextBytes(value);
+					Assert.assertEquals(!expected.containsKey(key), store.put(bytes(key), value));
+					expected.put(key, value);
+				} else if (op < 8) {
+					Assert.assertEquals(expected.remove(key) != null, store.remove(bytes(key)));
+				} else {
+					Assert.assertArrayEquals(expected.get(key), store.get(bytes(key)));
+				}
+			}
+			Assert.assertEquals(expected.size(), store.size());
+			for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+				Assert.assertArrayEquals(entry.getValue(), store.get(bytes(entry.getKey())));
+			}
+		} finally {
+			store.close();
+		}
+	}
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,66 @@
+package io.tapdata.flow.engine.V2.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveBatchSizerTest {
+
+	@Test
+	public void testIncreaseWhenFastAndFull() {
+		AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(10, 1000, 100, 1000L);
+		Assert.assertEquals(100, sizer.batchSize("t1"));
+		sizer.onSuccess("t1", 100, 50L);
+		Assert.assertEquals(110, sizer.batchSize("t1"));
+		for (int i = 0; i < 1000; i++) {
+			sizer.onSuccess("t1", sizer.batchSize("t1"), 50L);
+		}
+		Assert.assertEquals(1000, sizer.batchSize("t1"));
+		// other tables are not affected
+		Assert.assertEquals(100, sizer.batchSize("t2"));
+	}
+
+	@Test
+	public void testNotIncreaseWhenBatchNotFull() {
+		AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(10, 1000, 100, 1000L);
+		sizer.onSuccess("t1", 5, 50L);
+		Assert.assertEquals(100, sizer.batchSize("t1"));
+	}
+
+	@Test
+	public void testDecreaseWhenSlow() {
+		AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(10, 1000, 100, 1000L);
+		sizer.onSuccess("t1", 100, 5000L);
+		Assert.assertEquals(70, sizer.batchSize("t1"));
+		for (int i = 0; i < 100; i++) {
+			sizer.onSuccess("t1", sizer.batchSize("t1"), 5000L);
+		}
+		Assert.assertEquals(10, sizer.batchSize("t1"));
+	}
+
+	@Test
+	public void testHalveOnError() {
+		AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(10, 1000, 100, 1000L);
+		sizer.onError("t1");
+		Assert.assertEquals(50, sizer.batchSize("t1"));
+		sizer.onError("t1");
+		sizer.onError("t1");
+		sizer.onError("t1");
+		Assert.assertEquals(10, sizer.batchSize("t1"));
+	}
+
+	@Test
+	public void testEffectiveSizeAndBounds() {
+		AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(10, 50, 100, 1000L);
+		Assert.assertEquals(50, sizer.getEffectiveSize());
+		sizer.onError("t1");
+		Assert.assertEquals(25, sizer.batchSize("t1"));
+		Assert.assertEquals(25, sizer.getEffectiveSize());
+		Assert.assertEquals(25, sizer.batchSize(null));
+		Assert.assertEquals(50, sizer.batchSize("t2"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalRange() {
+		new AdaptiveBatchSizer(10, 5, 5, 1000L);
+	}
+}
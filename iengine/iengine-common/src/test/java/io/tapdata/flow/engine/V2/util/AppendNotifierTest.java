@@ -0,0 +1,76 @@
+package io.tapdata.flow.engine.V2.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class AppendNotifierTest {
+
+	@Test
+	public void testSignalsAreCoalescedUntilTaken() {
+		AppendNotifier notifier = new AppendNotifier();
+		try (AppendNotifier.Subscription subscription = notifier.subscribe(Arrays.asList("a", "b"))) {
+			notifier.notifyAppended("b");
+			notifier.notifyAppended("a");
+			notifier.notifyAppended("b");
+			notifier.notifyAppended("c");
+			Assert.assertEquals(Arrays.asList("b", "a"), Arrays.asList(subscription.poll().toArray()));
+			Assert.assertTrue(subscription.poll().isEmpty());
+		}
+	}
+
+	@Test
+	public void testAwaitWakesUpOnSignal() throws Exception {
+		AppendNotifier notifier = new AppendNotifier();
+		try (AppendNotifier.Subscription subscription = notifier.subscribe(Collections.singletonList("a"))) {
+			AtomicReference<Set<String>> result = new AtomicReference<>();
+			CountDownLatch done = new CountDownLatch(1);
+			Thread reader = new Thread(() -> {
+				try {
+					result.set(subscription.await(10, TimeUnit.SECONDS));
+				} catch (InterruptedException ignored) {
+				}
+				done.countDown();
+			});
+			long start = System.nanoTime();
+			reader.start();
+			TimeUnit.MILLISECONDS.sleep(50);
+			notifier.notifyAppended("a");
+			Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+			Assert.assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+			Assert.assertEquals(Collections.singleton("a"), result.get());
+		}
+	}
+
+	@Test
+	public void testAwaitTimeout() throws Exception {
+		AppendNotifier notifier = new AppendNotifier();
+		try (AppendNotifier.Subscription subscription = notifier.subscribe(Collections.singletonList("a"))) {
+			long start = System.nanoTime();
+			Assert.assertTrue(subscription.await(50, TimeUnit.MILLISECONDS).isEmpty());
+			Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 45);
+		}
+	}
+
+	@Test
+	public void testCloseUnsubscribes() {
+		AppendNotifier notifier = new AppendNotifier();
+		AppendNotifier.Subscription first = notifier.subscribe(Arrays.asList("a", "b"));
+		AppendNotifier.Subscription second = notifier.subscribe(Collections.singletonList("a"));
+		Assert.assertEquals(2, notifier.getSubscriptionCount("a"));
+		first.close();
+		Assert.assertEquals(1, notifier.getSubscriptionCount("a"));
+		Assert.assertEquals(0, notifier.getSubscriptionCount("b"));
+		notifier.notifyAppended("a");
+		Assert.assertTrue(first.poll().isEmpty());
+		Assert.assertEquals(Collections.singleton("a"), second.poll());
+		second.close();
+		Assert.assertEquals(0, notifier.getSubscriptionCount("a"));
+	}
+}
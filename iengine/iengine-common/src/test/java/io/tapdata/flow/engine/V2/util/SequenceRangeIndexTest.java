@@ -0,0 +1,78 @@
+package io.tapdata.flow.engine.V2.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class SequenceRangeIndexTest {
+
+	@Test
+	public void testCloseSequencesAreMerged() {
+		SequenceRangeIndex index = new SequenceRangeIndex(10, 100);
+		index.add(0);
+		index.add(1);
+		index.add(5);
+		index.add(16);
+		index.add(30, 40);
+		Assert.assertEquals(2, index.getRangeCount());
+		Assert.assertEquals(Arrays.asList(0L, 16L, 30L, 40L), index.toList());
+		Assert.assertEquals(40, index.getLastSequence());
+	}
+
+	@Test
+	public void testNextSequenceSkipsGaps() {
+		SequenceRangeIndex index = new SequenceRangeIndex(0, 100);
+		index.add(10, 20);
+		index.add(100, 110);
+		index.add(500);
+		Assert.assertEquals(10, index.nextSequence(0));
+		Assert.assertEquals(15, index.nextSequence(15));
+		Assert.assertEquals(100, index.nextSequence(21));
+		Assert.assertEquals(500, index.nextSequence(111));
+		Assert.assertEquals(-1, index.nextSequence(501));
+		Assert.assertEquals(20, index.rangeEnd(12));
+		Assert.assertEquals(-1, index.rangeEnd(50));
+		Assert.assertEquals(500, index.rangeEnd(500));
+	}
+
+	@Test
+	public void testMaxRangesMergesOldest() {
+		SequenceRangeIndex index = new SequenceRangeIndex(0, 3);
+		index.add(0);
+		index.add(10);
+		index.add(20);
+		index.add(30);
+		Assert.assertEquals(Arrays.asList(0L, 10L, 20L, 20L, 30L, 30L), index.toList());
+	}
+
+	@Test
+	public void testTrimBefore() {
+		SequenceRangeIndex index = new SequenceRangeIndex(0, 100);
+		index.add(0, 5);
+		index.add(10, 20);
+		index.add(30, 40);
+		index.trimBefore(15);
+		Assert.assertEquals(Arrays.asList(15L, 20L, 30L, 40L), index.toList());
+		index.trimBefore(100);
+		Assert.assertTrue(index.isEmpty());
+		Assert.assertEquals(-1, index.nextSequence(0));
+	}
+
+	@Test
+	public void testFromList() {
+		SequenceRangeIndex index = new SequenceRangeIndex(0, 100);
+		index.add(1, 2);
+		index.add(7, 9);
+		SequenceRangeIndex copy = SequenceRangeIndex.fromList(index.toList(), 0, 100);
+		Assert.assertEquals(index.toList(), copy.toList());
+		Assert.assertEquals("[1-2, 7-9]", copy.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddBeforeLastRangeFails() {
+		SequenceRangeIndex index = new SequenceRangeIndex(0, 100);
+		index.add(10);
+		index.add(5);
+	}
+}
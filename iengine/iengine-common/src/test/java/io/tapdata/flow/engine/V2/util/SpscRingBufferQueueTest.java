@@ -0,0 +1,203 @@
+package io.tapdata.flow.engine.V2.util;
+
+import com.google.common.collect.Queues;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SpscRingBufferQueueTest {
+
+	@Test
+	public void testOfferAndPollKeepOrder() {
+		SpscRingBufferQueue<Integer> queue = new SpscRingBufferQueue<>(3);
+		Assert.assertTrue(queue.offer(1));
+		Assert.assertTrue(queue.offer(2));
+		Assert.assertTrue(queue.offer(3));
+		Assert.assertFalse(queue.offer(4));
+		Assert.assertEquals(3, queue.size());
+		Assert.assertEquals(0, queue.remainingCapacity());
+		Assert.assertEquals(Integer.valueOf(1), queue.peek());
+		Assert.assertEquals(Integer.valueOf(1), queue.poll());
+		Assert.assertTrue(queue.offer(4));
+		Assert.assertEquals(Integer.valueOf(2), queue.poll());
+		Assert.assertEquals(Integer.valueOf(3), queue.poll());
+		Assert.assertEquals(Integer.valueOf(4), queue.poll());
+		Assert.assertNull(queue.poll());
+		Assert.assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testOfferBatchAndDrainTo() {
+		SpscRingBufferQueue<Integer> queue = new SpscRingBufferQueue<>(5);
+		Assert.assertEquals(5, queue.offerBatch(Arrays.asList(1, 2, 3, 4, 5, 6, 7)));
+		List<Integer> drained = new ArrayList<>();
+		Assert.assertEquals(3, queue.drainTo(drained, 3));
+		Assert.assertEquals(Arrays.asList(1, 2, 3), drained);
+		Assert.assertEquals(3, queue.offerBatch(Arrays.asList(6, 7, 8)));
+		Assert.assertEquals(5, queue.drainTo(drained));
+		Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), drained);
+	}
+
+	@Test
+	public void testPollTimeout() throws InterruptedException {
+		SpscRingBufferQueue<Integer> queue = new SpscRingBufferQueue<>(1, SpscRingBufferQueue.WaitStrategy.SLEEPING);
+		Assert.assertNull(queue.poll(10L, TimeUnit.MILLISECONDS));
+		Assert.assertTrue(queue.offer(1, 10L, TimeUnit.MILLISECONDS));
+		Assert.assertFalse(queue.offer(2, 10L, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testContainsAndToArrayAfterWrapAround() {
+		SpscRingBufferQueue<Integer> queue = new SpscRingBufferQueue<>(4);
+		queue.offerBatch(Arrays.asList(1, 2, 3, 4));
+		queue.poll();
+		queue.poll();
+		queue.offerBatch(Arrays.asList(5, 6));
+		Assert.assertTrue(queue.contains(3));
+		Assert.assertTrue(queue.contains(6));
+		Assert.assertFalse(queue.contains(1));
+		Assert.assertTrue(queue.containsAll(Arrays.asList(3, 4, 5)));
+		Assert.assertArrayEquals(new Object[]{3, 4, 5, 6}, queue.toArray());
+		Assert.assertArrayEquals(new Integer[]{3, 4, 5, 6}, queue.toArray(new Integer[0]));
+		Integer[] larger = new Integer[]{0, 0, 0, 0, 0, 0};
+		Assert.assertSame(larger, queue.toArray(larger));
+		Assert.assertNull(larger[4]);
+		List<Integer> iterated = new ArrayList<>();
+		for (Integer e : queue) {
+			iterated.add(e);
+		}
+		Assert.assertEquals(Arrays.asList(3, 4, 5, 6), iterated);
+		Assert.assertEquals(Integer.valueOf(3), queue.poll());
+		Assert.assertArrayEquals(new Object[0], new SpscRingBufferQueue<Integer>(2).toArray());
+	}
+
+	@Test
+	public void testRemoveKeepsOrder() {
+		SpscRingBufferQueue<Integer> queue = new SpscRingBufferQueue<>(4);
+		queue.offerBatch(Arrays.asList(1, 2, 3, 4));
+		Assert.assertTrue(queue.remove(Integer.valueOf(3)));
+		Assert.assertFalse(queue.remove(Integer.valueOf(3)));
+		Assert.assertEquals(3, queue.size());
+		Assert.assertTrue(queue.offer(5));
+		Iterator<Integer> iterator = queue.iterator();
+		Assert.assertEquals(Integer.valueOf(1), iterator.next());
+		iterator.remove();
+		List<Integer> drained = new ArrayList<>();
+		queue.drainTo(drained);
+		Assert.assertEquals(Arrays.asList(2, 4, 5), drained);
+	}
+
+	@Test
+	public void testSnapshotWhileHandingOff() throws Exception {
+		SpscRingBufferQueue<Integer> queue = new SpscRingBufferQueue<>(64);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		Thread consumer = new Thread(() -> {
+			try {
+				int expected = 0;
+				while (expected < 100_000) {
+					Integer e = queue.poll(1L, TimeUnit.SECONDS);
+					if (null == e || e != expected++) {
+						throw new IllegalStateException("Unexpected element " + e);
+					}
+				}
+			} catch (Throwable e) {
+				error.set(e);
+			}
+		});
+		consumer.start();
+		Thread producer = new Thread(() -> {
+			try {
+				for (int i = 0; i < 100_000; i++) {
+					queue.put(i);
+				}
+			} catch (Throwable e) {
+				error.set(e);
+			}
+		});
+		producer.start();
+		while (producer.isAlive() || consumer.isAlive()) {
+			// Snapshots hold no nulls and keep the queue order
+			Object[] snapshot = queue.toArray();
+			for (int i = 0; i < snapshot.length; i++) {
+				Assert.assertNotNull(snapshot[i]);
+				if (i > 0) {
+					Assert.assertTrue((Integer) snapshot[i - 1] < (Integer) snapshot[i]);
+				}
+			}
+		}
+		Assert.assertNull(error.get());
+	}
+
+	@Test
+	public void testConcurrentHandoffWithGuavaDrain() throws Exception {
+		for (SpscRingBufferQueue.WaitStrategy waitStrategy : SpscRingBufferQueue.WaitStrategy.values()) {
+			long received = handoff(new SpscRingBufferQueue<>(1500, waitStrategy), 200_000, 1000);
+			Assert.assertEquals(200_000, received);
+		}
+	}
+
+	/**
+	 * Compare the hand-off throughput against {@link LinkedBlockingQueue}, sized the same way as the target node queue (1.5 x batch size)
+	 */
+	@Test
+	@Ignore("Throughput benchmark, run manually")
+	public void benchmarkAgainstLinkedBlockingQueue() throws Exception {
+		int total = 1_000_000;
+		for (int batch : new int[]{100, 1000, 5000}) {
+			int capacity = batch * 3 / 2;
+			// warm up
+			handoff(new LinkedBlockingQueue<>(capacity), total, batch);
+			handoff(new SpscRingBufferQueue<>(capacity), total, batch);
+
+			long start = System.nanoTime();
+			handoff(new LinkedBlockingQueue<>(capacity), total, batch);
+			long linkedCost = System.nanoTime() - start;
+			start = System.nanoTime();
+			handoff(new SpscRingBufferQueue<>(capacity), total, batch);
+			long ringCost = System.nanoTime() - start;
+			System.out.printf("batch: %d, LinkedBlockingQueue: %d events/s, SpscRingBufferQueue: %d events/s%n",
+					batch, total * TimeUnit.SECONDS.toNanos(1) / linkedCost, total * TimeUnit.SECONDS.toNanos(1) / ringCost);
+		}
+	}
+
+	private static long handoff(BlockingQueue<Long> queue, int total, int batch) throws Exception {
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		long[] received = new long[1];
+		Thread consumer = new Thread(() -> {
+			List<Long> buffer = new ArrayList<>(batch);
+			long expected = 0;
+			try {
+				while (expected < total) {
+					Queues.drain(queue, buffer, batch, 100L, TimeUnit.MILLISECONDS);
+					for (Long value : buffer) {
+						if (value != expected++) {
+							throw new IllegalStateException("Expected " + (expected - 1) + " but got " + value);
+						}
+					}
+					buffer.clear();
+				}
+				received[0] = expected;
+			} catch (Throwable e) {
+				error.set(e);
+			}
+		}, "spsc-consumer");
+		consumer.start();
+		for (long i = 0; i < total; i++) {
+			queue.put(i);
+		}
+		consumer.join(TimeUnit.MINUTES.toMillis(1));
+		if (null != error.get()) {
+			throw new AssertionError(error.get());
+		}
+		return received[0];
+	}
+}
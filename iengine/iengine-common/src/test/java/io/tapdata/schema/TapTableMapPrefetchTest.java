@@ -0,0 +1,135 @@
+package io.tapdata.schema;
+
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Bulk schema prefetch requests pages of qualified names instead of one request per table
+ */
+public class TapTableMapPrefetchTest {
+
+	private final List<List<String>> requestedPages = new CopyOnWriteArrayList<>();
+	private final List<String> foundOneByOne = new CopyOnWriteArrayList<>();
+	/**
+	 * Schemas known by manager, key is the table name
+	 */
+	private final Map<String, TapTable> schemas = new ConcurrentHashMap<>();
+
+	@Before
+	public void setUp() {
+		System.setProperty(TapTableMap.TAP_TABLE_PREFETCH_PAGE_SIZE_KEY, "2");
+		System.setProperty(TapTableMap.TAP_TABLE_PREFETCH_THREADS_KEY, "2");
+	}
+
+	@After
+	public void tearDown() {
+		System.clearProperty(TapTableMap.TAP_TABLE_PREFETCH_PAGE_SIZE_KEY);
+		System.clearProperty(TapTableMap.TAP_TABLE_PREFETCH_THREADS_KEY);
+	}
+
+	@Test
+	public void testPrefetchRequestsPages() {
+		TapTableMap<String, TapTable> tapTableMap = tapTableMap("a", "b", "c", "d", "e");
+
+		tapTableMap.prefetch();
+
+		// 5 tables in pages of 2
+		Assert.assertEquals(3, requestedPages.size());
+		Set<String> requested = new HashSet<>();
+		for (List<String> page : requestedPages) {
+			Assert.assertTrue(page.size() <= 2);
+			requested.addAll(page);
+		}
+		Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d", "e")), requested);
+		for (String table : Arrays.asList("a", "b", "c", "d", "e")) {
+			Assert.assertEquals(table, tapTableMap.get(table).getId());
+		}
+		Assert.assertTrue(foundOneByOne.isEmpty());
+	}
+
+	@Test
+	public void testPrefetchSkipsLoadedTables() {
+		TapTableMap<String, TapTable> tapTableMap = tapTableMap("a", "b", "c");
+		TapTable loaded = new TapTable("a").add(new TapField("loaded", "int"));
+		tapTableMap.put("a", loaded);
+
+		tapTableMap.prefetch();
+
+		Assert.assertEquals(Collections.singletonList(Arrays.asList("b", "c")), sorted(requestedPages));
+		// Loaded schema is not replaced by the prefetched one
+		Assert.assertSame(loaded, tapTableMap.get("a"));
+
+		requestedPages.clear();
+		tapTableMap.prefetch();
+		Assert.assertTrue(requestedPages.isEmpty());
+	}
+
+	@Test
+	public void testTablesNotReturnedAreFoundOneByOne() {
+		TapTableMap<String, TapTable> tapTableMap = tapTableMap("a", "b", "c");
+		schemas.remove("b");
+
+		tapTableMap.prefetch();
+		Assert.assertTrue(foundOneByOne.isEmpty());
+		schemas.put("b", new TapTable("b"));
+
+		Assert.assertEquals("b", tapTableMap.get("b").getId());
+		Assert.assertEquals(Collections.singletonList("b"), foundOneByOne);
+		tapTableMap.get("a");
+		tapTableMap.get("c");
+		Assert.assertEquals(1, foundOneByOne.size());
+	}
+
+	private TapTableMap<String, TapTable> tapTableMap(String... tables) {
+		Map<String, String> qualifiedNames = new HashMap<>();
+		for (String table : tables) {
+			qualifiedNames.put(table, "T_" + table);
+			schemas.put(table, new TapTable(table).add(new TapField("id", "int")));
+		}
+		return new TapTableMap<String, TapTable>("prefetch-node", null, qualifiedNames) {
+			@Override
+			protected Map<String, TapTable> findSchemas(List<String> keys) {
+				requestedPages.add(new ArrayList<>(keys));
+				Map<String, TapTable> result = new HashMap<>();
+				for (String key : keys) {
+					TapTable tapTable = schemas.get(key);
+					if (null != tapTable) {
+						result.put(key, tapTable);
+					}
+				}
+				return result;
+			}
+
+			@Override
+			protected TapTable findSchema(String key) {
+				foundOneByOne.add(key);
+				return schemas.get(key);
+			}
+		};
+	}
+
+	private static List<List<String>> sorted(List<List<String>> pages) {
+		List<List<String>> sorted = new ArrayList<>();
+		for (List<String> page : pages) {
+			List<String> sortedPage = new ArrayList<>(page);
+			Collections.sort(sortedPage);
+			sorted.add(sortedPage);
+		}
+		return sorted;
+	}
+}
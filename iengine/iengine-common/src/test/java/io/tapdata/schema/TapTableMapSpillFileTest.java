@@ -0,0 +1,108 @@
+package io.tapdata.schema;
+
+import com.tapdata.constant.EngineConstant;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TapTableMapSpillFileTest {
+
+	@Test
+	public void testEvictedSchemasAreReadFromSpillFile() {
+		Map<String, String> qualifiedNames = new HashMap<>();
+		for (String table : Arrays.asList("a", "b", "c")) {
+			qualifiedNames.put(table, "T_" + table);
+		}
+		TapTableMapSpillFile<String, TapTable> tapTableMap = new TapTableMapSpillFile<>("test", "spill-node", null, qualifiedNames, 1);
+		try {
+			for (String table : Arrays.asList("a", "b", "c")) {
+				tapTableMap.put(table, new TapTable(table).add(new TapField("id_" + table, "int")));
+			}
+			Assert.assertEquals(1, tapTableMap.getHeapEntries());
+			Assert.assertEquals(2, tapTableMap.getSpilledEntries());
+
+			for (String table : Arrays.asList("a", "b", "c", "a")) {
+				TapTable tapTable = tapTableMap.get(table);
+				Assert.assertEquals(table, tapTable.getId());
+				Assert.assertNotNull(tapTable.getNameFieldMap().get("id_" + table));
+			}
+			Assert.assertEquals(1, tapTableMap.getHeapEntries());
+			Assert.assertEquals(3, tapTableMap.getSpilledEntries());
+
+			tapTableMap.put("a", new TapTable("a").add(new TapField("name", "varchar")));
+			Assert.assertEquals(2, tapTableMap.getSpilledEntries());
+			tapTableMap.get("b");
+			Assert.assertNotNull(tapTableMap.get("a").getNameFieldMap().get("name"));
+		} finally {
+			tapTableMap.reset();
+		}
+		Assert.assertEquals(0, tapTableMap.getSpilledEntries());
+	}
+
+	@Test
+	public void testSpillFileUnderWorkDir() throws Exception {
+		File workDir = Files.createTempDirectory("tap_table_work").toFile();
+		String oldWorkDir = System.getProperty(EngineConstant.ENV_WORKER_DIR_KEY);
+		System.setProperty(EngineConstant.ENV_WORKER_DIR_KEY, workDir.getAbsolutePath());
+		try {
+			TapTableMapSpillFile<String, TapTable> tapTableMap = new TapTableMapSpillFile<>(null, "work-dir-node", null, new HashMap<>(), 1);
+			tapTableMap.putNew("a", new TapTable("a"), "T_a");
+			tapTableMap.putNew("b", new TapTable("b"), "T_b");
+
+			File spillFile = tapTableMap.getSpillFile();
+			Assert.assertEquals(new File(workDir, "tap_table_spill").getAbsoluteFile(), spillFile.getParentFile().getAbsoluteFile());
+			Assert.assertTrue(spillFile.exists());
+
+			// Reset when the node closes
+			tapTableMap.reset();
+			Assert.assertFalse(spillFile.exists());
+		} finally {
+			if (null == oldWorkDir) {
+				System.clearProperty(EngineConstant.ENV_WORKER_DIR_KEY);
+			} else {
+				System.setProperty(EngineConstant.ENV_WORKER_DIR_KEY, oldWorkDir);
+			}
+			FileUtils.deleteQuietly(workDir);
+		}
+	}
+
+	@Test
+	public void testMapsOfSameNodeUseOwnSpillFiles() {
+		TapTableMapSpillFile<String, TapTable> first = new TapTableMapSpillFile<>("test", "same-node", null, new HashMap<>(), 1);
+		TapTableMapSpillFile<String, TapTable> second = new TapTableMapSpillFile<>("test", "same-node", null, new HashMap<>(), 1);
+		try {
+			first.putNew("a", new TapTable("a").add(new TapField("first", "int")), "T_a");
+			first.putNew("b", new TapTable("b"), "T_b");
+			Assert.assertEquals(1, first.getSpilledEntries());
+			Assert.assertNotEquals(first.getSpillFile(), second.getSpillFile());
+
+			// Opening and spilling the second map keeps the file of the first one
+			TapTableMapSpillFile<String, TapTable> third = new TapTableMapSpillFile<>("test", "same-node", null, new HashMap<>(), 1);
+			third.reset();
+			second.putNew("a", new TapTable("a").add(new TapField("second", "int")), "T_a");
+			second.putNew("b", new TapTable("b"), "T_b");
+			Assert.assertTrue(first.getSpillFile().exists());
+			Assert.assertNotNull(first.get("a").getNameFieldMap().get("first"));
+			Assert.assertNotNull(second.get("a").getNameFieldMap().get("second"));
+
+			// Resetting one map only deletes its own file
+			second.reset();
+			Assert.assertFalse(second.getSpillFile().exists());
+			Assert.assertTrue(first.getSpillFile().exists());
+			Assert.assertNotNull(first.get("b"));
+			Assert.assertNotNull(first.get("a").getNameFieldMap().get("first"));
+		} finally {
+			first.reset();
+			second.reset();
+		}
+		Assert.assertFalse(first.getSpillFile().exists());
+	}
+}
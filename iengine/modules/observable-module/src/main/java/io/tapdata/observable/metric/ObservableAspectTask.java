@@ -1,6 +1,7 @@
 package io.tapdata.observable.metric;
 
 import com.google.common.collect.HashBiMap;
+import com.tapdata.entity.TapdataEvent;
 import com.tapdata.tm.commons.dag.Node;
 import com.tapdata.tm.commons.dag.nodes.DatabaseNode;
 import com.tapdata.tm.commons.task.dto.TaskDto;
@@ -20,6 +21,7 @@ import io.tapdata.observable.metric.handler.*;
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @AspectTaskSession(includeTypes = {TaskDto.SYNC_TYPE_MIGRATE, TaskDto.SYNC_TYPE_SYNC, TaskDto.SYNC_TYPE_CONN_HEARTBEAT, TaskDto.SYNC_TYPE_LOG_COLLECTOR})
@@ -46,6 +48,7 @@ public class ObservableAspectTask extends AspectTask {
 		// target data node aspects
 		observerClassHandlers.register(CDCHeartbeatWriteAspect.class, this::handleCDCHeartbeatWriteAspect);
 		observerClassHandlers.register(WriteRecordFuncAspect.class, this::handleWriteRecordFunc);
+		observerClassHandlers.register(TargetBatchSizeAspect.class, this::handleTargetBatchSize);
 		observerClassHandlers.register(SnapshotWriteTableCompleteAspect.class, this::handleSnapshotWriteTableCompleteFunc);
 		observerClassHandlers.register(NewFieldFuncAspect.class, this::handleNewFieldFun);
 		observerClassHandlers.register(AlterFieldNameFuncAspect.class, this::handleAlterFieldNameFunc);
@@ -186,14 +189,18 @@ public class ObservableAspectTask extends AspectTask {
 						dataNodeSampleHandler -> dataNodeSampleHandler.addTable(table)
 				);
 				taskSampleHandler.handleBatchReadStart(table);
+				AtomicLong batchAcceptLastTs = new AtomicLong(aspect.getTime());
 				aspect.readCompleteConsumer(events -> {
 					if (null == events || events.size() == 0) {
 						return;
 					}
 
 					int size = events.size();
+					long readCompleteAt = System.currentTimeMillis();
 					Optional.ofNullable(dataNodeSampleHandlers.get(nodeId)).ifPresent(handler ->
-							handler.handleBatchReadReadComplete(System.currentTimeMillis(), size));
+							handler.handleBatchReadReadComplete(readCompleteAt, size));
+					Optional.ofNullable(tableSampleHandlers).map(handlers -> handlers.get(table)).ifPresent(handler ->
+							handler.handleBatchReadReadComplete(readCompleteAt - batchAcceptLastTs.get()));
 					taskSampleHandler.handleBatchReadAccept(size);
 				});
 				aspect.processCompleteConsumer(events -> {
@@ -206,10 +213,13 @@ public class ObservableAspectTask extends AspectTask {
 							handler.handleBatchReadProcessComplete(System.currentTimeMillis(), recorder)
 					);
 				});
-				aspect.enqueuedConsumer(events ->
+				aspect.enqueuedConsumer(events -> {
+					long enqueuedAt = System.currentTimeMillis();
+					batchAcceptLastTs.set(enqueuedAt);
 					Optional.ofNullable(dataNodeSampleHandlers.get(nodeId)).ifPresent(
-							handler -> handler.handleBatchReadEnqueued(System.currentTimeMillis())
-				));
+							handler -> handler.handleBatchReadEnqueued(enqueuedAt)
+					);
+				});
 				break;
 			case BatchReadFuncAspect.STATE_END:
 				break;
@@ -419,6 +429,14 @@ public class ObservableAspectTask extends AspectTask {
 		return null;
 	}
 
+	public Void handleTargetBatchSize(TargetBatchSizeAspect aspect) {
+		String nodeId = aspect.getDataProcessorContext().getNode().getId();
+		Optional.ofNullable(dataNodeSampleHandlers.get(nodeId)).ifPresent(
+				handler -> handler.handleTargetBatchSize(aspect.getBatchSize())
+		);
+		return null;
+	}
+
 	private PipelineDelayImpl pipelineDelay = (PipelineDelayImpl) InstanceFactory.instance(PipelineDelay.class);
 	public Void handleWriteRecordFunc(WriteRecordFuncAspect aspect) {
 		Node<?> node = aspect.getDataProcessorContext().getNode();
@@ -439,9 +457,10 @@ public class ObservableAspectTask extends AspectTask {
 					}
 
 					HandlerUtil.EventTypeRecorder inner = HandlerUtil.countTapEvent(events);
+					long acceptTime = System.currentTimeMillis();
 					Optional.ofNullable(dataNodeSampleHandlers.get(nodeId)).ifPresent(
 							handler -> {
-								handler.handleWriteRecordAccept(System.currentTimeMillis(), result, inner);
+								handler.handleWriteRecordAccept(acceptTime, aspect.getTime(), result, inner);
 							}
 					);
 
@@ -460,7 +479,10 @@ public class ObservableAspectTask extends AspectTask {
 									return Optional.ofNullable(handlers.get(targetTableName));
 								}
 							})
-							.ifPresent(handler -> handler.incrTableSnapshotInsertTotal(recorder.getInsertTotal()));
+							.ifPresent(handler -> {
+								handler.incrTableSnapshotInsertTotal(recorder.getInsertTotal());
+								handler.handleWriteRecordAccept(acceptTime - aspect.getTime(), inner.getReplicateLagTotal());
+							});
 
 					pipelineDelay.refreshDelay(task.getId().toHexString(), nodeId, inner.getProcessTimeTotal() / inner.getTotal(), inner.getNewestEventTimestamp());
 				});
@@ -507,9 +529,10 @@ public class ObservableAspectTask extends AspectTask {
 
 		switch (aspect.getState()) {
 			case ProcessorNodeProcessAspect.STATE_START:
-				HandlerUtil.EventTypeRecorder recorder = HandlerUtil.countTapdataEvent(Collections.singletonList(aspect.getInputEvent()));
+				List<TapdataEvent> inputEvents = aspect.getInputEvents();
+				HandlerUtil.EventTypeRecorder recorder = HandlerUtil.countTapdataEvent(inputEvents);
 				Optional.ofNullable(processorNodeSampleHandlers.get(nodeId)).ifPresent(
-						handler -> handler.handleProcessStart(recorder)
+						handler -> handler.handleProcessStart(recorder, inputEvents.size())
 				);
 				aspect.consumer(event -> {
 					if (null == event) {
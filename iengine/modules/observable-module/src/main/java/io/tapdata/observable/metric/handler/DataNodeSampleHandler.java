@@ -8,6 +8,7 @@ import io.tapdata.common.executor.ExecutorsManager;
 import io.tapdata.common.sample.SampleCollector;
 import io.tapdata.common.sample.sampler.AverageSampler;
 import io.tapdata.common.sample.sampler.CounterSampler;
+import io.tapdata.common.sample.sampler.HistogramSampler;
 import io.tapdata.common.sample.sampler.NumberSampler;
 import io.tapdata.common.sample.sampler.WriteCostAvgSampler;
 import io.tapdata.entity.event.TapBaseEvent;
@@ -54,6 +55,12 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
 	static final String CURR_SNAPSHOT_TABLE = "currentSnapshotTable";
 	static final String CURR_SNAPSHOT_TABLE_ROW_TOTAL = "currentSnapshotTableRowTotal";
 	static final String CURR_SNAPSHOT_TABLE_INSERT_ROW_TOTAL = "currentSnapshotTableInsertRowTotal";
+	// histograms, reported as name + P50/P95/P99/Max
+	static final String SNAPSHOT_SOURCE_READ_TIME_COST = "snapshotSourceReadTimeCost";
+	static final String INCR_SOURCE_READ_TIME_COST = "incrementalSourceReadTimeCost";
+	static final String TARGET_WRITE_TIME_COST = "targetWriteTimeCost";
+	static final String REPLICATE_LAG_TIME = "replicateLagTime";
+	static final String TARGET_WRITE_BATCH_SIZE = "targetWriteBatchSize";
 	public DataNodeSampleHandler(TaskDto task, Node<?> node) {
 		super(task, node);
 	}
@@ -66,6 +73,11 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
 	private AverageSampler snapshotSourceReadTimeCostAvg;
 	private AverageSampler incrementalSourceReadTimeCostAvg;
 	private WriteCostAvgSampler targetWriteTimeCostAvg;
+	private HistogramSampler snapshotSourceReadTimeCost;
+	private HistogramSampler incrementalSourceReadTimeCost;
+	private HistogramSampler targetWriteTimeCost;
+	private HistogramSampler replicateLagTime;
+	private NumberSampler<Integer> targetWriteBatchSize;
 
 	private final Set<String> nodeTables = new HashSet<>();
 
@@ -116,6 +128,9 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
 		snapshotInsertRowCounter = getCounterSampler(values, SNAPSHOT_INSERT_ROW_TOTAL);
 		snapshotSourceReadTimeCostAvg = collector.getAverageSampler(SNAPSHOT_SOURCE_READ_TIME_COST_AVG);
 		targetWriteTimeCostAvg = collector.getWriteCostAvgSampler(TARGET_WRITE_TIME_COST_AVG);
+		snapshotSourceReadTimeCost = collector.getHistogramSampler(SNAPSHOT_SOURCE_READ_TIME_COST);
+		targetWriteTimeCost = collector.getHistogramSampler(TARGET_WRITE_TIME_COST);
+		replicateLagTime = collector.getHistogramSampler(REPLICATE_LAG_TIME);
 
 		Number retrieveSnapshotStartAt = values.getOrDefault(SNAPSHOT_START_AT, null);
 		if (retrieveSnapshotStartAt != null) {
@@ -181,6 +196,8 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
 		Optional.ofNullable(inputSpeed).ifPresent(speed -> speed.add(size));
 		Optional.ofNullable(snapshotSourceReadTimeCostAvg).ifPresent(
 				avg -> avg.add(size, readCompleteAt - batchAcceptLastTs));
+		Optional.ofNullable(snapshotSourceReadTimeCost).ifPresent(
+				histogram -> histogram.record(readCompleteAt - batchAcceptLastTs));
 
 		batchProcessStartTs = readCompleteAt;
 	}
@@ -217,6 +234,7 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
 
 	public void handleStreamReadStreamStart(List<String> tables, Long startAt) {
 		incrementalSourceReadTimeCostAvg = collector.getAverageSampler(INCR_SOURCE_READ_TIME_COST_AVG);
+		incrementalSourceReadTimeCost = collector.getHistogramSampler(INCR_SOURCE_READ_TIME_COST);
 		streamAcceptLastTs = startAt;
 		for (String table : tables) {
 			addTable(table);
@@ -295,17 +313,21 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
 					//                            incrementalSourceReadTimeCost
 					long oldestRefTs = recorder.getOldestEventTimestamp();
 					long newestRefTs = recorder.getNewestEventTimestamp();
+					long readTimeCost;
 					if (newestRefTs >= streamAcceptLastTs && oldestRefTs >= streamAcceptLastTs) {
-						avg.add(total, readCompleteAt - oldestRefTs);
+						readTimeCost = readCompleteAt - oldestRefTs;
 					} else if (newestRefTs > streamAcceptLastTs && oldestRefTs < streamAcceptLastTs) {
-						avg.add(total, readCompleteAt - newestRefTs);
+						readTimeCost = readCompleteAt - newestRefTs;
 					} else if (newestRefTs < streamAcceptLastTs && oldestRefTs < streamAcceptLastTs) {
-						avg.add(total, readCompleteAt - streamAcceptLastTs);
+						readTimeCost = readCompleteAt - streamAcceptLastTs;
 					} else {
 						logger.warn("Another condition happens when calculate incrementalSourceReadTimeCost, " +
 										"oldestRef: {}, newestRef:{}, lastEnqueueTs: {}, readCompleteTs: {}", oldestRefTs,
 								newestRefTs, readCompleteAt, streamAcceptLastTs);
+						return;
 					}
+					avg.add(total, readTimeCost);
+					Optional.ofNullable(incrementalSourceReadTimeCost).ifPresent(histogram -> histogram.record(readTimeCost));
 				}
 		);
 
@@ -346,6 +368,13 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
 		Optional.ofNullable(inputSpeed).ifPresent(speed -> speed.add(recorder.getTotal()));
 	}
 
+	public void handleTargetBatchSize(int batchSize) {
+		if (null == targetWriteBatchSize) {
+			targetWriteBatchSize = collector.getNumberCollector(TARGET_WRITE_BATCH_SIZE, Integer.class);
+		}
+		targetWriteBatchSize.setValue(batchSize);
+	}
+
 	public void handleCDCHeartbeatWriteAspect(List<TapdataEvent> tapdataEvents) {
 		TapBaseEvent tapBaseEvent;
 		AtomicLong counts = new AtomicLong(0);
@@ -374,9 +403,13 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
 				replicateLagList.stream().max(Long::compareTo).ifPresent(speed::setValue);
 			}
 		});
+		Optional.ofNullable(replicateLagTime).ifPresent(histogram -> replicateLagList.forEach(histogram::record));
 	}
 
-	public void handleWriteRecordAccept(Long acceptTime, WriteListResult<TapRecordEvent> result, HandlerUtil.EventTypeRecorder recorder) {
+	/**
+	 * @param startAt start time of the write, used for the write latency histogram, null to skip it
+	 */
+	public void handleWriteRecordAccept(Long acceptTime, Long startAt, WriteListResult<TapRecordEvent> result, HandlerUtil.EventTypeRecorder recorder) {
 		long inserted = result.getInsertedCount();
 		long updated = result.getModifiedCount();
 		long deleted = result.getRemovedCount();
@@ -388,6 +421,12 @@ public class DataNodeSampleHandler extends AbstractNodeSampleHandler {
 		Optional.ofNullable(outputSpeed).ifPresent(speed -> speed.add(total));
 
 		Optional.ofNullable(targetWriteTimeCostAvg).ifPresent(average -> average.add(total, acceptTime));
+		if (null != startAt) {
+			Optional.ofNullable(targetWriteTimeCost).ifPresent(histogram -> histogram.record(acceptTime - startAt));
+		}
+		if (null != recorder.getReplicateLags()) {
+			Optional.ofNullable(replicateLagTime).ifPresent(histogram -> recorder.getReplicateLags().forEach(histogram::record));
+		}
 	}
 
 	AtomicBoolean firstTableCount = new AtomicBoolean(true);
@@ -16,6 +16,7 @@ import io.tapdata.pdk.core.utils.CommonUtils;
 import lombok.Data;
 import org.apache.commons.collections4.CollectionUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -118,6 +119,10 @@ public class HandlerUtil {
         private long othersTotal;
         private Long processTimeTotal;
         private Long replicateLagTotal;
+        /**
+         * Replicate lag of each event with a reference time
+         */
+        private List<Long> replicateLags;
         private Long oldestEventTimestamp;
         private Long newestEventTimestamp;
 
@@ -156,6 +161,10 @@ public class HandlerUtil {
 
             // remove referenceTimeList null value
             referenceTimeList.removeIf(Objects::isNull);
+            replicateLags = new ArrayList<>(referenceTimeList.size());
+            for (Long referenceTime : referenceTimeList) {
+                replicateLags.add(now - referenceTime);
+            }
             // get referenceTimeList min value
             referenceTimeList.stream().min(Long::compareTo).ifPresent(minReferenceTime -> replicateLagTotal = now - minReferenceTime);
         }
@@ -2,7 +2,6 @@ package io.tapdata.observable.metric.handler;
 
 import com.tapdata.tm.commons.dag.Node;
 import com.tapdata.tm.commons.task.dto.TaskDto;
-import io.tapdata.common.sample.sampler.SpeedSampler;
 
 import java.util.Optional;
 
@@ -15,12 +14,16 @@ public class ProcessorNodeSampleHandler extends AbstractNodeSampleHandler {
     }
 
     public void handleProcessStart(HandlerUtil.EventTypeRecorder recorder) {
+        handleProcessStart(recorder, 1L);
+    }
+
+    public void handleProcessStart(HandlerUtil.EventTypeRecorder recorder, long inputs) {
         Optional.ofNullable(inputInsertCounter).ifPresent(counter -> counter.inc(recorder.getInsertTotal()));
         Optional.ofNullable(inputUpdateCounter).ifPresent(counter -> counter.inc(recorder.getUpdateTotal()));
         Optional.ofNullable(inputDeleteCounter).ifPresent(counter -> counter.inc(recorder.getDeleteTotal()));
         Optional.ofNullable(inputDdlCounter).ifPresent(counter -> counter.inc(recorder.getDdlTotal()));
         Optional.ofNullable(inputOthersCounter).ifPresent(counter -> counter.inc(recorder.getOthersTotal()));
-        Optional.ofNullable(inputSpeed).ifPresent(SpeedSampler::add);
+        Optional.ofNullable(inputSpeed).ifPresent(speed -> speed.add(inputs));
     }
 
     public void handleProcessAccept(HandlerUtil.EventTypeRecorder recorder) {
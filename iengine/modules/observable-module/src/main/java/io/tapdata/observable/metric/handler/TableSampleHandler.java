@@ -2,6 +2,7 @@ package io.tapdata.observable.metric.handler;
 
 import com.tapdata.tm.commons.task.dto.TaskDto;
 import io.tapdata.common.sample.sampler.CounterSampler;
+import io.tapdata.common.sample.sampler.HistogramSampler;
 import io.tapdata.observable.metric.TaskSampleRetriever;
 import lombok.NonNull;
 
@@ -18,12 +19,19 @@ public class TableSampleHandler extends AbstractHandler {
     static final String SNAPSHOT_ROW_TOTAL                 = "snapshotRowTotal";
     static final String SNAPSHOT_INSERT_ROW_TOTAL          = "snapshotInsertRowTotal";
     static final String SNAPSHOT_SYNCRATE                  = "snapshotSyncRate";
+    // histograms, reported as name + P50/P95/P99/Max
+    static final String SNAPSHOT_SOURCE_READ_TIME_COST     = "snapshotSourceReadTimeCost";
+    static final String TARGET_WRITE_TIME_COST             = "targetWriteTimeCost";
+    static final String REPLICATE_LAG_TIME                 = "replicateLagTime";
 
     private final String table;
     private final Long snapshotRowTotal;
     private BigDecimal snapshotSyncRate;
     private final Map<String, Number> retrievedTableValues;
     private CounterSampler snapshotInsertRowCounter;
+    private HistogramSampler snapshotSourceReadTimeCost;
+    private HistogramSampler targetWriteTimeCost;
+    private HistogramSampler replicateLagTime;
     private TaskSampleHandler taskSampleHandler = null;
 
     public TableSampleHandler(TaskDto task, String table, @NonNull Long snapshotRowTotal,
@@ -64,6 +72,9 @@ public class TableSampleHandler extends AbstractHandler {
     public void doInit(Map<String, Number> values) {
         collector.addSampler(SNAPSHOT_ROW_TOTAL, () -> snapshotRowTotal);
         snapshotInsertRowCounter = getCounterSampler(values, SNAPSHOT_INSERT_ROW_TOTAL);
+        snapshotSourceReadTimeCost = collector.getHistogramSampler(SNAPSHOT_SOURCE_READ_TIME_COST);
+        targetWriteTimeCost = collector.getHistogramSampler(TARGET_WRITE_TIME_COST);
+        replicateLagTime = collector.getHistogramSampler(REPLICATE_LAG_TIME);
 
         collector.addSampler(SNAPSHOT_SYNCRATE, () -> {
             if (snapshotSyncRate.compareTo(BigDecimal.ONE) != 0 &&
@@ -91,6 +102,17 @@ public class TableSampleHandler extends AbstractHandler {
         snapshotInsertRowCounter.inc(value);
     }
 
+    public void handleBatchReadReadComplete(long readTimeCost) {
+        Optional.ofNullable(snapshotSourceReadTimeCost).ifPresent(histogram -> histogram.record(readTimeCost));
+    }
+
+    public void handleWriteRecordAccept(long writeTimeCost, Long replicateLag) {
+        Optional.ofNullable(targetWriteTimeCost).ifPresent(histogram -> histogram.record(writeTimeCost));
+        if (null != replicateLag) {
+            Optional.ofNullable(replicateLagTime).ifPresent(histogram -> histogram.record(replicateLag));
+        }
+    }
+
     public static Map<String, Map<String, Number>> retrieveAllTables(TaskDto task) {
         Map<String, String> tags = new HashMap<String, String>(){{
             put("type", SAMPLE_TYPE_TABLE);
@@ -77,11 +77,12 @@ public class TestRunAspectTask extends AspectTask {
     switch (processAspect.getState()) {
       case ProcessorNodeProcessAspect.STATE_START:
         if (nodeIds.contains(nodeId)) {
-          TapdataEvent inputEvent = processAspect.getInputEvent();
           /**
            * {"before":[{}], "after":[{}]}
            */
-          resultMap.computeIfAbsent("before", key -> new ArrayList<>()).add(transformFromTapValue(inputEvent));
+          for (TapdataEvent inputEvent : processAspect.getInputEvents()) {
+            resultMap.computeIfAbsent("before", key -> new ArrayList<>()).add(transformFromTapValue(inputEvent));
+          }
           processAspect.consumer(outputEvent -> {
             //mock
             //TapEvent tapEvent = outputEvent.getTapEvent();
@@ -10,6 +10,10 @@ public enum ExternalStorageType {
 	mongodb("MongoDB"),
 	rocksdb("RocksDB"),
 	httptm("HttpTM"),
+	/**
+	 * Merge caches only, kept outside the java heap and not persistent: the data is gone when the merge node closes or the engine restarts
+	 */
+	offheap("OffHeap"),
 	;
 	private final String mode;
 
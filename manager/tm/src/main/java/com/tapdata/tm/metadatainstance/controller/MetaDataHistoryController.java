@@ -3,11 +3,14 @@ package com.tapdata.tm.metadatainstance.controller;
 import com.tapdata.tm.base.controller.BaseController;
 import com.tapdata.tm.base.dto.ResponseMessage;
 import com.tapdata.tm.commons.schema.MetadataInstancesDto;
+import com.tapdata.tm.metadatainstance.param.MetaDataHistoryBatchParam;
 import com.tapdata.tm.metadatainstance.service.MetaDataHistoryService;
 import io.tapdata.entity.schema.TapTable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 
 @RestController
 @RequestMapping("api/metadata/history")
@@ -32,4 +35,15 @@ public class MetaDataHistoryController extends BaseController {
         TapTable tapTable = metaDataHistoryService.findByVersionTime(qualifiedName, time, getLoginUser());
         return success(tapTable);
     }
+
+    /**
+     * 批量查询模型，避免逐表请求
+     *
+     * @param param 唯一名称列表和最近时间戳
+     * @return 唯一名称 -> 模型
+     */
+    @PostMapping("batch")
+    public ResponseMessage<Map<String, TapTable>> findByVersionTime(@RequestBody MetaDataHistoryBatchParam param) {
+        return success(metaDataHistoryService.findByVersionTime(param.getQualifiedNames(), param.getTime(), getLoginUser()));
+    }
 }
@@ -0,0 +1,11 @@
+package com.tapdata.tm.metadatainstance.param;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MetaDataHistoryBatchParam {
+    private List<String> qualifiedNames;
+    private Long time;
+}
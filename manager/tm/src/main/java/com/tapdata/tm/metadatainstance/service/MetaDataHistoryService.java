@@ -19,7 +19,10 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class MetaDataHistoryService {
@@ -82,6 +85,37 @@ public class MetaDataHistoryService {
         return PdkSchemaConvert.toPdk(metaDataHistory);
     }
 
+    /**
+     * Same as {@link #findByVersionTime(String, Long, UserDetail)} for many tables
+     *
+     * @return qualified name -> schema, tables not found are absent
+     */
+    public Map<String, TapTable> findByVersionTime(List<String> qualifiedNames, Long time, UserDetail user) {
+        Map<String, TapTable> result = new HashMap<>();
+        if (CollectionUtils.isEmpty(qualifiedNames)) {
+            return result;
+        }
+        Criteria criteria = Criteria.where("qualifiedName").in(qualifiedNames);
+        criteria.and("tmCurrentTime").is(time);
+
+        List<MetadataInstancesDto> histories = mongoTemplate.find(new Query(criteria), MetadataInstancesDto.class, "MetaDataHistory");
+        for (MetadataInstancesDto history : histories) {
+            if (!result.containsKey(history.getQualifiedName())) {
+                result.put(history.getQualifiedName(), PdkSchemaConvert.toPdk(history));
+            }
+        }
+
+        List<String> notFound = qualifiedNames.stream().filter(name -> !result.containsKey(name)).collect(Collectors.toList());
+        if (CollectionUtils.isNotEmpty(notFound)) {
+            for (MetadataInstancesDto metadata : metadataInstancesService.findByQualifiedNameNotDelete(notFound, user)) {
+                if (!result.containsKey(metadata.getQualifiedName())) {
+                    result.put(metadata.getQualifiedName(), PdkSchemaConvert.toPdk(metadata));
+                }
+            }
+        }
+        return result;
+    }
+
 
     /**
      *
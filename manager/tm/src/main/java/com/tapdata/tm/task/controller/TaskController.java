@@ -1056,6 +1056,19 @@ public class TaskController extends BaseController {
 		return success();
 	}
 
+    @Operation(summary = "批量更新任务断点信息")
+    @PostMapping("syncProgress/batch")
+    public ResponseMessage<Void> batchUpdateSyncProgress(@RequestBody String body) {
+        if (StringUtils.isBlank(body)) {
+            return success();
+        }
+        Document document = Document.parse(body);
+        Map<ObjectId, Document> syncProgressMap = new LinkedHashMap<>();
+        document.forEach((taskId, syncProgress) -> syncProgressMap.put(MongoUtils.toObjectId(taskId), (Document) syncProgress));
+        taskService.updateSyncProgress(syncProgressMap);
+        return success();
+    }
+
     @Operation(summary = "任务运行记录")
     @GetMapping("/records/{id}")
     public ResponseMessage<Page<TaskRecordListVo>> records(@PathVariable(value = "id") String taskId,
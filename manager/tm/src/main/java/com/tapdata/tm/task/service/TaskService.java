@@ -3688,6 +3688,20 @@ public class TaskService extends BaseService<TaskDto, TaskEntity, ObjectId, Task
     }
 
 
+    /**
+     * Update sync progress of many tasks, one update per task
+     */
+    public void updateSyncProgress(Map<ObjectId, Document> syncProgressMap) {
+        syncProgressMap.forEach((taskId, document) -> {
+            if (document.isEmpty()) {
+                return;
+            }
+            Update update = new Update();
+            document.forEach((k, v) -> update.set("attrs.syncProgress." + k, v));
+            update(new Query(Criteria.where("_id").is(taskId)), update);
+        });
+    }
+
     public void increaseClear(ObjectId taskId, String srcNode, String tgtNode, UserDetail user) {
         //清理只需要清楚syncProgress数据就行
         TaskDto TaskDto = checkExistById(taskId, user, "attrs");
@@ -120,7 +120,11 @@ public class SampleCollector {
                         continue;
                     }
                     long time = System.currentTimeMillis();
-                    result.put(entry.getKey(), entry.getValue().value());
+                    if (entry.getValue() instanceof HistogramSampler) {
+                        ((HistogramSampler) entry.getValue()).snapshotAndReset().fill(entry.getKey(), result);
+                    } else {
+                        result.put(entry.getKey(), entry.getValue().value());
+                    }
                     long takes = System.currentTimeMillis() - time;
                     if(takes > 10) {
                         logger.debug("PointSampler {} key {} execute more than 10 milliseconds, {}", entry.getValue().getClass().getSimpleName(), entry.getKey(), takes);
@@ -243,6 +247,16 @@ public class SampleCollector {
         return (WriteCostAvgSampler) idSamplerMap.computeIfAbsent(id, s -> new WriteCostAvgSampler());
     }
 
+    /**
+     * 根据业务指定的ID获得直方图采集器，每个周期上报 id + P50/P95/P99/Max，上报之后清零
+     *
+     * @param id
+     * @return
+     */
+    public HistogramSampler getHistogramSampler(String id) {
+        return (HistogramSampler) idSamplerMap.computeIfAbsent(id, s -> new HistogramSampler());
+    }
+
     /**
      * 根据业务指定的ID获得速度采集器
      *
@@ -0,0 +1,177 @@
+package io.tapdata.common.sample.sampler;
+
+import io.tapdata.common.sample.Sampler;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Latency histogram with log-linear buckets, like HdrHistogram with 2 significant digits.
+ * <p>
+ * Values below 64 have their own bucket, bigger values share a bucket with others of the same highest 6 bits, so the
+ * relative error is under 1/32 (about 3%) and the whole long range fits in {@link #BUCKET_COUNT} counters. Recording
+ * is lock free and the memory is fixed, no matter how many values are recorded.
+ * <p>
+ * Every {@link #snapshotAndReset()} takes the counts recorded since the last one, the collector reports
+ * {@link #PERCENTILE_SUFFIXES} of each period. A value recorded concurrently goes to this period or the next one, it is
+ * never lost.
+ */
+public class HistogramSampler implements Sampler {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_COUNT = SUB_BUCKET_HALF_COUNT << 1;
+    static final int BUCKET_COUNT = LINEAR_COUNT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKET_HALF_COUNT;
+
+    public static final String P50 = "P50";
+    public static final String P95 = "P95";
+    public static final String P99 = "P99";
+    public static final String MAX = "Max";
+    public static final String[] PERCENTILE_SUFFIXES = {P50, P95, P99, MAX};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0L);
+
+    /**
+     * Record one value, negative values are recorded as 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketIndex(value));
+        max.accumulate(value);
+    }
+
+    /**
+     * Take the values recorded since the last call and reset the counts, only the collector should call it once per period
+     */
+    public Snapshot snapshotAndReset() {
+        long[] snapshotCounts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts.get(i) != 0) {
+                snapshotCounts[i] = counts.getAndSet(i, 0);
+                total += snapshotCounts[i];
+            }
+        }
+        return new Snapshot(snapshotCounts, total, max.getThenReset());
+    }
+
+    /**
+     * Read the values recorded since the last {@link #snapshotAndReset()}, without resetting them
+     */
+    public Snapshot snapshot() {
+        long[] snapshotCounts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshotCounts[i] = counts.get(i);
+            total += snapshotCounts[i];
+        }
+        return new Snapshot(snapshotCounts, total, max.get());
+    }
+
+    /**
+     * @return p99 of the values recorded since the last {@link #snapshotAndReset()}, null if nothing recorded
+     */
+    @Override
+    public Number value() {
+        return snapshot().percentile(99);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int top = (int) (value >>> shift);
+        return LINEAR_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (top - SUB_BUCKET_HALF_COUNT);
+    }
+
+    /**
+     * @return the highest value counted by the bucket
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < LINEAR_COUNT) {
+            return index;
+        }
+        int offset = index - LINEAR_COUNT;
+        int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+        long top = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        long highest = ((top + 1) << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+
+    /**
+     * Counts of a period, snapshots of several samplers or periods can be merged before reading percentiles
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+        private final long max;
+
+        private Snapshot(long[] counts, long totalCount, long max) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+            this.max = max;
+        }
+
+        public static Snapshot empty() {
+            return new Snapshot(new long[BUCKET_COUNT], 0L, 0L);
+        }
+
+        public Snapshot merge(Snapshot other) {
+            long[] merged = Arrays.copyOf(counts, BUCKET_COUNT);
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                merged[i] += other.counts[i];
+            }
+            return new Snapshot(merged, totalCount + other.totalCount, Math.max(max, other.max));
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * @return recorded max value, null if nothing recorded
+         */
+        public Long getMax() {
+            return totalCount > 0 ? max : null;
+        }
+
+        /**
+         * @param percentile 0 ~ 100
+         * @return the value that the given percentage of recorded values are less than or equal to, null if nothing recorded
+         */
+        public Long percentile(double percentile) {
+            if (totalCount <= 0) {
+                return null;
+            }
+            double p = Math.min(Math.max(percentile, 0D), 100D);
+            long rank = Math.max(1L, (long) Math.ceil(p / 100D * totalCount));
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                cumulative += counts[i];
+                if (cumulative >= rank) {
+                    return Math.min(highestEquivalentValue(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Put p50, p95, p99 and max into the sample values, with keys of the sampler id and {@link #PERCENTILE_SUFFIXES},
+         * nothing is put for a period without values
+         */
+        public void fill(String id, Map<String, Number> values) {
+            if (totalCount <= 0) {
+                return;
+            }
+            values.put(id + P50, percentile(50));
+            values.put(id + P95, percentile(95));
+            values.put(id + P99, percentile(99));
+            values.put(id + MAX, getMax());
+        }
+    }
+}
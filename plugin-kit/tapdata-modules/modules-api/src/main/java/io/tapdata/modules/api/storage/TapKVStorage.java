@@ -1,5 +1,8 @@
 package io.tapdata.modules.api.storage;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -12,6 +15,21 @@ public interface TapKVStorage extends TapStorage {
 	Object removeAndGet(Object key);
 
 	void remove(Object key);
+
+	/**
+	 * Put all entries in one write batch
+	 */
+	void putAll(Map<?, ?> keyValues);
+
+	/**
+	 * @return values in the order of keys, null if the key is not found
+	 */
+	List<Object> getAll(List<?> keys);
+
+	/**
+	 * Remove all keys in one write batch
+	 */
+	void removeAll(Collection<?> keys);
 	interface GetObject {
 		Object get(Object key);
 	}
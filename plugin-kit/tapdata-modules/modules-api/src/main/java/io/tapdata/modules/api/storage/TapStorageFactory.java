@@ -26,6 +26,63 @@ public interface TapStorageFactory {
 			return this;
 		}
 
+		/**
+		 * Skip the write ahead log, for throwaway stores which are deleted after use, data not flushed is lost on crash
+		 */
+		private boolean disableWAL = false;
+		public StorageOptions disableWAL(boolean disableWAL) {
+			this.disableWAL = disableWAL;
+			return this;
+		}
+		/**
+		 * Shared block cache size of kv storages, 0 to use the default cache
+		 */
+		private long blockCacheSizeMB = 0;
+		public StorageOptions blockCacheSizeMB(long blockCacheSizeMB) {
+			this.blockCacheSizeMB = blockCacheSizeMB;
+			return this;
+		}
+		/**
+		 * Bits per key of the bloom filter for point lookups, 0 to disable
+		 */
+		private int bloomFilterBitsPerKey = 0;
+		public StorageOptions bloomFilterBitsPerKey(int bloomFilterBitsPerKey) {
+			this.bloomFilterBitsPerKey = bloomFilterBitsPerKey;
+			return this;
+		}
+		/**
+		 * Compression of kv storages, one of none, snappy, lz4, zstd
+		 */
+		private String compression = "zstd";
+		public StorageOptions compression(String compression) {
+			this.compression = compression;
+			return this;
+		}
+		/**
+		 * Memory table size of each kv storage, 0 to use the default size
+		 */
+		private long writeBufferSizeMB = 0;
+		public StorageOptions writeBufferSizeMB(long writeBufferSizeMB) {
+			this.writeBufferSizeMB = writeBufferSizeMB;
+			return this;
+		}
+		/**
+		 * Store sequence storages in pre-allocated memory mapped segment files instead of a compressed stream
+		 */
+		private boolean memoryMappedSequence = false;
+		public StorageOptions memoryMappedSequence(boolean memoryMappedSequence) {
+			this.memoryMappedSequence = memoryMappedSequence;
+			return this;
+		}
+		/**
+		 * Size of each memory mapped segment file of sequence storages
+		 */
+		private int sequenceSegmentSizeMB = 64;
+		public StorageOptions sequenceSegmentSizeMB(int sequenceSegmentSizeMB) {
+			this.sequenceSegmentSizeMB = sequenceSegmentSizeMB;
+			return this;
+		}
+
 		public String getRootPath() {
 			return rootPath;
 		}
@@ -42,9 +99,68 @@ public interface TapStorageFactory {
 			this.disableJavaSerializable = disableJavaSerializable;
 		}
 
+		public boolean isDisableWAL() {
+			return disableWAL;
+		}
+
+		public void setDisableWAL(boolean disableWAL) {
+			this.disableWAL = disableWAL;
+		}
+
+		public long getBlockCacheSizeMB() {
+			return blockCacheSizeMB;
+		}
+
+		public void setBlockCacheSizeMB(long blockCacheSizeMB) {
+			this.blockCacheSizeMB = blockCacheSizeMB;
+		}
+
+		public int getBloomFilterBitsPerKey() {
+			return bloomFilterBitsPerKey;
+		}
+
+		public void setBloomFilterBitsPerKey(int bloomFilterBitsPerKey) {
+			this.bloomFilterBitsPerKey = bloomFilterBitsPerKey;
+		}
+
+		public String getCompression() {
+			return compression;
+		}
+
+		public void setCompression(String compression) {
+			this.compression = compression;
+		}
+
+		public long getWriteBufferSizeMB() {
+			return writeBufferSizeMB;
+		}
+
+		public void setWriteBufferSizeMB(long writeBufferSizeMB) {
+			this.writeBufferSizeMB = writeBufferSizeMB;
+		}
+
+		public boolean isMemoryMappedSequence() {
+			return memoryMappedSequence;
+		}
+
+		public void setMemoryMappedSequence(boolean memoryMappedSequence) {
+			this.memoryMappedSequence = memoryMappedSequence;
+		}
+
+		public int getSequenceSegmentSizeMB() {
+			return sequenceSegmentSizeMB;
+		}
+
+		public void setSequenceSegmentSizeMB(int sequenceSegmentSizeMB) {
+			this.sequenceSegmentSizeMB = sequenceSegmentSizeMB;
+		}
+
 		@Override
 		public String toString() {
-			return StorageOptions.class.getSimpleName() + ": rootPath=" + rootPath + "; disableJavaSerializable=" + disableJavaSerializable + ". ";
+			return StorageOptions.class.getSimpleName() + ": rootPath=" + rootPath + "; disableJavaSerializable=" + disableJavaSerializable +
+					"; disableWAL=" + disableWAL + "; blockCacheSizeMB=" + blockCacheSizeMB + "; bloomFilterBitsPerKey=" + bloomFilterBitsPerKey +
+					"; compression=" + compression + "; writeBufferSizeMB=" + writeBufferSizeMB +
+					"; memoryMappedSequence=" + memoryMappedSequence + "; sequenceSegmentSizeMB=" + sequenceSegmentSizeMB + ". ";
 		}
 	}
 }
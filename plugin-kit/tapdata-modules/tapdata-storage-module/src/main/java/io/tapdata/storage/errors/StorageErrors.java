@@ -20,4 +20,5 @@ public interface StorageErrors {
 	int KV_STORAGE_GET_FAILED = 16012;
 	int KV_STORAGE_DELETE_FAILED = 16013;
 	int UNKNOWN_ERROR_IN_STATE_MACHINE = 16014;
+	int ALLOCATE_SEGMENT_FAILED = 16015;
 }
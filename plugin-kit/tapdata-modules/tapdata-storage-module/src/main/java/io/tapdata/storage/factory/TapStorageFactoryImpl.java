@@ -7,6 +7,7 @@ import io.tapdata.modules.api.storage.TapKVStorage;
 import io.tapdata.modules.api.storage.TapSequenceStorage;
 import io.tapdata.modules.api.storage.TapStorageFactory;
 import io.tapdata.pdk.core.utils.CommonUtils;
+import io.tapdata.storage.sequence.MappedSequenceStorageImpl;
 import org.apache.commons.compress.compressors.CompressorStreamFactory;
 
 import java.util.Map;
@@ -46,7 +47,7 @@ public class TapStorageFactoryImpl implements TapStorageFactory {
 				sequenceStorage = sequenceStorageMap.get(id);
 				if(sequenceStorage == null) {
 					sequenceStorage = sequenceStorageMap.computeIfAbsent(id, theId -> {
-						TapSequenceStorage tapSequenceStorage = ClassFactory.create(TapSequenceStorage.class);
+						TapSequenceStorage tapSequenceStorage = storageOptions.isMemoryMappedSequence() ? new MappedSequenceStorageImpl() : ClassFactory.create(TapSequenceStorage.class);
 						InstanceFactory.injectBean(tapSequenceStorage, true);
 						tapSequenceStorage.init(theId, storageOptions);
 						return tapSequenceStorage;
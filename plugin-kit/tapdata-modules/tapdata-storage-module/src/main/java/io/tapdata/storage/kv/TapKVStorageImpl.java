@@ -17,6 +17,11 @@ import org.rocksdb.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -30,9 +35,14 @@ public class TapKVStorageImpl extends TapStorageImpl implements TapKVStorage {
 	static {
 		RocksDB.loadLibrary();
 	}
+	/**
+	 * Block caches shared by all kv storages, by size in MB
+	 */
+	private static final Map<Long, Cache> blockCaches = new ConcurrentHashMap<>();
 	private volatile StateMachine<String, TapKVStorageImpl> stateMachine;
 	private RocksDB db;
 	private File dbDir;
+	private WriteOptions writeOptions;
 	private Runnable initHandler;
 	private ObjectSerializable.ToObjectOptions toObjectOptions;
 
@@ -45,9 +55,9 @@ public class TapKVStorageImpl extends TapStorageImpl implements TapKVStorage {
 			throw new CoreException(StorageErrors.ITERATE_ON_WRONG_STATE, "Iterate on wrong state {}, expect state {}", stateMachine.getCurrentState(), STATE_INITIALIZED);
 		try {
 			if(key instanceof byte[]) {
-				db.put((byte[]) key, objectSerializable.fromObject(value));
+				db.put(writeOptions, (byte[]) key, objectSerializable.fromObject(value));
 			} else {
-				db.put(objectSerializable.fromObject(key), objectSerializable.fromObject(value));
+				db.put(writeOptions, objectSerializable.fromObject(key), objectSerializable.fromObject(value));
 			}
 		} catch (RocksDBException e) {
 			throw new CoreException(StorageErrors.KV_STORAGE_PUT_FAILED, e, "Put key {} value {} failed, {}" ,key, value, e.getMessage());
@@ -80,9 +90,9 @@ public class TapKVStorageImpl extends TapStorageImpl implements TapKVStorage {
 
 		try {
 			if(key instanceof byte[]) {
-				db.delete((byte[]) key);
+				db.delete(writeOptions, (byte[]) key);
 			} else {
-				db.delete(objectSerializable.fromObject(key));
+				db.delete(writeOptions, objectSerializable.fromObject(key));
 			}
 		} catch (RocksDBException e) {
 			throw new CoreException(StorageErrors.KV_STORAGE_DELETE_FAILED, e, "Delete key {} failed, {}", key, e.getMessage());
@@ -104,13 +114,80 @@ public class TapKVStorageImpl extends TapStorageImpl implements TapKVStorage {
 			Object data = null;
 			if(dataBytes != null) {
 				data = objectSerializable.toObject(dataBytes, toObjectOptions);
-				db.delete(keyBytes);
+				db.delete(writeOptions, keyBytes);
 			}
 			return data;
 		} catch (RocksDBException e) {
 			throw new CoreException(StorageErrors.KV_STORAGE_DELETE_FAILED, e, "Delete key {} failed, {}", key, e.getMessage());
 		}
 	}
+
+	@Override
+	public void putAll(Map<?, ?> keyValues) {
+		if(stateMachine == null)
+			initHandler.run();
+
+		if(!stateMachine.getCurrentState().equals(STATE_INITIALIZED))
+			throw new CoreException(StorageErrors.ITERATE_ON_WRONG_STATE, "Iterate on wrong state {}, expect state {}", stateMachine.getCurrentState(), STATE_INITIALIZED);
+		if(keyValues == null || keyValues.isEmpty())
+			return;
+		try(WriteBatch writeBatch = new WriteBatch()) {
+			for(Map.Entry<?, ?> entry : keyValues.entrySet()) {
+				writeBatch.put(toKeyBytes(entry.getKey()), objectSerializable.fromObject(entry.getValue()));
+			}
+			db.write(writeOptions, writeBatch);
+		} catch (RocksDBException e) {
+			throw new CoreException(StorageErrors.KV_STORAGE_PUT_FAILED, e, "Put {} keys failed, {}", keyValues.size(), e.getMessage());
+		}
+	}
+
+	@Override
+	public List<Object> getAll(List<?> keys) {
+		if(stateMachine == null)
+			initHandler.run();
+
+		if(!stateMachine.getCurrentState().equals(STATE_INITIALIZED))
+			throw new CoreException(StorageErrors.ITERATE_ON_WRONG_STATE, "Iterate on wrong state {}, expect state {}", stateMachine.getCurrentState(), STATE_INITIALIZED);
+		List<Object> values = new ArrayList<>();
+		if(keys == null || keys.isEmpty())
+			return values;
+		List<byte[]> keyBytesList = new ArrayList<>(keys.size());
+		for(Object key : keys) {
+			keyBytesList.add(toKeyBytes(key));
+		}
+		try {
+			for(byte[] dataBytes : db.multiGetAsList(keyBytesList)) {
+				values.add(dataBytes == null ? null : objectSerializable.toObject(dataBytes, toObjectOptions));
+			}
+		} catch (RocksDBException e) {
+			throw new CoreException(StorageErrors.KV_STORAGE_GET_FAILED, e, "Get {} keys failed, {}", keys.size(), e.getMessage());
+		}
+		return values;
+	}
+
+	@Override
+	public void removeAll(Collection<?> keys) {
+		if(stateMachine == null)
+			initHandler.run();
+
+		if(keys == null || keys.isEmpty())
+			return;
+		try(WriteBatch writeBatch = new WriteBatch()) {
+			for(Object key : keys) {
+				writeBatch.delete(toKeyBytes(key));
+			}
+			db.write(writeOptions, writeBatch);
+		} catch (RocksDBException e) {
+			throw new CoreException(StorageErrors.KV_STORAGE_DELETE_FAILED, e, "Delete {} keys failed, {}", keys.size(), e.getMessage());
+		}
+	}
+
+	private byte[] toKeyBytes(Object key) {
+		if(key instanceof byte[])
+			return (byte[]) key;
+		return objectSerializable.fromObject(key);
+	}
+
 	@Override
 	public void foreachValues(Function<Object, Boolean> iterateFunc) {
 		foreachValues(iterateFunc, true);
@@ -233,6 +310,10 @@ public class TapKVStorageImpl extends TapStorageImpl implements TapKVStorage {
 			options.setCreateIfMissing(true);
 			CommonUtils.ignoreAnyError(() -> RocksDB.destroyDB(dbDir.getAbsolutePath(), options), TAG);
 		}
+		if(writeOptions != null) {
+			writeOptions.close();
+			writeOptions = null;
+		}
 	}
 
 	private void handleInitializing(TapKVStorageImpl tapKVStorage, StateMachine<String, TapKVStorageImpl> stateMachine) {
@@ -242,9 +323,21 @@ public class TapKVStorageImpl extends TapStorageImpl implements TapKVStorage {
 		thePath = FilenameUtils.concat(thePath, "kv_rocksdb/");
 
 		dbDir = new File(FilenameUtils.concat(thePath, id));
+		writeOptions = new WriteOptions().setDisableWAL(storageOptions.isDisableWAL());
+		Filter bloomFilter = storageOptions.getBloomFilterBitsPerKey() > 0 ? new BloomFilter(storageOptions.getBloomFilterBitsPerKey()) : null;
 		try (final Options options = new Options()) {
-			options.setCompressionType(CompressionType.ZSTD_COMPRESSION);
+			options.setCompressionType(storageOptions.getCompression() != null ? CompressionType.getCompressionType(storageOptions.getCompression()) : CompressionType.ZSTD_COMPRESSION);
 			options.setCreateIfMissing(true);
+			if(storageOptions.getWriteBufferSizeMB() > 0)
+				options.setWriteBufferSize(storageOptions.getWriteBufferSizeMB() * 1024 * 1024);
+			if(storageOptions.getBlockCacheSizeMB() > 0 || bloomFilter != null) {
+				BlockBasedTableConfig tableConfig = new BlockBasedTableConfig();
+				if(storageOptions.getBlockCacheSizeMB() > 0)
+					tableConfig.setBlockCache(blockCaches.computeIfAbsent(storageOptions.getBlockCacheSizeMB(), size -> new LRUCache(size * 1024 * 1024)));
+				if(bloomFilter != null)
+					tableConfig.setFilterPolicy(bloomFilter);
+				options.setTableFormatConfig(tableConfig);
+			}
 			FileUtils.forceMkdir(dbDir);
 			db = RocksDB.open(options, dbDir.getAbsolutePath());
 		} catch(RocksDBException ex) {
@@ -252,6 +345,9 @@ public class TapKVStorageImpl extends TapStorageImpl implements TapKVStorage {
 					ex.getCause(), ex.getMessage(), ex.getStackTrace());
 		} catch (IOException e) {
 			throw new RuntimeException(e);
+		} finally {
+			if(bloomFilter != null)
+				bloomFilter.close();
 		}
 		stateMachine.gotoState(STATE_INITIALIZED, FormatUtils.format("Initialized for id {} for rootPath {}", id, storageOptions.getRootPath()));
 	}
@@ -0,0 +1,69 @@
+package io.tapdata.storage.sequence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-allocated memory mapped file holding length prefixed records.
+ * <p>
+ * Writers reserve their range by moving the append position forward, then copy the record in without locking. The
+ * record straddling the capacity is not written, an end of segment mark is put at its offset instead.
+ */
+class MappedSegment {
+	static final int LENGTH_BYTES = 4;
+	static final int END_OF_SEGMENT = -1;
+
+	private final int capacity;
+	private final MappedByteBuffer buffer;
+	private final AtomicLong position = new AtomicLong();
+
+	MappedSegment(File file, int capacity) throws IOException {
+		this.capacity = capacity;
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.setLength(capacity);
+			// The mapping stays valid after the channel is closed
+			buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		}
+	}
+
+	/**
+	 * @return false if the segment is full, the record should be appended to the next segment
+	 */
+	boolean append(byte[] data) {
+		int size = LENGTH_BYTES + data.length;
+		long offset = position.getAndAdd(size);
+		if (offset + size > capacity) {
+			if (offset + LENGTH_BYTES <= capacity)
+				buffer.putInt((int) offset, END_OF_SEGMENT);
+			return false;
+		}
+		ByteBuffer view = buffer.duplicate();
+		view.position((int) offset + LENGTH_BYTES);
+		view.put(data);
+		buffer.putInt((int) offset, data.length);
+		return true;
+	}
+
+	/**
+	 * View of the written records, only complete after all writers returned
+	 */
+	ByteBuffer readView() {
+		ByteBuffer view = buffer.duplicate();
+		view.limit((int) Math.min(position.get(), capacity));
+		view.position(0);
+		return view;
+	}
+
+	void reset() {
+		position.set(0);
+	}
+
+	int getCapacity() {
+		return capacity;
+	}
+}
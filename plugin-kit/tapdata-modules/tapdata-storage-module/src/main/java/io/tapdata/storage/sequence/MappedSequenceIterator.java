@@ -0,0 +1,49 @@
+package io.tapdata.storage.sequence;
+
+import io.tapdata.entity.utils.ObjectSerializable;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterate records straight from the mapped segments, without any stream or file read.
+ */
+public class MappedSequenceIterator implements Iterator<Object> {
+	private final List<MappedSegment> segments;
+	private final ObjectSerializable objectSerializable;
+	private final ObjectSerializable.ToObjectOptions toObjectOptions;
+	private int segmentIndex;
+	private ByteBuffer view;
+
+	MappedSequenceIterator(List<MappedSegment> segments, ObjectSerializable objectSerializable, ClassLoader classLoader) {
+		this.segments = segments;
+		this.objectSerializable = objectSerializable;
+		toObjectOptions = new ObjectSerializable.ToObjectOptions().classLoader(classLoader);
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (true) {
+			if (view == null) {
+				if (segmentIndex >= segments.size())
+					return false;
+				view = segments.get(segmentIndex++).readView();
+			}
+			if (view.remaining() >= MappedSegment.LENGTH_BYTES && view.getInt(view.position()) != MappedSegment.END_OF_SEGMENT)
+				return true;
+			view = null;
+		}
+	}
+
+	@Override
+	public Object next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		byte[] data = new byte[view.getInt()];
+		view.get(data);
+		return objectSerializable.toObject(data, toObjectOptions);
+	}
+}
@@ -0,0 +1,222 @@
+package io.tapdata.storage.sequence;
+
+import io.tapdata.entity.error.CoreException;
+import io.tapdata.entity.utils.FormatUtils;
+import io.tapdata.modules.api.storage.TapSequenceStorage;
+import io.tapdata.modules.api.storage.TapStorageFactory;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import io.tapdata.pdk.core.utils.state.StateMachine;
+import io.tapdata.storage.TapStorageImpl;
+import io.tapdata.storage.errors.StorageErrors;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sequence storage on pre-allocated memory mapped segment files, enabled by
+ * {@link TapStorageFactory.StorageOptions#memoryMappedSequence(boolean)}.
+ * <p>
+ * Adding objects only takes a lock when the current segment is full. Segments are kept for reuse on clear, the files
+ * are deleted on destroy and the mappings are released once collected.
+ */
+public class MappedSequenceStorageImpl extends TapStorageImpl implements TapSequenceStorage {
+	private static final String TAG = MappedSequenceStorageImpl.class.getSimpleName();
+
+	protected volatile StateMachine<String, MappedSequenceStorageImpl> stateMachine;
+	private Runnable initHandler;
+	private File segmentDir;
+	private int segmentSize;
+	private final Object segmentLock = new Object();
+	private final List<MappedSegment> segments = new CopyOnWriteArrayList<>();
+	private final List<MappedSegment> recycledSegments = new LinkedList<>();
+	private final AtomicInteger segmentCounter = new AtomicInteger();
+	private volatile MappedSegment currentSegment;
+	private final AtomicInteger writers = new AtomicInteger();
+	private volatile boolean sealed = true;
+
+	@Override
+	public synchronized void init(String id, TapStorageFactory.StorageOptions storageOptions) {
+		initHandler = () -> {
+			if(stateMachine == null) {
+				synchronized (this) {
+					if(stateMachine == null) {
+						stateMachine = new StateMachine<>(this.getClass().getSimpleName() + "_" + id + "_" + storageOptions, STATE_NONE, this);
+						stateMachine
+								.configState(STATE_NONE, stateMachine.execute().nextStates(STATE_INITIALIZING, STATE_DESTROYED))
+								.configState(STATE_INITIALIZING, stateMachine.execute(this::handleInitializing).nextStates(STATE_INITIALIZED, STATE_DESTROYED))
+								.configState(STATE_INITIALIZED, stateMachine.execute().nextStates(STATE_INITIALIZING, TapSequenceStorageImpl.STATE_WRITE_DONE_START_ITERATE, STATE_DESTROYED))
+								.configState(TapSequenceStorageImpl.STATE_WRITE_DONE_START_ITERATE, stateMachine.execute(this::handleWriteDone).nextStates(STATE_INITIALIZING, STATE_DESTROYED))
+								.configState(STATE_DESTROYED, stateMachine.execute().nextStates())
+								.errorOccurred((throwable, fromState, toState, tapSequenceStorage, stateMachine) -> {
+									if(throwable instanceof CoreException) {
+										throw (CoreException) throwable;
+									} else {
+										throw new CoreException(StorageErrors.UNKNOWN_ERROR_IN_STATE_MACHINE, throwable, "Error occurred in state machine {}, {}", stateMachine, throwable.getMessage());
+									}
+								});
+						if(stateMachine.getCurrentState().equals(STATE_NONE)) {
+							initState(id, storageOptions);
+						} else {
+							throw new CoreException(StorageErrors.INITIALIZE_ON_WRONG_STATE, "Sequence storage id {} initialize on wrong state {}, should be \"none\" state", id, stateMachine.getCurrentState());
+						}
+						stateMachine.gotoState(STATE_INITIALIZING, FormatUtils.format("Sequence storage id {} start initializing", id));
+					}
+				}
+			}
+		};
+	}
+
+	@Override
+	public void add(Object data) {
+		if(stateMachine == null)
+			initHandler.run();
+
+		if(!stateMachine.getCurrentState().equals(STATE_INITIALIZED))
+			throw new CoreException(StorageErrors.ADD_OBJECT_ON_WRONG_STATE, "Write object {} on wrong state {}, expect state {}", data, stateMachine.getCurrentState(), STATE_INITIALIZED);
+		byte[] dataBytes = objectSerializable.fromObject(data);
+		writers.incrementAndGet();
+		try {
+			if(sealed)
+				throw new CoreException(StorageErrors.ADD_OBJECT_ON_WRONG_STATE, "Write object {} on wrong state {}, expect state {}", data, stateMachine.getCurrentState(), STATE_INITIALIZED);
+			MappedSegment segment = currentSegment;
+			while(!segment.append(dataBytes)) {
+				segment = nextSegment(segment, MappedSegment.LENGTH_BYTES + dataBytes.length);
+			}
+		} finally {
+			writers.decrementAndGet();
+		}
+	}
+
+	@Override
+	public Iterator<Object> iterator() {
+		if(stateMachine == null)
+			initHandler.run();
+
+		if(stateMachine.getCurrentState().equals(STATE_INITIALIZED)) {
+			stateMachine.gotoState(TapSequenceStorageImpl.STATE_WRITE_DONE_START_ITERATE, "Write done, start iterating, can not back to write anymore. ");
+		}
+		if(!stateMachine.getCurrentState().equals(TapSequenceStorageImpl.STATE_WRITE_DONE_START_ITERATE))
+			throw new CoreException(StorageErrors.ITERATE_ON_WRONG_STATE, "Iterate on wrong state {}, expect state {}", stateMachine.getCurrentState(), TapSequenceStorageImpl.STATE_WRITE_DONE_START_ITERATE);
+
+		return new MappedSequenceIterator(new ArrayList<>(segments), objectSerializable, classLoader);
+	}
+
+	private void handleInitializing(MappedSequenceStorageImpl sequenceStorage, StateMachine<String, MappedSequenceStorageImpl> stateMachine) {
+		if(segmentDir == null) {
+			String thePath = storageOptions.getRootPath();
+			if(path != null)
+				thePath = FilenameUtils.concat(thePath, path);
+			thePath = FilenameUtils.concat(thePath, "sequence_mapped/");
+			segmentDir = new File(FilenameUtils.concat(thePath, id));
+			segmentSize = (int) Math.min(Integer.MAX_VALUE, Math.max(1, storageOptions.getSequenceSegmentSizeMB()) * 1024L * 1024L);
+			try {
+				if(segmentDir.exists())
+					FileUtils.forceDelete(segmentDir);
+				FileUtils.forceMkdir(segmentDir);
+			} catch (IOException e) {
+				throw new CoreException(StorageErrors.ALLOCATE_SEGMENT_FAILED, e, "Prepare segment directory {} failed, {}", segmentDir, e.getMessage());
+			}
+		}
+		synchronized (segmentLock) {
+			currentSegment = obtainSegment(0);
+			segments.add(currentSegment);
+		}
+		sealed = false;
+		stateMachine.gotoState(STATE_INITIALIZED, FormatUtils.format("Initialized for id {} for rootPath {}", id, storageOptions.getRootPath()));
+	}
+
+	private void handleWriteDone(MappedSequenceStorageImpl sequenceStorage, StateMachine<String, MappedSequenceStorageImpl> stateMachine) {
+		seal();
+	}
+
+	private MappedSegment nextSegment(MappedSegment fullSegment, int requiredSize) {
+		synchronized (segmentLock) {
+			if(currentSegment == fullSegment) {
+				MappedSegment segment = obtainSegment(requiredSize);
+				segments.add(segment);
+				currentSegment = segment;
+			}
+			return currentSegment;
+		}
+	}
+
+	/**
+	 * Reuse a recycled segment large enough, otherwise allocate a new one, called with segment lock held
+	 */
+	private MappedSegment obtainSegment(int requiredSize) {
+		Iterator<MappedSegment> iterator = recycledSegments.iterator();
+		while(iterator.hasNext()) {
+			MappedSegment segment = iterator.next();
+			if(segment.getCapacity() >= requiredSize) {
+				iterator.remove();
+				segment.reset();
+				return segment;
+			}
+		}
+		int capacity = Math.max(segmentSize, requiredSize);
+		File file = new File(segmentDir, "segment_" + segmentCounter.getAndIncrement());
+		try {
+			return new MappedSegment(file, capacity);
+		} catch (IOException e) {
+			throw new CoreException(StorageErrors.ALLOCATE_SEGMENT_FAILED, e, "Allocate segment {} with {} bytes failed, {}", file, capacity, e.getMessage());
+		}
+	}
+
+	/**
+	 * Reject new objects and wait the objects being added are written
+	 */
+	private void seal() {
+		sealed = true;
+		while(writers.get() > 0) {
+			Thread.yield();
+		}
+	}
+
+	public int getSegmentFiles() {
+		synchronized (segmentLock) {
+			return segments.size() + recycledSegments.size();
+		}
+	}
+
+	@Override
+	public synchronized void clear() {
+		if(stateMachine == null)
+			initHandler.run();
+
+		seal();
+		synchronized (segmentLock) {
+			recycledSegments.addAll(segments);
+			segments.clear();
+			currentSegment = null;
+		}
+		stateMachine.gotoState(STATE_INITIALIZING, FormatUtils.format("Re-initializing after clear, id {}, options {}", id, storageOptions));
+	}
+
+	@Override
+	public synchronized void destroy() {
+		if (stateMachine != null && !stateMachine.getCurrentState().equals(STATE_DESTROYED)) {
+			stateMachine.gotoState(STATE_DESTROYED, FormatUtils.format("Force destroy, id {}, options {}", id, storageOptions));
+		}
+		initHandler = null;
+		release();
+	}
+
+	private void release() {
+		seal();
+		synchronized (segmentLock) {
+			segments.clear();
+			recycledSegments.clear();
+			currentSegment = null;
+		}
+		if(segmentDir != null)
+			CommonUtils.ignoreAnyError(() -> FileUtils.forceDelete(segmentDir), TAG);
+	}
+}
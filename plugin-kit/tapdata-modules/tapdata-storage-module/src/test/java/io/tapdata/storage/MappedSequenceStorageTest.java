@@ -0,0 +1,103 @@
+package io.tapdata.storage;
+
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.modules.api.storage.TapSequenceStorage;
+import io.tapdata.modules.api.storage.TapStorageFactory;
+import io.tapdata.storage.sequence.MappedSequenceStorageImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+public class MappedSequenceStorageTest {
+
+	@Test
+	public void testAddIterateAndClear() {
+		TapStorageFactory storageFactory = InstanceFactory.instance(TapStorageFactory.class);
+		storageFactory.init(TapStorageFactory.StorageOptions.create().rootPath("./tap_storage_test").memoryMappedSequence(true).sequenceSegmentSizeMB(1));
+		TapSequenceStorage sequenceStorage = storageFactory.getSequenceStorage("testMapped");
+		try {
+			Assertions.assertTrue(sequenceStorage instanceof MappedSequenceStorageImpl);
+			// ~3MB of records spread over several 1MB segments, plus one record larger than a segment
+			for (int i = 0; i < 30000; i++) {
+				sequenceStorage.add(DataMap.create().kv("id", i).kv("name", "name_" + i).kv("remark", "remark of record " + i));
+			}
+			char[] chars = new char[2 * 1024 * 1024];
+			Arrays.fill(chars, 'a');
+			sequenceStorage.add(DataMap.create().kv("id", 30000).kv("name", new String(chars)));
+			sequenceStorage.add(DataMap.create().kv("id", 30001));
+
+			List<Object> list = read(sequenceStorage);
+			Assertions.assertEquals(30002, list.size());
+			for (int i = 0; i < list.size(); i++) {
+				Assertions.assertEquals(i, ((DataMap) list.get(i)).get("id"));
+			}
+			Assertions.assertEquals(2 * 1024 * 1024, ((String) ((DataMap) list.get(30000)).get("name")).length());
+			Assertions.assertEquals(30002, read(sequenceStorage).size());
+			Assertions.assertThrows(RuntimeException.class, () -> sequenceStorage.add(DataMap.create().kv("id", 0)));
+
+			int segmentFiles = ((MappedSequenceStorageImpl) sequenceStorage).getSegmentFiles();
+			Assertions.assertTrue(segmentFiles > 2);
+			sequenceStorage.clear();
+			Assertions.assertEquals(0, read(sequenceStorage).size());
+
+			sequenceStorage.clear();
+			for (int i = 0; i < 30000; i++) {
+				sequenceStorage.add(DataMap.create().kv("id", i).kv("name", "name_" + i).kv("remark", "remark of record " + i));
+			}
+			Assertions.assertEquals(30000, read(sequenceStorage).size());
+			Assertions.assertEquals(segmentFiles, ((MappedSequenceStorageImpl) sequenceStorage).getSegmentFiles());
+		} finally {
+			storageFactory.deleteSequenceStorage("testMapped");
+		}
+	}
+
+	@Test
+	public void testConcurrentAdd() throws InterruptedException {
+		TapStorageFactory storageFactory = InstanceFactory.instance(TapStorageFactory.class);
+		storageFactory.init(TapStorageFactory.StorageOptions.create().rootPath("./tap_storage_test").memoryMappedSequence(true).sequenceSegmentSizeMB(1));
+		TapSequenceStorage sequenceStorage = storageFactory.getSequenceStorage("testMappedConcurrent");
+		try {
+			int threads = 8;
+			int perThread = 10000;
+			List<Thread> threadList = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				threadList.add(new Thread(() -> {
+					for (int i = 0; i < perThread; i++) {
+						sequenceStorage.add(DataMap.create().kv("id", thread * perThread + i).kv("name", "name_" + i));
+					}
+				}));
+			}
+			for (Thread thread : threadList) {
+				thread.start();
+			}
+			for (Thread thread : threadList) {
+				thread.join();
+			}
+
+			Set<Object> ids = new HashSet<>();
+			for (Object object : read(sequenceStorage)) {
+				ids.add(((DataMap) object).get("id"));
+			}
+			Assertions.assertEquals(threads * perThread, ids.size());
+		} finally {
+			storageFactory.deleteSequenceStorage("testMappedConcurrent");
+		}
+	}
+
+	private static List<Object> read(TapSequenceStorage sequenceStorage) {
+		List<Object> list = new ArrayList<>();
+		Iterator<Object> iterator = sequenceStorage.iterator();
+		while (iterator.hasNext()) {
+			list.add(iterator.next());
+		}
+		return list;
+	}
+}
@@ -0,0 +1,116 @@
+package io.tapdata.storage;
+
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.modules.api.storage.TapKVStorage;
+import io.tapdata.modules.api.storage.TapStorageFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TapKVStorageBatchTest {
+	private static final String TAG = TapKVStorageBatchTest.class.getSimpleName();
+	private static final int BENCHMARK_ROWS = Integer.getInteger("tap.storage.benchmark.rows", 100000);
+	private static final int BENCHMARK_BATCH_SIZE = 500;
+
+	@Test
+	public void testBatchApis() {
+		TapStorageFactory storageFactory = InstanceFactory.instance(TapStorageFactory.class);
+		storageFactory.init(TapStorageFactory.StorageOptions.create().rootPath("./tap_storage_test")
+				.disableWAL(true).blockCacheSizeMB(8).bloomFilterBitsPerKey(10).compression("lz4"));
+		TapKVStorage kvStorage = storageFactory.getKVStorage("testBatch");
+		try {
+			Map<DataMap, DataMap> keyValues = new LinkedHashMap<>();
+			for (int i = 0; i < 10; i++) {
+				keyValues.put(DataMap.create().kv("id", i), DataMap.create().kv("value", "v" + i));
+			}
+			kvStorage.putAll(keyValues);
+
+			List<DataMap> keys = new ArrayList<>(keyValues.keySet());
+			keys.add(DataMap.create().kv("id", 100));
+			List<Object> values = kvStorage.getAll(keys);
+			Assertions.assertEquals(11, values.size());
+			for (int i = 0; i < 10; i++) {
+				Assertions.assertEquals("v" + i, ((DataMap) values.get(i)).get("value"));
+			}
+			Assertions.assertNull(values.get(10));
+			Assertions.assertEquals("v3", ((DataMap) kvStorage.get(DataMap.create().kv("id", 3))).get("value"));
+
+			kvStorage.removeAll(Arrays.asList(DataMap.create().kv("id", 0), DataMap.create().kv("id", 9)));
+			values = kvStorage.getAll(keys);
+			Assertions.assertNull(values.get(0));
+			Assertions.assertNull(values.get(9));
+			Assertions.assertNotNull(values.get(5));
+
+			kvStorage.putAll(new LinkedHashMap<>());
+			Assertions.assertTrue(kvStorage.getAll(new ArrayList<>()).isEmpty());
+		} finally {
+			storageFactory.deleteKVStorage("testBatch");
+		}
+	}
+
+	/**
+	 * Stage rows like a partition read does, one put per row against one write batch per query batch. Writes 2 x rows of
+	 * tap.storage.benchmark.rows, run it by hand.
+	 */
+	@Test
+	@Disabled("Benchmark")
+	public void benchmarkPartitionStaging() {
+		TapStorageFactory storageFactory = InstanceFactory.instance(TapStorageFactory.class);
+		storageFactory.init(TapStorageFactory.StorageOptions.create().rootPath("./tap_storage_test"));
+		long singleTakes = stage(storageFactory, "benchmarkSingle", false);
+
+		storageFactory.init(TapStorageFactory.StorageOptions.create().rootPath("./tap_storage_test")
+				.disableWAL(true).blockCacheSizeMB(64).bloomFilterBitsPerKey(10).writeBufferSizeMB(64));
+		long batchTakes = stage(storageFactory, "benchmarkBatch", true);
+
+		TapLogger.info(TAG, "Partition staging {} rows, single put takes {}ms ({} rows/s), batch put without wal takes {}ms ({} rows/s)",
+				BENCHMARK_ROWS, singleTakes, rowsPerSecond(singleTakes), batchTakes, rowsPerSecond(batchTakes));
+	}
+
+	private long stage(TapStorageFactory storageFactory, String id, boolean batch) {
+		storageFactory.deleteKVStorage(id);
+		TapKVStorage kvStorage = storageFactory.getKVStorage(id);
+		try {
+			long time = System.currentTimeMillis();
+			Map<DataMap, DataMap> keyValues = new LinkedHashMap<>();
+			for (int i = 0; i < BENCHMARK_ROWS; i++) {
+				DataMap key = DataMap.create().kv("id", i);
+				DataMap value = DataMap.create().kv("id", i).kv("name", "name_" + i).kv("amount", i * 1.5d).kv("remark", "remark of row " + i);
+				if (batch) {
+					keyValues.put(key, value);
+					if (keyValues.size() >= BENCHMARK_BATCH_SIZE) {
+						kvStorage.putAll(keyValues);
+						keyValues.clear();
+					}
+				} else {
+					kvStorage.put(key, value);
+				}
+			}
+			kvStorage.putAll(keyValues);
+			long takes = System.currentTimeMillis() - time;
+
+			List<DataMap> keys = new ArrayList<>();
+			for (int i = 0; i < BENCHMARK_ROWS; i += BENCHMARK_ROWS / 10) {
+				keys.add(DataMap.create().kv("id", i));
+			}
+			for (Object value : kvStorage.getAll(keys)) {
+				Assertions.assertNotNull(value);
+			}
+			return takes;
+		} finally {
+			storageFactory.deleteKVStorage(id);
+		}
+	}
+
+	private static long rowsPerSecond(long takes) {
+		return BENCHMARK_ROWS * 1000L / Math.max(1, takes);
+	}
+}
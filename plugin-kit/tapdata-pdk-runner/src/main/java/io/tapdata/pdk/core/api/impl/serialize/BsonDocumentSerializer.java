@@ -0,0 +1,76 @@
+package io.tapdata.pdk.core.api.impl.serialize;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encode org.bson.Document as BSON bytes instead of json text.
+ * <p>
+ * Only touched by {@link ObjectSerializableImplV2} after {@link #isAvailable()} returns true, bson is an optional
+ * dependency of the runner and this class must not be resolved when it is missing.
+ */
+final class BsonDocumentSerializer {
+	private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec();
+	private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+	private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+	private static volatile Boolean available;
+
+	private BsonDocumentSerializer() {
+	}
+
+	/**
+	 * @return true if org.bson.Document can be loaded by the runner class loader
+	 */
+	static boolean isAvailable() {
+		if (available == null) {
+			synchronized (BsonDocumentSerializer.class) {
+				if (available == null) {
+					try {
+						Class.forName("org.bson.Document", false, BsonDocumentSerializer.class.getClassLoader());
+						Class.forName("org.bson.codecs.DocumentCodec", false, BsonDocumentSerializer.class.getClassLoader());
+						available = true;
+					} catch (Throwable ignored) {
+						available = false;
+					}
+				}
+			}
+		}
+		return available;
+	}
+
+	/**
+	 * @return true if the object is exactly the org.bson.Document this class is linked with, documents loaded by another class loader can not be encoded here
+	 */
+	static boolean supports(Object obj) {
+		return obj.getClass() == Document.class;
+	}
+
+	static Class<?> documentClass() {
+		return Document.class;
+	}
+
+	static byte[] encode(Object document) {
+		BasicOutputBuffer outputBuffer = new BasicOutputBuffer();
+		try (BsonBinaryWriter writer = new BsonBinaryWriter(outputBuffer)) {
+			DOCUMENT_CODEC.encode(writer, (Document) document, ENCODER_CONTEXT);
+		}
+		return outputBuffer.toByteArray();
+	}
+
+	static Document decode(byte[] data) {
+		try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(data))) {
+			return DOCUMENT_CODEC.decode(reader, DECODER_CONTEXT);
+		}
+	}
+
+	static String toJson(Object document) {
+		return ((Document) document).toJson();
+	}
+}
@@ -11,6 +11,7 @@ import io.tapdata.entity.utils.InstanceFactory;
 import io.tapdata.entity.utils.JsonParser;
 import io.tapdata.entity.utils.ObjectSerializable;
 import io.tapdata.entity.utils.TapUtils;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.*;
@@ -37,6 +38,7 @@ public class ObjectSerializableImplV2 implements ObjectSerializable {
 	public static final byte TYPE_MONGODB_DOCUMENT = 3;
 	public static final byte TYPE_JAVA_CUSTOM_SERIALIZER = 4;
 	public static final byte TYPE_MONGODB_OBJECT_ID = 5;
+	public static final byte TYPE_MONGODB_DOCUMENT_BSON = 6;
 
 	public static final byte TYPE_MAP = 100;
 	public static final byte TYPE_LIST = 101;
@@ -59,6 +61,14 @@ public class ObjectSerializableImplV2 implements ObjectSerializable {
 
 	private static final byte VERSION = -128; //greater the newer
 	private static final String TAG = ObjectSerializableImplV2.class.getSimpleName();
+	/**
+	 * Write org.bson.Document as BSON (TYPE_MONGODB_DOCUMENT_BSON) instead of json (TYPE_MONGODB_DOCUMENT), both are always readable.
+	 * <p>
+	 * Off by default, engines before TYPE_MONGODB_DOCUMENT_BSON can not decode it. Only turn it on when every engine of the
+	 * cluster reads it, data written with it (IMap, external storage, persisted state) can not be read after a downgrade.
+	 */
+	public static final String DOCUMENT_AS_BSON_KEY = "tapdata_serialize_document_as_bson";
+	private final boolean documentAsBson = CommonUtils.getPropertyBool(DOCUMENT_AS_BSON_KEY, false);
 	private Class<?> documentClass;
 	private Method documentParseMethod;
 	private Constructor objectIdConstructor;
@@ -101,6 +111,20 @@ public class ObjectSerializableImplV2 implements ObjectSerializable {
 		String name = obj.getClass().getName();
 		switch (name) {
 			case "org.bson.Document":
+				if(documentAsBson && BsonDocumentSerializer.isAvailable() && BsonDocumentSerializer.supports(obj)) {
+					byte[] bsonData = null;
+					try {
+						bsonData = BsonDocumentSerializer.encode(obj);
+					} catch (Throwable ignored) {
+						//Fallback to json below, which reports the error if the document can not be encoded at all
+					}
+					if(bsonData != null) {
+						dos.writeByte(TYPE_MONGODB_DOCUMENT_BSON);
+						dos.writeInt(bsonData.length);
+						dos.write(bsonData);
+						return;
+					}
+				}
 				if(documentToJsonMethod == null) {
 					try {
 						documentToJsonMethod = obj.getClass().getMethod("toJson");
@@ -423,26 +447,20 @@ public class ObjectSerializableImplV2 implements ObjectSerializable {
 				int docLength = dis.readInt();
 				byte[] docBytes = new byte[docLength];
 				dis.readFully(docBytes);
-				String docContent = new String(docBytes, StandardCharsets.UTF_8);
-				if(documentParseMethod == null || (options != null && options.getClassLoader() != null && !documentParseMethod.getDeclaringClass().getClassLoader().equals(options.getClassLoader()))) {
-					try {
-						documentClass = findClass(options, "org.bson.Document");
-						documentParseMethod = documentClass.getMethod("parse", String.class);
-					} catch (Throwable throwable) {
-//							throwable.printStackTrace();
-						throw new CoreException(TapAPIErrorCodes.GET_PARSE_METHOD_FAILED, "org.bson.Document get parse method failed, {}", InstanceFactory.instance(TapUtils.class).getStackTrace(throwable));
-					}
+				return parseDocument(options, new String(docBytes, StandardCharsets.UTF_8));
+			case TYPE_MONGODB_DOCUMENT_BSON:
+				int bsonLength = dis.readInt();
+				byte[] bsonBytes = new byte[bsonLength];
+				dis.readFully(bsonBytes);
+				if(!BsonDocumentSerializer.isAvailable()) {
+					throw new CoreException(TapAPIErrorCodes.PARSE_DOCUMENT_FAILED, "org.bson.Document decode bson failed, bson is not found in class path of {}", TAG);
 				}
-				if(documentParseMethod != null) {
-					try {
-//						Object newObj = documentClass.newInstance();
-						return documentParseMethod.invoke(null, docContent);
-					} catch (Throwable e) {
-//							e.printStackTrace();
-						throw new CoreException(TapAPIErrorCodes.PARSE_DOCUMENT_FAILED, "org.bson.Document get parse method failed, {}", InstanceFactory.instance(TapUtils.class).getStackTrace(e));
-					}
+				Object bsonDocument = BsonDocumentSerializer.decode(bsonBytes);
+				if(options != null && options.getClassLoader() != null && !BsonDocumentSerializer.documentClass().equals(findClass(options, "org.bson.Document"))) {
+					//Document of another class loader, convert through json like TYPE_MONGODB_DOCUMENT
+					return parseDocument(options, BsonDocumentSerializer.toJson(bsonDocument));
 				}
-				break;
+				return bsonDocument;
 			case TYPE_JAVA_CUSTOM_SERIALIZER:
 				String className1 = dis.readUTF();
 				Class<?> clazz1 = findClass(options, className1);
@@ -483,6 +501,28 @@ public class ObjectSerializableImplV2 implements ObjectSerializable {
 		return null;
 	}
 
+	private Object parseDocument(ToObjectOptions options, String docContent) {
+		if(documentParseMethod == null || (options != null && options.getClassLoader() != null && !documentParseMethod.getDeclaringClass().getClassLoader().equals(options.getClassLoader()))) {
+			try {
+				documentClass = findClass(options, "org.bson.Document");
+				documentParseMethod = documentClass.getMethod("parse", String.class);
+			} catch (Throwable throwable) {
+//					throwable.printStackTrace();
+				throw new CoreException(TapAPIErrorCodes.GET_PARSE_METHOD_FAILED, "org.bson.Document get parse method failed, {}", InstanceFactory.instance(TapUtils.class).getStackTrace(throwable));
+			}
+		}
+		if(documentParseMethod != null) {
+			try {
+//				Object newObj = documentClass.newInstance();
+				return documentParseMethod.invoke(null, docContent);
+			} catch (Throwable e) {
+//					e.printStackTrace();
+				throw new CoreException(TapAPIErrorCodes.PARSE_DOCUMENT_FAILED, "org.bson.Document get parse method failed, {}", InstanceFactory.instance(TapUtils.class).getStackTrace(e));
+			}
+		}
+		return null;
+	}
+
 	private Class<?> findClass(ToObjectOptions options, String className) {
 		Class<?> targetClass = null;
 		if (options != null && options.getClassLoader() != null) {
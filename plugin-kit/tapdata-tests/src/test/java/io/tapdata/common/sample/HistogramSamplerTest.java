@@ -0,0 +1,134 @@
+package io.tapdata.common.sample;
+
+import io.tapdata.common.sample.sampler.HistogramSampler;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistogramSamplerTest {
+	@Test
+	public void testPercentiles() {
+		HistogramSampler sampler = new HistogramSampler();
+		for (long i = 1; i <= 10000; i++) {
+			sampler.record(i);
+		}
+		HistogramSampler.Snapshot snapshot = sampler.snapshotAndReset();
+		assertEquals(10000L, snapshot.getTotalCount());
+		assertEquals(10000L, snapshot.getMax().longValue());
+		assertWithinError(5000L, snapshot.percentile(50));
+		assertWithinError(9500L, snapshot.percentile(95));
+		assertWithinError(9900L, snapshot.percentile(99));
+		assertEquals(10000L, snapshot.percentile(100).longValue());
+
+		// snapshot and reset clears the counts
+		HistogramSampler.Snapshot empty = sampler.snapshotAndReset();
+		assertEquals(0L, empty.getTotalCount());
+		assertNull(empty.percentile(99));
+		assertNull(empty.getMax());
+	}
+
+	@Test
+	public void testValueDoesNotReset() {
+		HistogramSampler sampler = new HistogramSampler();
+		for (long i = 1; i <= 100; i++) {
+			sampler.record(i);
+		}
+		assertEquals(99L, sampler.value().longValue());
+		assertEquals(99L, sampler.value().longValue());
+		assertEquals(100L, sampler.snapshot().getTotalCount());
+		assertEquals(100L, sampler.snapshotAndReset().getTotalCount());
+		assertNull(sampler.value());
+	}
+
+	@Test
+	public void testExtremeValues() {
+		HistogramSampler sampler = new HistogramSampler();
+		sampler.record(-1L);
+		sampler.record(0L);
+		sampler.record(63L);
+		sampler.record(64L);
+		sampler.record(Long.MAX_VALUE);
+		HistogramSampler.Snapshot snapshot = sampler.snapshotAndReset();
+		assertEquals(5L, snapshot.getTotalCount());
+		assertEquals(0L, snapshot.percentile(20).longValue());
+		assertEquals(Long.MAX_VALUE, snapshot.percentile(100).longValue());
+	}
+
+	@Test
+	public void testMerge() {
+		HistogramSampler a = new HistogramSampler();
+		HistogramSampler b = new HistogramSampler();
+		for (long i = 1; i <= 100; i++) {
+			a.record(i);
+			b.record(i + 100);
+		}
+		HistogramSampler.Snapshot merged = HistogramSampler.Snapshot.empty().merge(a.snapshotAndReset()).merge(b.snapshotAndReset());
+		assertEquals(200L, merged.getTotalCount());
+		assertEquals(200L, merged.getMax().longValue());
+		assertWithinError(100L, merged.percentile(50));
+	}
+
+	@Test
+	public void testConcurrentRecordNotLost() throws InterruptedException {
+		HistogramSampler sampler = new HistogramSampler();
+		int threads = 4;
+		int perThread = 200_000;
+		CountDownLatch latch = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			new Thread(() -> {
+				for (int i = 0; i < perThread; i++) {
+					sampler.record(ThreadLocalRandom.current().nextLong(100_000));
+				}
+				latch.countDown();
+			}).start();
+		}
+		HistogramSampler.Snapshot total = HistogramSampler.Snapshot.empty();
+		while (latch.getCount() > 0) {
+			total = total.merge(sampler.snapshotAndReset());
+		}
+		total = total.merge(sampler.snapshotAndReset());
+		assertEquals((long) threads * perThread, total.getTotalCount());
+	}
+
+	@Test
+	public void testCollectorReportsPercentiles() {
+		SampleCollector collector = new SampleCollector();
+		HistogramSampler sampler = collector.getHistogramSampler("writeCost");
+		for (long i = 1; i <= 100; i++) {
+			sampler.record(i);
+		}
+		Map<String, Number> values = new HashMap<>(collector.calculateInPeriod());
+		assertTrue(values.containsKey("writeCostP50"));
+		assertTrue(values.containsKey("writeCostP95"));
+		assertTrue(values.containsKey("writeCostP99"));
+		assertEquals(100L, values.get("writeCostMax").longValue());
+		assertFalse(collector.calculateInPeriod().containsKey("writeCostP99"));
+	}
+
+	@Test
+	public void testEmptyPeriodFillsNothing() {
+		Map<String, Number> values = new HashMap<>();
+		HistogramSampler.Snapshot.empty().fill("writeCost", values);
+		assertTrue(values.isEmpty());
+
+		SampleCollector collector = new SampleCollector();
+		HistogramSampler sampler = collector.getHistogramSampler("writeCost");
+		sampler.record(5L);
+		collector.calculateInPeriod();
+		for (String suffix : HistogramSampler.PERCENTILE_SUFFIXES) {
+			assertFalse(collector.calculateInPeriod().containsKey("writeCost" + suffix));
+		}
+	}
+
+	private static void assertWithinError(long expected, Long actual) {
+		assertTrue(Math.abs(actual - expected) <= expected / 32 + 1, "expected about " + expected + " but " + actual);
+	}
+}
@@ -9,13 +9,19 @@ import io.tapdata.entity.simplify.TapSimplify;
 import io.tapdata.entity.utils.BeanUtils;
 import io.tapdata.entity.utils.InstanceFactory;
 import io.tapdata.entity.utils.ObjectSerializable;
+import io.tapdata.pdk.core.api.impl.serialize.ObjectSerializableImplV2;
 import org.apache.commons.codec.binary.Base64;
 import org.bson.BsonTimestamp;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static io.tapdata.entity.simplify.TapSimplify.*;
@@ -268,4 +274,102 @@ public class ObjectSerializableImplTest {
         }
         System.out.println("userSerializable toObject takes " + (System.currentTimeMillis() - time));
     }
+
+    @Test
+    public void testDocumentBson() throws IOException {
+        Document document = mockRow(30);
+        //Json by default, older engines can not read the bson type
+        assertEquals(ObjectSerializableImplV2.TYPE_MONGODB_DOCUMENT, InstanceFactory.instance(ObjectSerializable.class).fromObject(document)[2]);
+
+        ObjectSerializable objectSerializable = newSerializable(true);
+        byte[] bsonBytes = objectSerializable.fromObject(document);
+        assertEquals(ObjectSerializableImplV2.TYPE_MONGODB_DOCUMENT_BSON, bsonBytes[2]);
+        Document newDocument = (Document) objectSerializable.toObject(bsonBytes);
+        assertEquals(document, newDocument);
+
+        //Data written before the bson type must still be readable
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        byte[] jsonBytes = document.toJson().getBytes(StandardCharsets.UTF_8);
+        dos.writeByte(-128);
+        dos.writeByte(1);
+        dos.writeByte(ObjectSerializableImplV2.TYPE_MONGODB_DOCUMENT);
+        dos.writeInt(jsonBytes.length);
+        dos.write(jsonBytes);
+        dos.flush();
+        Document jsonDocument = (Document) objectSerializable.toObject(bos.toByteArray());
+        assertEquals(document.get("string0"), jsonDocument.get("string0"));
+        assertEquals(document.get("int0"), jsonDocument.get("int0"));
+        assertEquals(document.get("date0"), jsonDocument.get("date0"));
+        assertEquals(document.get("oid"), jsonDocument.get("oid"));
+    }
+
+    @Test
+    @Disabled("Benchmark")
+    public void testDocumentBsonPerformance() {
+        ObjectSerializableImplV2 jsonSerializable = newSerializable(false);
+        ObjectSerializableImplV2 bsonSerializable = newSerializable(true);
+        Document document = mockRow(30);
+        int times = 100000;
+        for (ObjectSerializableImplV2 serializable : Arrays.asList(jsonSerializable, bsonSerializable)) {
+            String type = serializable == jsonSerializable ? "json" : "bson";
+            byte[] bytes = serializable.fromObject(document);
+            for (int i = 0; i < times; i++) {
+                serializable.toObject(serializable.fromObject(document));
+            }
+            long time = System.nanoTime();
+            for (int i = 0; i < times; i++) {
+                serializable.fromObject(document);
+            }
+            long fromObjectNs = (System.nanoTime() - time) / times;
+            time = System.nanoTime();
+            for (int i = 0; i < times; i++) {
+                serializable.toObject(bytes);
+            }
+            long toObjectNs = (System.nanoTime() - time) / times;
+            System.out.println("30 columns document " + type + " bytes " + bytes.length + ", fromObject " + fromObjectNs + " ns/op, toObject " + toObjectNs + " ns/op");
+        }
+    }
+
+    private static ObjectSerializableImplV2 newSerializable(boolean documentAsBson) {
+        String oldValue = System.getProperty(ObjectSerializableImplV2.DOCUMENT_AS_BSON_KEY);
+        try {
+            System.setProperty(ObjectSerializableImplV2.DOCUMENT_AS_BSON_KEY, String.valueOf(documentAsBson));
+            return new ObjectSerializableImplV2();
+        } finally {
+            if (null == oldValue) {
+                System.clearProperty(ObjectSerializableImplV2.DOCUMENT_AS_BSON_KEY);
+            } else {
+                System.setProperty(ObjectSerializableImplV2.DOCUMENT_AS_BSON_KEY, oldValue);
+            }
+        }
+    }
+
+    private static Document mockRow(int columns) {
+        Document document = new Document();
+        document.put("oid", new ObjectId());
+        for (int i = 0; document.size() < columns; i++) {
+            switch (i % 6) {
+                case 0:
+                    document.put("string" + i / 6, "value of column " + i);
+                    break;
+                case 1:
+                    document.put("int" + i / 6, i * 1000);
+                    break;
+                case 2:
+                    document.put("long" + i / 6, System.currentTimeMillis() * i);
+                    break;
+                case 3:
+                    document.put("double" + i / 6, i * 3.1415d);
+                    break;
+                case 4:
+                    document.put("date" + i / 6, new Date(1690000000000L + i));
+                    break;
+                default:
+                    document.put("bool" + i / 6, i % 2 == 0);
+                    break;
+            }
+        }
+        return document;
+    }
 }